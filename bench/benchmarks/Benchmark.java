@@ -0,0 +1,32 @@
+package benchmarks;
+
+
+/**
+ * A benchmark run by the {@link BenchmarkRunner}.
+ * An operation processes a batch of records (eg: VCF lines, lookups) and the runner reports
+ * the number of records processed per second and the number of bytes allocated per record
+ * @author Julien Lajugie
+ */
+public interface Benchmark {
+
+	/**
+	 * @return the name of the benchmark
+	 */
+	public String getName();
+
+
+	/**
+	 * Prepares the data used by the operations. Not measured
+	 * @param data synthetic data used by the benchmark
+	 * @throws Exception
+	 */
+	public void setUp(SyntheticData data) throws Exception;
+
+
+	/**
+	 * Runs one operation of the benchmark
+	 * @return the number of records processed by the operation
+	 * @throws Exception
+	 */
+	public long runOperation() throws Exception;
+}
@@ -0,0 +1,257 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+
+/**
+ * Runs the benchmarks of the parsing, lookup and phasing hot paths on synthetic quartet data
+ * and writes the results in a JSON file so runs can be compared across changes.
+ * For each benchmark the runner reports the number of records processed per second (mean and standard deviation
+ * of the measured iterations) and the number of bytes allocated per record by the benchmark thread
+ * (-1 if the JVM can't measure the allocations).
+ * The runner is compiled with the sources of the project:
+ * javac -d classes $(find src bench -name "*.java")
+ * java -cp classes benchmarks.BenchmarkRunner -o results.json
+ * @author Julien Lajugie
+ */
+public class BenchmarkRunner {
+
+	private static final int 	DEFAULT_VARIANT_COUNT = 200000;		// default number of variants of the synthetic data
+	private static final int 	DEFAULT_WARMUP_ITERATIONS = 5;		// default number of iterations before the measures
+	private static final int 	DEFAULT_MEASURE_ITERATIONS = 10;	// default number of measured iterations
+	private static final long 	SEED = 42;							// seed of the synthetic data
+	private static final Method 	ALLOCATED_BYTES_METHOD = findAllocatedBytesMethod();	// method returning the bytes allocated by a thread
+	private static volatile long sink;								// sink of the benchmark results so they can't be optimized away
+
+
+	/**
+	 * Usage: java benchmarks.BenchmarkRunner -o <path to the JSON result file> -n <number of variants (optional)> -w <number of warmup iterations (optional)> -i <number of measured iterations (optional)>
+	 * @param args -o <path to the JSON result file> -n <number of variants (optional)> -w <number of warmup iterations (optional)> -i <number of measured iterations (optional)>
+	 */
+	public static void main(String[] args) {
+		// exit the program if the input parameters are not correct
+		if (!areParametersValid(args)) {
+			System.out.println("Usage: java benchmarks.BenchmarkRunner -o <path to the JSON result file> -n <number of variants (optional)> -w <number of warmup iterations (optional)> -i <number of measured iterations (optional)>");
+			System.exit(-1);
+		} else {
+			File outputFile = null;
+			int variantCount = DEFAULT_VARIANT_COUNT;
+			int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+			int measureIterations = DEFAULT_MEASURE_ITERATIONS;
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				} else if (args[i].equals("-n")) {
+					variantCount = Integer.parseInt(args[i + 1]);
+				} else if (args[i].equals("-w")) {
+					warmupIterations = Integer.parseInt(args[i + 1]);
+				} else if (args[i].equals("-i")) {
+					measureIterations = Integer.parseInt(args[i + 1]);
+				}
+			}
+			try {
+				runBenchmarks(outputFile, variantCount, warmupIterations, measureIterations);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+
+	/**
+	 * @param args parameters from the main function
+	 * @return true if the parameters are valid
+	 */
+	private static boolean areParametersValid(String[] args) {
+		if ((args == null) || (args.length == 0) || (args.length > 8) || ((args.length % 2) != 0)) {
+			return false;
+		}
+		boolean isOutputFound = false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-o")) {
+				isOutputFound = true;
+			} else if (args[i].equals("-n") || args[i].equals("-w") || args[i].equals("-i")) {
+				try {
+					int value = Integer.parseInt(args[i + 1]);
+					if ((value < 0) || ((value == 0) && !args[i].equals("-w"))) {
+						return false;
+					}
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			} else {
+				return false;
+			}
+		}
+		return isOutputFound;
+	}
+
+
+	/**
+	 * Prevents the JIT compiler from removing the computation of a value
+	 * @param value a value computed by a benchmark
+	 */
+	static void consume(long value) {
+		sink += value;
+	}
+
+
+	/**
+	 * Generates the synthetic data, runs the benchmarks and writes the results
+	 * @param outputFile JSON file where the results are written
+	 * @param variantCount number of variants of the synthetic data
+	 * @param warmupIterations number of iterations before the measures
+	 * @param measureIterations number of measured iterations
+	 * @throws Exception
+	 */
+	private static void runBenchmarks(File outputFile, int variantCount, int warmupIterations, int measureIterations) throws Exception {
+		Benchmark[] benchmarks = {
+				new ParseBenchmark(),
+				new ClassifyBenchmark(),
+				new BlockLookupBenchmark(),
+				new SegmentalDuplicationLookupBenchmark(),
+				new PhasedVectorLookupBenchmark(),
+				new MergeJoinBenchmark(),
+				new ToolThroughputBenchmark()};
+		SyntheticData data = new SyntheticData(variantCount, SEED);
+		BufferedWriter writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(outputFile));
+			writer.write("{");
+			writer.newLine();
+			writer.write("\t\"timestamp\": " + toJSONString(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date())) + ",");
+			writer.newLine();
+			writer.write("\t\"javaVersion\": " + toJSONString(System.getProperty("java.version")) + ",");
+			writer.newLine();
+			writer.write("\t\"variantCount\": " + data.getVariantCount() + ",");
+			writer.newLine();
+			writer.write("\t\"vcfFileSize\": " + data.getVCFFileSize() + ",");
+			writer.newLine();
+			writer.write("\t\"warmupIterations\": " + warmupIterations + ",");
+			writer.newLine();
+			writer.write("\t\"measureIterations\": " + measureIterations + ",");
+			writer.newLine();
+			writer.write("\t\"benchmarks\": [");
+			writer.newLine();
+			for (int i = 0; i < benchmarks.length; i++) {
+				System.err.println("Running " + benchmarks[i].getName());
+				writer.write(runBenchmark(benchmarks[i], data, warmupIterations, measureIterations));
+				writer.write(i < benchmarks.length - 1 ? "," : "");
+				writer.newLine();
+			}
+			writer.write("\t]");
+			writer.newLine();
+			writer.write("}");
+			writer.newLine();
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+			data.delete();
+		}
+	}
+
+
+	/**
+	 * Runs a benchmark
+	 * @param benchmark a {@link Benchmark}
+	 * @param data synthetic data used by the benchmark
+	 * @param warmupIterations number of iterations before the measures
+	 * @param measureIterations number of measured iterations
+	 * @return the results of the benchmark as a JSON object
+	 * @throws Exception
+	 */
+	private static String runBenchmark(Benchmark benchmark, SyntheticData data, int warmupIterations, int measureIterations) throws Exception {
+		benchmark.setUp(data);
+		for (int i = 0; i < warmupIterations; i++) {
+			benchmark.runOperation();
+		}
+		double[] recordsPerSecond = new double[measureIterations];
+		long recordCount = 0;
+		long allocatedBytes = 0;
+		for (int i = 0; i < measureIterations; i++) {
+			long allocatedBytesBefore = getAllocatedBytes();
+			long startTime = System.nanoTime();
+			long records = benchmark.runOperation();
+			long elapsedTime = System.nanoTime() - startTime;
+			long allocatedBytesAfter = getAllocatedBytes();
+			recordsPerSecond[i] = records / (elapsedTime / 1000000000d);
+			recordCount += records;
+			if ((allocatedBytes != -1) && (allocatedBytesBefore != -1) && (allocatedBytesAfter != -1)) {
+				allocatedBytes += allocatedBytesAfter - allocatedBytesBefore;
+			} else {
+				allocatedBytes = -1;
+			}
+		}
+		double mean = 0;
+		for (double currentValue: recordsPerSecond) {
+			mean += currentValue;
+		}
+		mean /= measureIterations;
+		double variance = 0;
+		for (double currentValue: recordsPerSecond) {
+			variance += (currentValue - mean) * (currentValue - mean);
+		}
+		variance /= measureIterations;
+		double bytesPerRecord = ((allocatedBytes == -1) || (recordCount == 0)) ? -1 : allocatedBytes / (double) recordCount;
+		return String.format(Locale.US, "\t\t{\"name\": %s, \"recordsPerOperation\": %d, \"recordsPerSecond\": %.1f, \"recordsPerSecondStdDev\": %.1f, \"bytesAllocatedPerRecord\": %.1f}",
+				toJSONString(benchmark.getName()), recordCount / measureIterations, mean, Math.sqrt(variance), bytesPerRecord);
+	}
+
+
+	/**
+	 * @return the method returning the bytes allocated by a thread or null if the JVM doesn't provide it
+	 */
+	private static Method findAllocatedBytesMethod() {
+		try {
+			// the allocated bytes are only available in the extension of the thread MXBean of some JVMs
+			return Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * @return the number of bytes allocated by the current thread or -1 if the JVM can't measure it
+	 */
+	private static long getAllocatedBytes() {
+		if (ALLOCATED_BYTES_METHOD == null) {
+			return -1;
+		}
+		try {
+			ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+			return (Long) ALLOCATED_BYTES_METHOD.invoke(threadBean, Thread.currentThread().getId());
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * @param value a string
+	 * @return the specified string as a JSON string
+	 */
+	private static String toJSONString(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+		for (char currentChar: value.toCharArray()) {
+			if ((currentChar == '"') || (currentChar == '\\')) {
+				builder.append('\\').append(currentChar);
+			} else if (currentChar < ' ') {
+				builder.append(String.format("\\u%04x", (int) currentChar));
+			} else {
+				builder.append(currentChar);
+			}
+		}
+		return builder.append('"').toString();
+	}
+}
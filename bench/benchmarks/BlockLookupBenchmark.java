@@ -0,0 +1,45 @@
+package benchmarks;
+
+import dataStructures.InheritanceStateBlock;
+import dataStructures.InheritanceStateBlockList;
+import dataStructures.InheritanceStateBlockListFactory;
+import dataStructures.QuartetInheritanceState;
+
+
+/**
+ * Measures the lookup of the inheritance state blocks containing the variants.
+ * Each operation looks up the block of every variant of the synthetic VCF file
+ * @author Julien Lajugie
+ */
+public class BlockLookupBenchmark implements Benchmark {
+
+	private InheritanceStateBlockList<QuartetInheritanceState> 	blockList;		// blocks of the synthetic data
+	private SyntheticData 										data;			// synthetic data with the queried positions
+
+
+	@Override
+	public String getName() {
+		return "blockLookup";
+	}
+
+
+	@Override
+	public void setUp(SyntheticData data) throws Exception {
+		this.data = data;
+		blockList = InheritanceStateBlockListFactory.createFromQuartetBgrFile(data.getBlockFile());
+	}
+
+
+	@Override
+	public long runOperation() {
+		long checksum = 0;
+		for (int i = 0; i < data.getVariantCount(); i++) {
+			InheritanceStateBlock<QuartetInheritanceState> block = blockList.getBlock(data.getChromosome(i), data.getPosition(i));
+			if (block != null) {
+				checksum += block.getStartPosition();
+			}
+		}
+		BenchmarkRunner.consume(checksum);
+		return data.getVariantCount();
+	}
+}
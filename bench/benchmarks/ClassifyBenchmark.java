@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+import dataStructures.FilterPolicy;
+import dataStructures.QuartetInheritanceState;
+import dataStructures.Variant;
+import utils.GenotypeCode;
+import utils.PatternToInheritanceStates;
+
+
+/**
+ * Measures the classification of the genotype patterns of the variants into inheritance states.
+ * Each operation classifies every variant of the synthetic VCF file from its genotype pattern
+ * and from its genotype code
+ * @author Julien Lajugie
+ */
+public class ClassifyBenchmark implements Benchmark {
+
+	private String[] 	patterns;		// genotype pattern of each variant
+	private int[] 		genotypeCodes;	// genotype code of each variant
+
+
+	@Override
+	public String getName() {
+		return "classify";
+	}
+
+
+	@Override
+	public void setUp(SyntheticData data) {
+		FilterPolicy filterPolicy = new FilterPolicy();
+		int variantCount = 0;
+		patterns = new String[data.getVariantCount()];
+		genotypeCodes = new int[data.getVariantCount()];
+		for (String currentLine: data.getVCFLines()) {
+			Variant variant = Variant.tryParse(currentLine, filterPolicy);
+			if (variant != null) {
+				patterns[variantCount] = variant.getGenotypePattern();
+				genotypeCodes[variantCount] = variant.getGenotypeCode();
+				variantCount++;
+			}
+		}
+		patterns = Arrays.copyOf(patterns, variantCount);
+		genotypeCodes = Arrays.copyOf(genotypeCodes, variantCount);
+	}
+
+
+	@Override
+	public long runOperation() {
+		long checksum = 0;
+		for (int i = 0; i < patterns.length; i++) {
+			QuartetInheritanceState[] states = PatternToInheritanceStates.getInheritanceStates(patterns[i]);
+			checksum += (states == null) ? 0 : states.length;
+			checksum += GenotypeCode.getInheritanceStates(genotypeCodes[i]).length;
+		}
+		BenchmarkRunner.consume(checksum);
+		return patterns.length;
+	}
+}
@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import dataStructures.PhasedVectorMergeJoin;
+import dataStructures.PhasedVectorSource;
+import dataStructures.VCFPhasedVectorSource;
+
+
+/**
+ * Measures the merge-join of two phased VCF files.
+ * The second file is a single chromosome subset of the synthetic VCF file that does not start at its first chromosome.
+ * The set up checks that every vector of the subset is aligned with the synthetic file, whatever the order of the sources.
+ * Each operation joins the two files
+ * @author Julien Lajugie
+ */
+public class MergeJoinBenchmark implements Benchmark {
+
+	private File 	VCFFile;			// synthetic VCF file
+	private File 	subsetFile;			// single chromosome subset of the synthetic VCF file
+	private long 	variantCount;		// number of variants of the synthetic VCF file
+
+
+	@Override
+	public String getName() {
+		return "phasedVectorMergeJoin";
+	}
+
+
+	@Override
+	public void setUp(SyntheticData data) throws Exception {
+		VCFFile = data.getVCFFile();
+		variantCount = data.getVariantCount();
+		// the subset only has the chromosome in the middle of the file
+		String chromosome = data.getChromosome(data.getVariantCount() / 2);
+		subsetFile = File.createTempFile("subset", ".vcf");
+		subsetFile.deleteOnExit();
+		BufferedWriter writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(subsetFile));
+			for (int i = 0; i < data.getVariantCount(); i++) {
+				if (data.getChromosome(i).equals(chromosome)) {
+					writer.write(data.getVCFLines().get(i));
+					writer.newLine();
+				}
+			}
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+		}
+		long subsetVectorCount = 0;
+		PhasedVectorSource subsetSource = new VCFPhasedVectorSource(subsetFile, null);
+		try {
+			while (subsetSource.next()) {
+				subsetVectorCount++;
+			}
+		} finally {
+			subsetSource.close();
+		}
+		if ((subsetVectorCount == 0) || (countAlignedVectors(VCFFile, subsetFile) != subsetVectorCount) || (countAlignedVectors(subsetFile, VCFFile) != subsetVectorCount)) {
+			throw new IllegalStateException("The vectors of the single chromosome subset are not aligned with the VCF file");
+		}
+	}
+
+
+	/**
+	 * @param file1 a phased VCF file
+	 * @param file2 another phased VCF file
+	 * @return the number of positions where both files have a vector
+	 * @throws IOException
+	 */
+	private static long countAlignedVectors(File file1, File file2) throws IOException {
+		long alignedCount = 0;
+		PhasedVectorMergeJoin join = new PhasedVectorMergeJoin(new VCFPhasedVectorSource(file1, null), new VCFPhasedVectorSource(file2, null));
+		try {
+			while (join.next()) {
+				if (join.isAligned()) {
+					alignedCount++;
+				}
+			}
+		} finally {
+			join.close();
+		}
+		return alignedCount;
+	}
+
+
+	@Override
+	public long runOperation() throws IOException {
+		BenchmarkRunner.consume(countAlignedVectors(VCFFile, subsetFile));
+		return variantCount;
+	}
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.util.List;
+
+import dataStructures.FilterPolicy;
+import dataStructures.VCFLineParser;
+import dataStructures.Variant;
+
+
+/**
+ * Measures the parsing of the VCF lines into {@link Variant} objects.
+ * Each operation parses every line of the synthetic VCF file
+ * @author Julien Lajugie
+ */
+public class ParseBenchmark implements Benchmark {
+
+	private List<String> 	lines;			// lines to parse
+	private VCFLineParser 	parser;			// parser reused for every line
+	private FilterPolicy 	filterPolicy;	// policy used to accept the variants
+
+
+	@Override
+	public String getName() {
+		return "parse";
+	}
+
+
+	@Override
+	public void setUp(SyntheticData data) {
+		lines = data.getVCFLines();
+		parser = new VCFLineParser();
+		filterPolicy = new FilterPolicy();
+	}
+
+
+	@Override
+	public long runOperation() {
+		long checksum = 0;
+		for (String currentLine: lines) {
+			Variant variant = Variant.tryParse(parser.parse(currentLine), filterPolicy);
+			if (variant != null) {
+				checksum += variant.getGenotypeCode();
+			}
+		}
+		BenchmarkRunner.consume(checksum);
+		return lines.size();
+	}
+}
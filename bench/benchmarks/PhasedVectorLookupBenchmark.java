@@ -0,0 +1,44 @@
+package benchmarks;
+
+import dataStructures.PhasedVector;
+import dataStructures.PhasedVectorList;
+
+
+/**
+ * Measures the lookup of the phased vectors of the variants.
+ * Each operation looks up the phased vector of every variant of the synthetic VCF file
+ * @author Julien Lajugie
+ */
+public class PhasedVectorLookupBenchmark implements Benchmark {
+
+	private PhasedVectorList 	vectorList;		// phased vectors of the synthetic data
+	private SyntheticData 		data;			// synthetic data with the queried positions
+
+
+	@Override
+	public String getName() {
+		return "phasedVectorLookup";
+	}
+
+
+	@Override
+	public void setUp(SyntheticData data) throws Exception {
+		this.data = data;
+		vectorList = new PhasedVectorList();
+		vectorList.loadFromVCFFile(data.getVCFFile());
+	}
+
+
+	@Override
+	public long runOperation() {
+		long checksum = 0;
+		for (int i = 0; i < data.getVariantCount(); i++) {
+			PhasedVector vector = vectorList.getPhasedVector(data.getChromosome(i), data.getPosition(i));
+			if (vector != null) {
+				checksum++;
+			}
+		}
+		BenchmarkRunner.consume(checksum);
+		return data.getVariantCount();
+	}
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import dataStructures.SegmentalDuplication;
+import dataStructures.SegmentalDuplicationList;
+
+
+/**
+ * Measures the lookup of the segmental duplications overlapping an interval.
+ * Each operation looks up an interval of 100bp starting at every variant of the synthetic VCF file
+ * @author Julien Lajugie
+ */
+public class SegmentalDuplicationLookupBenchmark implements Benchmark {
+
+	private static final int 			QUERY_LENGTH = 100;	// length of the queried intervals
+
+	private SegmentalDuplicationList 	duplicationList;	// segmental duplications of the synthetic data
+	private SyntheticData 				data;				// synthetic data with the queried positions
+	private SegmentalDuplication[] 		queries;			// queried intervals
+
+
+	@Override
+	public String getName() {
+		return "segmentalDuplicationLookup";
+	}
+
+
+	@Override
+	public void setUp(SyntheticData data) throws Exception {
+		this.data = data;
+		duplicationList = new SegmentalDuplicationList();
+		duplicationList.loadBedOrBgr(data.getSegmentalDuplicationFile());
+		duplicationList.sort();
+		queries = new SegmentalDuplication[data.getVariantCount()];
+		for (int i = 0; i < queries.length; i++) {
+			queries[i] = new SegmentalDuplication(data.getPosition(i), data.getPosition(i) + QUERY_LENGTH);
+		}
+	}
+
+
+	@Override
+	public long runOperation() {
+		long checksum = 0;
+		for (int i = 0; i < queries.length; i++) {
+			SegmentalDuplication duplication = duplicationList.getBlockOverlapping(data.getChromosome(i), queries[i]);
+			if (duplication != null) {
+				checksum += duplication.getStartPosition();
+			}
+		}
+		BenchmarkRunner.consume(checksum);
+		return queries.length;
+	}
+}
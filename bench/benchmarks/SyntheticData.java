@@ -0,0 +1,346 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Synthetic data of a family quartet used by the benchmarks:
+ * a quartet VCF file, the quartet inheritance blocks of the file in a bgr file and a bed file of segmental duplications.
+ * The genotypes are generated from alternative allele frequencies following a neutral site frequency spectrum
+ * and the children inherit the parental alleles according to the inheritance blocks, which gives realistic
+ * genotype pattern frequencies. A small fraction of the genotypes contain an error (MIE or SCE)
+ * @author Julien Lajugie
+ */
+public class SyntheticData {
+
+	private static final int 		CHROMOSOME_COUNT = 4;		// number of chromosomes
+	private static final int 		MEAN_VARIANT_SPACING = 1000;// mean distance between two variants in bp
+	private static final double 	ERROR_RATE = 0.002;			// probability of a genotype error at a site
+	private static final double 	PHASED_RATE = 0.5;			// fraction of the children genotypes written as phased
+	private static final double 	SEGMENTAL_DUPLICATION_RATE = 0.05;	// fraction of the genome in segmental duplications
+	private static final String 	VCF_HEADER = "##fileformat=VCFv4.1\n" +
+			"##INFO=<ID=AC,Number=A,Type=Integer,Description=\"Allele count\">\n" +
+			"##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n" +
+			"##FORMAT=<ID=AD,Number=.,Type=Integer,Description=\"Allelic depths\">\n" +
+			"##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">\n" +
+			"##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Genotype quality\">\n" +
+			"##FORMAT=<ID=PL,Number=G,Type=Integer,Description=\"Phred-scaled genotype likelihoods\">\n" +
+			"#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tFATHER\tMOTHER\tKID1\tKID2";	// header of the VCF file
+	private static final char[] 	BASES = {'A', 'C', 'G', 'T'};	// bases of the alleles
+
+	private final File 				directory;				// directory of the generated files
+	private final File 				VCFFile;				// quartet VCF file
+	private final File 				blockFile;				// quartet inheritance blocks bgr file
+	private final File 				segmentalDuplicationFile;	// segmental duplication bed file
+	private final List<String> 		VCFLines;				// lines of the VCF file without the header
+	private final List<String> 		chromosomes;			// chromosome of each variant
+	private final int[] 			positions;				// position of each variant
+	private final long 				VCFFileSize;			// size of the VCF file in bytes
+
+
+	/**
+	 * Generates the synthetic data in a new temporary directory
+	 * @param variantCount number of variants of the VCF file
+	 * @param seed seed of the random generator, the same seed gives the same data
+	 * @throws IOException if the files cannot be written
+	 */
+	public SyntheticData(int variantCount, long seed) throws IOException {
+		Random random = new Random(seed);
+		directory = File.createTempFile("quartetBenchmark", "");
+		if (!directory.delete() || !directory.mkdir()) {
+			throw new IOException("Cannot create the directory " + directory.getPath());
+		}
+		VCFFile = new File(directory, "quartet.vcf");
+		blockFile = new File(directory, "blocks.bgr");
+		segmentalDuplicationFile = new File(directory, "segmentalDuplications.bed");
+		VCFLines = new ArrayList<>(variantCount);
+		chromosomes = new ArrayList<>(variantCount);
+		positions = new int[variantCount];
+		BufferedWriter VCFWriter = null;
+		BufferedWriter blockWriter = null;
+		BufferedWriter segmentalDuplicationWriter = null;
+		try {
+			VCFWriter = new BufferedWriter(new FileWriter(VCFFile));
+			blockWriter = new BufferedWriter(new FileWriter(blockFile));
+			segmentalDuplicationWriter = new BufferedWriter(new FileWriter(segmentalDuplicationFile));
+			VCFWriter.write(VCF_HEADER);
+			VCFWriter.newLine();
+			int variantIndex = 0;
+			for (int i = 0; i < CHROMOSOME_COUNT; i++) {
+				String chromosome = "chr" + (i + 1);
+				int chromosomeVariantCount = (variantCount - variantIndex) / (CHROMOSOME_COUNT - i);
+				int position = 0;
+				for (int j = 0; j < chromosomeVariantCount; j++) {
+					position += 1 + random.nextInt(2 * MEAN_VARIANT_SPACING - 1);
+					positions[variantIndex + j] = position;
+				}
+				// the chromosome ends after its last variant
+				int chromosomeLength = position + 1;
+				List<Integer> paternalCrossovers = generateCrossovers(random, chromosomeLength);
+				List<Integer> maternalCrossovers = generateCrossovers(random, chromosomeLength);
+				writeBlocks(blockWriter, chromosome, chromosomeLength, paternalCrossovers, maternalCrossovers);
+				writeSegmentalDuplications(segmentalDuplicationWriter, random, chromosome, chromosomeLength);
+				for (int j = 0; j < chromosomeVariantCount; j++) {
+					position = positions[variantIndex];
+					boolean isPaternalIdentical = (countCrossoversBefore(paternalCrossovers, position) % 2) == 0;
+					boolean isMaternalIdentical = (countCrossoversBefore(maternalCrossovers, position) % 2) == 0;
+					String line = generateVCFLine(random, chromosome, position, isPaternalIdentical, isMaternalIdentical);
+					VCFWriter.write(line);
+					VCFWriter.newLine();
+					VCFLines.add(line);
+					chromosomes.add(chromosome);
+					variantIndex++;
+				}
+			}
+		} finally {
+			if (VCFWriter != null) {
+				VCFWriter.close();
+			}
+			if (blockWriter != null) {
+				blockWriter.close();
+			}
+			if (segmentalDuplicationWriter != null) {
+				segmentalDuplicationWriter.close();
+			}
+		}
+		VCFFileSize = VCFFile.length();
+	}
+
+
+	/**
+	 * @param random random generator
+	 * @param chromosomeLength length of the chromosome
+	 * @return between 1 and 3 sorted crossover positions
+	 */
+	private static List<Integer> generateCrossovers(Random random, int chromosomeLength) {
+		List<Integer> crossovers = new ArrayList<>();
+		int crossoverCount = 1 + random.nextInt(3);
+		for (int i = 0; i < crossoverCount; i++) {
+			crossovers.add(1 + random.nextInt(Math.max(1, chromosomeLength - 1)));
+		}
+		Collections.sort(crossovers);
+		return crossovers;
+	}
+
+
+	/**
+	 * @param crossovers sorted crossover positions
+	 * @param position a position
+	 * @return the number of crossovers before the specified position
+	 */
+	private static int countCrossoversBefore(List<Integer> crossovers, int position) {
+		int count = 0;
+		while ((count < crossovers.size()) && (crossovers.get(count) < position)) {
+			count++;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Writes the quartet inheritance blocks of a chromosome in a bgr format
+	 * @param writer writer of the bgr file
+	 * @param chromosome a chromosome
+	 * @param chromosomeLength length of the chromosome
+	 * @param paternalCrossovers crossovers switching the paternal trio state
+	 * @param maternalCrossovers crossovers switching the maternal trio state
+	 * @throws IOException
+	 */
+	private static void writeBlocks(BufferedWriter writer, String chromosome, int chromosomeLength, List<Integer> paternalCrossovers, List<Integer> maternalCrossovers) throws IOException {
+		List<Integer> boundaries = new ArrayList<>();
+		boundaries.add(0);
+		boundaries.addAll(paternalCrossovers);
+		boundaries.addAll(maternalCrossovers);
+		boundaries.add(chromosomeLength);
+		Collections.sort(boundaries);
+		for (int i = 0; i < boundaries.size() - 1; i++) {
+			int start = boundaries.get(i);
+			int stop = boundaries.get(i + 1);
+			if (start < stop) {
+				boolean isPaternalIdentical = (countCrossoversBefore(paternalCrossovers, start + 1) % 2) == 0;
+				boolean isMaternalIdentical = (countCrossoversBefore(maternalCrossovers, start + 1) % 2) == 0;
+				// scores of the quartet states: 1 non-identical, 2 paternal, 3 maternal, 4 identical
+				int score;
+				if (isPaternalIdentical) {
+					score = isMaternalIdentical ? 4 : 2;
+				} else {
+					score = isMaternalIdentical ? 3 : 1;
+				}
+				writer.write(chromosome + '\t' + start + '\t' + stop + '\t' + score);
+				writer.newLine();
+			}
+		}
+	}
+
+
+	/**
+	 * Writes random segmental duplications covering about {@link #SEGMENTAL_DUPLICATION_RATE} of a chromosome
+	 * @param writer writer of the bed file
+	 * @param random random generator
+	 * @param chromosome a chromosome
+	 * @param chromosomeLength length of the chromosome
+	 * @throws IOException
+	 */
+	private static void writeSegmentalDuplications(BufferedWriter writer, Random random, String chromosome, int chromosomeLength) throws IOException {
+		int meanLength = 20000;
+		int meanSpacing = (int) (meanLength / SEGMENTAL_DUPLICATION_RATE);
+		int position = random.nextInt(meanSpacing);
+		while (position < chromosomeLength) {
+			int length = 1000 + random.nextInt(2 * meanLength - 1000);
+			writer.write(chromosome + '\t' + position + '\t' + (position + length));
+			writer.newLine();
+			position += length + random.nextInt(2 * meanSpacing);
+		}
+	}
+
+
+	/**
+	 * Generates the line of a variant. The parental alleles are drawn from an alternative allele frequency following
+	 * a neutral site frequency spectrum and each child receives the first allele of each parent in the identical state
+	 * @param random random generator
+	 * @param chromosome chromosome of the variant
+	 * @param position position of the variant
+	 * @param isPaternalIdentical true if the children received the same allele from the father
+	 * @param isMaternalIdentical true if the children received the same allele from the mother
+	 * @return a VCF line
+	 */
+	private static String generateVCFLine(Random random, String chromosome, int position, boolean isPaternalIdentical, boolean isMaternalIdentical) {
+		boolean[] alleles = new boolean[8];	// father, mother, kid1 and kid2 alleles, true for the alternative allele
+		do {
+			// density in 1/p between 0.01 and 0.5, the alternative allele is the major allele half of the time
+			double frequency = 0.01 * Math.pow(50, random.nextDouble());
+			if (random.nextBoolean()) {
+				frequency = 1 - frequency;
+			}
+			for (int i = 0; i < 4; i++) {
+				alleles[i] = random.nextDouble() < frequency;
+			}
+			int paternalAllele = random.nextInt(2);
+			int maternalAllele = random.nextInt(2);
+			alleles[4] = alleles[paternalAllele];
+			alleles[5] = alleles[2 + maternalAllele];
+			alleles[6] = alleles[isPaternalIdentical ? paternalAllele : 1 - paternalAllele];
+			alleles[7] = alleles[2 + (isMaternalIdentical ? maternalAllele : 1 - maternalAllele)];
+			if (random.nextDouble() < ERROR_RATE) {
+				int errorIndex = random.nextInt(8);
+				alleles[errorIndex] = !alleles[errorIndex];
+			}
+		} while (!alleles[0] && !alleles[1] && !alleles[2] && !alleles[3] && !alleles[4] && !alleles[5] && !alleles[6] && !alleles[7]);
+		int referenceIndex = random.nextInt(4);
+		char reference = BASES[referenceIndex];
+		char alternative = BASES[(referenceIndex + 1 + random.nextInt(3)) % 4];
+		StringBuilder line = new StringBuilder();
+		line.append(chromosome).append('\t').append(position).append("\t.\t").append(reference).append('\t').append(alternative);
+		line.append("\t").append(50 + random.nextInt(5000)).append("\tPASS\tAC=");
+		int alternativeCount = 0;
+		for (boolean currentAllele: alleles) {
+			alternativeCount += currentAllele ? 1 : 0;
+		}
+		line.append(alternativeCount).append("\tGT:AD:DP:GQ:PL");
+		for (int i = 0; i < 4; i++) {
+			boolean firstAllele = alleles[2 * i];
+			boolean secondAllele = alleles[(2 * i) + 1];
+			boolean isPhased = (i >= 2) && (random.nextDouble() < PHASED_RATE);
+			line.append('\t');
+			if (isPhased) {
+				line.append(firstAllele ? '1' : '0').append('|').append(secondAllele ? '1' : '0');
+			} else {
+				// unphased genotypes are written with the reference allele first
+				line.append((firstAllele && secondAllele) ? '1' : '0').append('/').append((firstAllele || secondAllele) ? '1' : '0');
+			}
+			int depth = 10 + random.nextInt(40);
+			int alternativeDepth = firstAllele == secondAllele ? (firstAllele ? depth : 0) : depth / 2;
+			int alternativeAlleleCount = (firstAllele ? 1 : 0) + (secondAllele ? 1 : 0);
+			line.append(':').append(depth - alternativeDepth).append(',').append(alternativeDepth);
+			line.append(':').append(depth).append(":99:");
+			line.append(alternativeAlleleCount == 0 ? 0 : 99).append(',');
+			line.append(alternativeAlleleCount == 1 ? 0 : 99).append(',');
+			line.append(alternativeAlleleCount == 2 ? 0 : 99);
+		}
+		return line.toString();
+	}
+
+
+	/**
+	 * Deletes the generated files
+	 */
+	public void delete() {
+		VCFFile.delete();
+		blockFile.delete();
+		segmentalDuplicationFile.delete();
+		directory.delete();
+	}
+
+
+	/**
+	 * @return the quartet VCF file
+	 */
+	public File getVCFFile() {
+		return VCFFile;
+	}
+
+
+	/**
+	 * @return the quartet inheritance blocks bgr file
+	 */
+	public File getBlockFile() {
+		return blockFile;
+	}
+
+
+	/**
+	 * @return the segmental duplication bed file
+	 */
+	public File getSegmentalDuplicationFile() {
+		return segmentalDuplicationFile;
+	}
+
+
+	/**
+	 * @return the lines of the VCF file without the header
+	 */
+	public List<String> getVCFLines() {
+		return VCFLines;
+	}
+
+
+	/**
+	 * @return the number of variants
+	 */
+	public int getVariantCount() {
+		return positions.length;
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the chromosome of the variant
+	 */
+	public String getChromosome(int index) {
+		return chromosomes.get(index);
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the position of the variant
+	 */
+	public int getPosition(int index) {
+		return positions[index];
+	}
+
+
+	/**
+	 * @return the size of the VCF file in bytes
+	 */
+	public long getVCFFileSize() {
+		return VCFFileSize;
+	}
+}
@@ -0,0 +1,40 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import mains.FindInheritanceStates;
+
+
+/**
+ * Measures the end-to-end throughput of the {@link FindInheritanceStates} tool.
+ * Each operation runs the tool on the synthetic VCF file with the output printed in a temporary file
+ * @author Julien Lajugie
+ */
+public class ToolThroughputBenchmark implements Benchmark {
+
+	private String[] 	arguments;		// arguments of the tool
+	private long 		variantCount;	// number of variants of the input file
+
+
+	@Override
+	public String getName() {
+		return "findInheritanceStates";
+	}
+
+
+	@Override
+	public void setUp(SyntheticData data) throws IOException {
+		File outputFile = File.createTempFile("findInheritanceStates", ".txt");
+		outputFile.deleteOnExit();
+		arguments = new String[] {"-f", data.getVCFFile().getPath(), "-a", "moving", "-o", outputFile.getPath()};
+		variantCount = data.getVariantCount();
+	}
+
+
+	@Override
+	public long runOperation() {
+		FindInheritanceStates.main(arguments);
+		return variantCount;
+	}
+}
@@ -2,7 +2,6 @@ package dataStructures;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -10,6 +9,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import utils.GenomicFileReader;
+
 /**
  * List of {@link AffymetrixSNPList} organized in a map indexed by chromosomes 
  * @author Julien Lajugie
@@ -35,7 +36,7 @@ public class AffymetrixSNPList {
 	public void loadAffymetrixFile(File affyFile) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(affyFile));
+			reader = GenomicFileReader.open(affyFile);
 			String line = null;
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
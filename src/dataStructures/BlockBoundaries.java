@@ -0,0 +1,126 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+
+/**
+ * Boundaries of the blocks of one chromosome stored in primitive arrays.
+ * The blocks are sorted by start and stop position the first time they are queried.
+ * Start and stop positions are both inclusive, like the positions of a {@link SegmentalDuplication}
+ * @author Julien Lajugie
+ */
+public class BlockBoundaries {
+
+	private static final int DEFAULT_CAPACITY = 16;	// initial capacity of the arrays
+
+	private int[] 		startPositions;		// start positions of the blocks
+	private int[] 		stopPositions;		// stop positions of the blocks
+	private int[] 		maxStopPositions;	// max stop position of the blocks from the first one to each block
+	private int 		size;				// number of blocks
+	private boolean 	isSorted;			// true if the blocks are sorted and the max stop positions computed
+
+
+	/**
+	 * Creates an instance of {@link BlockBoundaries}
+	 */
+	public BlockBoundaries() {
+		startPositions = new int[DEFAULT_CAPACITY];
+		stopPositions = new int[DEFAULT_CAPACITY];
+		size = 0;
+		isSorted = false;
+	}
+
+
+	/**
+	 * Adds a block
+	 * @param startPosition start position of the block
+	 * @param stopPosition stop position of the block
+	 */
+	public void add(int startPosition, int stopPosition) {
+		if (size == startPositions.length) {
+			int newCapacity = startPositions.length + (startPositions.length >> 1);
+			startPositions = Arrays.copyOf(startPositions, newCapacity);
+			stopPositions = Arrays.copyOf(stopPositions, newCapacity);
+		}
+		startPositions[size] = startPosition;
+		stopPositions[size] = stopPosition;
+		size++;
+		isSorted = false;
+	}
+
+
+	/**
+	 * Sorts the blocks by start and stop position and computes the max stop positions
+	 */
+	private void sort() {
+		long[] keys = new long[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = ((long) startPositions[i] << 32) | (stopPositions[i] & 0xFFFFFFFFL);
+		}
+		Arrays.sort(keys);
+		startPositions = new int[size];
+		stopPositions = new int[size];
+		maxStopPositions = new int[size];
+		for (int i = 0; i < size; i++) {
+			startPositions[i] = (int) (keys[i] >> 32);
+			stopPositions[i] = (int) keys[i];
+			maxStopPositions[i] = (i == 0) ? stopPositions[i] : Math.max(maxStopPositions[i - 1], stopPositions[i]);
+		}
+		isSorted = true;
+	}
+
+
+	/**
+	 * @return the number of blocks
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * @param startPosition start position of an interval
+	 * @param stopPosition stop position of the interval
+	 * @return the index of the first block in position order overlapping with the specified interval. -1 if there is none
+	 */
+	public int indexOfFirstOverlapping(int startPosition, int stopPosition) {
+		if (!isSorted) {
+			sort();
+		}
+		// first block with a max stop position after the start of the interval
+		int start = 0;
+		int stop = size;
+		while (start < stop) {
+			int mid = (start + stop) >>> 1;
+			if (maxStopPositions[mid] < startPosition) {
+				start = mid + 1;
+			} else {
+				stop = mid;
+			}
+		}
+		for (int i = start; (i < size) && (startPositions[i] <= stopPosition); i++) {
+			if (stopPositions[i] >= startPosition) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * @param index index of a block returned by {@link #indexOfFirstOverlapping(int, int)}
+	 * @return the start position of the block
+	 */
+	public int getStartPosition(int index) {
+		return startPositions[index];
+	}
+
+
+	/**
+	 * @param index index of a block returned by {@link #indexOfFirstOverlapping(int, int)}
+	 * @return the stop position of the block
+	 */
+	public int getStopPosition(int index) {
+		return stopPositions[index];
+	}
+}
@@ -0,0 +1,184 @@
+package dataStructures;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Order of the chromosomes of several files sorted by chromosome and position, learned while the files are read.
+ * Each file has its own order: the order where its chromosomes are read. A file can start after the first chromosomes
+ * of the other files or miss some of their chromosomes, but it cannot read a chromosome again once it moved to another one.
+ * Two chromosomes are ordered like in a file that read both of them. When no file read both chromosomes yet, they are
+ * ordered like in a karyotype (1 to 22, X, Y, M and then the other chromosomes by name).
+ * Once the join moved to a chromosome, the files that did not read this chromosome cannot read it anymore.
+ * Used by the joins reading sorted files in lockstep (see {@link PhasedVectorMergeJoin} and {@link VCFLineMergeJoin})
+ * @author Julien Lajugie
+ */
+public class ChromosomeOrder {
+
+	private static final int 					PASSED_RANK = -1;	// rank of a chromosome that the join passed before a file read it
+
+	private final Map<String, Integer> 			ids;				// identifier of each chromosome read so far
+	private final List<String> 					chromosomes;		// chromosome of each identifier
+	private final List<Map<Integer, Integer>> 	fileRanks;			// rank of the chromosomes in the order of each file
+	private int 								lastId1 = -1;		// first chromosome of the last comparison
+	private int 								lastId2 = -1;		// second chromosome of the last comparison
+	private int 								lastResult;			// result of the last comparison
+
+
+	/**
+	 * Creates an instance of {@link ChromosomeOrder}
+	 * @param fileCount number of files read by the join
+	 */
+	public ChromosomeOrder(int fileCount) {
+		ids = new HashMap<>();
+		chromosomes = new ArrayList<>();
+		fileRanks = new ArrayList<>(fileCount);
+		for (int i = 0; i < fileCount; i++) {
+			fileRanks.add(new HashMap<Integer, Integer>());
+		}
+	}
+
+
+	/**
+	 * Registers that a file moves to a new chromosome
+	 * @param fileIndex index of the file
+	 * @param chromosome chromosome of the next record of the file
+	 * @param fileName name of the file used in the error messages
+	 * @return the identifier of the chromosome
+	 * @throws IOException if the file already read this chromosome or if the join already passed it
+	 */
+	public int moveTo(int fileIndex, String chromosome, String fileName) throws IOException {
+		int id = getId(chromosome);
+		Map<Integer, Integer> ranks = fileRanks.get(fileIndex);
+		Integer rank = ranks.get(id);
+		if (rank != null) {
+			if (rank == PASSED_RANK) {
+				throw new IOException("The files are not sorted in the same chromosome order (" + fileName + ", " + chromosome + ")");
+			} else {
+				throw new IOException(fileName + " is not sorted by chromosome (" + chromosome + ")");
+			}
+		}
+		ranks.put(id, ranks.size());
+		// what is known of the order changed
+		lastId1 = -1;
+		return id;
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @return the identifier of the specified chromosome. A new identifier is given to the chromosome if it was never read before
+	 */
+	private int getId(String chromosome) {
+		Integer id = ids.get(chromosome);
+		if (id == null) {
+			id = chromosomes.size();
+			ids.put(chromosome, id);
+			chromosomes.add(chromosome);
+		}
+		return id;
+	}
+
+
+	/**
+	 * Registers that the join moves to a chromosome. The files that did not read this chromosome cannot read it anymore
+	 * @param chromosomeId identifier of the chromosome
+	 */
+	public void enter(int chromosomeId) {
+		for (Map<Integer, Integer> ranks: fileRanks) {
+			if (!ranks.containsKey(chromosomeId)) {
+				ranks.put(chromosomeId, PASSED_RANK);
+			}
+		}
+	}
+
+
+	/**
+	 * @param chromosomeId1 identifier of a chromosome
+	 * @param chromosomeId2 identifier of another chromosome
+	 * @return a negative integer, zero, or a positive integer as the first chromosome is before, is or is after the second chromosome
+	 */
+	public int compare(int chromosomeId1, int chromosomeId2) {
+		if (chromosomeId1 == chromosomeId2) {
+			return 0;
+		}
+		if ((chromosomeId1 == lastId1) && (chromosomeId2 == lastId2)) {
+			return lastResult;
+		}
+		int result = 0;
+		// the chromosomes are ordered like in the first file that read both of them
+		for (int i = 0; (i < fileRanks.size()) && (result == 0); i++) {
+			Integer rank1 = fileRanks.get(i).get(chromosomeId1);
+			Integer rank2 = fileRanks.get(i).get(chromosomeId2);
+			if ((rank1 != null) && (rank2 != null) && (rank1 != PASSED_RANK) && (rank2 != PASSED_RANK)) {
+				result = Integer.compare(rank1, rank2);
+			}
+		}
+		if (result == 0) {
+			result = compareKaryotype(chromosomes.get(chromosomeId1), chromosomes.get(chromosomeId2));
+		}
+		lastId1 = chromosomeId1;
+		lastId2 = chromosomeId2;
+		lastResult = result;
+		return result;
+	}
+
+
+	/**
+	 * @param chromosome1 a chromosome
+	 * @param chromosome2 another chromosome
+	 * @return a negative integer, zero, or a positive integer as the first chromosome is before, is or is after the second chromosome in a karyotype
+	 */
+	private static int compareKaryotype(String chromosome1, String chromosome2) {
+		int karyotypeRank1 = getKaryotypeRank(chromosome1);
+		int karyotypeRank2 = getKaryotypeRank(chromosome2);
+		if (karyotypeRank1 != karyotypeRank2) {
+			return Integer.compare(karyotypeRank1, karyotypeRank2);
+		}
+		return chromosome1.compareTo(chromosome2);
+	}
+
+
+	/**
+	 * @param chromosome a chromosome with or without the "chr" prefix
+	 * @return the rank of the chromosome in a karyotype. {@link Integer#MAX_VALUE} for the chromosomes that are not numbered, X, Y or M
+	 */
+	private static int getKaryotypeRank(String chromosome) {
+		String name = chromosome.regionMatches(true, 0, "chr", 0, 3) ? chromosome.substring(3) : chromosome;
+		if (name.equalsIgnoreCase("X")) {
+			return 1001;
+		} else if (name.equalsIgnoreCase("Y")) {
+			return 1002;
+		} else if (name.equalsIgnoreCase("M") || name.equalsIgnoreCase("MT")) {
+			return 1003;
+		}
+		try {
+			int number = Integer.parseInt(name);
+			if ((number > 0) && (number <= 1000)) {
+				return number;
+			}
+		} catch (NumberFormatException e) {
+			// not a numbered chromosome
+		}
+		return Integer.MAX_VALUE;
+	}
+
+
+	/**
+	 * Checks that a file moves from a record to the next one in increasing position order within a chromosome
+	 * @param previousPosition position of the previous record of the file
+	 * @param position position of the next record of the file, on the same chromosome
+	 * @param fileName name of the file used in the error message
+	 * @param chromosome chromosome of the records used in the error message
+	 * @throws IOException if the next record is before the previous one
+	 */
+	public static void checkPosition(int previousPosition, int position, String fileName, String chromosome) throws IOException {
+		if (position < previousPosition) {
+			throw new IOException(fileName + " is not sorted by position (" + chromosome + ":" + position + ")");
+		}
+	}
+}
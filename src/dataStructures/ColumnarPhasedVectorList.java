@@ -0,0 +1,231 @@
+package dataStructures;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import utils.GenomicFileReader;
+import utils.LineSliceHandlerFactory;
+import utils.MappedLineReader;
+
+
+/**
+ * This class represents a list of phased vectors organised by chromosome.
+ * Unlike {@link PhasedVectorList} the vectors are not stored as objects but in a {@link PhasedVectorColumn}
+ * of primitive arrays per chromosome
+ * @author Julien Lajugie
+ */
+public class ColumnarPhasedVectorList {
+
+	private final Map<String, PhasedVectorColumn> phasedVectorMap; // columns of phased vectors organised by chromosome
+
+
+	/**
+	 * Creates an instance of {@link ColumnarPhasedVectorList}
+	 */
+	public ColumnarPhasedVectorList() {
+		phasedVectorMap = new HashMap<String, PhasedVectorColumn>();
+	}
+
+
+	/**
+	 * Load a vcf File
+	 * @param vcfFile a vcf file
+	 * @throws IOException
+	 */
+	public void loadFromVCFFile(File vcfFile) throws IOException {
+		loadFromVCFFile(vcfFile, null);
+	}
+
+
+	/**
+	 * Load the variants of a region of a vcf File.
+	 * A plain text file is read in parallel when there is no region. A compressed file is read in one thread
+	 * and seeks directly to the region when it has a tabix index. A QGT file is loaded using {@link #loadFromQGTFile(File, GenomicRegion)}
+	 * @param vcfFile a plain text or bgzip compressed vcf file or a QGT file
+	 * @param region region to load, the whole file is loaded if null
+	 * @throws IOException
+	 */
+	public void loadFromVCFFile(File vcfFile, GenomicRegion region) throws IOException {
+		if (QGTFile.isQGTFile(vcfFile)) {
+			loadFromQGTFile(vcfFile, region);
+			return;
+		}
+		if ((region == null) && !GenomicFileReader.isCompressed(vcfFile)) {
+			// the file is split in ranges loaded in parallel
+			List<PhasedVectorRangeLoader> rangeLoaders = new MappedLineReader(vcfFile).readParallel(new LineSliceHandlerFactory<PhasedVectorRangeLoader>() {
+				@Override
+				public PhasedVectorRangeLoader createHandler() {
+					return new PhasedVectorRangeLoader();
+				}
+			});
+			// the ranges are appended in file order
+			for (PhasedVectorRangeLoader currentLoader: rangeLoaders) {
+				addAll(currentLoader.getVectorList());
+			}
+		} else {
+			BufferedReader reader = null;
+			try {
+				reader = GenomicFileReader.open(vcfFile, region);
+				String line = null;
+				VCFLineParser parser = new VCFLineParser();
+				FilterPolicy filterPolicy = new FilterPolicy();
+				// loop until eof
+				while ((line = reader.readLine()) != null) {
+					// we don't care about the comment lines
+					if (line.trim().charAt(0) != '#') {
+						Variant variant = Variant.tryParse(parser.parse(line), filterPolicy);
+						if ((variant != null) && !variant.isIndel()) {
+							addVector(variant.getChromosome(), variant.getPosition(), PhasedVector.createVector(variant));
+						}
+					}
+				}
+			} finally {
+				if (reader != null) {
+					reader.close();
+				}
+			}
+		}
+		// we sort the columns in position order
+		sortColumns();
+	}
+
+
+	/**
+	 * Load the SNPs of a region of a QGT file
+	 * @param qgtFile a QGT file created from a vcf file (see {@link QGTWriter})
+	 * @param region region to load, the whole file is loaded if null
+	 * @throws IOException
+	 */
+	public void loadFromQGTFile(File qgtFile, GenomicRegion region) throws IOException {
+		QGTFile file = new QGTFile(qgtFile);
+		for (String currentChromosome: file.getChromosomes()) {
+			if ((region == null) || region.getChromosome().equals(currentChromosome)) {
+				QGTChromosome block = file.getChromosome(currentChromosome);
+				for (int i = 0; i < block.size(); i++) {
+					int position = block.getPosition(i);
+					if (!block.isIndel(i) && ((region == null) || region.contains(currentChromosome, position))) {
+						addVector(currentChromosome, position, block.getVector(i));
+					}
+				}
+			}
+		}
+		// we sort the columns in position order
+		sortColumns();
+	}
+
+
+	/**
+	 * Load a phased vector file
+	 * @param phasedVectorFile
+	 * @throws IOException
+	 */
+	public void loadFromHaplotypingFile(File phasedVectorFile) throws IOException {
+		BufferedReader reader = null;
+		try {
+			reader = GenomicFileReader.open(phasedVectorFile);
+			String line = null;
+			// loop until eof
+			while ((line = reader.readLine()) != null) {
+				// we don't care about the comment lines
+				if (line.trim().charAt(0) != '#') {
+					String[] splitLine = line.split("\t");
+					String chromosome = splitLine[0].trim();
+					int position = Integer.parseInt(splitLine[1].trim());
+					String unphasedVector = splitLine[3].trim();
+					String phasedVector = splitLine[4].trim();
+					if ((!phasedVector.equals("SCE")) && (!phasedVector.equals("MIE"))) {
+						addVector(chromosome, position, PhasedVector.createVector(unphasedVector, phasedVector));
+					}
+				}
+			}
+			// we sort the columns in position order
+			sortColumns();
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a vector to the column of the specified chromosome
+	 * @param chromosome a chromosome
+	 * @param position position of the vector
+	 * @param vector genotype vector
+	 */
+	public void addVector(String chromosome, int position, short vector) {
+		PhasedVectorColumn column = phasedVectorMap.get(chromosome);
+		// if the map doesn't contain the chromosome we add it
+		if (column == null) {
+			column = new PhasedVectorColumn();
+			phasedVectorMap.put(chromosome, column);
+		}
+		column.add(position, vector);
+	}
+
+
+	/**
+	 * Adds all the vectors of the specified list at the end of the columns of this list
+	 * @param vectorList a {@link ColumnarPhasedVectorList}
+	 */
+	public void addAll(ColumnarPhasedVectorList vectorList) {
+		for (Map.Entry<String, PhasedVectorColumn> currentEntry: vectorList.phasedVectorMap.entrySet()) {
+			PhasedVectorColumn column = phasedVectorMap.get(currentEntry.getKey());
+			if (column == null) {
+				column = new PhasedVectorColumn();
+				phasedVectorMap.put(currentEntry.getKey(), column);
+			}
+			column.addAll(currentEntry.getValue());
+		}
+	}
+
+
+	/**
+	 * For each chromosome of the map, this method sorts the vectors by position and trims the arrays
+	 */
+	public void sortColumns() {
+		for (PhasedVectorColumn currentColumn: phasedVectorMap.values()) {
+			currentColumn.sort();
+			currentColumn.trimToSize();
+		}
+	}
+
+
+	/**
+	 * @return the chromosomes of the list
+	 */
+	public Set<String> getChromosomes() {
+		return phasedVectorMap.keySet();
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @return the column of phased vectors for the specified chromosome. Null if there is none
+	 */
+	public PhasedVectorColumn getColumn(String chromosome) {
+		return phasedVectorMap.get(chromosome);
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @param position a position
+	 * @return a copy of the vector on the specified chromosome at the specified position as a {@link PhasedVector}.
+	 * Changes made to the returned object are not reflected in the list. Null if there is none
+	 */
+	public PhasedVector getPhasedVector(String chromosome, int position) {
+		PhasedVectorColumn column = phasedVectorMap.get(chromosome);
+		if (column == null) {
+			return null;
+		}
+		int index = column.indexOf(position);
+		return index == -1 ? null : column.getPhasedVector(index);
+	}
+}
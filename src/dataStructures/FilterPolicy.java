@@ -0,0 +1,427 @@
+package dataStructures;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Set of filters applied to the lines of a VCF file when they are parsed into {@link Variant} objects.
+ * A policy also counts the lines accepted and rejected by {@link Variant#tryParse(VCFLineParser, FilterPolicy)}
+ * for each {@link VCFRejectReason}
+ * @author Julien Lajugie
+ */
+public class FilterPolicy {
+
+	private boolean 			useGATKHardFiltering;				// filter using the GATK hard filtering recommendation from the best practice V3 if true
+	private boolean 			useIndividualsScoreFiltering;		// filter using the some of the individual quality scores if true
+	private Integer 			individualsPLMinValue;				// value of the PL filter, null to disable
+	private VCFFilterField 		filterFieldFiltering;				// filter on the filter field
+	private boolean 			useHeterozygousFiltering;			// filter excluding the fully heterozygous genotypes
+	private boolean 			use3QuaterHeterozygousFiltering;	// filter excluding the 3/4 heterozygous genotypes
+	private double 				phasingQualityThreshold;			// only consider the genotypes with a score above this threshold as phased
+	private boolean 			useMIEFiltering;					// filters out MIE variants if set to true
+	private final AtomicLongArray rejectedLineCounts;				// number of rejected lines per reject reason
+	private final AtomicLong 	acceptedLineCount;					// number of accepted lines
+
+
+	/**
+	 * Creates an instance of {@link FilterPolicy} with the filters defined in the {@link Variant} class
+	 */
+	public FilterPolicy() {
+		useGATKHardFiltering = Variant.USE_GATK_HARD_FILTERING;
+		useIndividualsScoreFiltering = Variant.USE_INDIVIDUALS_SCORE_FILTERING;
+		individualsPLMinValue = Variant.INDIVIDUALS_PL_MIN_VALUE;
+		filterFieldFiltering = Variant.FILTER_FIELD_FILTERING;
+		useHeterozygousFiltering = Variant.USE_FILTER_HETEROZYGOUS_FILTERING;
+		use3QuaterHeterozygousFiltering = Variant.USE_FILTER_3QUATER_HETEROZYGOUS_FILTERING;
+		phasingQualityThreshold = Variant.PHASING_QUALITY_FILTER_THRESHOLD;
+		useMIEFiltering = Variant.USE_MIE_FILTERING;
+		rejectedLineCounts = new AtomicLongArray(VCFRejectReason.values().length);
+		acceptedLineCount = new AtomicLong();
+	}
+
+
+	/**
+	 * Checks the filters that can be evaluated before the genotype pattern of the line is known
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @return the reason why the line is rejected or null if the line passes the filters
+	 * @throws NumberFormatException if a numeric field needed by a filter is not valid
+	 */
+	VCFRejectReason checkLine(VCFLineParser parser) {
+		if (parser.getFieldCount() < VCFLineParser.FIRST_SAMPLE_FIELD_INDEX + 4) {
+			return VCFRejectReason.INVALID_LINE;
+		}
+		if ((filterFieldFiltering != VCFFilterField.NONE) && !isFilterFieldAccepted(parser.getField(6))) {
+			return VCFRejectReason.FILTER_FIELD;
+		}
+		if (useGATKHardFiltering) {
+			VCFRejectReason reason = checkGATKHardFiltering(parser.getField(7));
+			if (reason != null) {
+				return reason;
+			}
+		}
+		if (useIndividualsScoreFiltering && (getIndividualsScore(parser) < 200d)) {
+			return VCFRejectReason.INDIVIDUALS_SCORE;
+		}
+		if (individualsPLMinValue != null) {
+			int plScore = getMinPL(parser);
+			if (plScore == -1) {
+				return VCFRejectReason.INVALID_PL_FIELD;
+			}
+			if (plScore < individualsPLMinValue) {
+				return VCFRejectReason.PL;
+			}
+		}
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 2; j++) {
+				byte allele = parser.getGenotypeAllele(i, j);
+				// a missing second allele is reported as an invalid genotype
+				if ((allele == VCFLineParser.MISSING_ALLELE) && (j == 0)) {
+					return VCFRejectReason.PARTIALLY_CALLED;
+				} else if ((allele != 0) && (allele != 1)) {
+					return VCFRejectReason.INVALID_GENOTYPE;
+				}
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Checks the filters that need the genotype pattern and the inheritance states of the variant
+	 * @param variant a {@link Variant}
+	 * @return the reason why the variant is rejected or null if the variant passes the filters
+	 */
+	VCFRejectReason checkVariant(Variant variant) {
+		if (useMIEFiltering && (variant.getInheritanceStates()[0] == QuartetInheritanceState.MIE)) {
+			return VCFRejectReason.MIE;
+		}
+		String genotypePattern = variant.getGenotypePattern();
+		// exclude the fully heterozygote vectors if the filter is set to true
+		if (useHeterozygousFiltering && genotypePattern.equals("ab/ab;ab/ab")) {
+			return VCFRejectReason.FULLY_HETEROZYGOUS;
+		}
+		// exclude the 3/4 heterozygote vectors if the filter is set to true
+		if (use3QuaterHeterozygousFiltering &&
+				((genotypePattern.equals("ab+aa;ab/ab") || genotypePattern.equals("aa+ab;ab/ab") || genotypePattern.equals("ab/ab;aa/ab")))) {
+			return VCFRejectReason.THREE_QUARTER_HETEROZYGOUS;
+		}
+		return null;
+	}
+
+
+	/**
+	 * Increments the counter associated with the specified reason
+	 * @param reason a {@link VCFRejectReason} or null if the line was accepted
+	 */
+	void count(VCFRejectReason reason) {
+		if (reason == null) {
+			acceptedLineCount.incrementAndGet();
+		} else {
+			rejectedLineCounts.incrementAndGet(reason.ordinal());
+		}
+	}
+
+
+	/**
+	 * @param filterField filter field of a VCF line
+	 * @return true if the filter field passes the filter field filtering
+	 */
+	boolean isFilterFieldAccepted(String filterField) {
+		switch (filterFieldFiltering) {
+		case NINETY_NINE_POINT_NINE:
+			return filterField.equalsIgnoreCase("PASS") ||
+					filterField.equalsIgnoreCase("TruthSensitivityTranche99.00to99.90") ||
+					filterField.equalsIgnoreCase("VQSRTrancheSNP99.90to100.00") ||
+					filterField.equalsIgnoreCase("VQSRTrancheINDEL99.90to100.00");
+		case PASS:
+			return filterField.equalsIgnoreCase("PASS");
+		case NONE:
+		default:
+			return true;
+		}
+	}
+
+
+	/**
+	 * Hard filtering as recommended in the GATK best practice V3
+	 * @param infoField info field of the VCF line
+	 * @return the reason why the line is rejected or null if the line passes the filter
+	 */
+	VCFRejectReason checkGATKHardFiltering(String infoField) {
+		// filter on the the QD field
+		Double QD = getInfoSubfieldValue(infoField, "QD=");
+		if (QD == null) {
+			return VCFRejectReason.INVALID_INFO_FIELD;
+		} else if (QD < 8.0) {
+			return VCFRejectReason.GATK_HARD_FILTERING;
+		}
+		// filter on the the HRun field
+		Double HRun = getInfoSubfieldValue(infoField, "HRun=");
+		if (HRun == null) {
+			return VCFRejectReason.INVALID_INFO_FIELD;
+		} else if (HRun > 5) {
+			return VCFRejectReason.GATK_HARD_FILTERING;
+		}
+		// filter on the the FS field
+		Double FS = getInfoSubfieldValue(infoField, "FS=");
+		if (FS == null) {
+			return VCFRejectReason.INVALID_INFO_FIELD;
+		} else if (FS > 200) {
+			return VCFRejectReason.GATK_HARD_FILTERING;
+		}
+		return null;
+	}
+
+
+	/**
+	 * @param infoField info field of the VCF line
+	 * @param key key of a subfield including the "=" sign (eg: QD=)
+	 * @return the value of the subfield or null if the subfield is not found
+	 */
+	private Double getInfoSubfieldValue(String infoField, String key) {
+		int keyIndex = infoField.indexOf(key);
+		if (keyIndex == -1) {
+			return null;
+		}
+		String valueStr = infoField.substring(keyIndex + key.length());
+		int indexSemicolon = valueStr.indexOf(";");
+		if (indexSemicolon == -1) {
+			return null;
+		}
+		return Double.parseDouble(valueStr.substring(0, indexSemicolon));
+	}
+
+
+	/**
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @return the sum of the quality scores of the 4 samples
+	 */
+	double getIndividualsScore(VCFLineParser parser) {
+		double score = 0;
+		for (int i = 0; i < 4; i++) {
+			score += stringToQualityScore(parser.getSampleField(i));
+		}
+		return score;
+	}
+
+
+	/**
+	 * @param genotypeInfo Genotype Info field of the VCF
+	 * @return the quality score from the field Genotype Info
+	 */
+	private double stringToQualityScore(String genotypeInfo) {
+		String[] splitGenotypeInfo = genotypeInfo.split(":");
+		if (splitGenotypeInfo.length > 3) {
+			String scoreStr = splitGenotypeInfo[3];
+			try {
+				return Double.parseDouble(scoreStr);
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		} else {
+			return 0.0;
+		}
+	}
+
+
+	/**
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @return the minimum PL score of the 4 samples or -1 if the PL score of one of the samples can't be computed
+	 */
+	int getMinPL(VCFLineParser parser) {
+		int minPL = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int plScore = parser.getSampleMinPL(i);
+			if (plScore == -1) {
+				return -1;
+			}
+			minPL = Math.min(minPL, plScore);
+		}
+		return minPL;
+	}
+
+
+	/**
+	 * @param reason a {@link VCFRejectReason}
+	 * @return the number of lines rejected for the specified reason
+	 */
+	public long getRejectedLineCount(VCFRejectReason reason) {
+		return rejectedLineCounts.get(reason.ordinal());
+	}
+
+
+	/**
+	 * @return the total number of rejected lines
+	 */
+	public long getRejectedLineCount() {
+		long rejectedLineCount = 0;
+		for (int i = 0; i < rejectedLineCounts.length(); i++) {
+			rejectedLineCount += rejectedLineCounts.get(i);
+		}
+		return rejectedLineCount;
+	}
+
+
+	/**
+	 * @return the number of accepted lines
+	 */
+	public long getAcceptedLineCount() {
+		return acceptedLineCount.get();
+	}
+
+
+	/**
+	 * Resets the accepted and rejected line counters
+	 */
+	public void resetCounts() {
+		for (int i = 0; i < rejectedLineCounts.length(); i++) {
+			rejectedLineCounts.set(i, 0);
+		}
+		acceptedLineCount.set(0);
+	}
+
+
+	/**
+	 * @return a tab delimited summary of the accepted lines and of the rejected lines for each reason
+	 */
+	public String getRejectStatistics() {
+		StringBuilder statistics = new StringBuilder();
+		statistics.append("accepted\t").append(getAcceptedLineCount());
+		for (VCFRejectReason currentReason: VCFRejectReason.values()) {
+			long count = getRejectedLineCount(currentReason);
+			if (count > 0) {
+				statistics.append('\n').append(currentReason.getName()).append('\t').append(count);
+			}
+		}
+		return statistics.toString();
+	}
+
+
+	/**
+	 * @return true if the GATK hard filtering is used
+	 */
+	public boolean isUseGATKHardFiltering() {
+		return useGATKHardFiltering;
+	}
+
+
+	/**
+	 * @param useGATKHardFiltering set to true to use the GATK hard filtering recommendation from the best practice V3
+	 */
+	public void setUseGATKHardFiltering(boolean useGATKHardFiltering) {
+		this.useGATKHardFiltering = useGATKHardFiltering;
+	}
+
+
+	/**
+	 * @return true if the individual quality score filtering is used
+	 */
+	public boolean isUseIndividualsScoreFiltering() {
+		return useIndividualsScoreFiltering;
+	}
+
+
+	/**
+	 * @param useIndividualsScoreFiltering set to true to filter using the sum of the individual quality scores
+	 */
+	public void setUseIndividualsScoreFiltering(boolean useIndividualsScoreFiltering) {
+		this.useIndividualsScoreFiltering = useIndividualsScoreFiltering;
+	}
+
+
+	/**
+	 * @return the value of the PL filter, null if disabled
+	 */
+	public Integer getIndividualsPLMinValue() {
+		return individualsPLMinValue;
+	}
+
+
+	/**
+	 * @param individualsPLMinValue value of the PL filter. Set to null to disable
+	 */
+	public void setIndividualsPLMinValue(Integer individualsPLMinValue) {
+		this.individualsPLMinValue = individualsPLMinValue;
+	}
+
+
+	/**
+	 * @return the filter applied on the filter field
+	 */
+	public VCFFilterField getFilterFieldFiltering() {
+		return filterFieldFiltering;
+	}
+
+
+	/**
+	 * @param filterFieldFiltering the filter applied on the filter field
+	 */
+	public void setFilterFieldFiltering(VCFFilterField filterFieldFiltering) {
+		this.filterFieldFiltering = filterFieldFiltering;
+	}
+
+
+	/**
+	 * @return true if the fully heterozygous genotypes are excluded
+	 */
+	public boolean isUseHeterozygousFiltering() {
+		return useHeterozygousFiltering;
+	}
+
+
+	/**
+	 * @param useHeterozygousFiltering set to true to exclude the fully heterozygous genotypes
+	 */
+	public void setUseHeterozygousFiltering(boolean useHeterozygousFiltering) {
+		this.useHeterozygousFiltering = useHeterozygousFiltering;
+	}
+
+
+	/**
+	 * @return true if the 3/4 heterozygous genotypes are excluded
+	 */
+	public boolean isUse3QuaterHeterozygousFiltering() {
+		return use3QuaterHeterozygousFiltering;
+	}
+
+
+	/**
+	 * @param use3QuaterHeterozygousFiltering set to true to exclude the 3/4 heterozygous genotypes
+	 */
+	public void setUse3QuaterHeterozygousFiltering(boolean use3QuaterHeterozygousFiltering) {
+		this.use3QuaterHeterozygousFiltering = use3QuaterHeterozygousFiltering;
+	}
+
+
+	/**
+	 * @return the phasing quality threshold. Only the genotypes with a score above this threshold are considered as phased
+	 */
+	public double getPhasingQualityThreshold() {
+		return phasingQualityThreshold;
+	}
+
+
+	/**
+	 * @param phasingQualityThreshold only the genotypes with a score above this threshold are considered as phased
+	 */
+	public void setPhasingQualityThreshold(double phasingQualityThreshold) {
+		this.phasingQualityThreshold = phasingQualityThreshold;
+	}
+
+
+	/**
+	 * @return true if the MIE variants are filtered out
+	 */
+	public boolean isUseMIEFiltering() {
+		return useMIEFiltering;
+	}
+
+
+	/**
+	 * @param useMIEFiltering set to true to filter out the MIE variants
+	 */
+	public void setUseMIEFiltering(boolean useMIEFiltering) {
+		this.useMIEFiltering = useMIEFiltering;
+	}
+}
@@ -0,0 +1,113 @@
+package dataStructures;
+
+
+/**
+ * A region of a chromosome specified like in samtools / tabix (eg: chr1:10000-20000).
+ * The positions are 1-based and inclusive. A region without position covers the whole chromosome
+ * @author Julien Lajugie
+ */
+public class GenomicRegion {
+
+	private final String 	chromosome;	// chromosome of the region
+	private final int 		start;		// first position of the region (1-based, inclusive)
+	private final int 		stop;		// last position of the region (1-based, inclusive)
+
+
+	/**
+	 * Creates an instance of {@link GenomicRegion}
+	 * @param chromosome chromosome of the region
+	 * @param start first position of the region (1-based, inclusive)
+	 * @param stop last position of the region (1-based, inclusive)
+	 */
+	public GenomicRegion(String chromosome, int start, int stop) {
+		this.chromosome = chromosome;
+		this.start = start;
+		this.stop = stop;
+	}
+
+
+	/**
+	 * Parses a region with a chr, chr:start or chr:start-stop format.
+	 * The commas of the positions are ignored (eg: chr1:1,000,000-2,000,000)
+	 * @param region a region string
+	 * @return a {@link GenomicRegion}
+	 * @throws IllegalArgumentException if the region is not valid
+	 */
+	public static GenomicRegion valueOf(String region) {
+		int colonIndex = region.lastIndexOf(':');
+		if (colonIndex == -1) {
+			return new GenomicRegion(region.trim(), 1, Integer.MAX_VALUE);
+		}
+		String chromosome = region.substring(0, colonIndex).trim();
+		String positions = region.substring(colonIndex + 1).replace(",", "").trim();
+		try {
+			int dashIndex = positions.indexOf('-');
+			int start, stop;
+			if (dashIndex == -1) {
+				start = Integer.parseInt(positions);
+				stop = Integer.MAX_VALUE;
+			} else {
+				start = Integer.parseInt(positions.substring(0, dashIndex).trim());
+				String stopString = positions.substring(dashIndex + 1).trim();
+				stop = stopString.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(stopString);
+			}
+			if (chromosome.isEmpty() || (start < 1) || (stop < start)) {
+				throw new IllegalArgumentException("Invalid region: " + region);
+			}
+			return new GenomicRegion(chromosome, start, stop);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid region: " + region, e);
+		}
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @param position a position (1-based)
+	 * @return true if the specified position is in the region
+	 */
+	public boolean contains(String chromosome, int position) {
+		return this.chromosome.equals(chromosome) && (position >= start) && (position <= stop);
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @param start first position of an interval (1-based, inclusive)
+	 * @param stop last position of the interval (1-based, inclusive)
+	 * @return true if the specified interval overlaps with the region
+	 */
+	public boolean overlaps(String chromosome, int start, int stop) {
+		return this.chromosome.equals(chromosome) && (start <= this.stop) && (stop >= this.start);
+	}
+
+
+	/**
+	 * @return the chromosome of the region
+	 */
+	public String getChromosome() {
+		return chromosome;
+	}
+
+
+	/**
+	 * @return the first position of the region (1-based, inclusive)
+	 */
+	public int getStart() {
+		return start;
+	}
+
+
+	/**
+	 * @return the last position of the region (1-based, inclusive)
+	 */
+	public int getStop() {
+		return stop;
+	}
+
+
+	@Override
+	public String toString() {
+		return chromosome + ':' + start + '-' + stop;
+	}
+}
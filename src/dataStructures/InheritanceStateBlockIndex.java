@@ -0,0 +1,166 @@
+package dataStructures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Index of the {@link InheritanceStateBlock} of one chromosome.
+ * The blocks are sorted by start position and their start and stop positions are stored in primitive arrays
+ * so a block can be retrieved using a binary search.
+ * The index also keeps a hint on the last block returned so consecutive lookups on sorted positions
+ * are answered in amortized constant time.
+ * @author Julien Lajugie
+ * @param <T> type of inheritance state block (must implement the interface {@link InheritanceState})
+ */
+class InheritanceStateBlockIndex<T extends InheritanceState> {
+
+	private static final int MAX_CURSOR_STEPS = 8;	// number of blocks the cursor can skip before we switch to a binary search
+
+	private final String 	chromosome;					// chromosome of the blocks
+	private final InheritanceStateBlock<T>[] blocks;	// blocks sorted by start position
+	private final int[] 	startPositions;				// start positions of the sorted blocks
+	private final int[] 	stopPositions;				// stop positions of the sorted blocks
+	private final int[] 	maxStopPositions;			// max stop position of the blocks from the first one to the current one
+	private final boolean 	isDisjoint;					// true if none of the blocks overlap
+	private volatile int 	cursor;						// index of the last block returned
+
+
+	/**
+	 * Creates an instance of {@link InheritanceStateBlockIndex}
+	 * @param chromosome chromosome of the blocks
+	 * @param chromosomeBlockList list of the blocks of a chromosome. The list is not modified.
+	 */
+	InheritanceStateBlockIndex(String chromosome, List<InheritanceStateBlock<T>> chromosomeBlockList) {
+		this.chromosome = chromosome;
+		List<InheritanceStateBlock<T>> sortedList = new ArrayList<>(chromosomeBlockList);
+		// the sort is stable so blocks with the same start keep the order of the input list
+		Collections.sort(sortedList, new Comparator<InheritanceStateBlock<T>>() {
+			@Override
+			public int compare(InheritanceStateBlock<T> o1, InheritanceStateBlock<T> o2) {
+				return Integer.compare(o1.getStartPosition(), o2.getStartPosition());
+			}
+		});
+		int blockCount = sortedList.size();
+		blocks = toArray(sortedList);
+		startPositions = new int[blockCount];
+		stopPositions = new int[blockCount];
+		maxStopPositions = new int[blockCount];
+		boolean isDisjoint = true;
+		for (int i = 0; i < blockCount; i++) {
+			startPositions[i] = blocks[i].getStartPosition();
+			stopPositions[i] = blocks[i].getStopPosition();
+			if (i == 0) {
+				maxStopPositions[i] = stopPositions[i];
+			} else {
+				maxStopPositions[i] = Math.max(maxStopPositions[i - 1], stopPositions[i]);
+				if (maxStopPositions[i - 1] > startPositions[i]) {
+					isDisjoint = false;
+				}
+			}
+		}
+		this.isDisjoint = isDisjoint;
+		cursor = 0;
+	}
+
+
+	/**
+	 * @param blockList a list of blocks
+	 * @return an array with the blocks of the specified list in the same order
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends InheritanceState> InheritanceStateBlock<T>[] toArray(List<InheritanceStateBlock<T>> blockList) {
+		return blockList.toArray((InheritanceStateBlock<T>[]) new InheritanceStateBlock<?>[blockList.size()]);
+	}
+
+
+	/**
+	 * @return the chromosome of the blocks
+	 */
+	String getChromosome() {
+		return chromosome;
+	}
+
+
+	/**
+	 * @param position a position on the chromosome of the index
+	 * @return the block containing the specified position.
+	 * If more than one block contains the position the one with the smallest start position is returned.
+	 * Null if there is no such block
+	 */
+	InheritanceStateBlock<T> getBlock(int position) {
+		if (blocks.length == 0) {
+			return null;
+		}
+		int index;
+		if (isDisjoint) {
+			index = moveCursor(position);
+		} else {
+			index = lastBlockStartingBefore(position);
+			// look backward for the first block containing the position
+			int foundIndex = -1;
+			while ((index >= 0) && (maxStopPositions[index] > position)) {
+				if (stopPositions[index] > position) {
+					foundIndex = index;
+				}
+				index--;
+			}
+			index = foundIndex;
+		}
+		if ((index >= 0) && (position < stopPositions[index])) {
+			return blocks[index];
+		}
+		return null;
+	}
+
+
+	/**
+	 * Moves the cursor to the last block starting before the specified position.
+	 * The cursor moves forward one block at a time when the specified position is close to the previous one
+	 * and we use a binary search otherwise.
+	 * The cursor is only a hint so concurrent calls can overwrite each other without making the result wrong.
+	 * @param position a position on the chromosome of the index
+	 * @return the index of the last block starting before the specified position, -1 if there is no such block
+	 */
+	private int moveCursor(int position) {
+		int index = cursor;
+		if ((index < 0) || (index >= blocks.length) || (startPositions[index] > position)) {
+			index = lastBlockStartingBefore(position);
+		} else {
+			int steps = 0;
+			while ((index + 1 < blocks.length) && (startPositions[index + 1] <= position) && (steps < MAX_CURSOR_STEPS)) {
+				index++;
+				steps++;
+			}
+			if ((steps == MAX_CURSOR_STEPS) && (index + 1 < blocks.length) && (startPositions[index + 1] <= position)) {
+				index = lastBlockStartingBefore(position);
+			}
+		}
+		if (index >= 0) {
+			cursor = index;
+		}
+		return index;
+	}
+
+
+	/**
+	 * @param position a position on the chromosome of the index
+	 * @return the index of the last block with a start position smaller or equal to the specified position.
+	 * -1 if there is no such block
+	 */
+	private int lastBlockStartingBefore(int position) {
+		int low = 0;
+		int high = startPositions.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (startPositions[middle] <= position) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return high;
+	}
+}
@@ -1,5 +1,6 @@
 package dataStructures;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,7 +13,9 @@ import java.util.Map;
 public class InheritanceStateBlockList<T extends InheritanceState> {
 
 
-	private final Map<String, List<InheritanceStateBlock<T>>> ISBlockMap; // list of blocks organised by chromosome
+	private final Map<String, List<InheritanceStateBlock<T>>> 	ISBlockMap; 		// list of blocks organised by chromosome
+	private final Map<String, InheritanceStateBlockIndex<T>> 	indexMap;			// sorted index of the blocks organised by chromosome
+	private volatile InheritanceStateBlockIndex<T> 				lastIndex;			// index of the chromosome of the last lookup
 
 
 	/**
@@ -21,6 +24,10 @@ public class InheritanceStateBlockList<T extends InheritanceState> {
 	 */
 	protected InheritanceStateBlockList(Map<String, List<InheritanceStateBlock<T>>> ISBlockMap) {
 		this.ISBlockMap = ISBlockMap;
+		indexMap = new HashMap<>();
+		for (Map.Entry<String, List<InheritanceStateBlock<T>>> currentEntry: ISBlockMap.entrySet()) {
+			indexMap.put(currentEntry.getKey(), new InheritanceStateBlockIndex<>(currentEntry.getKey(), currentEntry.getValue()));
+		}
 	}
 
 
@@ -34,21 +41,24 @@ public class InheritanceStateBlockList<T extends InheritanceState> {
 
 	
 	/**
+	 * Lookups are done using a binary search on the blocks of the chromosome.
+	 * When the positions are queried in increasing order (eg: while reading a sorted VCF file)
+	 * the lookup is done in amortized constant time.
 	 * @param chromosome a chromosome
 	 * @param position a position on the specified chromosome
 	 * @return a block on the specified chromosome containing the specified position.  Null if there is no such block
 	 */
 	public InheritanceStateBlock<T> getBlock(String chromosome, int position) {
-		if (ISBlockMap.containsKey(chromosome)) {
-			List<InheritanceStateBlock<T>> chromosomeBlockList = ISBlockMap.get(chromosome);
-			for (InheritanceStateBlock<T> currentBlock: chromosomeBlockList) {
-				if ((position >= currentBlock.getStartPosition()) 
-						&& (position < currentBlock.getStopPosition())) {
-					return currentBlock;
-				}
+		// the index of the last chromosome is cached so sorted lookups don't need to query the map
+		InheritanceStateBlockIndex<T> chromosomeIndex = lastIndex;
+		if ((chromosomeIndex == null) || (!chromosomeIndex.getChromosome().equals(chromosome))) {
+			chromosomeIndex = indexMap.get(chromosome);
+			if (chromosomeIndex == null) {
+				return null;
 			}
+			lastIndex = chromosomeIndex;
 		}
-		return null;
+		return chromosomeIndex.getBlock(position);
 	}
 
 	
@@ -71,18 +81,7 @@ public class InheritanceStateBlockList<T extends InheritanceState> {
 			}
 		}
 		// print the genome wide stats
-		String genomeWideStats = "GW\t";
-		genomeWideStats += "GW\t";
-		genomeWideStats += "GW\t";
-		genomeWideStats += "NA\t";
-		genomeWideStats += variantCount +"\t";
-		genomeWideStats += MIECount +"\t";
-		genomeWideStats += MIECount / (double) variantCount * 100d +"\t";
-		genomeWideStats += SCECount +"\t";
-		genomeWideStats += SCECount / (double) variantCount * 100d +"\t";
-		genomeWideStats += NICount +"\t";
-		genomeWideStats += NICount / (double) variantCount * 100d +"\t";
-		System.out.println(genomeWideStats);		
+		System.out.println(getGenomeWideStatistics(variantCount, MIECount, SCECount, NICount));		
 	}
 	
 
@@ -104,18 +103,27 @@ public class InheritanceStateBlockList<T extends InheritanceState> {
 			}
 		}
 		// print the genome wide stats
-		String genomeWideStats = "GW\t";
-		genomeWideStats += "GW\t";
-		genomeWideStats += "GW\t";
-		genomeWideStats += "NA\t";
-		genomeWideStats += variantCount +"\t";
-		genomeWideStats += MIECount +"\t";
-		genomeWideStats += MIECount / (double) variantCount * 100d +"\t";
-		genomeWideStats += SCECount +"\t";
-		genomeWideStats += SCECount / (double) variantCount * 100d +"\t";
-		genomeWideStats += NICount +"\t";
-		genomeWideStats += NICount / (double) variantCount * 100d +"\t";
-		System.out.println(genomeWideStats);				
+		System.out.println(getGenomeWideStatistics(variantCount, MIECount, SCECount, NICount));				
+	}
+
+
+	/**
+	 * @param variantCount number of variants
+	 * @param MIECount number of MIE variants
+	 * @param SCECount number of SCE variants
+	 * @param NICount number of non informative variants
+	 * @return the genome wide statistics line
+	 */
+	private static String getGenomeWideStatistics(int variantCount, int MIECount, int SCECount, int NICount) {
+		StringBuilder genomeWideStats = new StringBuilder("GW\tGW\tGW\tNA\t");
+		genomeWideStats.append(variantCount).append('\t');
+		genomeWideStats.append(MIECount).append('\t');
+		genomeWideStats.append(MIECount / (double) variantCount * 100d).append('\t');
+		genomeWideStats.append(SCECount).append('\t');
+		genomeWideStats.append(SCECount / (double) variantCount * 100d).append('\t');
+		genomeWideStats.append(NICount).append('\t');
+		genomeWideStats.append(NICount / (double) variantCount * 100d).append('\t');
+		return genomeWideStats.toString();
 	}
 
 
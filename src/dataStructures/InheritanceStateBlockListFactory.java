@@ -2,13 +2,15 @@ package dataStructures;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import utils.GenomicFileReader;
+
 /**
  * Factory that creates {@link InheritanceStateBlockList} instances
  * @author Julien Lajugie
@@ -27,7 +29,7 @@ public class InheritanceStateBlockListFactory {
 		BufferedReader reader = null;
 		Map<String, List<InheritanceStateBlock<QuartetInheritanceState>>> ISBlockMap = new HashMap<String, List<InheritanceStateBlock<QuartetInheritanceState>>>();
 		try {
-			reader = new BufferedReader(new FileReader(iscaBlockFile));
+			reader = GenomicFileReader.open(iscaBlockFile);
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -69,7 +71,7 @@ public class InheritanceStateBlockListFactory {
 		BufferedReader reader = null;
 		Map<String, List<InheritanceStateBlock<QuartetInheritanceState>>> ISBlockMap = new HashMap<String, List<InheritanceStateBlock<QuartetInheritanceState>>>();
 		try {
-			reader = new BufferedReader(new FileReader(bgrFile));
+			reader = GenomicFileReader.open(bgrFile);
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -113,7 +115,7 @@ public class InheritanceStateBlockListFactory {
 		BufferedReader reader = null;
 		Map<String, List<InheritanceStateBlock<CrossTriosInheritanceState>>> ISBlockMap = new HashMap<String, List<InheritanceStateBlock<CrossTriosInheritanceState>>>();
 		try {
-			reader = new BufferedReader(new FileReader(bgrFile));
+			reader = GenomicFileReader.open(bgrFile);
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -145,4 +147,50 @@ public class InheritanceStateBlockListFactory {
 			}
 		}
 	}
+
+
+	/**
+	 * Creates an {@link InheritanceStateBlockList} from the inheritance states called by an {@link InheritanceStateHMM}
+	 * @param variantFile VCF or QGT file with the variants of the family quartet
+	 * @param hmm {@link InheritanceStateHMM} calling the inheritance states
+	 * @return an {@link InheritanceStateBlockList} with the quartet inheritance state blocks called by the HMM
+	 * @throws IOException
+	 */
+	public static InheritanceStateBlockList<QuartetInheritanceState> createFromHMM(File variantFile, InheritanceStateHMM hmm) throws IOException {
+		Map<String, List<InheritanceStateBlock<QuartetInheritanceState>>> ISBlockMap = new LinkedHashMap<String, List<InheritanceStateBlock<QuartetInheritanceState>>>();
+		for (Map.Entry<String, int[]> currentEntry: hmm.callBlocks(variantFile).entrySet()) {
+			String chromosome = currentEntry.getKey();
+			int[] blocks = currentEntry.getValue();
+			List<InheritanceStateBlock<QuartetInheritanceState>> blockList = new ArrayList<>(blocks.length / 3);
+			for (int i = 0; i < blocks.length; i += 3) {
+				QuartetInheritanceState blockState = InheritanceStateHMM.getQuartetState(blocks[i + 2]);
+				blockList.add(new QuartetInheritanceStateBlock(blockState, chromosome, blocks[i], blocks[i + 1]));
+			}
+			ISBlockMap.put(chromosome, blockList);
+		}
+		return new InheritanceStateBlockList<>(ISBlockMap);
+	}
+
+
+	/**
+	 * Creates an {@link InheritanceStateBlockList} from the cross trios inheritance states called by an {@link InheritanceStateHMM}
+	 * @param variantFile VCF or QGT file with the variants of the family quartet
+	 * @param hmm {@link InheritanceStateHMM} calling the inheritance states
+	 * @return an {@link InheritanceStateBlockList} with the cross trios inheritance state blocks called by the HMM
+	 * @throws IOException
+	 */
+	public static InheritanceStateBlockList<CrossTriosInheritanceState> createCrossTriosFromHMM(File variantFile, InheritanceStateHMM hmm) throws IOException {
+		Map<String, List<InheritanceStateBlock<CrossTriosInheritanceState>>> ISBlockMap = new LinkedHashMap<String, List<InheritanceStateBlock<CrossTriosInheritanceState>>>();
+		for (Map.Entry<String, int[]> currentEntry: hmm.callBlocks(variantFile).entrySet()) {
+			String chromosome = currentEntry.getKey();
+			int[] blocks = currentEntry.getValue();
+			List<InheritanceStateBlock<CrossTriosInheritanceState>> blockList = new ArrayList<>(blocks.length / 3);
+			for (int i = 0; i < blocks.length; i += 3) {
+				CrossTriosInheritanceState blockState = InheritanceStateHMM.getCrossTriosState(blocks[i + 2]);
+				blockList.add(new CrossTriosInheritanceStateBlock(blockState, chromosome, blocks[i], blocks[i + 1]));
+			}
+			ISBlockMap.put(chromosome, blockList);
+		}
+		return new InheritanceStateBlockList<>(ISBlockMap);
+	}
 }
@@ -0,0 +1,319 @@
+package dataStructures;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import utils.ChromosomeExecutor;
+import utils.GenomicFileReader;
+import utils.GenotypeCode;
+
+
+/**
+ * Hidden Markov model calling the inheritance states of a family quartet.
+ * The hidden states are the 4 combinations of the states of the paternal and maternal trios (identical or non-identical),
+ * which are also the identical, haploidentical maternal, haploidentical paternal and non-identical quartet states.
+ * The emission of a variant only depends on its genotype code: the states compatible with the genotype pattern
+ * share a probability of 1 - error rate, the other states share the error rate. The MIE and the non informative
+ * variants have the same emission in every state.
+ * A recombination in one parent switches the state of the trio of the parent with a probability computed from the
+ * distance between the variants using Haldane's map function.
+ * The most likely path of states is computed by the Viterbi algorithm in log space, in one linear pass per chromosome
+ * with the chromosomes processed in parallel
+ * @author Julien Lajugie
+ */
+public class InheritanceStateHMM {
+
+	/**
+	 * Default recombination rate in cM per Mb
+	 */
+	public static final double DEFAULT_RECOMBINATION_RATE = 1d;
+
+	/**
+	 * Default probability of a genotype incompatible with the inheritance state
+	 */
+	public static final double DEFAULT_ERROR_RATE = 0.01;
+
+	private static final int STATE_COUNT = 4;					// number of hidden states
+	private static final int PATERNAL_NON_IDENTICAL_BIT = 1;	// bit of the state set when the paternal trio is non-identical
+	private static final int MATERNAL_NON_IDENTICAL_BIT = 2;	// bit of the state set when the maternal trio is non-identical
+	private static final int INITIAL_CAPACITY = 1024;			// initial capacity of the arrays storing the variants of a chromosome
+
+	private static final QuartetInheritanceState[] QUARTET_STATES = {
+		QuartetInheritanceState.IDENTICAL,
+		QuartetInheritanceState.MATERNAL,
+		QuartetInheritanceState.PATERNAL,
+		QuartetInheritanceState.NON_IDENTICAL};		// quartet state of each hidden state
+
+	private static final CrossTriosInheritanceState[] CROSS_TRIOS_STATES = {
+		new CrossTriosInheritanceState(TrioInheritanceState.IDENTICAL, TrioInheritanceState.IDENTICAL),
+		new CrossTriosInheritanceState(TrioInheritanceState.NON_IDENTICAL, TrioInheritanceState.IDENTICAL),
+		new CrossTriosInheritanceState(TrioInheritanceState.IDENTICAL, TrioInheritanceState.NON_IDENTICAL),
+		new CrossTriosInheritanceState(TrioInheritanceState.NON_IDENTICAL, TrioInheritanceState.NON_IDENTICAL)};	// cross trios state of each hidden state
+
+	private final double 	recombinationRate;		// recombination rate in cM per Mb
+	private final double 	errorRate;				// probability of a genotype incompatible with the inheritance state
+	private final double[] 	logEmissions;			// log of the emission probabilities, STATE_COUNT values per genotype code
+
+
+	/**
+	 * Creates an instance of {@link InheritanceStateHMM}
+	 * @param recombinationRate recombination rate in cM per Mb
+	 * @param errorRate probability of a genotype incompatible with the inheritance state
+	 */
+	public InheritanceStateHMM(double recombinationRate, double errorRate) {
+		this.recombinationRate = recombinationRate;
+		this.errorRate = errorRate;
+		logEmissions = new double[GenotypeCode.CODE_COUNT * STATE_COUNT];
+		for (int code = 0; code < GenotypeCode.CODE_COUNT; code++) {
+			boolean[] isCompatible = new boolean[STATE_COUNT];
+			int compatibleCount = 0;
+			if (!GenotypeCode.isMIE(code) && !GenotypeCode.isNotInformative(code)) {
+				for (QuartetInheritanceState currentState: GenotypeCode.getInheritanceStates(code)) {
+					for (int i = 0; i < STATE_COUNT; i++) {
+						if ((QUARTET_STATES[i] == currentState) && !isCompatible[i]) {
+							isCompatible[i] = true;
+							compatibleCount++;
+						}
+					}
+				}
+			}
+			for (int i = 0; i < STATE_COUNT; i++) {
+				if ((compatibleCount == 0) || (compatibleCount == STATE_COUNT)) {
+					// the variant gives no information about the state
+					logEmissions[(code * STATE_COUNT) + i] = Math.log(1d / STATE_COUNT);
+				} else if (isCompatible[i]) {
+					logEmissions[(code * STATE_COUNT) + i] = Math.log((1d - errorRate) / compatibleCount);
+				} else {
+					logEmissions[(code * STATE_COUNT) + i] = Math.log(errorRate / (STATE_COUNT - compatibleCount));
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * @param state a hidden state
+	 * @return the {@link QuartetInheritanceState} of the specified hidden state
+	 */
+	static QuartetInheritanceState getQuartetState(int state) {
+		return QUARTET_STATES[state];
+	}
+
+
+	/**
+	 * @param state a hidden state
+	 * @return the {@link CrossTriosInheritanceState} of the specified hidden state
+	 */
+	static CrossTriosInheritanceState getCrossTriosState(int state) {
+		return CROSS_TRIOS_STATES[state];
+	}
+
+
+	/**
+	 * Computes the most likely path of hidden states of the variants of a chromosome using the Viterbi algorithm
+	 * @param positions positions of the variants sorted in increasing order
+	 * @param genotypeCodes genotype codes of the variants (see {@link GenotypeCode})
+	 * @param variantCount number of variants
+	 * @return the hidden state of each variant
+	 */
+	public byte[] computeViterbiPath(int[] positions, byte[] genotypeCodes, int variantCount) {
+		byte[] path = new byte[variantCount];
+		if (variantCount == 0) {
+			return path;
+		}
+		// state with the best score at the previous variant for each state at the current variant
+		byte[] backPointers = new byte[variantCount * STATE_COUNT];
+		double[] scores = new double[STATE_COUNT];
+		double[] newScores = new double[STATE_COUNT];
+		// log of the probabilities to go from a state to a state with 0, 1 or 2 trios switched
+		double[] logTransitions = new double[3];
+		double morgansPerBp = recombinationRate / 100d / 1000000d;
+		int emissionOffset = (genotypeCodes[0] & 0xFF) * STATE_COUNT;
+		for (int i = 0; i < STATE_COUNT; i++) {
+			scores[i] = logEmissions[emissionOffset + i];
+		}
+		for (int k = 1; k < variantCount; k++) {
+			double distance = Math.max(0, positions[k] - positions[k - 1]);
+			double switchProbability = 0.5 * (1d - Math.exp(-2d * distance * morgansPerBp));
+			double logSwitch = Math.log(switchProbability);
+			double logStay = Math.log1p(-switchProbability);
+			logTransitions[0] = 2 * logStay;
+			logTransitions[1] = logStay + logSwitch;
+			logTransitions[2] = 2 * logSwitch;
+			emissionOffset = (genotypeCodes[k] & 0xFF) * STATE_COUNT;
+			for (int i = 0; i < STATE_COUNT; i++) {
+				int bestState = 0;
+				double bestScore = Double.NEGATIVE_INFINITY;
+				for (int j = 0; j < STATE_COUNT; j++) {
+					double score = scores[j] + logTransitions[Integer.bitCount(i ^ j)];
+					if (score > bestScore) {
+						bestScore = score;
+						bestState = j;
+					}
+				}
+				newScores[i] = bestScore + logEmissions[emissionOffset + i];
+				backPointers[(k * STATE_COUNT) + i] = (byte) bestState;
+			}
+			double[] swap = scores;
+			scores = newScores;
+			newScores = swap;
+		}
+		int state = 0;
+		for (int i = 1; i < STATE_COUNT; i++) {
+			if (scores[i] > scores[state]) {
+				state = i;
+			}
+		}
+		for (int k = variantCount - 1; k >= 0; k--) {
+			path[k] = (byte) state;
+			state = backPointers[(k * STATE_COUNT) + state];
+		}
+		return path;
+	}
+
+
+	/**
+	 * Converts a path of hidden states into blocks. A block starts at the first variant of a run of variants with the
+	 * same state and stops at the first variant of the next run (stop excluded), the last block stops after the last variant
+	 * @param positions positions of the variants
+	 * @param path hidden state of each variant
+	 * @return the blocks of the path, 3 values per block: start position, stop position and hidden state
+	 */
+	static int[] computeBlocks(int[] positions, byte[] path) {
+		int blockCount = 0;
+		int[] blocks = new int[3 * 16];
+		int blockStart = 0;
+		for (int k = 1; k <= path.length; k++) {
+			if ((k == path.length) || (path[k] != path[blockStart])) {
+				if (blockCount * 3 == blocks.length) {
+					blocks = Arrays.copyOf(blocks, blocks.length * 2);
+				}
+				blocks[blockCount * 3] = positions[blockStart];
+				blocks[(blockCount * 3) + 1] = k == path.length ? positions[k - 1] + 1 : positions[k];
+				blocks[(blockCount * 3) + 2] = path[blockStart];
+				blockCount++;
+				blockStart = k;
+			}
+		}
+		return Arrays.copyOf(blocks, blockCount * 3);
+	}
+
+
+	/**
+	 * Calls the blocks of the variants of a VCF or QGT file. The chromosomes are processed in parallel
+	 * while the file is read
+	 * @param variantFile a VCF file or a QGT file sorted by chromosome and position
+	 * @return the blocks of each chromosome in file order, 3 values per block: start position, stop position and hidden state
+	 * @throws IOException if the file cannot be read
+	 */
+	Map<String, int[]> callBlocks(File variantFile) throws IOException {
+		ChromosomeExecutor<int[]> executor = new ChromosomeExecutor<>();
+		List<String> chromosomes = new ArrayList<>();
+		if (QGTFile.isQGTFile(variantFile)) {
+			QGTFile QGTInput = new QGTFile(variantFile);
+			for (String currentChromosome: QGTInput.getChromosomes()) {
+				QGTChromosome chromosomeBlock = QGTInput.getChromosome(currentChromosome);
+				int[] positions = new int[chromosomeBlock.size()];
+				byte[] genotypeCodes = new byte[chromosomeBlock.size()];
+				for (int i = 0; i < chromosomeBlock.size(); i++) {
+					positions[i] = chromosomeBlock.getPosition(i);
+					genotypeCodes[i] = (byte) chromosomeBlock.getVariant(i).getGenotypeCode();
+				}
+				chromosomes.add(currentChromosome);
+				submitChromosome(executor, positions, genotypeCodes, positions.length);
+			}
+		} else {
+			BufferedReader reader = null;
+			try {
+				reader = GenomicFileReader.open(variantFile);
+				VCFLineParser parser = new VCFLineParser();
+				FilterPolicy filterPolicy = new FilterPolicy();
+				String chromosome = null;
+				int[] positions = new int[INITIAL_CAPACITY];
+				byte[] genotypeCodes = new byte[INITIAL_CAPACITY];
+				int variantCount = 0;
+				String line = null;
+				// loop until eof
+				while ((line = reader.readLine()) != null) {
+					// a line starting with a # is a comment line
+					if (line.charAt(0) != '#') {
+						Variant variant = Variant.tryParse(parser.parse(line), filterPolicy);
+						if (variant != null) {
+							if (!variant.getChromosome().equals(chromosome)) {
+								if (chromosome != null) {
+									submitChromosome(executor, positions, genotypeCodes, variantCount);
+									positions = new int[INITIAL_CAPACITY];
+									genotypeCodes = new byte[INITIAL_CAPACITY];
+									variantCount = 0;
+								}
+								chromosome = variant.getChromosome();
+								chromosomes.add(chromosome);
+							}
+							if (variantCount == positions.length) {
+								positions = Arrays.copyOf(positions, variantCount * 2);
+								genotypeCodes = Arrays.copyOf(genotypeCodes, variantCount * 2);
+							}
+							positions[variantCount] = variant.getPosition();
+							genotypeCodes[variantCount] = (byte) variant.getGenotypeCode();
+							variantCount++;
+						}
+					}
+				}
+				if (chromosome != null) {
+					submitChromosome(executor, positions, genotypeCodes, variantCount);
+				}
+			} finally {
+				if (reader != null) {
+					reader.close();
+				}
+			}
+		}
+		List<int[]> results = executor.getResults();
+		Map<String, int[]> chromosomeBlocks = new LinkedHashMap<>();
+		for (int i = 0; i < chromosomes.size(); i++) {
+			chromosomeBlocks.put(chromosomes.get(i), results.get(i));
+		}
+		return chromosomeBlocks;
+	}
+
+
+	/**
+	 * Submits the computation of the blocks of a chromosome to the specified executor
+	 * @param executor executor computing the blocks
+	 * @param positions positions of the variants of the chromosome
+	 * @param genotypeCodes genotype codes of the variants
+	 * @param variantCount number of variants
+	 */
+	private void submitChromosome(ChromosomeExecutor<int[]> executor, final int[] positions, final byte[] genotypeCodes, final int variantCount) {
+		executor.submit(new Callable<int[]>() {
+			@Override
+			public int[] call() {
+				byte[] path = computeViterbiPath(positions, genotypeCodes, variantCount);
+				return computeBlocks(positions, path);
+			}
+		});
+	}
+
+
+	/**
+	 * @return the recombination rate in cM per Mb
+	 */
+	public final double getRecombinationRate() {
+		return recombinationRate;
+	}
+
+
+	/**
+	 * @return the probability of a genotype incompatible with the inheritance state
+	 */
+	public final double getErrorRate() {
+		return errorRate;
+	}
+}
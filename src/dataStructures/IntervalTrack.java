@@ -0,0 +1,143 @@
+package dataStructures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Immutable track of intervals organised by chromosome that can be registered in a {@link IntervalTrackSet}.
+ * The intervals of each chromosome are sorted by start position and stored in primitive arrays
+ * with the running max of their inclusive stop positions.
+ * A track can be shared by several threads, each thread using its own {@link IntervalTrackSweep}
+ * @author Julien Lajugie
+ * @param <T> type of the intervals of the track
+ */
+public class IntervalTrack<T> {
+
+	private final Map<String, Integer> 	chromosomeIndexes;	// index of each chromosome in the arrays
+	private final List<int[]> 			startPositions;		// sorted start positions of the intervals of each chromosome
+	private final List<int[]> 			maxStopPositions;	// max stop position of the intervals from the first one to the current one
+	private final List<Object[]> 		intervals;			// intervals of each chromosome
+
+
+	/**
+	 * Creates an instance of {@link IntervalTrack}
+	 */
+	private IntervalTrack() {
+		chromosomeIndexes = new HashMap<>();
+		startPositions = new ArrayList<>();
+		maxStopPositions = new ArrayList<>();
+		intervals = new ArrayList<>();
+	}
+
+
+	/**
+	 * Creates a track from a {@link SegmentalDuplicationList}.
+	 * Stop positions are inclusive like in {@link SegmentalDuplicationList#getBlock(String, int)}
+	 * @param segDupList a {@link SegmentalDuplicationList}
+	 * @return a new {@link IntervalTrack}
+	 */
+	public static IntervalTrack<SegmentalDuplication> createFromSegmentalDuplicationList(SegmentalDuplicationList segDupList) {
+		IntervalTrack<SegmentalDuplication> track = new IntervalTrack<>();
+		for (Map.Entry<String, List<SegmentalDuplication>> currentEntry: segDupList.getBlocks().entrySet()) {
+			List<SegmentalDuplication> sortedList = new ArrayList<>(currentEntry.getValue());
+			Collections.sort(sortedList);
+			int[] starts = new int[sortedList.size()];
+			int[] stops = new int[sortedList.size()];
+			for (int i = 0; i < sortedList.size(); i++) {
+				starts[i] = sortedList.get(i).getStartPosition();
+				stops[i] = sortedList.get(i).getStopPosition();
+			}
+			track.addChromosome(currentEntry.getKey(), starts, stops, sortedList.toArray());
+		}
+		return track;
+	}
+
+
+	/**
+	 * Creates a track from a {@link InheritanceStateBlockList}.
+	 * Stop positions are exclusive like in {@link InheritanceStateBlockList#getBlock(String, int)}
+	 * @param blockList a {@link InheritanceStateBlockList}
+	 * @return a new {@link IntervalTrack}
+	 */
+	public static <U extends InheritanceState> IntervalTrack<InheritanceStateBlock<U>> createFromInheritanceStateBlockList(InheritanceStateBlockList<U> blockList) {
+		IntervalTrack<InheritanceStateBlock<U>> track = new IntervalTrack<>();
+		for (Map.Entry<String, List<InheritanceStateBlock<U>>> currentEntry: blockList.getBlocks().entrySet()) {
+			List<InheritanceStateBlock<U>> sortedList = new ArrayList<>(currentEntry.getValue());
+			Collections.sort(sortedList, new Comparator<InheritanceStateBlock<U>>() {
+				@Override
+				public int compare(InheritanceStateBlock<U> o1, InheritanceStateBlock<U> o2) {
+					return Integer.compare(o1.getStartPosition(), o2.getStartPosition());
+				}
+			});
+			int[] starts = new int[sortedList.size()];
+			int[] stops = new int[sortedList.size()];
+			for (int i = 0; i < sortedList.size(); i++) {
+				starts[i] = sortedList.get(i).getStartPosition();
+				stops[i] = sortedList.get(i).getStopPosition() - 1;
+			}
+			track.addChromosome(currentEntry.getKey(), starts, stops, sortedList.toArray());
+		}
+		return track;
+	}
+
+
+	/**
+	 * Adds the intervals of a chromosome to the track
+	 * @param chromosome a chromosome
+	 * @param starts start positions of the intervals sorted in increasing order
+	 * @param stops inclusive stop positions of the intervals
+	 * @param chromosomeIntervals intervals of the chromosome
+	 */
+	private void addChromosome(String chromosome, int[] starts, int[] stops, Object[] chromosomeIntervals) {
+		int[] maxStops = new int[stops.length];
+		for (int i = 0; i < stops.length; i++) {
+			maxStops[i] = (i == 0) ? stops[i] : Math.max(maxStops[i - 1], stops[i]);
+		}
+		chromosomeIndexes.put(chromosome, startPositions.size());
+		startPositions.add(starts);
+		maxStopPositions.add(maxStops);
+		intervals.add(chromosomeIntervals);
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @return the index of the specified chromosome in the track, -1 if the track has no interval on the chromosome
+	 */
+	int getChromosomeIndex(String chromosome) {
+		Integer index = chromosomeIndexes.get(chromosome);
+		return index == null ? -1 : index;
+	}
+
+
+	/**
+	 * @param chromosomeIndex index of a chromosome in the track
+	 * @return the sorted start positions of the intervals of the chromosome
+	 */
+	int[] getStartPositions(int chromosomeIndex) {
+		return startPositions.get(chromosomeIndex);
+	}
+
+
+	/**
+	 * @param chromosomeIndex index of a chromosome in the track
+	 * @return the max stop position of the intervals of the chromosome from the first one to each one
+	 */
+	int[] getMaxStopPositions(int chromosomeIndex) {
+		return maxStopPositions.get(chromosomeIndex);
+	}
+
+
+	/**
+	 * @param chromosomeIndex index of a chromosome in the track
+	 * @return the intervals of the chromosome sorted by start position
+	 */
+	Object[] getIntervals(int chromosomeIndex) {
+		return intervals.get(chromosomeIndex);
+	}
+}
@@ -0,0 +1,70 @@
+package dataStructures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Set of {@link IntervalTrack} that can be annotated together in a single sweep over position-sorted variants.
+ * Each track gets the index of its bit in the masks returned by {@link IntervalTrackSweep#sweep(String, int)}
+ * @author Julien Lajugie
+ */
+public class IntervalTrackSet {
+
+	/**
+	 * Maximum number of tracks in a set (one bit per track in a long)
+	 */
+	public static final int MAX_TRACK_COUNT = 64;
+
+	private final List<IntervalTrack<?>> tracks;	// tracks of the set
+
+
+	/**
+	 * Creates an instance of {@link IntervalTrackSet}
+	 */
+	public IntervalTrackSet() {
+		tracks = new ArrayList<>();
+	}
+
+
+	/**
+	 * Registers a track in the set
+	 * @param track track to add
+	 * @return the index of the track in the set
+	 */
+	public int addTrack(IntervalTrack<?> track) {
+		if (tracks.size() == MAX_TRACK_COUNT) {
+			throw new IllegalStateException("A track set cannot contain more than " + MAX_TRACK_COUNT + " tracks");
+		}
+		tracks.add(track);
+		return tracks.size() - 1;
+	}
+
+
+	/**
+	 * @return the number of tracks in the set
+	 */
+	public int getTrackCount() {
+		return tracks.size();
+	}
+
+
+	/**
+	 * @param trackIndex index of a track
+	 * @return the track with the specified index
+	 */
+	IntervalTrack<?> getTrack(int trackIndex) {
+		return tracks.get(trackIndex);
+	}
+
+
+	/**
+	 * Creates a new sweep over the tracks of the set.
+	 * A sweep is not thread safe so each thread needs its own sweep.
+	 * Tracks added after the creation of the sweep are not annotated by the sweep
+	 * @return a new {@link IntervalTrackSweep}
+	 */
+	public IntervalTrackSweep createSweep() {
+		return new IntervalTrackSweep(this);
+	}
+}
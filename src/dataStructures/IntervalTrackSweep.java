@@ -0,0 +1,177 @@
+package dataStructures;
+
+
+/**
+ * Sweep over the tracks of a {@link IntervalTrackSet} that annotates positions with the tracks containing them.
+ * Each track keeps two cursors that only move forward while the positions are increasing on a chromosome
+ * so annotating a position-sorted VCF costs O(variants + intervals).
+ * When a position is smaller than the previous one or is on a new chromosome the cursors are positioned using a binary search.
+ * A sweep is not thread safe, each thread needs to create its own sweep.
+ * @author Julien Lajugie
+ */
+public class IntervalTrackSweep {
+
+	private final IntervalTrack<?>[] 	tracks;				// tracks annotated by the sweep
+	private final int[][] 				startPositions;		// start positions of the current chromosome for each track
+	private final int[][] 				maxStopPositions;	// max stop positions of the current chromosome for each track
+	private final Object[][] 			intervals;			// intervals of the current chromosome for each track
+	private final int[] 				nextIndexes;		// index of the first interval starting after the current position for each track
+	private final int[] 				lowIndexes;			// index of the first interval that can contain the current position for each track
+	private final Object[] 				hits;				// interval containing the current position for each track
+	private String 						chromosome;			// current chromosome
+	private int 						position;			// current position
+
+
+	/**
+	 * Creates an instance of {@link IntervalTrackSweep}
+	 * @param trackSet tracks to annotate
+	 */
+	IntervalTrackSweep(IntervalTrackSet trackSet) {
+		int trackCount = trackSet.getTrackCount();
+		tracks = new IntervalTrack<?>[trackCount];
+		for (int i = 0; i < trackCount; i++) {
+			tracks[i] = trackSet.getTrack(i);
+		}
+		startPositions = new int[trackCount][];
+		maxStopPositions = new int[trackCount][];
+		intervals = new Object[trackCount][];
+		nextIndexes = new int[trackCount];
+		lowIndexes = new int[trackCount];
+		hits = new Object[trackCount];
+		chromosome = null;
+		position = Integer.MIN_VALUE;
+	}
+
+
+	/**
+	 * @param variant a {@link Variant}
+	 * @return a mask where the bit i is set if the track with the index i contains the variant
+	 */
+	public long sweep(Variant variant) {
+		return sweep(variant.getChromosome(), variant.getPosition());
+	}
+
+
+	/**
+	 * Moves the sweep to the specified position and annotates it
+	 * @param chromosome a chromosome
+	 * @param position a position on the chromosome
+	 * @return a mask where the bit i is set if the track with the index i contains the position
+	 */
+	public long sweep(String chromosome, int position) {
+		if (!chromosome.equals(this.chromosome)) {
+			// the sweep can start anywhere on the chromosome (eg: a batch of lines in the middle of a file)
+			loadChromosome(chromosome);
+			repositionCursors(position);
+		} else if (position < this.position) {
+			// the input is not sorted, we reposition the cursors
+			repositionCursors(position);
+		}
+		this.position = position;
+		long hitMask = 0;
+		for (int i = 0; i < tracks.length; i++) {
+			hits[i] = null;
+			int[] starts = startPositions[i];
+			if (starts != null) {
+				int[] maxStops = maxStopPositions[i];
+				int next = nextIndexes[i];
+				while ((next < starts.length) && (starts[next] <= position)) {
+					next++;
+				}
+				int low = lowIndexes[i];
+				while ((low < maxStops.length) && (maxStops[low] < position)) {
+					low++;
+				}
+				nextIndexes[i] = next;
+				lowIndexes[i] = low;
+				// the first interval with a max stop after the position ends after the position
+				if (low < next) {
+					hits[i] = intervals[i][low];
+					hitMask |= 1L << i;
+				}
+			}
+		}
+		return hitMask;
+	}
+
+
+	/**
+	 * Positions the cursors of each track on the specified position using a binary search
+	 * @param position a position on the current chromosome
+	 */
+	private void repositionCursors(int position) {
+		for (int i = 0; i < tracks.length; i++) {
+			if (startPositions[i] != null) {
+				nextIndexes[i] = firstIndexGreaterThan(startPositions[i], position);
+				lowIndexes[i] = firstIndexGreaterThan(maxStopPositions[i], position - 1);
+			}
+		}
+	}
+
+
+	/**
+	 * Loads the arrays of the specified chromosome for each track and resets the cursors
+	 * @param chromosome a chromosome
+	 */
+	private void loadChromosome(String chromosome) {
+		this.chromosome = chromosome;
+		for (int i = 0; i < tracks.length; i++) {
+			int chromosomeIndex = tracks[i].getChromosomeIndex(chromosome);
+			if (chromosomeIndex == -1) {
+				startPositions[i] = null;
+				maxStopPositions[i] = null;
+				intervals[i] = null;
+			} else {
+				startPositions[i] = tracks[i].getStartPositions(chromosomeIndex);
+				maxStopPositions[i] = tracks[i].getMaxStopPositions(chromosomeIndex);
+				intervals[i] = tracks[i].getIntervals(chromosomeIndex);
+			}
+			nextIndexes[i] = 0;
+			lowIndexes[i] = 0;
+		}
+	}
+
+
+	/**
+	 * @param sortedArray an array sorted in increasing order
+	 * @param value a value
+	 * @return the index of the first element of the array greater than the specified value
+	 */
+	private static int firstIndexGreaterThan(int[] sortedArray, int value) {
+		int low = 0;
+		int high = sortedArray.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sortedArray[middle] <= value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * @param trackIndex index of a track
+	 * @return true if the track with the specified index contains the last position annotated
+	 */
+	public boolean isHit(int trackIndex) {
+		return hits[trackIndex] != null;
+	}
+
+
+	/**
+	 * @param track a track of the set
+	 * @param trackIndex index of the track in the set
+	 * @return the first interval in position order of the specified track containing the last position annotated.
+	 * Null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getHit(IntervalTrack<T> track, int trackIndex) {
+		if (tracks[trackIndex] != track) {
+			throw new IllegalArgumentException("The track doesn't have the index " + trackIndex);
+		}
+		return (T) hits[trackIndex];
+	}
+}
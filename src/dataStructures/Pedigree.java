@@ -0,0 +1,253 @@
+package dataStructures;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import utils.GenomicFileReader;
+
+
+/**
+ * Family of any size and number of generations whose genotypes are stored in the sample columns of a VCF file.
+ * Each member of the pedigree has an index in the pedigree, the index of its sample column in the VCF file and
+ * the indexes of its parents in the pedigree (-1 for the founders or when a parent is not in the VCF file).
+ * A pedigree is created from the sample names of the header of a VCF file and, for the files containing several
+ * families, from a PED file
+ * @author Julien Lajugie
+ */
+public class Pedigree {
+
+	private final String 	familyId;			// ID of the family
+	private final String[] 	memberNames;		// name of the sample of each member
+	private final int[] 	sampleIndexes;		// index of the sample of each member in the VCF file (0 for the first sample)
+	private final int[] 	fatherIndexes;		// index of the father of each member in the pedigree, -1 if none
+	private final int[] 	motherIndexes;		// index of the mother of each member in the pedigree, -1 if none
+
+
+	/**
+	 * Creates an instance of {@link Pedigree}
+	 * @param familyId ID of the family
+	 * @param memberNames name of the sample of each member
+	 * @param sampleIndexes index of the sample of each member in the VCF file
+	 * @param fatherIndexes index of the father of each member in the pedigree, -1 if none
+	 * @param motherIndexes index of the mother of each member in the pedigree, -1 if none
+	 */
+	private Pedigree(String familyId, String[] memberNames, int[] sampleIndexes, int[] fatherIndexes, int[] motherIndexes) {
+		this.familyId = familyId;
+		this.memberNames = memberNames;
+		this.sampleIndexes = sampleIndexes;
+		this.fatherIndexes = fatherIndexes;
+		this.motherIndexes = motherIndexes;
+	}
+
+
+	/**
+	 * @param headerLine the header line of a VCF file starting with #CHROM
+	 * @return the names of the samples of the VCF file in column order
+	 * @throws IOException if the line is not a valid #CHROM header line
+	 */
+	public static List<String> readSampleNames(String headerLine) throws IOException {
+		if (!headerLine.startsWith("#CHROM")) {
+			throw new IOException("Invalid VCF header line: " + headerLine);
+		}
+		String[] splitLine = headerLine.split("\t");
+		List<String> sampleNames = new ArrayList<>();
+		for (int i = VCFLineParser.FIRST_SAMPLE_FIELD_INDEX; i < splitLine.length; i++) {
+			sampleNames.add(splitLine[i].trim());
+		}
+		return sampleNames;
+	}
+
+
+	/**
+	 * Creates a nuclear family from the samples of a VCF file following the layout of the family quartet files:
+	 * the first 2 samples are the father and the mother and the next samples are their children
+	 * @param familyId ID of the family
+	 * @param sampleNames names of the samples of the VCF file
+	 * @return a {@link Pedigree}
+	 * @throws IOException if there are less than 3 samples
+	 */
+	public static Pedigree createNuclearFamily(String familyId, List<String> sampleNames) throws IOException {
+		int memberCount = sampleNames.size();
+		if (memberCount < 3) {
+			throw new IOException("A nuclear family needs 2 parents and at least 1 child (" + memberCount + " samples)");
+		}
+		int[] sampleIndexes = new int[memberCount];
+		int[] fatherIndexes = new int[memberCount];
+		int[] motherIndexes = new int[memberCount];
+		for (int i = 0; i < memberCount; i++) {
+			sampleIndexes[i] = i;
+			fatherIndexes[i] = (i < 2) ? -1 : 0;
+			motherIndexes[i] = (i < 2) ? -1 : 1;
+		}
+		return new Pedigree(familyId, sampleNames.toArray(new String[memberCount]), sampleIndexes, fatherIndexes, motherIndexes);
+	}
+
+
+	/**
+	 * Loads the families of a PED file (family ID, individual ID, paternal ID, maternal ID, sex, phenotype).
+	 * Only the individuals with a sample in the VCF file are members of the pedigrees, the families without
+	 * any sample in the VCF file are ignored
+	 * @param pedFile a PED file
+	 * @param sampleNames names of the samples of the VCF file
+	 * @return the pedigrees of the families in the order of the PED file
+	 * @throws IOException if the PED file is not valid
+	 */
+	public static List<Pedigree> loadFromPedFile(File pedFile, List<String> sampleNames) throws IOException {
+		Map<String, List<String[]>> familyMap = new LinkedHashMap<>();
+		BufferedReader reader = null;
+		try {
+			reader = GenomicFileReader.open(pedFile);
+			String line = null;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				// we don't care about the empty and the comment lines
+				if (!line.isEmpty() && (line.charAt(0) != '#')) {
+					String[] splitLine = line.split("\\s+");
+					if (splitLine.length < 4) {
+						throw new IOException("Invalid PED line: " + line);
+					}
+					// only the individuals in the VCF file are members of the pedigree
+					if (sampleNames.contains(splitLine[1])) {
+						if (!familyMap.containsKey(splitLine[0])) {
+							familyMap.put(splitLine[0], new ArrayList<String[]>());
+						}
+						familyMap.get(splitLine[0]).add(splitLine);
+					}
+				}
+			}
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+		}
+		List<Pedigree> pedigrees = new ArrayList<>();
+		for (Map.Entry<String, List<String[]>> currentFamily: familyMap.entrySet()) {
+			List<String[]> members = currentFamily.getValue();
+			int memberCount = members.size();
+			String[] memberNames = new String[memberCount];
+			int[] sampleIndexes = new int[memberCount];
+			for (int i = 0; i < memberCount; i++) {
+				memberNames[i] = members.get(i)[1];
+				sampleIndexes[i] = sampleNames.indexOf(memberNames[i]);
+			}
+			List<String> memberNameList = Arrays.asList(memberNames);
+			int[] fatherIndexes = new int[memberCount];
+			int[] motherIndexes = new int[memberCount];
+			for (int i = 0; i < memberCount; i++) {
+				// a parent that is not in the VCF file has no index (the ID of a missing parent is 0 in a PED file)
+				fatherIndexes[i] = memberNameList.indexOf(members.get(i)[2]);
+				motherIndexes[i] = memberNameList.indexOf(members.get(i)[3]);
+			}
+			pedigrees.add(new Pedigree(currentFamily.getKey(), memberNames, sampleIndexes, fatherIndexes, motherIndexes));
+		}
+		return pedigrees;
+	}
+
+
+	/**
+	 * @return the ID of the family
+	 */
+	public String getFamilyId() {
+		return familyId;
+	}
+
+
+	/**
+	 * @return the number of members of the pedigree
+	 */
+	public int getMemberCount() {
+		return memberNames.length;
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return the name of the sample of the member
+	 */
+	public String getMemberName(int memberIndex) {
+		return memberNames[memberIndex];
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return the index of the sample of the member in the VCF file (0 for the first sample)
+	 */
+	public int getSampleIndex(int memberIndex) {
+		return sampleIndexes[memberIndex];
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return the index of the father of the member in the pedigree. -1 if the father is not in the pedigree
+	 */
+	public int getFatherIndex(int memberIndex) {
+		return fatherIndexes[memberIndex];
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return the index of the mother of the member in the pedigree. -1 if the mother is not in the pedigree
+	 */
+	public int getMotherIndex(int memberIndex) {
+		return motherIndexes[memberIndex];
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return true if none of the parents of the member is in the pedigree
+	 */
+	public boolean isFounder(int memberIndex) {
+		return (fatherIndexes[memberIndex] == -1) && (motherIndexes[memberIndex] == -1);
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return the indexes of the children of the member in the pedigree
+	 */
+	public int[] getChildrenIndexes(int memberIndex) {
+		int childCount = 0;
+		for (int i = 0; i < memberNames.length; i++) {
+			if ((fatherIndexes[i] == memberIndex) || (motherIndexes[i] == memberIndex)) {
+				childCount++;
+			}
+		}
+		int[] childrenIndexes = new int[childCount];
+		childCount = 0;
+		for (int i = 0; i < memberNames.length; i++) {
+			if ((fatherIndexes[i] == memberIndex) || (motherIndexes[i] == memberIndex)) {
+				childrenIndexes[childCount++] = i;
+			}
+		}
+		return childrenIndexes;
+	}
+
+
+	/**
+	 * @return the quartets of the pedigree (a father, a mother and 2 of their children) as arrays of member indexes
+	 * in the order of {@link QuartetMember}. The quartets can be converted to {@link PhasedVector} using
+	 * {@link PedigreeGenotypes#toPhasedVector(int[])}
+	 */
+	public List<int[]> getQuartets() {
+		List<int[]> quartets = new ArrayList<>();
+		for (int i = 0; i < memberNames.length; i++) {
+			for (int j = i + 1; j < memberNames.length; j++) {
+				// the 2 children must have the same father and the same mother in the pedigree
+				if ((fatherIndexes[i] != -1) && (motherIndexes[i] != -1) && (fatherIndexes[i] == fatherIndexes[j]) && (motherIndexes[i] == motherIndexes[j])) {
+					quartets.add(new int[] {fatherIndexes[i], motherIndexes[i], i, j});
+				}
+			}
+		}
+		return quartets;
+	}
+}
@@ -0,0 +1,277 @@
+package dataStructures;
+
+
+/**
+ * Genotypes of the members of a {@link Pedigree} at one variant, packed in an array of longs.
+ * Each member uses 5 bits: 2 bits for each allele (see {@link #REFERENCE_ALLELE}, {@link #ALTERNATIVE_ALLELE},
+ * {@link #MISSING_ALLELE} and {@link #OTHER_ALLELE}) and 1 bit set when the genotype is phased.
+ * A long stores the genotypes of {@link #MEMBERS_PER_WORD} members so a family of up to 12 members fits in one long.
+ * An instance of this class is a reusable and mutable record: each call to {@link #parse(VCFLineParser)} overwrites
+ * the genotypes of the previous line so a single instance can be used to read a whole VCF file without creating garbage
+ * @author Julien Lajugie
+ */
+public class PedigreeGenotypes {
+
+	/**
+	 * Code of the reference allele
+	 */
+	public static final int REFERENCE_ALLELE = 0;
+
+	/**
+	 * Code of the alternative allele
+	 */
+	public static final int ALTERNATIVE_ALLELE = 1;
+
+	/**
+	 * Code of an allele that is not called (ie: '.')
+	 */
+	public static final int MISSING_ALLELE = 2;
+
+	/**
+	 * Code of an allele that is neither the reference nor the first alternative allele
+	 */
+	public static final int OTHER_ALLELE = 3;
+
+	/**
+	 * Number of members stored in a long
+	 */
+	public static final int MEMBERS_PER_WORD = 12;
+
+	private static final int BITS_PER_MEMBER = 5;		// 2 bits per allele + 1 phasing bit
+	private static final int ALLELE_MASK = 0x3;			// mask of the bits of an allele
+	private static final int PHASING_BIT = 4;			// position of the phasing bit of a member
+	private static final String[] ALLELE_STRINGS = {"0", "1", ".", "."};	// allele strings indexed by allele code
+
+	private final Pedigree 	pedigree;		// pedigree of the genotypes
+	private final long[] 	words;			// packed genotypes of the members
+
+
+	/**
+	 * Creates an instance of {@link PedigreeGenotypes} where all the alleles are missing
+	 * @param pedigree a {@link Pedigree}
+	 */
+	public PedigreeGenotypes(Pedigree pedigree) {
+		this.pedigree = pedigree;
+		words = new long[(pedigree.getMemberCount() + MEMBERS_PER_WORD - 1) / MEMBERS_PER_WORD];
+		for (int i = 0; i < pedigree.getMemberCount(); i++) {
+			setGenotype(i, MISSING_ALLELE, MISSING_ALLELE, false);
+		}
+	}
+
+
+	/**
+	 * Reads the genotypes of the members of the pedigree from the line currently parsed by a {@link VCFLineParser}.
+	 * The genotypes of the previous line are overwritten
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @return this instance
+	 * @throws ArrayIndexOutOfBoundsException if a sample of the pedigree is not in the line
+	 */
+	public PedigreeGenotypes parse(VCFLineParser parser) {
+		for (int i = 0; i < pedigree.getMemberCount(); i++) {
+			int sampleIndex = pedigree.getSampleIndex(i);
+			byte secondAllele = parser.getGenotypeAllele(sampleIndex, 1);
+			// the genotype has a separator when its second allele is valid (ie: it is not haploid)
+			boolean isPhased = (secondAllele != VCFLineParser.INVALID_ALLELE) && parser.hasPhasedSeparator(sampleIndex);
+			setGenotype(i, toAlleleCode(parser.getGenotypeAllele(sampleIndex, 0)), toAlleleCode(secondAllele), isPhased);
+		}
+		return this;
+	}
+
+
+	/**
+	 * @param allele an allele returned by {@link VCFLineParser#getGenotypeAllele(int, int)}
+	 * @return the code of the allele
+	 */
+	private static int toAlleleCode(byte allele) {
+		switch (allele) {
+		case 0:
+			return REFERENCE_ALLELE;
+		case 1:
+			return ALTERNATIVE_ALLELE;
+		case VCFLineParser.MISSING_ALLELE:
+			return MISSING_ALLELE;
+		default:
+			return OTHER_ALLELE;
+		}
+	}
+
+
+	/**
+	 * @return the pedigree of the genotypes
+	 */
+	public Pedigree getPedigree() {
+		return pedigree;
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return the 5 bits of the member
+	 */
+	private int getBits(int memberIndex) {
+		int shift = (memberIndex % MEMBERS_PER_WORD) * BITS_PER_MEMBER;
+		return (int) (words[memberIndex / MEMBERS_PER_WORD] >>> shift) & 0x1F;
+	}
+
+
+	/**
+	 * Sets the 5 bits of a member
+	 * @param memberIndex index of a member in the pedigree
+	 * @param bits the 5 bits of the member
+	 */
+	private void setBits(int memberIndex, int bits) {
+		int shift = (memberIndex % MEMBERS_PER_WORD) * BITS_PER_MEMBER;
+		int wordIndex = memberIndex / MEMBERS_PER_WORD;
+		words[wordIndex] = (words[wordIndex] & ~(0x1FL << shift)) | ((long) bits << shift);
+	}
+
+
+	/**
+	 * Sets the genotype of a member
+	 * @param memberIndex index of a member in the pedigree
+	 * @param firstAllele code of the first allele
+	 * @param secondAllele code of the second allele
+	 * @param isPhased true if the genotype is phased
+	 */
+	public void setGenotype(int memberIndex, int firstAllele, int secondAllele, boolean isPhased) {
+		setBits(memberIndex, (firstAllele & ALLELE_MASK) | ((secondAllele & ALLELE_MASK) << 2) | (isPhased ? 1 << PHASING_BIT : 0));
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @param alleleIndex 0 for the first allele of the genotype, 1 for the second one
+	 * @return the code of the specified allele of the member
+	 */
+	public int getAllele(int memberIndex, int alleleIndex) {
+		return (getBits(memberIndex) >> (alleleIndex * 2)) & ALLELE_MASK;
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return true if the genotype of the member is phased
+	 */
+	public boolean isPhased(int memberIndex) {
+		return ((getBits(memberIndex) >> PHASING_BIT) & 1) == 1;
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return true if both alleles of the member are the reference or the alternative allele
+	 */
+	public boolean isCalled(int memberIndex) {
+		return (getAllele(memberIndex, 0) <= ALTERNATIVE_ALLELE) && (getAllele(memberIndex, 1) <= ALTERNATIVE_ALLELE);
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return true if the member is called and heterozygous
+	 */
+	public boolean isHeterozygous(int memberIndex) {
+		return isCalled(memberIndex) && (getAllele(memberIndex, 0) != getAllele(memberIndex, 1));
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return true if the member is called and homozygous
+	 */
+	public boolean isHomozygous(int memberIndex) {
+		return isCalled(memberIndex) && (getAllele(memberIndex, 0) == getAllele(memberIndex, 1));
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return the genotype of the member (eg: 0|1 or 0/1)
+	 */
+	public String getGenotype(int memberIndex) {
+		return ALLELE_STRINGS[getAllele(memberIndex, 0)] + (isPhased(memberIndex) ? "|" : "/") + ALLELE_STRINGS[getAllele(memberIndex, 1)];
+	}
+
+
+	/**
+	 * Sets the phasing of a member
+	 * @param memberIndex index of a member in the pedigree
+	 * @param isPhased true if the member is phased, false otherwise
+	 */
+	public void setPhasing(int memberIndex, boolean isPhased) {
+		setGenotype(memberIndex, getAllele(memberIndex, 0), getAllele(memberIndex, 1), isPhased);
+	}
+
+
+	/**
+	 * Inverts the alleles of a member
+	 * @param memberIndex index of a member in the pedigree
+	 */
+	public void invert(int memberIndex) {
+		setGenotype(memberIndex, getAllele(memberIndex, 1), getAllele(memberIndex, 0), isPhased(memberIndex));
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @return true if the genotype of the member cannot be inherited from the genotypes of its parents in the pedigree.
+	 * Only the parents that are called are taken into account. False if the member is not called
+	 */
+	public boolean isMendelianError(int memberIndex) {
+		if (!isCalled(memberIndex)) {
+			return false;
+		}
+		int fatherIndex = pedigree.getFatherIndex(memberIndex);
+		int motherIndex = pedigree.getMotherIndex(memberIndex);
+		boolean isFatherCalled = (fatherIndex != -1) && isCalled(fatherIndex);
+		boolean isMotherCalled = (motherIndex != -1) && isCalled(motherIndex);
+		int allele1 = getAllele(memberIndex, 0);
+		int allele2 = getAllele(memberIndex, 1);
+		if (isFatherCalled && isMotherCalled) {
+			// one allele must come from each parent
+			return !((hasAllele(fatherIndex, allele1) && hasAllele(motherIndex, allele2)) || (hasAllele(fatherIndex, allele2) && hasAllele(motherIndex, allele1)));
+		} else if (isFatherCalled) {
+			return !hasAllele(fatherIndex, allele1) && !hasAllele(fatherIndex, allele2);
+		} else if (isMotherCalled) {
+			return !hasAllele(motherIndex, allele1) && !hasAllele(motherIndex, allele2);
+		}
+		return false;
+	}
+
+
+	/**
+	 * @param memberIndex index of a member in the pedigree
+	 * @param allele code of an allele
+	 * @return true if one of the alleles of the member is the specified allele
+	 */
+	private boolean hasAllele(int memberIndex, int allele) {
+		return (getAllele(memberIndex, 0) == allele) || (getAllele(memberIndex, 1) == allele);
+	}
+
+
+	/**
+	 * Converts the genotypes of 4 members of the pedigree to a quartet vector so the quartet algorithms can be
+	 * applied to any quartet of a larger family (see {@link Pedigree#getQuartets()}).
+	 * The members must be called
+	 * @param quartet indexes of the members of the quartet in the pedigree in the order of {@link QuartetMember}
+	 * @return the vector as a short primitive (see {@link PhasedVector})
+	 */
+	public short toPhasedVector(int[] quartet) {
+		short vector = 0;
+		for (int i = 0; i < quartet.length; i++) {
+			// in a phased vector a set allele bit means reference allele
+			int memberBits = 0;
+			if (getAllele(quartet[i], 0) == REFERENCE_ALLELE) {
+				memberBits |= 1;
+			}
+			if (getAllele(quartet[i], 1) == REFERENCE_ALLELE) {
+				memberBits |= 2;
+			}
+			if (isPhased(quartet[i])) {
+				memberBits |= 4;
+			}
+			vector |= memberBits << (i * 3);
+		}
+		return vector;
+	}
+}
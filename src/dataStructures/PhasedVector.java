@@ -8,6 +8,8 @@ package dataStructures;
  */
 public class PhasedVector implements Comparable<PhasedVector> {
 
+	private static final String[] GENOTYPES = createGenotypeTable();	// genotypes indexed by the 3 bits of a member (allele 1, allele 2, phasing)
+
 	private int 	position;	// position of the vector
 	private short 	vector;		// genotype vector as a short primitive containing 16 bits
 
@@ -18,8 +20,7 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @param variant variant to represent as a vector
 	 */
 	public PhasedVector(int position, Variant variant) {
-		this.position = position;
-		variant2Vector(variant);
+		this(position, createVector(variant));
 	}
 	
 	
@@ -30,28 +31,76 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @param phasedQuartetVector phased vector represented by a string (eg: "..aaabab")
 	 */
 	public PhasedVector(int position, String unphasedQuartetVector, String phasedQuartetVector) {
+		this(position, createVector(unphasedQuartetVector, phasedQuartetVector));
+	}
+
+
+	/**
+	 * Creates an instance of {@link PhasedVector}
+	 * @param position position of the vector on a chromosome
+	 * @param vector genotype vector as a short primitive
+	 */
+	public PhasedVector(int position, short vector) {
 		this.position = position;
-		stringVector2IntVector(unphasedQuartetVector, phasedQuartetVector);
+		this.vector = vector;
+	}
+
+
+	/**
+	 * @return the genotype strings indexed by the 3 bits of a member in a vector
+	 */
+	private static String[] createGenotypeTable() {
+		String[] genotypes = new String[8];
+		for (int i = 0; i < genotypes.length; i++) {
+			String allele1 = (i & 1) != 0 ? "0" : "1";
+			String separator = (i & 4) != 0 ? "|" : "/";
+			String allele2 = (i & 2) != 0 ? "0" : "1";
+			genotypes[i] = allele1 + separator + allele2;
+		}
+		return genotypes;
+	}
+
+
+	/**
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return the position of the first bit of the specified member in a vector
+	 */
+	private static int getMemberBitOffset(QuartetMember quartetMember) {
+		switch (quartetMember) {
+		case FATHER:
+			return 0;
+		case MOTHER:
+			return 3;
+		case KID1:
+			return 6;
+		case KID2:
+			return 9;
+		default:
+			return -1;
+		}
 	}
 
 
 	/**
 	 * Converts a variant to a to a vector
 	 * @param variant variant to represent as a vector
+	 * @return the vector as a short primitive
 	 */
-	private void variant2Vector(Variant variant) {
-		setBit(0, variant.getAlleles(QuartetMember.FATHER)[0] == AlleleType.REFERENCE_ALLELE);
-		setBit(1, variant.getAlleles(QuartetMember.FATHER)[1] == AlleleType.REFERENCE_ALLELE);
-		setBit(2, variant.isPhased(QuartetMember.FATHER));
-		setBit(3, variant.getAlleles(QuartetMember.MOTHER)[0] == AlleleType.REFERENCE_ALLELE);
-		setBit(4, variant.getAlleles(QuartetMember.MOTHER)[1] == AlleleType.REFERENCE_ALLELE);
-		setBit(5, variant.isPhased(QuartetMember.MOTHER));
-		setBit(6, variant.getAlleles(QuartetMember.KID1)[0] == AlleleType.REFERENCE_ALLELE);
-		setBit(7, variant.getAlleles(QuartetMember.KID1)[1] == AlleleType.REFERENCE_ALLELE);
-		setBit(8, variant.isPhased(QuartetMember.KID1));
-		setBit(9, variant.getAlleles(QuartetMember.KID2)[0] == AlleleType.REFERENCE_ALLELE);
-		setBit(10, variant.getAlleles(QuartetMember.KID2)[1] == AlleleType.REFERENCE_ALLELE);
-		setBit(11, variant.isPhased(QuartetMember.KID2));
+	public static short createVector(Variant variant) {
+		short vector = 0;
+		vector = setBit(vector, 0, variant.getAlleles(QuartetMember.FATHER)[0] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 1, variant.getAlleles(QuartetMember.FATHER)[1] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 2, variant.isPhased(QuartetMember.FATHER));
+		vector = setBit(vector, 3, variant.getAlleles(QuartetMember.MOTHER)[0] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 4, variant.getAlleles(QuartetMember.MOTHER)[1] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 5, variant.isPhased(QuartetMember.MOTHER));
+		vector = setBit(vector, 6, variant.getAlleles(QuartetMember.KID1)[0] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 7, variant.getAlleles(QuartetMember.KID1)[1] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 8, variant.isPhased(QuartetMember.KID1));
+		vector = setBit(vector, 9, variant.getAlleles(QuartetMember.KID2)[0] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 10, variant.getAlleles(QuartetMember.KID2)[1] == AlleleType.REFERENCE_ALLELE);
+		vector = setBit(vector, 11, variant.isPhased(QuartetMember.KID2));
+		return vector;
 	}
 
 
@@ -59,65 +108,70 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * Converts a vector represented by a string (eg: "abaaabab") to a vector represented by a short
 	 * @param unphasedQuartetVector unphased vector represented by a string (eg: "abaaabab")
 	 * @param phasedQuartetVector phased vector represented by a string (eg: "..aaabab")
+	 * @return the vector as a short primitive
 	 */
-	private void stringVector2IntVector(String unphasedQuartetVector, String phasedQuartetVector) {
+	public static short createVector(String unphasedQuartetVector, String phasedQuartetVector) {
+		short vector = 0;
 		// father
 		if ((phasedQuartetVector.charAt(0) != '.') && (phasedQuartetVector.charAt(1) != '.')) {
 			// case sample phased
-			setBit(0, phasedQuartetVector.charAt(0) == 'a');
-			setBit(1, phasedQuartetVector.charAt(1) == 'a');
-			setBit(2, true);
+			vector = setBit(vector, 0, phasedQuartetVector.charAt(0) == 'a');
+			vector = setBit(vector, 1, phasedQuartetVector.charAt(1) == 'a');
+			vector = setBit(vector, 2, true);
 		} else {
 			// case sample unphased
-			setBit(0, unphasedQuartetVector.charAt(0) == 'a');
-			setBit(1, unphasedQuartetVector.charAt(1) == 'a');
-			setBit(2, false);
+			vector = setBit(vector, 0, unphasedQuartetVector.charAt(0) == 'a');
+			vector = setBit(vector, 1, unphasedQuartetVector.charAt(1) == 'a');
+			vector = setBit(vector, 2, false);
 		}
 		// mother
 		if ((phasedQuartetVector.charAt(2) != '.') && (phasedQuartetVector.charAt(3) != '.')) {
 			// case sample phased
-			setBit(3, phasedQuartetVector.charAt(2) == 'a');
-			setBit(4, phasedQuartetVector.charAt(3) == 'a');
-			setBit(5, true);
+			vector = setBit(vector, 3, phasedQuartetVector.charAt(2) == 'a');
+			vector = setBit(vector, 4, phasedQuartetVector.charAt(3) == 'a');
+			vector = setBit(vector, 5, true);
 		} else {
 			// case sample unphased
-			setBit(3, unphasedQuartetVector.charAt(2) == 'a');
-			setBit(4, unphasedQuartetVector.charAt(3) == 'a');
-			setBit(5, false);
+			vector = setBit(vector, 3, unphasedQuartetVector.charAt(2) == 'a');
+			vector = setBit(vector, 4, unphasedQuartetVector.charAt(3) == 'a');
+			vector = setBit(vector, 5, false);
 		}
 		// father
 		if ((phasedQuartetVector.charAt(4) != '.') && (phasedQuartetVector.charAt(5) != '.')) {
 			// case sample phased
-			setBit(6, phasedQuartetVector.charAt(4) == 'a');
-			setBit(7, phasedQuartetVector.charAt(5) == 'a');
-			setBit(8, true);
+			vector = setBit(vector, 6, phasedQuartetVector.charAt(4) == 'a');
+			vector = setBit(vector, 7, phasedQuartetVector.charAt(5) == 'a');
+			vector = setBit(vector, 8, true);
 		} else {
 			// case sample unphased
-			setBit(6, unphasedQuartetVector.charAt(4) == 'a');
-			setBit(7, unphasedQuartetVector.charAt(5) == 'a');
-			setBit(8, false);
+			vector = setBit(vector, 6, unphasedQuartetVector.charAt(4) == 'a');
+			vector = setBit(vector, 7, unphasedQuartetVector.charAt(5) == 'a');
+			vector = setBit(vector, 8, false);
 		}
 		// father
 		if ((phasedQuartetVector.charAt(6) != '.') && (phasedQuartetVector.charAt(7) != '.')) {
 			// case sample phased
-			setBit(9, phasedQuartetVector.charAt(6) == 'a');
-			setBit(10, phasedQuartetVector.charAt(7) == 'a');
-			setBit(11, true);
+			vector = setBit(vector, 9, phasedQuartetVector.charAt(6) == 'a');
+			vector = setBit(vector, 10, phasedQuartetVector.charAt(7) == 'a');
+			vector = setBit(vector, 11, true);
 		} else {
 			// case sample unphased
-			setBit(9, unphasedQuartetVector.charAt(6) == 'a');
-			setBit(10, unphasedQuartetVector.charAt(7) == 'a');
-			setBit(11, false);
+			vector = setBit(vector, 9, unphasedQuartetVector.charAt(6) == 'a');
+			vector = setBit(vector, 10, unphasedQuartetVector.charAt(7) == 'a');
+			vector = setBit(vector, 11, false);
 		}
+		return vector;
 	}
 
 
 	/**
-	 * Sets the specified bit of the vector
+	 * Sets the specified bit of a vector
+	 * @param vector a vector
 	 * @param bitPosition position of the bit to set
 	 * @param value value to set
+	 * @return the modified vector
 	 */
-	private short setBit(int bitPosition, boolean value) {
+	private static short setBit(short vector, int bitPosition, boolean value) {
 		if (value) {
 			vector |= (1 << bitPosition);
 		} else {
@@ -128,14 +182,75 @@ public class PhasedVector implements Comparable<PhasedVector> {
 
 
 	/**
+	 * @param vector a vector
 	 * @param bitPosition position of the bit
 	 * @return true if the bit at the specified position is set, false otherwise
 	 */
-	private boolean isSet(int bitPosition) {
+	private static boolean isSet(short vector, int bitPosition) {
 		return (0x1 & (vector >> bitPosition)) == 1 ? true : false;
 	}
 
 
+	/**
+	 * @param vector a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return the genotype of the specified family member in the vector
+	 */
+	public static String getGenotype(short vector, QuartetMember quartetMember) {
+		int bitOffset = getMemberBitOffset(quartetMember);
+		if (bitOffset == -1) {
+			return null;
+		}
+		return GENOTYPES[(vector >> bitOffset) & 0x7];
+	}
+
+
+	/**
+	 * @param vector a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return true if the genotype of the specified member is phased in the vector. False otherwise
+	 */
+	public static boolean isPhased(short vector, QuartetMember quartetMember) {
+		return isSet(vector, getMemberBitOffset(quartetMember) + 2);
+	}
+
+
+	/**
+	 * @param vector a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return true if the specified member is heterozygous in the vector
+	 */
+	public static boolean isHeterozygous(short vector, QuartetMember quartetMember) {
+		int bitOffset = getMemberBitOffset(quartetMember);
+		return isSet(vector, bitOffset) != isSet(vector, bitOffset + 1);
+	}
+
+
+	/**
+	 * @param vector a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @param isPhased true if the member is phased, false otherwise
+	 * @return a copy of the vector where the phasing of the specified family member is set to the specified value
+	 */
+	public static short setPhasing(short vector, QuartetMember quartetMember, boolean isPhased) {
+		return setBit(vector, getMemberBitOffset(quartetMember) + 2, isPhased);
+	}
+
+
+	/**
+	 * @param vector a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return a copy of the vector where the phasing of the genotype of the specified member is inverted
+	 */
+	public static short invert(short vector, QuartetMember quartetMember) {
+		int bitAllele1 = getMemberBitOffset(quartetMember);
+		int bitAllele2 = bitAllele1 + 1;
+		boolean bitTmp = isSet(vector, bitAllele1);
+		vector = setBit(vector, bitAllele1, isSet(vector, bitAllele2));
+		return setBit(vector, bitAllele2, bitTmp);
+	}
+
+
 	/**
 	 * @return the position of the vector
 	 */
@@ -144,27 +259,19 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	}
 
 
+	/**
+	 * @return the genotype vector as a short primitive
+	 */
+	public short getVector() {
+		return vector;
+	}
+
+
 	/**
 	 * @return the father's phased haplotype
 	 */
 	public String getFatherGenotype() {
-		String result = "";
-		if (isSet(0)) {
-			result = "0";
-		} else {
-			result = "1";
-		}
-		if (isSet(2)) {
-			result += "|";
-		} else {
-			result += "/";
-		}
-		if (isSet(1)) {
-			result += "0";
-		} else {
-			result += "1";
-		}
-		return result;
+		return getGenotype(vector, QuartetMember.FATHER);
 	}
 
 
@@ -172,23 +279,7 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @return the mother's phased haplotype
 	 */
 	public String getMotherGenotype() {
-		String result = "";
-		if (isSet(3)) {
-			result = "0";
-		} else {
-			result = "1";
-		}
-		if (isSet(5)) {
-			result += "|";
-		} else {
-			result += "/";
-		}
-		if (isSet(4)) {
-			result += "0";
-		} else {
-			result += "1";
-		}
-		return result;
+		return getGenotype(vector, QuartetMember.MOTHER);
 	}
 
 
@@ -196,23 +287,7 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @return the 1st kid's phased haplotype
 	 */
 	public String getKid1Genotype() {
-		String result = "";
-		if (isSet(6)) {
-			result = "0";
-		} else {
-			result = "1";
-		}
-		if (isSet(8)) {
-			result += "|";
-		} else {
-			result += "/";
-		}
-		if (isSet(7)) {
-			result += "0";
-		} else {
-			result += "1";
-		}
-		return result;
+		return getGenotype(vector, QuartetMember.KID1);
 	}
 
 
@@ -220,23 +295,7 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @return the 2nd kid's phased haplotype
 	 */
 	public String getKid2Genotype() {
-		String result = "";
-		if (isSet(9)) {
-			result = "0";
-		} else {
-			result = "1";
-		}
-		if (isSet(11)) {
-			result += "|";
-		} else {
-			result += "/";
-		}
-		if (isSet(10)) {
-			result += "0";
-		} else {
-			result += "1";
-		}
-		return result;	
+		return getGenotype(vector, QuartetMember.KID2);
 	}
 
 
@@ -245,18 +304,7 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @return the genotype of the specified family member
 	 */
 	public String getGenotype(QuartetMember quartetMember) {
-		switch (quartetMember) {
-		case FATHER:
-			return getFatherGenotype();
-		case MOTHER:
-			return getMotherGenotype();
-		case KID1:
-			return getKid1Genotype();
-		case KID2:
-			return getKid2Genotype();
-		default:
-			return null;
-		}
+		return getGenotype(vector, quartetMember);
 	}
 	
 	
@@ -265,18 +313,10 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @return true if the genotype of the specified member is phased. False otherwise
 	 */
 	public Boolean isPhased(QuartetMember quartetMember) {
-		switch (quartetMember) {
-		case FATHER:
-			return isSet(2);
-		case MOTHER:
-			return isSet(5);
-		case KID1:
-			return isSet(8);
-		case KID2:
-			return isSet(11);
-		default:
+		if (getMemberBitOffset(quartetMember) == -1) {
 			return null;
 		}
+		return isPhased(vector, quartetMember);
 	}
 
 
@@ -285,16 +325,10 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @return true if the specified member is heterozygous
 	 */
 	public Boolean isHeterozygous(QuartetMember member) {
-		String genotype = getGenotype(member);
-		if (genotype == null) {
+		if (getMemberBitOffset(member) == -1) {
 			return null;
-		} else {
-			if (genotype.charAt(0) == genotype.charAt(2)) {
-				return false;
-			} else {
-				return true;
-			}
 		}
+		return isHeterozygous(vector, member);
 	}
 	
 	
@@ -304,23 +338,8 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @param isPhased true if the member is phased, false otherwise
 	 */
 	public void setPhasing(QuartetMember quartetMember, boolean isPhased) {
-		int bitPosition = -1;
-		switch (quartetMember) {
-		case FATHER:
-			bitPosition = 2;
-			break;
-		case MOTHER:
-			bitPosition = 5;
-			break;
-		case KID1:
-			bitPosition = 8;
-			break;
-		case KID2:
-			bitPosition = 11;
-			break;
-		}
-		if (bitPosition != -1) {
-			setBit(bitPosition, isPhased);
+		if (getMemberBitOffset(quartetMember) != -1) {
+			vector = setPhasing(vector, quartetMember, isPhased);
 		}
 	}
 
@@ -348,28 +367,6 @@ public class PhasedVector implements Comparable<PhasedVector> {
 	 * @param quartetMember
 	 */
 	public void invert(QuartetMember quartetMember) {
-		int bitAllele1 = 0;
-		int bitAllele2 = 0; 
-		switch (quartetMember) {
-		case FATHER:
-			bitAllele1 = 0;
-			bitAllele2 = 1;
-			break;
-		case MOTHER:
-			bitAllele1 = 3;
-			bitAllele2 = 4;			
-			break;
-		case KID1:
-			bitAllele1 = 6;
-			bitAllele2 = 7;
-			break;
-		case KID2:
-			bitAllele1 = 9;
-			bitAllele2 = 10;
-			break;		
-		}
-		boolean bitTmp = isSet(bitAllele1);
-		setBit(bitAllele1, isSet(bitAllele2));
-		setBit(bitAllele2, bitTmp);		
+		vector = invert(vector, quartetMember);
 	}
 }
@@ -0,0 +1,210 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+
+/**
+ * This class represents the phased vectors of one chromosome stored in two parallel primitive arrays:
+ * the positions in an int array and the vectors in a short array.
+ * The vectors are accessed using their index in the column. See {@link PhasedVector} for the layout of the vectors
+ * @author Julien Lajugie
+ */
+public class PhasedVectorColumn {
+
+	private static final int DEFAULT_CAPACITY = 1024;	// initial capacity of the arrays
+
+	private int[] 	positions;	// positions of the vectors
+	private short[] vectors;	// genotype vectors
+	private int 	size;		// number of vectors in the column
+
+
+	/**
+	 * Creates an instance of {@link PhasedVectorColumn}
+	 */
+	public PhasedVectorColumn() {
+		positions = new int[DEFAULT_CAPACITY];
+		vectors = new short[DEFAULT_CAPACITY];
+		size = 0;
+	}
+
+
+	/**
+	 * Adds a vector at the end of the column
+	 * @param position position of the vector
+	 * @param vector genotype vector
+	 */
+	public void add(int position, short vector) {
+		if (size == positions.length) {
+			int newCapacity = positions.length + (positions.length >> 1);
+			positions = Arrays.copyOf(positions, newCapacity);
+			vectors = Arrays.copyOf(vectors, newCapacity);
+		}
+		positions[size] = position;
+		vectors[size] = vector;
+		size++;
+	}
+
+
+	/**
+	 * Adds all the vectors of the specified column at the end of this column
+	 * @param column a {@link PhasedVectorColumn}
+	 */
+	public void addAll(PhasedVectorColumn column) {
+		if (size + column.size > positions.length) {
+			int newCapacity = Math.max(size + column.size, positions.length + (positions.length >> 1));
+			positions = Arrays.copyOf(positions, newCapacity);
+			vectors = Arrays.copyOf(vectors, newCapacity);
+		}
+		System.arraycopy(column.positions, 0, positions, size, column.size);
+		System.arraycopy(column.vectors, 0, vectors, size, column.size);
+		size += column.size;
+	}
+
+
+	/**
+	 * Sorts the vectors by position.
+	 * The sort is stable so vectors with the same position keep their order
+	 */
+	public void sort() {
+		boolean isSorted = true;
+		for (int i = 1; (i < size) && isSorted; i++) {
+			isSorted = positions[i - 1] <= positions[i];
+		}
+		if (!isSorted) {
+			// sort the positions with the index of the vector in the lowest bits
+			long[] keys = new long[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = ((long) positions[i] << 32) | i;
+			}
+			Arrays.sort(keys);
+			int[] sortedPositions = new int[size];
+			short[] sortedVectors = new short[size];
+			for (int i = 0; i < size; i++) {
+				int index = (int) keys[i];
+				sortedPositions[i] = positions[index];
+				sortedVectors[i] = vectors[index];
+			}
+			positions = sortedPositions;
+			vectors = sortedVectors;
+		}
+	}
+
+
+	/**
+	 * Trims the capacity of the arrays to the number of vectors
+	 */
+	public void trimToSize() {
+		if (positions.length != size) {
+			positions = Arrays.copyOf(positions, size);
+			vectors = Arrays.copyOf(vectors, size);
+		}
+	}
+
+
+	/**
+	 * @return the number of vectors in the column
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Binary search of the vector at the specified position. The column must be sorted
+	 * @param position position of the vector to find
+	 * @return the index of the vector at the specified position. -1 if there is none
+	 */
+	public int indexOf(int position) {
+		int start = 0;
+		int stop = size - 1;
+		while (start <= stop) {
+			int mid = (start + stop) >>> 1;
+			if (position < positions[mid]) {
+				stop = mid - 1;
+			} else if (position > positions[mid]) {
+				start = mid + 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * @param index index of a vector
+	 * @return the position of the vector at the specified index
+	 */
+	public int getPosition(int index) {
+		return positions[index];
+	}
+
+
+	/**
+	 * @param index index of a vector
+	 * @return the vector at the specified index
+	 */
+	public short getVector(int index) {
+		return vectors[index];
+	}
+
+
+	/**
+	 * @param index index of a vector
+	 * @return a new {@link PhasedVector} with the position and the vector at the specified index
+	 */
+	public PhasedVector getPhasedVector(int index) {
+		return new PhasedVector(positions[index], vectors[index]);
+	}
+
+
+	/**
+	 * @param index index of a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return the genotype of the specified family member in the vector at the specified index
+	 */
+	public String getGenotype(int index, QuartetMember quartetMember) {
+		return PhasedVector.getGenotype(vectors[index], quartetMember);
+	}
+
+
+	/**
+	 * @param index index of a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return true if the genotype of the specified member is phased in the vector at the specified index
+	 */
+	public boolean isPhased(int index, QuartetMember quartetMember) {
+		return PhasedVector.isPhased(vectors[index], quartetMember);
+	}
+
+
+	/**
+	 * @param index index of a vector
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return true if the specified member is heterozygous in the vector at the specified index
+	 */
+	public boolean isHeterozygous(int index, QuartetMember quartetMember) {
+		return PhasedVector.isHeterozygous(vectors[index], quartetMember);
+	}
+
+
+	/**
+	 * Set the phasing of the specified family member to the specified value in the vector at the specified index
+	 * @param index index of a vector
+	 * @param quartetMember a quartet member
+	 * @param isPhased true if the member is phased, false otherwise
+	 */
+	public void setPhasing(int index, QuartetMember quartetMember, boolean isPhased) {
+		vectors[index] = PhasedVector.setPhasing(vectors[index], quartetMember, isPhased);
+	}
+
+
+	/**
+	 * Inverts the phasing of the genotype of the specified member in the vector at the specified index
+	 * @param index index of a vector
+	 * @param quartetMember a quartet member
+	 */
+	public void invert(int index, QuartetMember quartetMember) {
+		vectors[index] = PhasedVector.invert(vectors[index], quartetMember);
+	}
+}
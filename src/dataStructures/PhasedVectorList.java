@@ -2,7 +2,6 @@ package dataStructures;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -10,7 +9,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import exceptions.VCFException;
+import utils.GenomicFileReader;
+
 
 
 /**
@@ -38,7 +38,7 @@ public class PhasedVectorList {
 	public void loadFromHaplotypingFile(File phasedVectorFile) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(phasedVectorFile));
+			reader = GenomicFileReader.open(phasedVectorFile);
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -79,42 +79,51 @@ public class PhasedVectorList {
 	 * @throws IOException
 	 */
 	public void loadFromVCFFile(File vcfFile) throws IOException {
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// we don't care about the comment lines 
-				if (line.trim().charAt(0) != '#') {
-					try {
-						Variant variant = new Variant(line);
-						if (!variant.isIndel()) {
-							int position = variant.getPosition();
-							String chromosome = variant.getChromosome();
-							PhasedVector vectorToAdd = new PhasedVector(position, variant);
-							//System.out.println(chromosome + '\t' + position + '\t' + unphasedVector +'\t' + phasedVector + '\t' + vectorToAdd.getFatherGenotype() + '\t' + vectorToAdd.getMotherGenotype() + '\t' + vectorToAdd.getKid1Genotype() + '\t' + vectorToAdd.getKid2Genotype());
-							// if the list doesn't contain the chromosome we add it
-							if (!phasedVectorMap.containsKey(chromosome)) {
-								List<PhasedVector> listToAdd = new ArrayList<PhasedVector>();
-								listToAdd.add(vectorToAdd);
-								phasedVectorMap.put(chromosome, listToAdd);
-							} else {
-								phasedVectorMap.get(chromosome).add(vectorToAdd);
-							}
-						}
-					} catch (VCFException e) {
-						// do nothing
-					}
-				}
-			}
-			// we sort the list in position order
-			sortLists();
-		}  finally {
-			if (reader != null) {
-				reader.close();
+		loadFromVCFFile(vcfFile, null);
+	}
+
+
+	/**
+	 * Load the variants of a region of a vcf File
+	 * @param vcfFile a plain text or bgzip compressed vcf file
+	 * @param region region to load, the whole file is loaded if null
+	 * @throws IOException
+	 */
+	public void loadFromVCFFile(File vcfFile, GenomicRegion region) throws IOException {
+		// the vectors are loaded in primitive columns and converted afterward
+		ColumnarPhasedVectorList columnarList = new ColumnarPhasedVectorList();
+		columnarList.loadFromVCFFile(vcfFile, region);
+		addColumns(columnarList);
+	}
+
+
+	/**
+	 * Load the SNPs of a QGT file
+	 * @param qgtFile a QGT file created from a vcf file (see {@link QGTWriter})
+	 * @throws IOException
+	 */
+	public void loadFromQGTFile(File qgtFile) throws IOException {
+		ColumnarPhasedVectorList columnarList = new ColumnarPhasedVectorList();
+		columnarList.loadFromQGTFile(qgtFile, null);
+		addColumns(columnarList);
+	}
+
+
+	/**
+	 * Adds the vectors of the specified {@link ColumnarPhasedVectorList} as {@link PhasedVector} objects and sorts the lists
+	 * @param columnarList a {@link ColumnarPhasedVectorList}
+	 */
+	private void addColumns(ColumnarPhasedVectorList columnarList) {
+		for (String currentChromosome: columnarList.getChromosomes()) {
+			PhasedVectorColumn column = columnarList.getColumn(currentChromosome);
+			List<PhasedVector> vectorList = new ArrayList<PhasedVector>(column.size());
+			for (int i = 0; i < column.size(); i++) {
+				vectorList.add(column.getPhasedVector(i));
 			}
+			phasedVectorMap.put(currentChromosome, vectorList);
 		}
+		// we sort the list in position order
+		sortLists();
 	}
 
 
@@ -164,10 +173,10 @@ public class PhasedVectorList {
 	private PhasedVector findPhasedVector(List<PhasedVector> list, int position) {
 		int start = 0;
 		int stop = list.size() - 1;
-		while (start < stop) {
-			int mid = (start + stop) / 2;  // Compute mid point.
+		while (start <= stop) {
+			int mid = (start + stop) >>> 1;  // Compute mid point.
 			if (position < list.get(mid).getPosition()) {
-				stop = mid;  // repeat search in bottom half.
+				stop = mid - 1;  // repeat search in bottom half.
 			} else if (position > list.get(mid).getPosition()) {
 				start = mid + 1;  // Repeat search in top half.
 			} else {
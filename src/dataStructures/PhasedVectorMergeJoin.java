@@ -0,0 +1,205 @@
+package dataStructures;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+
+/**
+ * Walks several {@link PhasedVectorSource} sorted by chromosome and position in lockstep.
+ * Each call to {@link #next()} moves to the next position present in at least one source and
+ * aligns the vectors of all the sources at this position. The sources missing the position have no vector.
+ * Only the current vector of each source is kept in memory.
+ * The positions must be sorted in increasing order within a chromosome and the sources must list their common
+ * chromosomes in the same order. A source can miss some chromosomes of the other sources (see {@link ChromosomeOrder}).
+ * If a source has several vectors at the same position they are aligned one after the other with the vectors
+ * of the other sources at this position
+ * @author Julien Lajugie
+ */
+public class PhasedVectorMergeJoin implements Closeable {
+
+	private final PhasedVectorSource[] 	sources;				// sources of the join
+	private final ChromosomeOrder 		chromosomeOrder;		// order of the chromosomes of the sources
+	private final String[] 				headChromosomes;		// chromosome of the next vector of each source
+	private final int[] 				headChromosomeIds;		// identifier of the chromosome of the next vector of each source
+	private final int[] 				headPositions;			// position of the next vector of each source
+	private final boolean[] 			isExhausted;			// true if the end of the source is reached
+	private final boolean[] 			isConsumed;				// true if the next vector of the source needs to be read
+	private final boolean[] 			hasVectors;				// true if the source has a vector at the current position
+	private final short[] 				vectors;				// vectors of the sources at the current position
+	private String 						chromosome;				// current chromosome
+	private int 						chromosomeId;			// identifier of the current chromosome
+	private int 						position;				// current position
+
+
+	/**
+	 * Creates an instance of {@link PhasedVectorMergeJoin}
+	 * @param sources sources to join. The sources are closed when the join is closed
+	 */
+	public PhasedVectorMergeJoin(PhasedVectorSource... sources) {
+		this.sources = sources;
+		chromosomeOrder = new ChromosomeOrder(sources.length);
+		headChromosomes = new String[sources.length];
+		headChromosomeIds = new int[sources.length];
+		headPositions = new int[sources.length];
+		isExhausted = new boolean[sources.length];
+		isConsumed = new boolean[sources.length];
+		hasVectors = new boolean[sources.length];
+		vectors = new short[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			isConsumed[i] = true;
+			headChromosomeIds[i] = -1;
+		}
+		chromosomeId = -1;
+	}
+
+
+	/**
+	 * Moves to the next position present in at least one source
+	 * @return true if there is a next position, false if the end of all the sources is reached
+	 * @throws IOException if a source cannot be read or if the sources are not sorted
+	 */
+	public boolean next() throws IOException {
+		// the sources that had a vector at the current position move to their next vector
+		for (int i = 0; i < sources.length; i++) {
+			if (isConsumed[i] && !isExhausted[i]) {
+				advance(i);
+			}
+		}
+		// the next position is the smallest position of the sources
+		int minSource = -1;
+		for (int i = 0; i < sources.length; i++) {
+			if (!isExhausted[i] && ((minSource == -1) || (compareHeads(i, minSource) < 0))) {
+				minSource = i;
+			}
+		}
+		if (minSource == -1) {
+			return false;
+		}
+		if (headChromosomeIds[minSource] != chromosomeId) {
+			chromosomeId = headChromosomeIds[minSource];
+			chromosomeOrder.enter(chromosomeId);
+		}
+		chromosome = headChromosomes[minSource];
+		position = headPositions[minSource];
+		for (int i = 0; i < sources.length; i++) {
+			hasVectors[i] = !isExhausted[i] && (compareHeads(i, minSource) == 0);
+			isConsumed[i] = hasVectors[i];
+			if (hasVectors[i]) {
+				vectors[i] = sources[i].getVector();
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Reads the next vector of a source and checks that the source is sorted
+	 * @param sourceIndex index of the source
+	 * @throws IOException if the source cannot be read or is not sorted
+	 */
+	private void advance(int sourceIndex) throws IOException {
+		PhasedVectorSource source = sources[sourceIndex];
+		if (!source.next()) {
+			isExhausted[sourceIndex] = true;
+			return;
+		}
+		String sourceChromosome = source.getChromosome();
+		int sourcePosition = source.getPosition();
+		// the chromosome order is only updated when the source moves to a new chromosome
+		if (sourceChromosome.equals(headChromosomes[sourceIndex])) {
+			ChromosomeOrder.checkPosition(headPositions[sourceIndex], sourcePosition, "Source #" + (sourceIndex + 1), sourceChromosome);
+		} else {
+			headChromosomeIds[sourceIndex] = chromosomeOrder.moveTo(sourceIndex, sourceChromosome, "Source #" + (sourceIndex + 1));
+		}
+		headChromosomes[sourceIndex] = sourceChromosome;
+		headPositions[sourceIndex] = sourcePosition;
+	}
+
+
+	/**
+	 * @param sourceIndex1 index of a source that is not exhausted
+	 * @param sourceIndex2 index of another source that is not exhausted
+	 * @return a negative integer, zero, or a positive integer as the next vector of the first source
+	 * is before, at the same position or after the next vector of the second source
+	 */
+	private int compareHeads(int sourceIndex1, int sourceIndex2) {
+		if (headChromosomeIds[sourceIndex1] != headChromosomeIds[sourceIndex2]) {
+			return chromosomeOrder.compare(headChromosomeIds[sourceIndex1], headChromosomeIds[sourceIndex2]);
+		}
+		return Integer.compare(headPositions[sourceIndex1], headPositions[sourceIndex2]);
+	}
+
+
+	/**
+	 * @return the number of sources of the join
+	 */
+	public int getSourceCount() {
+		return sources.length;
+	}
+
+
+	/**
+	 * @return the chromosome of the current position
+	 */
+	public String getChromosome() {
+		return chromosome;
+	}
+
+
+	/**
+	 * @return the current position
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+
+	/**
+	 * @param sourceIndex index of a source
+	 * @return true if the specified source has a vector at the current position
+	 */
+	public boolean hasVector(int sourceIndex) {
+		return hasVectors[sourceIndex];
+	}
+
+
+	/**
+	 * @return true if all the sources have a vector at the current position
+	 */
+	public boolean isAligned() {
+		for (boolean hasVector: hasVectors) {
+			if (!hasVector) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * @param sourceIndex index of a source
+	 * @return the vector of the specified source at the current position. Only valid if {@link #hasVector(int)} is true
+	 */
+	public short getVector(int sourceIndex) {
+		return vectors[sourceIndex];
+	}
+
+
+	/**
+	 * Closes all the sources
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException exception = null;
+		for (PhasedVectorSource source: sources) {
+			try {
+				source.close();
+			} catch (IOException e) {
+				exception = e;
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+}
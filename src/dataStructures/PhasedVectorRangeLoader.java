@@ -0,0 +1,53 @@
+package dataStructures;
+
+import java.nio.ByteBuffer;
+
+import utils.LineSliceHandler;
+
+
+/**
+ * Loads the phased vectors of the SNPs of a range of a VCF file read by a {@link utils.MappedLineReader}.
+ * The vectors are added to a {@link ColumnarPhasedVectorList} in the order of the file
+ * @author Julien Lajugie
+ */
+class PhasedVectorRangeLoader implements LineSliceHandler {
+
+	private final VCFLineParser 			parser;			// parser reused for all the lines of the range
+	private final FilterPolicy 				filterPolicy;	// filters applied to the variants
+	private final ColumnarPhasedVectorList 	vectorList;		// vectors of the range
+
+
+	/**
+	 * Creates an instance of {@link PhasedVectorRangeLoader}
+	 */
+	PhasedVectorRangeLoader() {
+		parser = new VCFLineParser();
+		filterPolicy = new FilterPolicy();
+		vectorList = new ColumnarPhasedVectorList();
+	}
+
+
+	@Override
+	public void handleLine(ByteBuffer buffer, int offset, int length) {
+		int firstChar = offset;
+		int stop = offset + length;
+		while ((firstChar < stop) && ((buffer.get(firstChar) & 0xFF) <= ' ')) {
+			firstChar++;
+		}
+		// we don't care about the comment and the empty lines
+		if ((firstChar < stop) && (buffer.get(firstChar) != '#')) {
+			Variant variant = Variant.tryParse(parser.parse(buffer, offset, length), filterPolicy);
+			if ((variant != null) && !variant.isIndel()) {
+				vectorList.addVector(variant.getChromosome(), variant.getPosition(), PhasedVector.createVector(variant));
+			}
+		}
+	}
+
+
+	/**
+	 * @return the vectors of the range in file order (not sorted)
+	 */
+	ColumnarPhasedVectorList getVectorList() {
+		return vectorList;
+	}
+}
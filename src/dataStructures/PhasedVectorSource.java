@@ -0,0 +1,38 @@
+package dataStructures;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+
+/**
+ * Source of {@link PhasedVector} read one at a time from a file sorted by chromosome and position.
+ * The vectors of the source are read in file order by a {@link PhasedVectorMergeJoin}
+ * @author Julien Lajugie
+ */
+public interface PhasedVectorSource extends Closeable {
+
+	/**
+	 * Moves to the next vector of the source
+	 * @return true if the source has a next vector, false if the end of the source is reached
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException;
+
+
+	/**
+	 * @return the chromosome of the current vector
+	 */
+	public String getChromosome();
+
+
+	/**
+	 * @return the position of the current vector
+	 */
+	public int getPosition();
+
+
+	/**
+	 * @return the current vector (see {@link PhasedVector} for the layout of the vector)
+	 */
+	public short getVector();
+}
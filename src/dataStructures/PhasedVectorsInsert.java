@@ -1,5 +1,6 @@
 package dataStructures;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,7 +11,9 @@ public class PhasedVectorsInsert {
 
 	private final static double PHRED_CUTOFF = 5;				// minimum phred score for a vector to be considered as valid
 
-	private List<PhasedVector> 	insertPhasedVectors; 			// list of consecutive vectors phased with physical phasing to insert in genetic phasing
+	private PhasedVectorColumn 	physicalColumn; 				// column of the vectors phased with physical phasing containing the insert
+	private int 				insertStartIndex;				// index in the physical column of the first vector of the insert
+	private int 				insertStopIndex;				// index in the physical column after the last vector of the insert
 	private final String		chromosome;						// chromosome of the insert
 	private final int 			indexFirstInsertVector;			// index of the element in the genetic and physical list corresponding to the first vector of the insert 
 	private int 				indexLastInsertVector;			// index of the element in the genetic and physical list corresponding to the last vector of the insert
@@ -40,38 +43,43 @@ public class PhasedVectorsInsert {
 
 	/**
 	 * Generates the insert as well as the the statistics about the insert (error and supporting vectors)
-	 * @param geneticList list of vectors partially phased using a genetic method (haplotyping or transmission phasing) 
-	 * @param physicalList list of vectors  phased using a physical method (read backed phasing)
+	 * @param geneticColumn column of vectors partially phased using a genetic method (haplotyping or transmission phasing) 
+	 * @param physicalColumn column of vectors phased using a physical method (read backed phasing)
+	 * @param fromIndex index of the first vector to analyze in the columns
+	 * @param toIndex index after the last vector to analyze in the columns
 	 */
-	public void generateInsert(List<PhasedVector> geneticList, List<PhasedVector> physicalList) {
+	public void generateInsert(PhasedVectorColumn geneticColumn, PhasedVectorColumn physicalColumn, int fromIndex, int toIndex) {
+		int vectorCount = toIndex - fromIndex;
 		// search the index of the first unphased genetic vector (can be zero)
 		// this index correspond to the first element of the index
 		int indexFirstUnphased = 0;
-		while ((indexFirstUnphased < geneticList.size()) && (geneticList.get(indexFirstUnphased).isPhased(quartetMember))) {
+		while ((indexFirstUnphased < vectorCount) && (geneticColumn.isPhased(fromIndex + indexFirstUnphased, quartetMember))) {
 			indexFirstUnphased++;
 		}
 		// search the index of the last unphased genetic vector (can be the last index)
 		// this index correspond to the last element of the insert
 		int indexLastUnphased = indexFirstUnphased;
-		while ((indexLastUnphased < geneticList.size()) && (!geneticList.get(indexLastUnphased).isPhased(quartetMember))) {
+		while ((indexLastUnphased < vectorCount) && (!geneticColumn.isPhased(fromIndex + indexLastUnphased, quartetMember))) {
 			indexLastUnphased++;
 		}
-		if ((indexLastUnphased < geneticList.size()) && (geneticList.get(indexLastUnphased).isPhased(quartetMember))) {
+		if ((indexLastUnphased < vectorCount) && (geneticColumn.isPhased(fromIndex + indexLastUnphased, quartetMember))) {
 			indexLastUnphased--;
 		}
 		this.indexLastInsertVector = this.indexFirstInsertVector + (indexLastUnphased - indexFirstUnphased);
-		this.insertPhasedVectors = physicalList.subList(indexFirstUnphased, indexLastUnphased);
+		this.physicalColumn = physicalColumn;
+		this.insertStartIndex = fromIndex + indexFirstUnphased;
+		this.insertStopIndex = fromIndex + indexLastUnphased;
 		// compute how many vectors are identical and how many vectors are not identical before the insert
-		for (int i = 0; i < indexFirstUnphased; i++) {
-			if (geneticList.get(i).getGenotype(quartetMember).equals(physicalList.get(i).getGenotype(quartetMember))) {
+		for (int i = fromIndex; i < fromIndex + indexFirstUnphased; i++) {
+			if (geneticColumn.getGenotype(i, quartetMember).equals(physicalColumn.getGenotype(i, quartetMember))) {
 				goodVectorBeforeInsertCount++;
 			} else {
 				badVectorBeforeInsertCount++;
 			}
 		}
 		// compute how many vectors are identical and how many vectors are not identical after the insert
-		for (int i = indexLastUnphased + 1; i < geneticList.size(); i++) {
-			if (geneticList.get(i).getGenotype(quartetMember).equals(physicalList.get(i).getGenotype(quartetMember))) {
+		for (int i = fromIndex + indexLastUnphased + 1; i < toIndex; i++) {
+			if (geneticColumn.getGenotype(i, quartetMember).equals(physicalColumn.getGenotype(i, quartetMember))) {
 				goodVectorAfterInsertCount++;
 			} else {
 				badVectorAfterInsertCount++;
@@ -169,16 +177,20 @@ public class PhasedVectorsInsert {
 	 * Inverts the phasing of the insert vector for the studied member
 	 */
 	private void invertInsert() {
-		for (PhasedVector currentVector: insertPhasedVectors) {
-			currentVector.invert(quartetMember);
+		for (int i = insertStartIndex; i < insertStopIndex; i++) {
+			physicalColumn.invert(i, quartetMember);
 		}
 	}
 
 
 	/**
-	 * @return the list of consecutive vectors phased with physical phasing to insert in genetic phasing
+	 * @return a copy of the list of consecutive vectors phased with physical phasing to insert in genetic phasing
 	 */
 	public final List<PhasedVector> getInsertPhasedVectors() {
+		List<PhasedVector> insertPhasedVectors = new ArrayList<>();
+		for (int i = insertStartIndex; i < insertStopIndex; i++) {
+			insertPhasedVectors.add(physicalColumn.getPhasedVector(i));
+		}
 		return insertPhasedVectors;
 	}
 
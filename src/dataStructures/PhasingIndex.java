@@ -0,0 +1,290 @@
+package dataStructures;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Index of the variants of a physical phasing file and of a genetic phasing file of a family quartet, built in a first pass
+ * over the files so the full heterozygous variants can be phased in a second pass streaming over the genetic phasing file.
+ * For each chromosome the index stores the positions and the physical phasing vectors of the variants of the physical
+ * phasing file, the genetic phasing vectors at the same positions (see {@link PhasingIndexChromosome}) and the boundaries
+ * of the phased blocks of each family member (see {@link BlockBoundaries}).
+ * The variants must be added grouped by chromosome. The variants of a chromosome are kept in heap while the index uses less
+ * than the heap budget, the next chromosomes are spilled to a memory-mapped temporary file.
+ * The index must be closed to delete the temporary file
+ * @author Julien Lajugie
+ */
+public class PhasingIndex implements Closeable {
+
+	/**
+	 * Value of a genetic vector when the genetic phasing file has no variant at the position
+	 */
+	public static final short NO_VECTOR = -1;
+
+	private static final int 							BYTES_PER_VARIANT = 8;		// a position and 2 vectors per variant
+
+	private final long 									heapBudget;					// max number of bytes of variants kept in heap
+	private final List<String> 							chromosomes;				// chromosomes in the order of the physical phasing file
+	private final Map<String, PhasingIndexChromosome> 	chromosomeMap;				// variants of each chromosome
+	private final Map<String, BlockBoundaries[]> 		physicalBlockMap;			// physically phased blocks of each member for each chromosome
+	private final Map<String, BlockBoundaries[]> 		commonBlockMap;				// blocks phased by both methods of each member for each chromosome
+	private PhasedVectorColumn 							currentColumn;				// variants of the chromosome being added
+	private String 										currentChromosome;			// chromosome being added
+	private long 										heapBytes;					// number of bytes of variants kept in heap
+	private File 										spillFile;					// temporary file where the variants are spilled
+	private RandomAccessFile 							spillRandomAccessFile;		// random access file of the spill file
+	private long 										spillBytes;					// number of bytes written in the spill file
+
+
+	/**
+	 * Creates an instance of {@link PhasingIndex}
+	 * @param heapBudget max number of bytes of variants kept in heap before the chromosomes are spilled to a temporary file
+	 */
+	public PhasingIndex(long heapBudget) {
+		this.heapBudget = heapBudget;
+		chromosomes = new ArrayList<>();
+		chromosomeMap = new HashMap<>();
+		physicalBlockMap = new HashMap<>();
+		commonBlockMap = new HashMap<>();
+		currentColumn = null;
+		currentChromosome = null;
+		heapBytes = 0;
+		spillBytes = 0;
+	}
+
+
+	/**
+	 * Adds a variant of the physical phasing file. The variants must be grouped by chromosome
+	 * @param chromosome chromosome of the variant
+	 * @param position position of the variant
+	 * @param vector physical phasing vector of the variant
+	 * @throws IOException if the variants are not grouped by chromosome or if the previous chromosome cannot be spilled
+	 */
+	public void addPhysicalVector(String chromosome, int position, short vector) throws IOException {
+		if (!chromosome.equals(currentChromosome)) {
+			if (chromosomeMap.containsKey(chromosome)) {
+				throw new IOException("The variants of the physical phasing file must be grouped by chromosome (" + chromosome + ")");
+			}
+			completeChromosome();
+			currentChromosome = chromosome;
+			currentColumn = new PhasedVectorColumn();
+			chromosomes.add(chromosome);
+		}
+		currentColumn.add(position, vector);
+	}
+
+
+	/**
+	 * Sorts the variants of the chromosome being added and stores them in heap or in the spill file
+	 * @throws IOException if the chromosome cannot be spilled
+	 */
+	public void completeChromosome() throws IOException {
+		if (currentColumn == null) {
+			return;
+		}
+		currentColumn.sort();
+		int size = currentColumn.size();
+		long byteCount = (long) size * BYTES_PER_VARIANT;
+		IntBuffer positions;
+		ShortBuffer physicalVectors;
+		ShortBuffer geneticVectors;
+		if (heapBytes + byteCount <= heapBudget) {
+			positions = IntBuffer.allocate(size);
+			physicalVectors = ShortBuffer.allocate(size);
+			geneticVectors = ShortBuffer.allocate(size);
+			heapBytes += byteCount;
+		} else {
+			if (byteCount > Integer.MAX_VALUE) {
+				throw new IOException("Too many variants on chromosome " + currentChromosome + " to be spilled");
+			}
+			MappedByteBuffer buffer = mapSpillRegion(byteCount);
+			positions = slice(buffer, 0, size * 4).asIntBuffer();
+			physicalVectors = slice(buffer, size * 4, size * 2).asShortBuffer();
+			geneticVectors = slice(buffer, size * 6, size * 2).asShortBuffer();
+		}
+		short[] noVectors = new short[Math.min(size, 4096)];
+		Arrays.fill(noVectors, NO_VECTOR);
+		for (int i = 0; i < size; i++) {
+			positions.put(i, currentColumn.getPosition(i));
+			physicalVectors.put(i, currentColumn.getVector(i));
+		}
+		for (int i = 0; i < size; i += noVectors.length) {
+			geneticVectors.position(i);
+			geneticVectors.put(noVectors, 0, Math.min(noVectors.length, size - i));
+		}
+		geneticVectors.position(0);
+		chromosomeMap.put(currentChromosome, new PhasingIndexChromosome(positions, physicalVectors, geneticVectors));
+		currentColumn = null;
+		currentChromosome = null;
+	}
+
+
+	/**
+	 * Maps a new region at the end of the spill file
+	 * @param byteCount size of the region
+	 * @return a buffer mapping the region
+	 * @throws IOException if the spill file cannot be created or mapped
+	 */
+	private MappedByteBuffer mapSpillRegion(long byteCount) throws IOException {
+		if (spillRandomAccessFile == null) {
+			spillFile = File.createTempFile("phasingIndex", ".tmp");
+			spillFile.deleteOnExit();
+			spillRandomAccessFile = new RandomAccessFile(spillFile, "rw");
+		}
+		MappedByteBuffer buffer = spillRandomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, spillBytes, byteCount);
+		spillBytes += byteCount;
+		return buffer;
+	}
+
+
+	/**
+	 * @param buffer a byte buffer
+	 * @param offset offset of the slice
+	 * @param length length of the slice
+	 * @return a slice of the buffer in the native byte order
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(offset);
+		duplicate.limit(offset + length);
+		return duplicate.slice().order(ByteOrder.nativeOrder());
+	}
+
+
+	/**
+	 * Sets the genetic phasing vector of the variant at the specified position if the physical phasing file has a variant
+	 * at this position and if no genetic vector was set yet. Must be called after {@link #completeChromosome()}
+	 * @param chromosome chromosome of the variant
+	 * @param position position of the variant
+	 * @param vector genetic phasing vector of the variant
+	 */
+	public void setGeneticVector(String chromosome, int position, short vector) {
+		PhasingIndexChromosome indexChromosome = chromosomeMap.get(chromosome);
+		if (indexChromosome != null) {
+			int index = indexChromosome.indexOf(position);
+			if ((index != -1) && (indexChromosome.getGeneticVector(index) == NO_VECTOR)) {
+				indexChromosome.setGeneticVector(index, vector);
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a block phased by the physical phasing method
+	 * @param chromosome chromosome of the block
+	 * @param member member phased in the block
+	 * @param startPosition start position of the block
+	 * @param stopPosition stop position of the block
+	 */
+	public void addPhysicalBlock(String chromosome, QuartetMember member, int startPosition, int stopPosition) {
+		addBlock(physicalBlockMap, chromosome, member, startPosition, stopPosition);
+	}
+
+
+	/**
+	 * Adds a block phased by both the physical and the genetic phasing methods
+	 * @param chromosome chromosome of the block
+	 * @param member member phased in the block
+	 * @param startPosition start position of the block
+	 * @param stopPosition stop position of the block
+	 */
+	public void addCommonBlock(String chromosome, QuartetMember member, int startPosition, int stopPosition) {
+		addBlock(commonBlockMap, chromosome, member, startPosition, stopPosition);
+	}
+
+
+	/**
+	 * Adds a block to the specified map
+	 * @param blockMap a map of blocks
+	 * @param chromosome chromosome of the block
+	 * @param member member phased in the block
+	 * @param startPosition start position of the block
+	 * @param stopPosition stop position of the block
+	 */
+	private static void addBlock(Map<String, BlockBoundaries[]> blockMap, String chromosome, QuartetMember member, int startPosition, int stopPosition) {
+		BlockBoundaries[] memberBlocks = blockMap.get(chromosome);
+		// if the map doesn't contain the chromosome we add it
+		if (memberBlocks == null) {
+			memberBlocks = new BlockBoundaries[QuartetMember.values().length];
+			for (int i = 0; i < memberBlocks.length; i++) {
+				memberBlocks[i] = new BlockBoundaries();
+			}
+			blockMap.put(chromosome, memberBlocks);
+		}
+		memberBlocks[member.ordinal()].add(startPosition, stopPosition);
+	}
+
+
+	/**
+	 * @return the chromosomes of the index in the order of the physical phasing file
+	 */
+	public List<String> getChromosomes() {
+		return chromosomes;
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @return the variants of the specified chromosome. Null if there is none
+	 */
+	public PhasingIndexChromosome getChromosome(String chromosome) {
+		return chromosomeMap.get(chromosome);
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @param member a {@link QuartetMember}
+	 * @return the blocks of the specified member phased by the physical phasing method on the specified chromosome. Null if there is none
+	 */
+	public BlockBoundaries getPhysicalBlocks(String chromosome, QuartetMember member) {
+		BlockBoundaries[] memberBlocks = physicalBlockMap.get(chromosome);
+		return memberBlocks == null ? null : memberBlocks[member.ordinal()];
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @param member a {@link QuartetMember}
+	 * @return the blocks of the specified member phased by both phasing methods on the specified chromosome. Null if there is none
+	 */
+	public BlockBoundaries getCommonBlocks(String chromosome, QuartetMember member) {
+		BlockBoundaries[] memberBlocks = commonBlockMap.get(chromosome);
+		return memberBlocks == null ? null : memberBlocks[member.ordinal()];
+	}
+
+
+	/**
+	 * @return the number of bytes of variants spilled to the temporary file
+	 */
+	public long getSpilledBytes() {
+		return spillBytes;
+	}
+
+
+	/**
+	 * Closes and deletes the spill file
+	 */
+	@Override
+	public void close() throws IOException {
+		if (spillRandomAccessFile != null) {
+			spillRandomAccessFile.close();
+			spillFile.delete();
+			spillRandomAccessFile = null;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package dataStructures;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+
+/**
+ * Variants of one chromosome of a {@link PhasingIndex}: the positions, the vectors of the physical phasing
+ * and the vectors of the genetic phasing at the same positions, stored in primitive buffers backed
+ * either by arrays or by a memory-mapped file. See {@link PhasedVector} for the layout of the vectors
+ * @author Julien Lajugie
+ */
+public class PhasingIndexChromosome {
+
+	private final IntBuffer 	positions;			// positions of the variants sorted in increasing order
+	private final ShortBuffer 	physicalVectors;	// vectors of the physical phasing
+	private final ShortBuffer 	geneticVectors;		// vectors of the genetic phasing, PhasingIndex.NO_VECTOR if none
+	private final int 			size;				// number of variants
+
+
+	/**
+	 * Creates an instance of {@link PhasingIndexChromosome}
+	 * @param positions positions of the variants sorted in increasing order
+	 * @param physicalVectors vectors of the physical phasing
+	 * @param geneticVectors vectors of the genetic phasing, {@link PhasingIndex#NO_VECTOR} if none
+	 */
+	PhasingIndexChromosome(IntBuffer positions, ShortBuffer physicalVectors, ShortBuffer geneticVectors) {
+		this.positions = positions;
+		this.physicalVectors = physicalVectors;
+		this.geneticVectors = geneticVectors;
+		this.size = positions.capacity();
+	}
+
+
+	/**
+	 * @return the number of variants of the chromosome
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Binary search of the variant at the specified position
+	 * @param position position of the variant to find
+	 * @return the index of the variant at the specified position. -1 if there is none
+	 */
+	public int indexOf(int position) {
+		int start = 0;
+		int stop = size - 1;
+		while (start <= stop) {
+			int mid = (start + stop) >>> 1;
+			int midPosition = positions.get(mid);
+			if (position < midPosition) {
+				stop = mid - 1;
+			} else if (position > midPosition) {
+				start = mid + 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the position of the variant at the specified index
+	 */
+	public int getPosition(int index) {
+		return positions.get(index);
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the physical phasing vector of the variant at the specified index
+	 */
+	public short getPhysicalVector(int index) {
+		return physicalVectors.get(index);
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the genetic phasing vector of the variant at the specified index. {@link PhasingIndex#NO_VECTOR} if none
+	 */
+	public short getGeneticVector(int index) {
+		return geneticVectors.get(index);
+	}
+
+
+	/**
+	 * Sets the genetic phasing vector of the variant at the specified index
+	 * @param index index of a variant
+	 * @param vector genetic phasing vector
+	 */
+	void setGeneticVector(int index, short vector) {
+		geneticVectors.put(index, vector);
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return the genotype of the specified family member in the physical phasing vector at the specified index
+	 */
+	public String getGenotype(int index, QuartetMember quartetMember) {
+		return PhasedVector.getGenotype(physicalVectors.get(index), quartetMember);
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return the genotype of the specified family member in the genetic phasing vector at the specified index
+	 */
+	public String getGeneticGenotype(int index, QuartetMember quartetMember) {
+		return PhasedVector.getGenotype(geneticVectors.get(index), quartetMember);
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @param quartetMember a {@link QuartetMember}
+	 * @return true if the genotype of the specified member is phased in the physical phasing vector at the specified index
+	 */
+	public boolean isPhased(int index, QuartetMember quartetMember) {
+		return PhasedVector.isPhased(physicalVectors.get(index), quartetMember);
+	}
+
+
+	/**
+	 * Set the phasing of the specified family member to the specified value in the physical phasing vector at the specified index
+	 * @param index index of a variant
+	 * @param quartetMember a quartet member
+	 * @param isPhased true if the member is phased, false otherwise
+	 */
+	public void setPhasing(int index, QuartetMember quartetMember, boolean isPhased) {
+		physicalVectors.put(index, PhasedVector.setPhasing(physicalVectors.get(index), quartetMember, isPhased));
+	}
+
+
+	/**
+	 * Inverts the phasing of the genotype of the specified member in the physical phasing vector at the specified index
+	 * @param index index of a variant
+	 * @param quartetMember a quartet member
+	 */
+	public void invert(int index, QuartetMember quartetMember) {
+		physicalVectors.put(index, PhasedVector.invert(physicalVectors.get(index), quartetMember));
+	}
+}
@@ -0,0 +1,246 @@
+package dataStructures;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Block of the variants of one chromosome of a {@link QGTFile}.
+ * The fixed size columns (vectors, flags, PL and PQ scores) are read directly from the mapped block.
+ * The delta encoded positions are decoded when the block is opened, the source offsets and the alleles
+ * are decoded the first time they are accessed.
+ * The variants are accessed using their index in the block, in the order of the source VCF file.
+ * An instance of this class can be read by several threads
+ * @author Julien Lajugie
+ */
+public class QGTChromosome {
+
+	private final String 		chromosome;				// chromosome of the block
+	private final int 			size;					// number of variants in the block
+	private final ByteBuffer 	block;					// mapped block
+	private final int 			vectorsStart;			// start of the vector column in the block
+	private final int 			flagsStart;				// start of the flag column in the block
+	private final int 			minPLsStart;			// start of the minimum PL column in the block
+	private final int 			phasingQualitiesStart;	// start of the PQ column in the block
+	private final int 			sourceOffsetsStart;		// start of the source offset column in the block
+	private final int 			allelesStart;			// start of the allele column in the block
+	private final int[] 		positions;				// decoded positions
+	private volatile long[] 	sourceOffsets;			// decoded source offsets, null until accessed
+	private volatile String[] 	alleles;				// decoded reference and alternative alleles, null until accessed
+
+
+	/**
+	 * Creates an instance of {@link QGTChromosome}
+	 * @param chromosome chromosome of the block
+	 * @param size number of variants in the block
+	 * @param block mapped block
+	 * @param positionsLength length in bytes of the position column
+	 * @param sourceOffsetsLength length in bytes of the source offset column
+	 */
+	QGTChromosome(String chromosome, int size, ByteBuffer block, int positionsLength, int sourceOffsetsLength) {
+		this.chromosome = chromosome;
+		this.size = size;
+		this.block = block;
+		vectorsStart = positionsLength;
+		flagsStart = vectorsStart + (2 * size);
+		minPLsStart = flagsStart + size;
+		phasingQualitiesStart = minPLsStart + (4 * size);
+		sourceOffsetsStart = phasingQualitiesStart + (4 * size);
+		allelesStart = sourceOffsetsStart + sourceOffsetsLength;
+		positions = new int[size];
+		int offset = 0;
+		int position = 0;
+		for (int i = 0; i < size; i++) {
+			long value = 0;
+			int shift = 0;
+			byte currentByte;
+			do {
+				currentByte = block.get(offset++);
+				value |= (long) (currentByte & 0x7F) << shift;
+				shift += 7;
+			} while (currentByte < 0);
+			position += (int) decodeZigZag(value);
+			positions[i] = position;
+		}
+	}
+
+
+	/**
+	 * @param value a zigzag encoded value
+	 * @return the decoded signed value
+	 */
+	static long decodeZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+
+	/**
+	 * @return the chromosome of the block
+	 */
+	public String getChromosome() {
+		return chromosome;
+	}
+
+
+	/**
+	 * @return the number of variants in the block
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the position of the variant
+	 */
+	public int getPosition(int index) {
+		return positions[index];
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the phased vector of the variant (see {@link PhasedVector})
+	 */
+	public short getVector(int index) {
+		return block.getShort(vectorsStart + (2 * index));
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return true if the variant is an indel
+	 */
+	public boolean isIndel(int index) {
+		return (block.get(flagsStart + index) & QGTFile.INDEL_FLAG) != 0;
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the minimum PL score of the 4 samples of the variant, -1 if it can't be computed
+	 */
+	public int getMinPL(int index) {
+		return block.getInt(minPLsStart + (4 * index));
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the minimum phasing quality (PQ) of the samples of the variant, NaN if the variant has no PQ subfield
+	 */
+	public float getPhasingQuality(int index) {
+		return block.getFloat(phasingQualitiesStart + (4 * index));
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the offset of the line of the variant in the source VCF file (see {@link QGTFile#readSourceLine(long)}).
+	 * -1 if the file doesn't contain source offsets
+	 */
+	public long getSourceOffset(int index) {
+		if (sourceOffsetsStart == allelesStart) {
+			return -1;
+		}
+		long[] decodedOffsets = sourceOffsets;
+		if (decodedOffsets == null) {
+			decodedOffsets = new long[size];
+			int offset = sourceOffsetsStart;
+			long sourceOffset = 0;
+			for (int i = 0; i < size; i++) {
+				long value = 0;
+				int shift = 0;
+				byte currentByte;
+				do {
+					currentByte = block.get(offset++);
+					value |= (long) (currentByte & 0x7F) << shift;
+					shift += 7;
+				} while (currentByte < 0);
+				sourceOffset += decodeZigZag(value);
+				decodedOffsets[i] = sourceOffset;
+			}
+			sourceOffsets = decodedOffsets;
+		}
+		return decodedOffsets[index];
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the reference allele of the variant
+	 */
+	public String getReferenceAllele(int index) {
+		return getAlleles()[2 * index];
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return the alternative allele of the variant
+	 */
+	public String getAlternativeAllele(int index) {
+		return getAlleles()[(2 * index) + 1];
+	}
+
+
+	/**
+	 * @return the reference and alternative alleles of all the variants, decoded on the first call
+	 */
+	private String[] getAlleles() {
+		String[] decodedAlleles = alleles;
+		if (decodedAlleles == null) {
+			decodedAlleles = new String[2 * size];
+			int offset = allelesStart;
+			byte[] alleleBytes = new byte[64];
+			for (int i = 0; i < decodedAlleles.length; i++) {
+				int length = 0;
+				int shift = 0;
+				byte currentByte;
+				do {
+					currentByte = block.get(offset++);
+					length |= (currentByte & 0x7F) << shift;
+					shift += 7;
+				} while (currentByte < 0);
+				if (length > alleleBytes.length) {
+					alleleBytes = new byte[length];
+				}
+				for (int j = 0; j < length; j++) {
+					alleleBytes[j] = block.get(offset++);
+				}
+				decodedAlleles[i] = new String(alleleBytes, 0, length, QGTFile.ALLELE_CHARSET);
+			}
+			alleles = decodedAlleles;
+		}
+		return decodedAlleles;
+	}
+
+
+	/**
+	 * @param index index of a variant
+	 * @return a new {@link Variant} with the informations of the variant at the specified index
+	 */
+	public Variant getVariant(int index) {
+		return new Variant(chromosome, positions[index], getReferenceAllele(index), getAlternativeAllele(index), getVector(index));
+	}
+
+
+	/**
+	 * @param position a position
+	 * @return the index of the first variant at or after the specified position, {@link #size()} if there is none.
+	 * The variants must be sorted by position
+	 */
+	public int findFirstIndex(int position) {
+		int start = 0;
+		int stop = size;
+		while (start < stop) {
+			int mid = (start + stop) >>> 1;
+			if (positions[mid] < position) {
+				start = mid + 1;
+			} else {
+				stop = mid;
+			}
+		}
+		return start;
+	}
+}
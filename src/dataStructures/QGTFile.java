@@ -0,0 +1,254 @@
+package dataStructures;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import utils.BlockCompressedInputStream;
+
+
+/**
+ * Memory mapped reader of a QGT file (quartet genotype file) written by {@link QGTWriter}.
+ * A QGT file stores the variants of a quartet VCF file accepted by the default {@link FilterPolicy}
+ * in a binary columnar format with one block per chromosome.
+ * The blocks are mapped in memory and read through {@link QGTChromosome} instances.
+ * The lines of the source VCF file can be retrieved using the source offsets stored in the file
+ * @author Julien Lajugie
+ */
+public class QGTFile {
+
+	/**
+	 * The file doesn't contain offsets in the source VCF file (eg: gzip compressed source)
+	 */
+	public static final int SOURCE_OFFSET_NONE = 0;
+
+	/**
+	 * The source offsets are byte offsets in a plain text VCF file
+	 */
+	public static final int SOURCE_OFFSET_BYTE = 1;
+
+	/**
+	 * The source offsets are virtual offsets in a BGZF compressed VCF file
+	 */
+	public static final int SOURCE_OFFSET_VIRTUAL = 2;
+
+	static final byte[] 	MAGIC = {'Q', 'G', 'T', 1};						// first bytes of a QGT file
+	static final int 		VERSION = 1;									// version of the format
+	static final int 		INDEL_FLAG = 1;									// flag of the indel variants
+	static final Charset 	ALLELE_CHARSET = Charset.forName("ISO-8859-1");	// charset of the alleles
+	private static final int SOURCE_BUFFER_SIZE = 4096;						// size of the buffer used to read the source lines
+
+	private final File 							file;					// QGT file
+	private final int 							sourceOffsetType;		// type of the source offsets
+	private final File 							sourceFile;				// source VCF file
+	private final Map<String, QGTChromosome> 	chromosomes;			// blocks of the file indexed by chromosome in file order
+	private RandomAccessFile 					plainSource;			// source file opened to read lines, null if not opened
+	private BlockCompressedInputStream 			compressedSource;		// source file opened to read lines, null if not opened
+
+
+	/**
+	 * Opens a QGT file and maps its chromosome blocks in memory
+	 * @param file a QGT file
+	 * @throws IOException if the file is not a valid QGT file
+	 */
+	public QGTFile(File file) throws IOException {
+		this.file = file;
+		chromosomes = new LinkedHashMap<>();
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			FileChannel channel = inputStream.getChannel();
+			DataInputStream header = new DataInputStream(inputStream);
+			byte[] magic = new byte[MAGIC.length];
+			header.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException("Invalid QGT file: " + file.getPath());
+			}
+			int version = header.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported QGT version " + version + ": " + file.getPath());
+			}
+			sourceOffsetType = header.readByte();
+			sourceFile = new File(header.readUTF());
+			// the offset of the directory is stored in the last 8 bytes of the file
+			ByteBuffer trailer = ByteBuffer.allocate(8);
+			channel.read(trailer, channel.size() - 8);
+			long directoryOffset = trailer.getLong(0);
+			ByteBuffer directoryBuffer = ByteBuffer.allocate((int) (channel.size() - 8 - directoryOffset));
+			while (directoryBuffer.hasRemaining() && (channel.read(directoryBuffer, directoryOffset + directoryBuffer.position()) > 0));
+			DataInputStream directory = new DataInputStream(new ByteArrayInputStream(directoryBuffer.array()));
+			int chromosomeCount = directory.readInt();
+			for (int i = 0; i < chromosomeCount; i++) {
+				String chromosome = directory.readUTF();
+				int size = directory.readInt();
+				long blockOffset = directory.readLong();
+				int blockLength = directory.readInt();
+				int positionsLength = directory.readInt();
+				int sourceOffsetsLength = directory.readInt();
+				MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, blockOffset, blockLength);
+				chromosomes.put(chromosome, new QGTChromosome(chromosome, size, block, positionsLength, sourceOffsetsLength));
+			}
+		} finally {
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+
+
+	/**
+	 * @param file a file
+	 * @return true if the specified file starts with the QGT magic number
+	 * @throws IOException
+	 */
+	public static boolean isQGTFile(File file) throws IOException {
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			byte[] magic = new byte[MAGIC.length];
+			return (inputStream.read(magic) == MAGIC.length) && Arrays.equals(magic, MAGIC);
+		} finally {
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+
+
+	/**
+	 * @return the chromosomes of the file in file order
+	 */
+	public List<String> getChromosomes() {
+		return new ArrayList<String>(chromosomes.keySet());
+	}
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @return the block of the specified chromosome. Null if there is none
+	 */
+	public QGTChromosome getChromosome(String chromosome) {
+		return chromosomes.get(chromosome);
+	}
+
+
+	/**
+	 * @return all the variants of the file in file order
+	 */
+	public List<Variant> getVariants() {
+		int variantCount = 0;
+		for (QGTChromosome currentChromosome: chromosomes.values()) {
+			variantCount += currentChromosome.size();
+		}
+		List<Variant> variants = new ArrayList<Variant>(variantCount);
+		for (QGTChromosome currentChromosome: chromosomes.values()) {
+			for (int i = 0; i < currentChromosome.size(); i++) {
+				variants.add(currentChromosome.getVariant(i));
+			}
+		}
+		return variants;
+	}
+
+
+	/**
+	 * @return the type of the source offsets ({@link #SOURCE_OFFSET_NONE}, {@link #SOURCE_OFFSET_BYTE} or {@link #SOURCE_OFFSET_VIRTUAL})
+	 */
+	public int getSourceOffsetType() {
+		return sourceOffsetType;
+	}
+
+
+	/**
+	 * @return the VCF file converted into this QGT file
+	 */
+	public File getSourceFile() {
+		return sourceFile;
+	}
+
+
+	/**
+	 * Reads a line of the source VCF file. The source file is opened on the first call and closed by {@link #close()}
+	 * @param sourceOffset offset of a line in the source file (see {@link QGTChromosome#getSourceOffset(int)})
+	 * @return the line of the source file at the specified offset
+	 * @throws IOException if the file doesn't contain source offsets or if the source file cannot be read
+	 */
+	public String readSourceLine(long sourceOffset) throws IOException {
+		switch (sourceOffsetType) {
+		case SOURCE_OFFSET_BYTE:
+			if (plainSource == null) {
+				plainSource = new RandomAccessFile(sourceFile, "r");
+			}
+			return readPlainLine(sourceOffset);
+		case SOURCE_OFFSET_VIRTUAL:
+			if (compressedSource == null) {
+				compressedSource = new BlockCompressedInputStream(sourceFile);
+			}
+			compressedSource.seek(sourceOffset);
+			return compressedSource.readLine();
+		default:
+			throw new IOException("No source offset in " + file.getPath());
+		}
+	}
+
+
+	/**
+	 * @param sourceOffset offset of a line in the plain text source file
+	 * @return the line at the specified offset without line separator
+	 * @throws IOException
+	 */
+	private String readPlainLine(long sourceOffset) throws IOException {
+		byte[] line = new byte[SOURCE_BUFFER_SIZE];
+		int lineLength = 0;
+		plainSource.seek(sourceOffset);
+		while (true) {
+			if (lineLength == line.length) {
+				line = Arrays.copyOf(line, line.length * 2);
+			}
+			int readLength = plainSource.read(line, lineLength, line.length - lineLength);
+			if (readLength == -1) {
+				break;
+			}
+			int stop = lineLength + readLength;
+			for (int i = lineLength; i < stop; i++) {
+				if (line[i] == '\n') {
+					lineLength = i;
+					if ((lineLength > 0) && (line[lineLength - 1] == '\r')) {
+						lineLength--;
+					}
+					return new String(line, 0, lineLength);
+				}
+			}
+			lineLength = stop;
+		}
+		return new String(line, 0, lineLength);
+	}
+
+
+	/**
+	 * Closes the source file if it was opened by {@link #readSourceLine(long)}.
+	 * The mapped blocks remain readable
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if (plainSource != null) {
+			plainSource.close();
+			plainSource = null;
+		}
+		if (compressedSource != null) {
+			compressedSource.close();
+			compressedSource = null;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package dataStructures;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+
+/**
+ * {@link PhasedVectorSource} reading the SNPs of a QGT file, chromosome block after chromosome block in file order.
+ * The vectors are read directly from the mapped blocks
+ * @author Julien Lajugie
+ */
+public class QGTPhasedVectorSource implements PhasedVectorSource {
+
+	private final QGTFile 			file;				// QGT file
+	private final GenomicRegion 	region;				// region to read, null to read the whole file
+	private final Iterator<String> 	chromosomes;		// iterator on the chromosomes of the file
+	private QGTChromosome 			block;				// block of the current chromosome
+	private int 					index;				// index of the current vector in the block
+
+
+	/**
+	 * Creates an instance of {@link QGTPhasedVectorSource}
+	 * @param qgtFile a QGT file created from a vcf file (see {@link QGTWriter})
+	 * @param region region to read. The whole file is read if null
+	 * @throws IOException
+	 */
+	public QGTPhasedVectorSource(File qgtFile, GenomicRegion region) throws IOException {
+		this.file = new QGTFile(qgtFile);
+		this.region = region;
+		this.chromosomes = file.getChromosomes().iterator();
+		block = null;
+		index = -1;
+	}
+
+
+	@Override
+	public boolean next() throws IOException {
+		while (true) {
+			if (block != null) {
+				index++;
+				while (index < block.size()) {
+					if (!block.isIndel(index) && ((region == null) || region.contains(block.getChromosome(), block.getPosition(index)))) {
+						return true;
+					}
+					index++;
+				}
+			}
+			// the current block is finished, we move to the next chromosome of the region
+			block = null;
+			while ((block == null) && chromosomes.hasNext()) {
+				String chromosome = chromosomes.next();
+				if ((region == null) || region.getChromosome().equals(chromosome)) {
+					block = file.getChromosome(chromosome);
+					index = -1;
+				}
+			}
+			if (block == null) {
+				return false;
+			}
+		}
+	}
+
+
+	@Override
+	public String getChromosome() {
+		return block.getChromosome();
+	}
+
+
+	@Override
+	public int getPosition() {
+		return block.getPosition(index);
+	}
+
+
+	@Override
+	public short getVector() {
+		return block.getVector(index);
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
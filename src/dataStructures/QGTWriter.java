@@ -0,0 +1,380 @@
+package dataStructures;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import utils.BlockCompressedInputStream;
+import utils.GenomicFileReader;
+import utils.LineSliceHandler;
+import utils.MappedLineReader;
+
+
+/**
+ * Converts a quartet VCF file into a QGT file (quartet genotype file) read by {@link QGTFile}.
+ * Only the variants accepted by the default {@link FilterPolicy} are written.
+ * The file contains a header, one block per chromosome and a directory with the location of the blocks.
+ * A block contains the following columns:
+ * the positions (zigzag varint deltas), the phased vectors (see {@link PhasedVector}), the flags (indel),
+ * the minimum PL scores, the minimum PQ scores, the offsets of the lines in the source file (zigzag varint deltas)
+ * and the reference and alternative alleles (varint length + bytes).
+ * The variants of a chromosome must be contiguous in the source VCF file
+ * @author Julien Lajugie
+ */
+public class QGTWriter {
+
+	private static final int DEFAULT_CAPACITY = 1 << 16;	// initial capacity of the columns
+
+	private final File 					qgtFile;			// output file
+	private final DataOutputStream 		output;				// output stream of the file
+	private final int 					sourceOffsetType;	// type of the source offsets
+	private final ByteArrayOutputStream directory;			// directory of the blocks
+	private final DataOutputStream 		directoryOutput;	// output stream of the directory
+	private final Set<String> 			writtenChromosomes;	// chromosomes already written
+	private final VCFLineParser 		parser;				// parser of the source lines
+	private final FilterPolicy 			filterPolicy;		// filters applied to the variants
+	private long 						filePosition;		// number of bytes written in the file
+	private String 						chromosome;			// chromosome of the current block
+	private int 						size;				// number of variants in the current block
+	private int[] 						positions;			// positions of the current block
+	private short[] 					vectors;			// vectors of the current block
+	private byte[] 						flags;				// flags of the current block
+	private int[] 						minPLs;				// minimum PL scores of the current block
+	private float[] 					phasingQualities;	// minimum PQ scores of the current block
+	private long[] 						sourceOffsets;		// source offsets of the current block
+	private final ByteArrayOutputStream alleles;			// alleles of the current block
+
+
+	/**
+	 * Creates an instance of {@link QGTWriter} and writes the header of the file
+	 * @param qgtFile output QGT file
+	 * @param sourceFile VCF file converted
+	 * @param sourceOffsetType type of the source offsets ({@link QGTFile#SOURCE_OFFSET_NONE},
+	 * {@link QGTFile#SOURCE_OFFSET_BYTE} or {@link QGTFile#SOURCE_OFFSET_VIRTUAL})
+	 * @throws IOException
+	 */
+	private QGTWriter(File qgtFile, File sourceFile, int sourceOffsetType) throws IOException {
+		this.qgtFile = qgtFile;
+		this.sourceOffsetType = sourceOffsetType;
+		output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(qgtFile), 1 << 16));
+		directory = new ByteArrayOutputStream();
+		directoryOutput = new DataOutputStream(directory);
+		writtenChromosomes = new HashSet<>();
+		parser = new VCFLineParser();
+		filterPolicy = new FilterPolicy();
+		positions = new int[DEFAULT_CAPACITY];
+		vectors = new short[DEFAULT_CAPACITY];
+		flags = new byte[DEFAULT_CAPACITY];
+		minPLs = new int[DEFAULT_CAPACITY];
+		phasingQualities = new float[DEFAULT_CAPACITY];
+		sourceOffsets = new long[DEFAULT_CAPACITY];
+		alleles = new ByteArrayOutputStream(DEFAULT_CAPACITY * 4);
+		output.write(QGTFile.MAGIC);
+		output.writeInt(QGTFile.VERSION);
+		output.writeByte(sourceOffsetType);
+		output.writeUTF(sourceFile.getAbsolutePath());
+		filePosition = output.size();
+	}
+
+
+	/**
+	 * Converts a VCF file into a QGT file.
+	 * The offsets of the lines are stored when the VCF file is plain text or BGZF compressed
+	 * @param vcfFile a plain text or compressed quartet VCF file
+	 * @param qgtFile output QGT file
+	 * @return the {@link FilterPolicy} used to select the variants with the accepted and rejected line counts
+	 * @throws IOException if the VCF file cannot be read or if its chromosomes are not contiguous
+	 */
+	public static FilterPolicy convert(File vcfFile, File qgtFile) throws IOException {
+		int sourceOffsetType;
+		if (BlockCompressedInputStream.isBlockCompressed(vcfFile)) {
+			sourceOffsetType = QGTFile.SOURCE_OFFSET_VIRTUAL;
+		} else if (GenomicFileReader.isCompressed(vcfFile)) {
+			sourceOffsetType = QGTFile.SOURCE_OFFSET_NONE;
+		} else {
+			sourceOffsetType = QGTFile.SOURCE_OFFSET_BYTE;
+		}
+		QGTWriter writer = new QGTWriter(qgtFile, vcfFile, sourceOffsetType);
+		boolean isComplete = false;
+		try {
+			switch (sourceOffsetType) {
+			case QGTFile.SOURCE_OFFSET_VIRTUAL:
+				writer.addCompressedFile(vcfFile);
+				break;
+			case QGTFile.SOURCE_OFFSET_NONE:
+				writer.addGzipFile(vcfFile);
+				break;
+			default:
+				writer.addPlainFile(vcfFile);
+				break;
+			}
+			writer.close();
+			isComplete = true;
+		} finally {
+			if (!isComplete) {
+				// we don't leave an incomplete file
+				writer.output.close();
+				qgtFile.delete();
+			}
+		}
+		return writer.filterPolicy;
+	}
+
+
+	/**
+	 * Adds the variants of a BGZF compressed VCF file with the virtual offsets of their lines
+	 * @param vcfFile a BGZF compressed VCF file
+	 * @throws IOException
+	 */
+	private void addCompressedFile(File vcfFile) throws IOException {
+		BlockCompressedInputStream inputStream = null;
+		try {
+			inputStream = new BlockCompressedInputStream(vcfFile);
+			long sourceOffset = inputStream.getVirtualOffset();
+			String line = null;
+			while ((line = inputStream.readLine()) != null) {
+				if (!line.trim().isEmpty() && (line.trim().charAt(0) != '#')) {
+					addVariant(parser.parse(line), sourceOffset);
+				}
+				sourceOffset = inputStream.getVirtualOffset();
+			}
+		} finally {
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Adds the variants of a gzip compressed VCF file. The offsets of the lines are not stored
+	 * @param vcfFile a gzip compressed VCF file
+	 * @throws IOException
+	 */
+	private void addGzipFile(File vcfFile) throws IOException {
+		BufferedReader reader = null;
+		try {
+			reader = GenomicFileReader.open(vcfFile);
+			String line = null;
+			while ((line = reader.readLine()) != null) {
+				if (!line.trim().isEmpty() && (line.trim().charAt(0) != '#')) {
+					addVariant(parser.parse(line), -1);
+				}
+			}
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Adds the variants of a plain text VCF file read through memory mapped windows, with the byte offsets of their lines
+	 * @param vcfFile a plain text VCF file
+	 * @throws IOException
+	 */
+	private void addPlainFile(File vcfFile) throws IOException {
+		new MappedLineReader(vcfFile).read(new LineSliceHandler() {
+
+			private long sourceOffset = 0; // offset of the next line in the file
+
+			@Override
+			public void handleLine(ByteBuffer buffer, int offset, int length) throws IOException {
+				int firstChar = offset;
+				int stop = offset + length;
+				while ((firstChar < stop) && ((buffer.get(firstChar) & 0xFF) <= ' ')) {
+					firstChar++;
+				}
+				// we don't care about the comment and the empty lines
+				if ((firstChar < stop) && (buffer.get(firstChar) != '#')) {
+					addVariant(parser.parse(buffer, offset, length), sourceOffset);
+				}
+				// the reader removes the carriage return preceding the line feed
+				if ((stop < buffer.limit()) && (buffer.get(stop) == '\r')) {
+					sourceOffset++;
+				}
+				sourceOffset += length + 1;
+			}
+		});
+	}
+
+
+	/**
+	 * Adds the variant of a parsed VCF line if the line passes the filters
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @param sourceOffset offset of the line in the source file
+	 * @throws IOException if the chromosomes of the source file are not contiguous
+	 */
+	private void addVariant(VCFLineParser parser, long sourceOffset) throws IOException {
+		Variant variant = Variant.tryParse(parser, filterPolicy);
+		if (variant == null) {
+			return;
+		}
+		if (!variant.getChromosome().equals(chromosome)) {
+			writeBlock();
+			if (!writtenChromosomes.add(variant.getChromosome())) {
+				throw new IOException("The variants of " + variant.getChromosome() + " are not contiguous in the VCF file");
+			}
+			chromosome = variant.getChromosome();
+		}
+		if (size == positions.length) {
+			int newCapacity = positions.length + (positions.length >> 1);
+			positions = Arrays.copyOf(positions, newCapacity);
+			vectors = Arrays.copyOf(vectors, newCapacity);
+			flags = Arrays.copyOf(flags, newCapacity);
+			minPLs = Arrays.copyOf(minPLs, newCapacity);
+			phasingQualities = Arrays.copyOf(phasingQualities, newCapacity);
+			sourceOffsets = Arrays.copyOf(sourceOffsets, newCapacity);
+		}
+		positions[size] = variant.getPosition();
+		vectors[size] = PhasedVector.createVector(variant);
+		flags[size] = (byte) (variant.isIndel() ? QGTFile.INDEL_FLAG : 0);
+		try {
+			minPLs[size] = filterPolicy.getMinPL(parser);
+		} catch (NumberFormatException e) {
+			minPLs[size] = -1;
+		}
+		phasingQualities[size] = getMinPhasingQuality(parser);
+		sourceOffsets[size] = sourceOffset;
+		writeAllele(variant.getReferenceAllele());
+		writeAllele(variant.getAlternativeAllele());
+		size++;
+	}
+
+
+	/**
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @return the minimum phasing quality (PQ) of the samples of the line, NaN if there is none
+	 */
+	private static float getMinPhasingQuality(VCFLineParser parser) {
+		float minPhasingQuality = Float.NaN;
+		int phasingQualityIndex = parser.getFormatSubfieldIndex("PQ");
+		if (phasingQualityIndex != -1) {
+			for (int i = 0; i < 4; i++) {
+				if (parser.getSampleSubfieldCount(i) > phasingQualityIndex) {
+					try {
+						float phasingQuality = (float) parser.parseSampleSubfieldDouble(i, phasingQualityIndex);
+						if (Float.isNaN(minPhasingQuality) || (phasingQuality < minPhasingQuality)) {
+							minPhasingQuality = phasingQuality;
+						}
+					} catch (NumberFormatException e) {
+						// missing PQ score (eg: ".")
+					}
+				}
+			}
+		}
+		return minPhasingQuality;
+	}
+
+
+	/**
+	 * Writes the length and the bytes of an allele in the allele column of the current block
+	 * @param allele an allele
+	 */
+	private void writeAllele(String allele) {
+		byte[] alleleBytes = allele.getBytes(QGTFile.ALLELE_CHARSET);
+		writeVarLong(alleles, alleleBytes.length);
+		alleles.write(alleleBytes, 0, alleleBytes.length);
+	}
+
+
+	/**
+	 * Writes an unsigned value in the varint format (7 bits per byte, least significant group first)
+	 * @param outputStream an output stream
+	 * @param value a positive value
+	 */
+	private static void writeVarLong(ByteArrayOutputStream outputStream, long value) {
+		while ((value & ~0x7FL) != 0) {
+			outputStream.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		outputStream.write((int) value);
+	}
+
+
+	/**
+	 * @param value a signed value
+	 * @return the value zigzag encoded so small negative values have a short varint representation
+	 */
+	private static long encodeZigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+
+	/**
+	 * Writes the current block in the file and adds it to the directory
+	 * @throws IOException
+	 */
+	private void writeBlock() throws IOException {
+		if (chromosome == null) {
+			return;
+		}
+		ByteArrayOutputStream positionColumn = new ByteArrayOutputStream(size * 2);
+		int previousPosition = 0;
+		for (int i = 0; i < size; i++) {
+			writeVarLong(positionColumn, encodeZigZag(positions[i] - previousPosition));
+			previousPosition = positions[i];
+		}
+		ByteArrayOutputStream sourceOffsetColumn = new ByteArrayOutputStream(sourceOffsetType == QGTFile.SOURCE_OFFSET_NONE ? 0 : size * 2);
+		if (sourceOffsetType != QGTFile.SOURCE_OFFSET_NONE) {
+			long previousOffset = 0;
+			for (int i = 0; i < size; i++) {
+				writeVarLong(sourceOffsetColumn, encodeZigZag(sourceOffsets[i] - previousOffset));
+				previousOffset = sourceOffsets[i];
+			}
+		}
+		long blockOffset = filePosition;
+		positionColumn.writeTo(output);
+		for (int i = 0; i < size; i++) {
+			output.writeShort(vectors[i]);
+		}
+		output.write(flags, 0, size);
+		for (int i = 0; i < size; i++) {
+			output.writeInt(minPLs[i]);
+		}
+		for (int i = 0; i < size; i++) {
+			output.writeFloat(phasingQualities[i]);
+		}
+		sourceOffsetColumn.writeTo(output);
+		alleles.writeTo(output);
+		long blockLength = (long) positionColumn.size() + (11L * size) + sourceOffsetColumn.size() + alleles.size();
+		if (blockLength > Integer.MAX_VALUE) {
+			throw new IOException("Block of " + chromosome + " too large for " + qgtFile.getPath());
+		}
+		filePosition += blockLength;
+		directoryOutput.writeUTF(chromosome);
+		directoryOutput.writeInt(size);
+		directoryOutput.writeLong(blockOffset);
+		directoryOutput.writeInt((int) blockLength);
+		directoryOutput.writeInt(positionColumn.size());
+		directoryOutput.writeInt(sourceOffsetColumn.size());
+		size = 0;
+		alleles.reset();
+	}
+
+
+	/**
+	 * Writes the last block, the directory and the offset of the directory and closes the file
+	 * @throws IOException
+	 */
+	private void close() throws IOException {
+		try {
+			writeBlock();
+			long directoryOffset = filePosition;
+			output.writeInt(writtenChromosomes.size());
+			directory.writeTo(output);
+			output.writeLong(directoryOffset);
+		} finally {
+			output.close();
+		}
+	}
+}
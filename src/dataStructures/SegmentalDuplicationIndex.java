@@ -0,0 +1,294 @@
+package dataStructures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * Interval index of the {@link SegmentalDuplication} of one chromosome.
+ * The duplications are sorted by position and stored in primitive arrays organized as an implicit augmented interval tree:
+ * the sorted array is seen as a binary search tree where each node stores the max stop position of its subtree.
+ * Point and overlap queries run in O(log n + k) where k is the number of duplications returned.
+ * Start and stop positions are both inclusive.
+ * A duplication with a start position after its stop position contains no position but overlaps with the intervals
+ * containing both of its bounds. These duplications are kept out of the tree and scanned linearly.
+ * An interval with a start position after its stop position overlaps with the duplications containing one of its bounds.
+ * @author Julien Lajugie
+ */
+class SegmentalDuplicationIndex {
+
+	private static final int LINEAR_SCAN_LEVEL = 3;			// subtrees with a level smaller or equal to this one are scanned linearly
+
+	private final SegmentalDuplication[] 	duplications;		// duplications sorted by position
+	private final SegmentalDuplication[] 	invertedDuplications;	// duplications with a start after their stop sorted by position
+	private final int[] 					startPositions;		// start positions of the sorted duplications
+	private final int[] 					stopPositions;		// stop positions of the sorted duplications
+	private final int[] 					maxStopPositions;	// max stop position of the subtree rooted at each node
+	private final int 						maxLevel;			// level of the root of the tree
+
+
+	/**
+	 * Creates an instance of {@link SegmentalDuplicationIndex}
+	 * @param duplicationList list of the duplications of a chromosome. The list is not modified.
+	 */
+	SegmentalDuplicationIndex(List<SegmentalDuplication> duplicationList) {
+		List<SegmentalDuplication> sortedList = new ArrayList<>(duplicationList);
+		Collections.sort(sortedList);
+		List<SegmentalDuplication> invertedList = new ArrayList<>();
+		for (Iterator<SegmentalDuplication> iterator = sortedList.iterator(); iterator.hasNext();) {
+			SegmentalDuplication duplication = iterator.next();
+			if (duplication.getStartPosition() > duplication.getStopPosition()) {
+				invertedList.add(duplication);
+				iterator.remove();
+			}
+		}
+		invertedDuplications = invertedList.toArray(new SegmentalDuplication[invertedList.size()]);
+		int duplicationCount = sortedList.size();
+		duplications = sortedList.toArray(new SegmentalDuplication[duplicationCount]);
+		startPositions = new int[duplicationCount];
+		stopPositions = new int[duplicationCount];
+		maxStopPositions = new int[duplicationCount];
+		for (int i = 0; i < duplicationCount; i++) {
+			startPositions[i] = duplications[i].getStartPosition();
+			stopPositions[i] = duplications[i].getStopPosition();
+		}
+		maxLevel = computeMaxStopPositions();
+	}
+
+
+	/**
+	 * Computes the max stop position of each subtree.
+	 * Leaves are the nodes with an even index and the nodes of level k have their k lowest bits set to 1
+	 * @return the level of the root of the tree, -1 if the tree is empty
+	 */
+	private int computeMaxStopPositions() {
+		int nodeCount = startPositions.length;
+		if (nodeCount == 0) {
+			return -1;
+		}
+		int lastIndex = 0;	// index of the last node of the current level
+		int lastMax = 0;	// max stop position of the last node of the current level
+		for (int i = 0; i < nodeCount; i += 2) {
+			lastIndex = i;
+			lastMax = maxStopPositions[i] = stopPositions[i];
+		}
+		int level = 1;
+		while ((1L << level) <= nodeCount) {
+			int childOffset = 1 << (level - 1);
+			int firstNode = (childOffset << 1) - 1;
+			int step = childOffset << 2;
+			for (int i = firstNode; i < nodeCount; i += step) {
+				int leftMax = maxStopPositions[i - childOffset];
+				// the right child may be out of the array, in which case we use the max of the last node
+				int rightMax = (i + childOffset < nodeCount) ? maxStopPositions[i + childOffset] : lastMax;
+				maxStopPositions[i] = Math.max(stopPositions[i], Math.max(leftMax, rightMax));
+			}
+			lastIndex = ((lastIndex >> level) & 1) != 0 ? lastIndex - childOffset : lastIndex + childOffset;
+			if ((lastIndex < nodeCount) && (maxStopPositions[lastIndex] > lastMax)) {
+				lastMax = maxStopPositions[lastIndex];
+			}
+			level++;
+		}
+		return level - 1;
+	}
+
+
+	/**
+	 * @param position a position
+	 * @return the first duplication in position order containing the specified position. Null if there is none
+	 */
+	SegmentalDuplication getFirstContaining(int position) {
+		// the duplications with a start after their stop contain no position
+		return getFirstOverlappingInTree(position, position);
+	}
+
+
+	/**
+	 * Adds all the duplications containing the specified position to the specified list in position order
+	 * @param position a position
+	 * @param result list where the duplications are added
+	 */
+	void getAllContaining(int position, List<SegmentalDuplication> result) {
+		getAllOverlappingInTree(position, position, result);
+	}
+
+
+	/**
+	 * @param start start position of the interval
+	 * @param stop stop position of the interval
+	 * @return the first duplication in position order overlapping with the specified interval. Null if there is none
+	 */
+	SegmentalDuplication getFirstOverlapping(int start, int stop) {
+		SegmentalDuplication first;
+		if (start <= stop) {
+			first = getFirstOverlappingInTree(start, stop);
+		} else {
+			first = getFirst(getFirstOverlappingInTree(start, start), getFirstOverlappingInTree(stop, stop));
+		}
+		for (SegmentalDuplication invertedDuplication: invertedDuplications) {
+			if (isOverlappingInverted(invertedDuplication, start, stop)) {
+				return getFirst(first, invertedDuplication);
+			}
+		}
+		return first;
+	}
+
+
+	/**
+	 * @param start start position of the interval, smaller or equal to the stop position
+	 * @param stop stop position of the interval
+	 * @return the first duplication of the tree in position order overlapping with the specified interval. Null if there is none
+	 */
+	private SegmentalDuplication getFirstOverlappingInTree(int start, int stop) {
+		if (maxLevel < 0) {
+			return null;
+		}
+		int index = searchOverlapping((1 << maxLevel) - 1, maxLevel, start, stop, null);
+		return index < 0 ? null : duplications[index];
+	}
+
+
+	/**
+	 * @param duplication1 a duplication or null
+	 * @param duplication2 a duplication or null
+	 * @return the first of the two duplications in position order, the non-null one if the other one is null
+	 */
+	private static SegmentalDuplication getFirst(SegmentalDuplication duplication1, SegmentalDuplication duplication2) {
+		if ((duplication1 == null) || ((duplication2 != null) && (duplication2.compareTo(duplication1) < 0))) {
+			return duplication2;
+		}
+		return duplication1;
+	}
+
+
+	/**
+	 * @param invertedDuplication a duplication with a start position after its stop position
+	 * @param start start position of the interval
+	 * @param stop stop position of the interval
+	 * @return true if the interval contains the stop and the start positions of the duplication
+	 */
+	private static boolean isOverlappingInverted(SegmentalDuplication invertedDuplication, int start, int stop) {
+		return (start <= invertedDuplication.getStartPosition()) && (stop >= invertedDuplication.getStopPosition());
+	}
+
+
+	/**
+	 * Adds all the duplications overlapping with the specified interval to the specified list in position order
+	 * @param start start position of the interval
+	 * @param stop stop position of the interval
+	 * @param result list where the overlapping duplications are added
+	 */
+	void getAllOverlapping(int start, int stop, List<SegmentalDuplication> result) {
+		if ((start <= stop) && (invertedDuplications.length == 0)) {
+			getAllOverlappingInTree(start, stop, result);
+			return;
+		}
+		List<SegmentalDuplication> treeResult = new ArrayList<>();
+		if (start <= stop) {
+			getAllOverlappingInTree(start, stop, treeResult);
+		} else {
+			List<SegmentalDuplication> startResult = new ArrayList<>();
+			List<SegmentalDuplication> stopResult = new ArrayList<>();
+			getAllOverlappingInTree(start, start, startResult);
+			getAllOverlappingInTree(stop, stop, stopResult);
+			merge(startResult, stopResult, treeResult);
+		}
+		List<SegmentalDuplication> invertedResult = new ArrayList<>();
+		for (SegmentalDuplication invertedDuplication: invertedDuplications) {
+			if (isOverlappingInverted(invertedDuplication, start, stop)) {
+				invertedResult.add(invertedDuplication);
+			}
+		}
+		merge(treeResult, invertedResult, result);
+	}
+
+
+	/**
+	 * Adds all the duplications of the tree overlapping with the specified interval to the specified list in position order
+	 * @param start start position of the interval, smaller or equal to the stop position
+	 * @param stop stop position of the interval
+	 * @param result list where the overlapping duplications are added
+	 */
+	private void getAllOverlappingInTree(int start, int stop, List<SegmentalDuplication> result) {
+		if (maxLevel >= 0) {
+			searchOverlapping((1 << maxLevel) - 1, maxLevel, start, stop, result);
+		}
+	}
+
+
+	/**
+	 * Adds the duplications of two lists sorted by position to a list in position order.
+	 * A duplication present in both lists is added once
+	 * @param list1 a list of duplications sorted by position
+	 * @param list2 another list of duplications sorted by position
+	 * @param result list where the duplications are added
+	 */
+	private static void merge(List<SegmentalDuplication> list1, List<SegmentalDuplication> list2, List<SegmentalDuplication> result) {
+		int i = 0;
+		int j = 0;
+		while ((i < list1.size()) || (j < list2.size())) {
+			if (j == list2.size()) {
+				result.add(list1.get(i++));
+			} else if (i == list1.size()) {
+				result.add(list2.get(j++));
+			} else if (list1.get(i) == list2.get(j)) {
+				result.add(list1.get(i++));
+				j++;
+			} else if (list2.get(j).compareTo(list1.get(i)) < 0) {
+				result.add(list2.get(j++));
+			} else {
+				result.add(list1.get(i++));
+			}
+		}
+	}
+
+
+	/**
+	 * Searches the duplications overlapping with the specified interval in the subtree of the specified node.
+	 * The tree is traversed in order so the duplications are found in position order
+	 * @param node root of the subtree to search
+	 * @param level level of the root of the subtree
+	 * @param start start position of the interval
+	 * @param stop stop position of the interval
+	 * @param result list where the overlapping duplications are added. If null the search stops at the first overlapping duplication
+	 * @return the index of the first overlapping duplication if the result list is null, -1 otherwise
+	 */
+	private int searchOverlapping(int node, int level, int start, int stop, List<SegmentalDuplication> result) {
+		int nodeCount = startPositions.length;
+		if (level <= LINEAR_SCAN_LEVEL) {
+			// small subtree: linear scan
+			int firstIndex = node >> level << level;
+			int lastIndex = Math.min(firstIndex + (1 << (level + 1)) - 1, nodeCount);
+			for (int i = firstIndex; (i < lastIndex) && (startPositions[i] <= stop); i++) {
+				if (stopPositions[i] >= start) {
+					if (result == null) {
+						return i;
+					}
+					result.add(duplications[i]);
+				}
+			}
+			return -1;
+		}
+		int childOffset = 1 << (level - 1);
+		// the left child can be out of the array while some of its descendants are not
+		int leftChild = node - childOffset;
+		if ((leftChild >= nodeCount) || (maxStopPositions[leftChild] >= start)) {
+			int index = searchOverlapping(leftChild, level - 1, start, stop, result);
+			if (index >= 0) {
+				return index;
+			}
+		}
+		if ((node < nodeCount) && (startPositions[node] <= stop)) {
+			if (stopPositions[node] >= start) {
+				if (result == null) {
+					return node;
+				}
+				result.add(duplications[node]);
+			}
+			return searchOverlapping(node + childOffset, level - 1, start, stop, result);
+		}
+		return -1;
+	}
+}
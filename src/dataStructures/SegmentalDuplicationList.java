@@ -2,7 +2,6 @@ package dataStructures;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -10,13 +9,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import utils.GenomicFileReader;
+
 /**
  * This class represents lists of {@link SegmentalDuplication} organised by chromosome 
  * @author Julien Lajugie
  */
 public class SegmentalDuplicationList {
 
-	private final Map<String, List<SegmentalDuplication>> segDupListMap; // lists of segmental duplications organised by chromosome
+	private final Map<String, List<SegmentalDuplication>> 		segDupListMap; 	// lists of segmental duplications organised by chromosome
+	private volatile Map<String, SegmentalDuplicationIndex> 	indexMap;		// interval indexes organised by chromosome. Null when the indexes need to be rebuilt
 
 
 	/**
@@ -34,7 +36,7 @@ public class SegmentalDuplicationList {
 	public void loadBedOrBgr(File file) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(file));
+			reader = GenomicFileReader.open(file);
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -66,7 +68,7 @@ public class SegmentalDuplicationList {
 	public void loadBedOrBgrWithScore(File file) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(file));
+			reader = GenomicFileReader.open(file);
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -106,6 +108,7 @@ public class SegmentalDuplicationList {
 		} else {
 			segDupListMap.get(chromosome).add(duplicationToAdd);
 		}
+		indexMap = null;
 	}
 
 
@@ -116,6 +119,30 @@ public class SegmentalDuplicationList {
 		for (List<SegmentalDuplication> currentList: segDupListMap.values()) {
 			Collections.sort(currentList);
 		}
+		indexMap = null;
+	}
+
+
+	/**
+	 * Builds the interval indexes if the duplications changed since they were last built
+	 * @param chromosome a chromosome
+	 * @return the interval index of the specified chromosome. Null if there is no duplication on the chromosome
+	 */
+	private SegmentalDuplicationIndex getIndex(String chromosome) {
+		Map<String, SegmentalDuplicationIndex> indexes = indexMap;
+		if (indexes == null) {
+			synchronized (this) {
+				indexes = indexMap;
+				if (indexes == null) {
+					indexes = new HashMap<>();
+					for (Map.Entry<String, List<SegmentalDuplication>> currentEntry: segDupListMap.entrySet()) {
+						indexes.put(currentEntry.getKey(), new SegmentalDuplicationIndex(currentEntry.getValue()));
+					}
+					indexMap = indexes;
+				}
+			}
+		}
+		return indexes.get(chromosome);
 	}
 
 
@@ -134,19 +161,29 @@ public class SegmentalDuplicationList {
 	 * @return the segmental duplication that contains the specified chromosome and position
 	 */
 	public SegmentalDuplication getBlock(String chromosome, int position) {
-		if (segDupListMap.containsKey(chromosome)) {
-			List<SegmentalDuplication> chromosomeBlockList = segDupListMap.get(chromosome);
-			for (SegmentalDuplication currentDuplication: chromosomeBlockList) {
-				if ((position >= currentDuplication.getStartPosition()) 
-						&& (position <= currentDuplication.getStopPosition())) {
-					return currentDuplication;
-				}
-			}
+		SegmentalDuplicationIndex chromosomeIndex = getIndex(chromosome);
+		if (chromosomeIndex != null) {
+			return chromosomeIndex.getFirstContaining(position);
 		}
 		return null;
 	}
 
 
+	/**
+	 * @param chromosome a chromosome
+	 * @param position a position
+	 * @return all the segmental duplications that contain the specified chromosome and position sorted by position
+	 */
+	public List<SegmentalDuplication> getAllBlocks(String chromosome, int position) {
+		List<SegmentalDuplication> result = new ArrayList<>();
+		SegmentalDuplicationIndex chromosomeIndex = getIndex(chromosome);
+		if (chromosomeIndex != null) {
+			chromosomeIndex.getAllContaining(position, result);
+		}
+		return result;
+	}
+
+
 	/**
 	 * @param chromosome a chromosome
 	 * @param block a {@link SegmentalDuplication}
@@ -163,18 +200,27 @@ public class SegmentalDuplicationList {
 	 * @return a block that overlap with the specified {@link SegmentalDuplication} on the specified chromosome. Null if there is none
 	 */
 	public SegmentalDuplication getBlockOverlapping(String chromosome, SegmentalDuplication block) {
-		if (segDupListMap.containsKey(chromosome)) {
-			List<SegmentalDuplication> chromosomeBlockList = segDupListMap.get(chromosome);
-			for (SegmentalDuplication currentDuplication: chromosomeBlockList) {
-				if (((block.getStartPosition() >= currentDuplication.getStartPosition()) && (block.getStartPosition() <= currentDuplication.getStopPosition()))
-						|| ((block.getStopPosition() >= currentDuplication.getStartPosition()) && (block.getStopPosition() <= currentDuplication.getStopPosition()))
-						|| ((block.getStartPosition() <= currentDuplication.getStartPosition()) && (block.getStopPosition() >= currentDuplication.getStopPosition()))) {
-					return currentDuplication;
-				}
-			}
+		SegmentalDuplicationIndex chromosomeIndex = getIndex(chromosome);
+		if (chromosomeIndex != null) {
+			return chromosomeIndex.getFirstOverlapping(block.getStartPosition(), block.getStopPosition());
 		}
 		return null;
 	}	
+
+
+	/**
+	 * @param chromosome a chromosome
+	 * @param block a {@link SegmentalDuplication}
+	 * @return all the blocks that overlap with the specified {@link SegmentalDuplication} on the specified chromosome sorted by position
+	 */
+	public List<SegmentalDuplication> getAllBlocksOverlapping(String chromosome, SegmentalDuplication block) {
+		List<SegmentalDuplication> result = new ArrayList<>();
+		SegmentalDuplicationIndex chromosomeIndex = getIndex(chromosome);
+		if (chromosomeIndex != null) {
+			chromosomeIndex.getAllOverlapping(block.getStartPosition(), block.getStopPosition(), result);
+		}
+		return result;
+	}
 	
 	
 
@@ -0,0 +1,276 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+
+/**
+ * Streaming version of {@link VariantListAnalyzer}.
+ * The variants are added one by one, sorted by chromosome and position, and become available
+ * through {@link #next()} as soon as their window (moving window) or their bin is complete.
+ * Only the variants of the current window or bin that have not been read are kept in memory,
+ * so the memory used is proportional to the size of the window and not to the size of the genome.
+ * The windows and the bins don't overlap two chromosomes
+ * @author Julien Lajugie
+ */
+public class StreamingVariantAnalyzer {
+
+	private static final int INITIAL_CAPACITY = 1024;	// initial capacity of the buffer, must be a power of 2
+
+	private final int 			halfWindowSize;			// half size of the window used for the moving average or for the bins
+	private final boolean 		computeMovingWindow;	// if true compute the inheritance state using a moving window (uses bins otherwise)
+	private final int[] 		sums;					// sums in half units of the scores of the current window or bin
+	private Variant[] 			variants;				// buffered variants
+	private int[] 				positions;				// positions of the buffered variants
+	private byte[] 				genotypeCodes;			// genotype codes of the buffered variants
+	private int[] 				windowScores;			// window scores of the buffered variants, AVERAGED_STATES.length values per variant
+	private int[] 				windowSizes;			// number of variants in the window of the buffered variants
+	private byte[] 				dominantStates;			// index in AVERAGED_STATES of the dominant state of the buffered variants
+	private int 				mask;					// mask giving the index in the buffer of a variant
+	private String 				chromosome;				// chromosome of the current window
+	private long 				first;					// index of the first variant still in the buffer
+	private long 				added;					// number of variants added
+	private long 				windowStart;			// index of the first variant of the current window or bin
+	private long 				windowStop;				// index of the first variant after the current window (moving window only)
+	private long 				binStop;				// first position after the current bin (bins only)
+	private long 				finalized;				// number of variants with a complete window
+	private long 				read;					// number of variants returned by next()
+
+
+	/**
+	 * Creates an instance of {@link StreamingVariantAnalyzer}
+	 * @param halfWindowSize half size of the window used for the moving average or for the bins
+	 * @param computeMovingWindow true to average the scores on a moving window, false to average them on bins
+	 */
+	public StreamingVariantAnalyzer(int halfWindowSize, boolean computeMovingWindow) {
+		this.halfWindowSize = halfWindowSize;
+		this.computeMovingWindow = computeMovingWindow;
+		sums = new int[VariantListAnalyzer.AVERAGED_STATES.length];
+		allocateBuffer(INITIAL_CAPACITY);
+	}
+
+
+	/**
+	 * Allocates the arrays of the buffer
+	 * @param capacity capacity of the buffer, must be a power of 2
+	 */
+	private void allocateBuffer(int capacity) {
+		variants = new Variant[capacity];
+		positions = new int[capacity];
+		genotypeCodes = new byte[capacity];
+		windowScores = new int[capacity * sums.length];
+		windowSizes = new int[capacity];
+		dominantStates = new byte[capacity];
+		mask = capacity - 1;
+	}
+
+
+	/**
+	 * Adds a variant. The variants must be sorted by chromosome and position
+	 * @param variant a {@link Variant}
+	 */
+	public void add(Variant variant) {
+		int position = variant.getPosition();
+		if (!variant.getChromosome().equals(chromosome)) {
+			completeChromosome();
+			chromosome = variant.getChromosome();
+			binStop = computeBinStop(position);
+		} else if (!computeMovingWindow && (position >= binStop)) {
+			completeBin();
+			binStop = computeBinStop(position);
+		}
+		// release the variants that are read and out of the window
+		first = Math.max(first, Math.min(windowStart, read - 1));
+		if (added - first == variants.length) {
+			growBuffer();
+		}
+		int slot = (int) (added & mask);
+		variants[slot] = variant;
+		positions[slot] = position;
+		genotypeCodes[slot] = (byte) variant.getGenotypeCode();
+		added++;
+		if (computeMovingWindow) {
+			// the window of a variant is complete when a variant is after the end of the window
+			while ((finalized < added) && (position > (long) positions[(int) (finalized & mask)] + halfWindowSize)) {
+				completeMovingWindow(finalized);
+			}
+		} else {
+			addScores(slot, 1);
+		}
+	}
+
+
+	/**
+	 * Completes the windows of the last chromosome. Must be called after the last variant has been added
+	 */
+	public void flush() {
+		completeChromosome();
+		chromosome = null;
+	}
+
+
+	/**
+	 * @return true if a variant with a complete window is available
+	 */
+	public boolean hasNext() {
+		return read < finalized;
+	}
+
+
+	/**
+	 * Returns the next variant with a complete window. The scores of this variant can then be retrieved
+	 * until the next call to this method
+	 * @return the next variant with a complete window
+	 */
+	public Variant next() {
+		Variant variant = variants[(int) (read & mask)];
+		read++;
+		return variant;
+	}
+
+
+	/**
+	 * @param state an inheritance state (identical, maternal, paternal, non identical, not informative or MIE)
+	 * @return the score of the specified state for the last variant returned by {@link #next()}
+	 */
+	public double getScore(QuartetInheritanceState state) {
+		int code = genotypeCodes[(int) ((read - 1) & mask)] & 0xFF;
+		return VariantListAnalyzer.SCORES[(code * sums.length) + VariantListAnalyzer.getStateIndex(state)] * 0.5;
+	}
+
+
+	/**
+	 * @param state an inheritance state (identical, maternal, paternal, non identical, not informative or MIE)
+	 * @return the score of the specified state averaged on the window of the last variant returned by {@link #next()}
+	 */
+	public double getAverageScore(QuartetInheritanceState state) {
+		int slot = (int) ((read - 1) & mask);
+		return (windowScores[(slot * sums.length) + VariantListAnalyzer.getStateIndex(state)] * 0.5) / windowSizes[slot];
+	}
+
+
+	/**
+	 * @return the dominant inheritance state of the last variant returned by {@link #next()}
+	 */
+	public QuartetInheritanceState getDominantInheritanceState() {
+		return VariantListAnalyzer.AVERAGED_STATES[dominantStates[(int) ((read - 1) & mask)]];
+	}
+
+
+	/**
+	 * @param position a position
+	 * @return the first position after the bin containing the specified position
+	 */
+	private long computeBinStop(int position) {
+		long binSize = halfWindowSize * 2l;
+		return ((position / binSize) + 1) * binSize;
+	}
+
+
+	/**
+	 * Doubles the capacity of the buffer
+	 */
+	private void growBuffer() {
+		Variant[] oldVariants = variants;
+		int[] oldPositions = positions;
+		byte[] oldGenotypeCodes = genotypeCodes;
+		int[] oldWindowScores = windowScores;
+		int[] oldWindowSizes = windowSizes;
+		byte[] oldDominantStates = dominantStates;
+		int oldMask = mask;
+		allocateBuffer(oldVariants.length * 2);
+		for (long i = first; i < added; i++) {
+			int oldSlot = (int) (i & oldMask);
+			int slot = (int) (i & mask);
+			variants[slot] = oldVariants[oldSlot];
+			positions[slot] = oldPositions[oldSlot];
+			genotypeCodes[slot] = oldGenotypeCodes[oldSlot];
+			System.arraycopy(oldWindowScores, oldSlot * sums.length, windowScores, slot * sums.length, sums.length);
+			windowSizes[slot] = oldWindowSizes[oldSlot];
+			dominantStates[slot] = oldDominantStates[oldSlot];
+		}
+	}
+
+
+	/**
+	 * Adds or subtracts the scores of a buffered variant to the sums of the current window
+	 * @param slot index of the variant in the buffer
+	 * @param sign 1 to add the scores, -1 to subtract them
+	 */
+	private void addScores(int slot, int sign) {
+		int scoreOffset = (genotypeCodes[slot] & 0xFF) * sums.length;
+		for (int j = 0; j < sums.length; j++) {
+			sums[j] += sign * VariantListAnalyzer.SCORES[scoreOffset + j];
+		}
+	}
+
+
+	/**
+	 * Slides the moving window to the specified variant and sets its window scores.
+	 * The variants up to the end of the window of the variant must have been added
+	 * @param index index of a variant
+	 */
+	private void completeMovingWindow(long index) {
+		long position = positions[(int) (index & mask)];
+		while ((windowStop < added) && (positions[(int) (windowStop & mask)] <= position + halfWindowSize)) {
+			addScores((int) (windowStop & mask), 1);
+			windowStop++;
+		}
+		while (positions[(int) (windowStart & mask)] < position - halfWindowSize) {
+			addScores((int) (windowStart & mask), -1);
+			windowStart++;
+		}
+		setWindowScores((int) (index & mask), (int) (windowStop - windowStart));
+		finalized++;
+	}
+
+
+	/**
+	 * Sets the window scores of the variants of the current bin and starts a new bin
+	 */
+	private void completeBin() {
+		int binSize = (int) (added - windowStart);
+		for (long i = windowStart; i < added; i++) {
+			setWindowScores((int) (i & mask), binSize);
+		}
+		finalized = added;
+		windowStart = added;
+		Arrays.fill(sums, 0);
+	}
+
+
+	/**
+	 * Completes the windows or the bin of the variants of the current chromosome
+	 */
+	private void completeChromosome() {
+		if (computeMovingWindow) {
+			while (finalized < added) {
+				completeMovingWindow(finalized);
+			}
+			windowStart = added;
+			windowStop = added;
+			Arrays.fill(sums, 0);
+		} else {
+			completeBin();
+		}
+	}
+
+
+	/**
+	 * Sets the window scores of a buffered variant and computes its dominant state.
+	 * The first state with the highest sum is the dominant state
+	 * @param slot index of the variant in the buffer
+	 * @param windowSize number of variants in the window
+	 */
+	private void setWindowScores(int slot, int windowSize) {
+		int scoreOffset = slot * sums.length;
+		int dominantState = 0;
+		for (int j = 0; j < sums.length; j++) {
+			windowScores[scoreOffset + j] = sums[j];
+			if (sums[j] > sums[dominantState]) {
+				dominantState = j;
+			}
+		}
+		windowSizes[slot] = windowSize;
+		dominantStates[slot] = (byte) dominantState;
+	}
+}
@@ -0,0 +1,302 @@
+package dataStructures;
+
+import java.io.IOException;
+
+import utils.OutputSink;
+
+
+/**
+ * Streaming caller of the inheritance blocks of a family trio (founder / child1 / child2).
+ * The scores of the variants are added one by one, sorted by chromosome and position, with a score of:
+ *  * 1 when the children received the same chromosome from the founder
+ *  * -1 when the children received a different chromosome from the founder
+ * A variant is potentially at a boundary of a block (in a summit) when the sum of the scores of the n variants before
+ * and the n variants after the variant is lower than a threshold.
+ * The window sums are computed from the prefix sums of the scores kept in a ring buffer of 2n + 2 elements and the
+ * boundaries of the blocks are selected while the summits are scanned so the memory used doesn't depend on the size of the input.
+ * The blocks are printed as bgr lines as soon as their boundaries are known
+ * @author Julien Lajugie
+ */
+public class TrioBlockCaller {
+
+	private final int 			windowSize;				// size of the windows used to determine the blocks
+	private final int 			scoreThreshold;			// number of differences needed to consider a variant in a summit
+	private final OutputSink 	output;					// output where the blocks are printed
+	private final int[] 		positions;				// ring buffer with the positions of the last variants
+	private final int[] 		prefixSums;				// ring buffer with the last prefix sums of the scores
+	private final StringBuilder pendingBlocks;			// blocks waiting for the start of the first block of the chromosome
+	private final long[] 		firstIndexes;			// index of the first variant with a score of -1 and 1 (-1 if none)
+	private final int[] 		firstPositions;			// position of the first variant with a score of -1 and 1
+	private final int[] 		firstPrefixSums;		// prefix sum before the first variant with a score of -1 and 1
+	private final int[] 		lastPositions;			// position of the last variant with a score of -1 and 1
+	private final boolean[] 	isLastFound;			// true if a variant with a score of -1 and 1 was found
+	private String 				chromosome;				// current chromosome
+	private long 				variantCount;			// number of variants of the current chromosome
+	private int 				prefixSum;				// sum of the scores of the variants of the current chromosome
+	private boolean 			inASummit;				// true if the scanned variant is in a summit
+	private int 				summitCount;			// number of summits closed in the current chromosome
+	private int 				firstBlockType;			// type of the first block of the chromosome
+	private long 				blockStartIndex;		// index of the first variant of the current block
+	private int 				blockStartPosition;		// position of the first variant of the current block
+	private int 				blockStartPrefixSum;	// prefix sum before the first variant of the current block
+	private long 				summitStartIndex;		// index of the block start candidate of the current summit
+	private int 				summitStartPosition;	// position of the block start candidate of the current summit
+	private int 				summitStartPrefixSum;	// prefix sum before the block start candidate of the current summit
+	private int 				summitStartScore;		// window score of the block start candidate of the current summit
+	private long 				summitStopIndex;		// index of the block stop candidate of the current summit
+	private int 				summitStopPosition;		// position of the block stop candidate of the current summit
+	private int 				summitStopPrefixSum;	// prefix sum before the block stop candidate of the current summit
+	private int 				summitStopScore;		// window score of the block stop candidate of the current summit
+	private boolean 			isFirstBlockPending;	// true if the start of the first block of the chromosome is not known yet
+	private int 				pendingStopPosition;	// position of the last variant of the first block when the block is pending
+
+
+	/**
+	 * Creates an instance of {@link TrioBlockCaller}
+	 * @param windowSize size of the windows used to determine the blocks
+	 * @param scoreThreshold number of differences needed between the windows before and after a variant to consider it at a block boundary
+	 * @param output output where the blocks are printed
+	 */
+	public TrioBlockCaller(int windowSize, int scoreThreshold, OutputSink output) {
+		this.windowSize = windowSize;
+		this.scoreThreshold = scoreThreshold;
+		this.output = output;
+		positions = new int[(2 * windowSize) + 2];
+		prefixSums = new int[(2 * windowSize) + 2];
+		pendingBlocks = new StringBuilder();
+		firstIndexes = new long[2];
+		firstPositions = new int[2];
+		firstPrefixSums = new int[2];
+		lastPositions = new int[2];
+		isLastFound = new boolean[2];
+		startChromosome(null);
+	}
+
+
+	/**
+	 * Adds the score of a variant. The variants must be sorted by chromosome and position
+	 * @param chromosome chromosome of the variant
+	 * @param position position of the variant
+	 * @param score score of the variant (1 if the children received the same allele from the founder, -1 otherwise)
+	 * @throws IOException if the blocks cannot be printed
+	 */
+	public void add(String chromosome, int position, int score) throws IOException {
+		if (!chromosome.equals(this.chromosome)) {
+			flush();
+			startChromosome(chromosome);
+		}
+		long index = variantCount;
+		if ((score == 1) || (score == -1)) {
+			int typeIndex = getTypeIndex(score);
+			if (firstIndexes[typeIndex] == -1) {
+				firstIndexes[typeIndex] = index;
+				firstPositions[typeIndex] = position;
+				firstPrefixSums[typeIndex] = prefixSum;
+				if (isFirstBlockPending && (score == firstBlockType)) {
+					// the start of the first block is after its stop, the type of such a block is always 1
+					appendBlock(output.startLine(), position, pendingStopPosition + 1, 1);
+					output.endLine();
+					output.print(pendingBlocks);
+					pendingBlocks.setLength(0);
+					isFirstBlockPending = false;
+				}
+			}
+			lastPositions[typeIndex] = position;
+			isLastFound[typeIndex] = true;
+		}
+		positions[slot(index)] = position;
+		prefixSum += score;
+		variantCount++;
+		prefixSums[slot(variantCount)] = prefixSum;
+		// the windows around the variant at windowSize variants from the last one are complete
+		long scannedIndex = index - windowSize;
+		if (scannedIndex >= windowSize) {
+			scan(scannedIndex);
+		}
+	}
+
+
+	/**
+	 * Prints the last block of the current chromosome. Must be called after the last variant has been added
+	 * @throws IOException if the blocks cannot be printed
+	 */
+	public void flush() throws IOException {
+		if (summitCount > 0) {
+			int blockType = findBlockType(blockStartIndex, blockStartPrefixSum, variantCount, prefixSum);
+			int typeIndex = getTypeIndex(blockType);
+			if (isLastFound[typeIndex]) {
+				appendBlock(startBlockLine(), blockStartPosition, lastPositions[typeIndex] + 1, blockType);
+				endBlockLine();
+			}
+		}
+		// the first block can't start if there is no variant of its type
+		if (pendingBlocks.length() > 0) {
+			output.print(pendingBlocks);
+			pendingBlocks.setLength(0);
+		}
+		startChromosome(null);
+	}
+
+
+	/**
+	 * Resets the state of the caller for a new chromosome
+	 * @param chromosome the new chromosome
+	 */
+	private void startChromosome(String chromosome) {
+		this.chromosome = chromosome;
+		variantCount = 0;
+		prefixSum = 0;
+		prefixSums[0] = 0;
+		for (int i = 0; i < 2; i++) {
+			firstIndexes[i] = -1;
+			isLastFound[i] = false;
+		}
+		inASummit = false;
+		summitCount = 0;
+		isFirstBlockPending = false;
+	}
+
+
+	/**
+	 * Checks if the specified variant is in a summit and updates the block boundary candidates of the summit.
+	 * The scores of the windowSize variants after the specified variant must have been added
+	 * @param index index of a variant
+	 * @throws IOException if the blocks cannot be printed
+	 */
+	private void scan(long index) throws IOException {
+		int indexPrefixSum = prefixSums[slot(index)];
+		int scoreBefore = indexPrefixSum - prefixSums[slot(index - windowSize)];
+		int scoreAfter = prefixSums[slot(index + windowSize + 1)] - prefixSums[slot(index + 1)];
+		boolean isBelowThreshold = Math.abs(scoreBefore + scoreAfter) < scoreThreshold;
+		if (isBelowThreshold && !inASummit) {
+			inASummit = true;
+			if (summitCount == 0) {
+				firstBlockType = indexPrefixSum < 0 ? -1 : 1;
+			}
+			summitStartIndex = -1;
+			summitStopIndex = -1;
+		}
+		if (inASummit) {
+			// the block stop is the last variant with the highest score of the window ending at the variant
+			int stopScore = Math.abs(prefixSums[slot(index + 1)] - prefixSums[slot(index - windowSize)]);
+			if ((summitStopIndex == -1) || (stopScore >= summitStopScore)) {
+				summitStopIndex = index;
+				summitStopPosition = positions[slot(index)];
+				summitStopPrefixSum = indexPrefixSum;
+				summitStopScore = stopScore;
+			}
+			// the block start is the first variant with the highest score of the window starting at the variant
+			int startScore = Math.abs(prefixSums[slot(index + windowSize + 1)] - indexPrefixSum);
+			if ((summitStartIndex == -1) || (startScore > summitStartScore)) {
+				summitStartIndex = index;
+				summitStartPosition = positions[slot(index)];
+				summitStartPrefixSum = indexPrefixSum;
+				summitStartScore = startScore;
+			}
+			if (!isBelowThreshold) {
+				inASummit = false;
+				closeSummit();
+			}
+		}
+	}
+
+
+	/**
+	 * Prints the block ending in the summit that was just scanned and starts a new block in the summit
+	 * @throws IOException if the blocks cannot be printed
+	 */
+	private void closeSummit() throws IOException {
+		if (summitCount == 0) {
+			// the first block starts at the first variant with the type of the block
+			int typeIndex = getTypeIndex(firstBlockType);
+			if (firstIndexes[typeIndex] == -1) {
+				isFirstBlockPending = true;
+				pendingStopPosition = summitStopPosition;
+			} else {
+				blockStartIndex = firstIndexes[typeIndex];
+				blockStartPosition = firstPositions[typeIndex];
+				blockStartPrefixSum = firstPrefixSums[typeIndex];
+			}
+		}
+		if ((summitCount > 0) || !isFirstBlockPending) {
+			int blockType = findBlockType(blockStartIndex, blockStartPrefixSum, summitStopIndex, summitStopPrefixSum);
+			appendBlock(startBlockLine(), blockStartPosition, summitStopPosition + 1, blockType);
+			endBlockLine();
+		}
+		blockStartIndex = summitStartIndex;
+		blockStartPosition = summitStartPosition;
+		blockStartPrefixSum = summitStartPrefixSum;
+		summitCount++;
+	}
+
+
+	/**
+	 * @param startIndex index of the first variant of a block
+	 * @param startPrefixSum prefix sum before the first variant of the block
+	 * @param stopIndex index of the last variant of the block
+	 * @param stopPrefixSum prefix sum before the last variant of the block
+	 * @return -1 if the sum of the scores of the block (last variant excluded) is negative, 1 otherwise
+	 */
+	private static int findBlockType(long startIndex, int startPrefixSum, long stopIndex, int stopPrefixSum) {
+		if ((stopIndex > startIndex) && (stopPrefixSum - startPrefixSum < 0)) {
+			return -1;
+		} else {
+			return 1;
+		}
+	}
+
+
+	/**
+	 * @return the builder where the next block line is assembled
+	 */
+	private StringBuilder startBlockLine() {
+		if (isFirstBlockPending) {
+			return pendingBlocks;
+		}
+		return output.startLine();
+	}
+
+
+	/**
+	 * Prints the block line assembled in the builder returned by {@link #startBlockLine()}
+	 * @throws IOException if the line cannot be printed
+	 */
+	private void endBlockLine() throws IOException {
+		if (isFirstBlockPending) {
+			pendingBlocks.append(System.lineSeparator());
+		} else {
+			output.endLine();
+		}
+	}
+
+
+	/**
+	 * Appends a block as a bgr line without line separator. The score of the line is 0.5 if the children
+	 * received different alleles from the founder and 1.5 otherwise
+	 * @param line builder where the block is appended
+	 * @param start start position of the block
+	 * @param stop stop position of the block
+	 * @param blockType type of the block
+	 */
+	private void appendBlock(StringBuilder line, int start, int stop, int blockType) {
+		line.append(chromosome).append('\t').append(start).append('\t').append(stop).append('\t').append(blockType == -1 ? "0.5" : "1.5");
+	}
+
+
+	/**
+	 * @param blockType a block type (-1 or 1)
+	 * @return the index of the block type in the arrays of the first and last variants
+	 */
+	private static int getTypeIndex(int blockType) {
+		return blockType == -1 ? 0 : 1;
+	}
+
+
+	/**
+	 * @param index index of a variant or of a prefix sum
+	 * @return the index of the element in the ring buffers
+	 */
+	private int slot(long index) {
+		return (int) (index % positions.length);
+	}
+}
@@ -0,0 +1,233 @@
+package dataStructures;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import utils.GenomicFileReader;
+
+
+/**
+ * Reads several VCF files sorted by chromosome and position in lockstep.
+ * The header lines of each file are read when the join is created.
+ * Each call to {@link #next()} moves to the next position present in at least one file and
+ * returns the lines of each file at this position. The files missing the position have no line.
+ * Only the lines at the current position are kept in memory.
+ * The positions must be sorted in increasing order within a chromosome and the files must list their common
+ * chromosomes in the same order. A file can miss some chromosomes of the other files (see {@link ChromosomeOrder})
+ * @author Julien Lajugie
+ */
+public class VCFLineMergeJoin implements Closeable {
+
+	private final File[] 				files;				// files of the join
+	private final BufferedReader[] 		readers;			// readers of the files
+	private final List<List<String>> 	headerLines;		// header lines of each file
+	private final List<List<String>> 	lines;				// lines of each file at the current position
+	private final ChromosomeOrder 		chromosomeOrder;	// order of the chromosomes of the files
+	private final VCFLineParser 		parser;				// parser used to read the chromosome and the position of the lines
+	private final String[] 				headLines;			// next line of each file, null if the end of the file is reached
+	private final String[] 				headChromosomes;	// chromosome of the next line of each file
+	private final int[] 				headChromosomeIds;	// identifier of the chromosome of the next line of each file
+	private final int[] 				headPositions;		// position of the next line of each file
+	private String 						chromosome;			// current chromosome
+	private int 						chromosomeId;		// identifier of the current chromosome
+	private int 						position;			// current position
+
+
+	/**
+	 * Creates an instance of {@link VCFLineMergeJoin} and reads the header lines of the files
+	 * @param files plain text or bgzip compressed VCF files
+	 * @throws IOException if a file cannot be read
+	 */
+	public VCFLineMergeJoin(File... files) throws IOException {
+		this.files = files;
+		readers = new BufferedReader[files.length];
+		headerLines = new ArrayList<>(files.length);
+		lines = new ArrayList<>(files.length);
+		chromosomeOrder = new ChromosomeOrder(files.length);
+		parser = new VCFLineParser();
+		headLines = new String[files.length];
+		headChromosomes = new String[files.length];
+		headChromosomeIds = new int[files.length];
+		chromosomeId = -1;
+		headPositions = new int[files.length];
+		try {
+			for (int i = 0; i < files.length; i++) {
+				readers[i] = GenomicFileReader.open(files[i]);
+				headerLines.add(new ArrayList<String>());
+				lines.add(new ArrayList<String>());
+				headChromosomeIds[i] = -1;
+				// the header lines are read until the first variant line
+				String line = null;
+				while (((line = readers[i].readLine()) != null) && (line.isEmpty() || (line.charAt(0) == '#'))) {
+					if (!line.isEmpty()) {
+						headerLines.get(i).add(line);
+					}
+				}
+				setHead(i, line);
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+
+	/**
+	 * Sets the next line of a file and checks that the file is sorted
+	 * @param fileIndex index of a file
+	 * @param line next line of the file. Null if the end of the file is reached
+	 * @throws IOException if the line is not valid or if the file is not sorted
+	 */
+	private void setHead(int fileIndex, String line) throws IOException {
+		headLines[fileIndex] = line;
+		if (line == null) {
+			return;
+		}
+		String lineChromosome;
+		int linePosition;
+		try {
+			parser.parse(line);
+			lineChromosome = parser.getChromosome();
+			linePosition = parser.getPosition();
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid VCF line in " + files[fileIndex].getName() + ": " + line, e);
+		}
+		// the chromosome order is only updated when the file moves to a new chromosome
+		if (lineChromosome.equals(headChromosomes[fileIndex])) {
+			ChromosomeOrder.checkPosition(headPositions[fileIndex], linePosition, files[fileIndex].getName(), lineChromosome);
+		} else {
+			headChromosomeIds[fileIndex] = chromosomeOrder.moveTo(fileIndex, lineChromosome, files[fileIndex].getName());
+		}
+		headChromosomes[fileIndex] = lineChromosome;
+		headPositions[fileIndex] = linePosition;
+	}
+
+
+	/**
+	 * Moves to the next position present in at least one file
+	 * @return true if there is a next position, false if the end of all the files is reached
+	 * @throws IOException if a file cannot be read or if the files are not sorted
+	 */
+	public boolean next() throws IOException {
+		// the next position is the smallest position of the files
+		int minFile = -1;
+		for (int i = 0; i < files.length; i++) {
+			lines.get(i).clear();
+			if ((headLines[i] != null) && ((minFile == -1) || (compareHeads(i, minFile) < 0))) {
+				minFile = i;
+			}
+		}
+		if (minFile == -1) {
+			return false;
+		}
+		if (headChromosomeIds[minFile] != chromosomeId) {
+			chromosomeId = headChromosomeIds[minFile];
+			chromosomeOrder.enter(chromosomeId);
+		}
+		chromosome = headChromosomes[minFile];
+		position = headPositions[minFile];
+		for (int i = 0; i < files.length; i++) {
+			// all the lines of the file at the current position are read
+			while ((headLines[i] != null) && (headChromosomeIds[i] == chromosomeId) && (headPositions[i] == position)) {
+				lines.get(i).add(headLines[i]);
+				setHead(i, readVariantLine(i));
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * @param fileIndex index of a file
+	 * @return the next non empty line of the specified file. Null if the end of the file is reached
+	 * @throws IOException
+	 */
+	private String readVariantLine(int fileIndex) throws IOException {
+		String line = null;
+		do {
+			line = readers[fileIndex].readLine();
+		} while ((line != null) && line.isEmpty());
+		return line;
+	}
+
+
+	/**
+	 * @param fileIndex1 index of a file that is not finished
+	 * @param fileIndex2 index of another file that is not finished
+	 * @return a negative integer, zero, or a positive integer as the next line of the first file
+	 * is before, at the same position or after the next line of the second file
+	 */
+	private int compareHeads(int fileIndex1, int fileIndex2) {
+		if (headChromosomeIds[fileIndex1] != headChromosomeIds[fileIndex2]) {
+			return chromosomeOrder.compare(headChromosomeIds[fileIndex1], headChromosomeIds[fileIndex2]);
+		}
+		return Integer.compare(headPositions[fileIndex1], headPositions[fileIndex2]);
+	}
+
+
+	/**
+	 * @return the number of files of the join
+	 */
+	public int getFileCount() {
+		return files.length;
+	}
+
+
+	/**
+	 * @param fileIndex index of a file
+	 * @return the header lines (ie: the lines starting with a #) of the specified file
+	 */
+	public List<String> getHeaderLines(int fileIndex) {
+		return headerLines.get(fileIndex);
+	}
+
+
+	/**
+	 * @return the chromosome of the current position
+	 */
+	public String getChromosome() {
+		return chromosome;
+	}
+
+
+	/**
+	 * @return the current position
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+
+	/**
+	 * @param fileIndex index of a file
+	 * @return the lines of the specified file at the current position, in file order. Empty if the file has no line at this position
+	 */
+	public List<String> getLines(int fileIndex) {
+		return lines.get(fileIndex);
+	}
+
+
+	/**
+	 * Closes all the files
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException exception = null;
+		for (BufferedReader reader: readers) {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					exception = e;
+				}
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+}
@@ -0,0 +1,669 @@
+package dataStructures;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Cursor-style parser for the lines of a VCF file.
+ * A line is tokenized once over a reusable char buffer and the parser keeps the offsets of the fields.
+ * The genotype (GT), phred-scaled likelihoods (PL) and phasing quality (PQ) subfields are decoded in place.
+ * An instance of this class is a reusable and mutable record: each call to {@link #parse(String)} overwrites
+ * the previously parsed line so a single parser can be used to read a whole VCF file without creating garbage.
+ * @author Julien Lajugie
+ */
+public class VCFLineParser {
+
+	/**
+	 * Index of the first sample field in a VCF line
+	 */
+	public static final int FIRST_SAMPLE_FIELD_INDEX = 9;
+
+	/**
+	 * Value returned when a genotype allele is missing (ie: '.')
+	 */
+	public static final byte MISSING_ALLELE = -1;
+
+	/**
+	 * Value returned when a genotype allele is neither 0, 1 nor '.'
+	 */
+	public static final byte INVALID_ALLELE = -2;
+
+	private static final int 	DEFAULT_BUFFER_SIZE = 1024;			// default size of the line buffer
+	private static final int 	DEFAULT_FIELD_COUNT = 16;			// default size of the field offset arrays
+	private static final String[] SINGLE_CHAR_STRINGS = createSingleCharStrings(); // cached strings of one ASCII character
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15}; // exact powers of ten
+
+	private char[] 				buffer;								// buffer containing the current line
+	private int 				lineLength;							// length of the current line
+	private String 				line;								// current line if parsed from a String, null otherwise
+	private int[] 				fieldStarts;						// start offset of each field (inclusive, trimmed)
+	private int[] 				fieldStops;							// stop offset of each field (exclusive, trimmed)
+	private int 				fieldCount;							// number of fields of the current line
+	private String 				chromosome;							// chromosome of the last line, reused while it doesn't change
+	private VCFRejectReason		rejectReason;						// reason why the current line was rejected by Variant.tryParse
+
+
+	/**
+	 * Creates an instance of {@link VCFLineParser}
+	 */
+	public VCFLineParser() {
+		buffer = new char[DEFAULT_BUFFER_SIZE];
+		fieldStarts = new int[DEFAULT_FIELD_COUNT];
+		fieldStops = new int[DEFAULT_FIELD_COUNT];
+		lineLength = 0;
+		fieldCount = 0;
+	}
+
+
+	/**
+	 * @return an array containing a string for each ASCII character
+	 */
+	private static String[] createSingleCharStrings() {
+		String[] strings = new String[128];
+		for (char c = 0; c < strings.length; c++) {
+			strings[c] = String.valueOf(c).intern();
+		}
+		return strings;
+	}
+
+
+	/**
+	 * Parses a VCF line. The previously parsed line is overwritten
+	 * @param line a line from a VCF file
+	 * @return this parser
+	 */
+	public VCFLineParser parse(String line) {
+		int length = line.length();
+		ensureBufferCapacity(length);
+		line.getChars(0, length, buffer, 0);
+		this.line = line;
+		rejectReason = null;
+		tokenize(length);
+		return this;
+	}
+
+
+	/**
+	 * Parses a VCF line stored as ASCII bytes in a buffer (eg: a slice of a memory mapped file).
+	 * The bytes are copied in the line buffer without going through a charset decoder.
+	 * The previously parsed line is overwritten
+	 * @param lineBuffer buffer containing the line
+	 * @param offset offset of the line in the buffer
+	 * @param length number of bytes of the line
+	 * @return this parser
+	 */
+	public VCFLineParser parse(ByteBuffer lineBuffer, int offset, int length) {
+		ensureBufferCapacity(length);
+		for (int i = 0; i < length; i++) {
+			buffer[i] = (char) (lineBuffer.get(offset + i) & 0xFF);
+		}
+		line = null;
+		rejectReason = null;
+		tokenize(length);
+		return this;
+	}
+
+
+	/**
+	 * Makes sure that the line buffer can contain the specified number of characters
+	 * @param length a number of characters
+	 */
+	private void ensureBufferCapacity(int length) {
+		if (buffer.length < length) {
+			buffer = new char[Math.max(length, buffer.length * 2)];
+		}
+	}
+
+
+	/**
+	 * Computes the offsets of the tab delimited fields of the line in the buffer.
+	 * The fields are trimmed the same way {@link String#trim()} does
+	 * @param length length of the line in the buffer
+	 */
+	private void tokenize(int length) {
+		lineLength = length;
+		fieldCount = 0;
+		int start = 0;
+		for (int i = 0; i <= length; i++) {
+			if ((i == length) || (buffer[i] == '\t')) {
+				addField(start, i);
+				start = i + 1;
+			}
+		}
+		// String.split removes the trailing empty fields
+		while ((fieldCount > 0) && (fieldStarts[fieldCount - 1] == fieldStops[fieldCount - 1])) {
+			fieldCount--;
+		}
+	}
+
+
+	/**
+	 * Adds a field to the field offset arrays after trimming it
+	 * @param start start offset of the field (inclusive)
+	 * @param stop stop offset of the field (exclusive)
+	 */
+	private void addField(int start, int stop) {
+		if (fieldCount == fieldStarts.length) {
+			int[] newStarts = new int[fieldCount * 2];
+			int[] newStops = new int[fieldCount * 2];
+			System.arraycopy(fieldStarts, 0, newStarts, 0, fieldCount);
+			System.arraycopy(fieldStops, 0, newStops, 0, fieldCount);
+			fieldStarts = newStarts;
+			fieldStops = newStops;
+		}
+		while ((start < stop) && (buffer[start] <= ' ')) {
+			start++;
+		}
+		while ((stop > start) && (buffer[stop - 1] <= ' ')) {
+			stop--;
+		}
+		fieldStarts[fieldCount] = start;
+		fieldStops[fieldCount] = stop;
+		fieldCount++;
+	}
+
+
+	/**
+	 * @return the line currently parsed
+	 */
+	public String getLine() {
+		if (line == null) {
+			line = new String(buffer, 0, lineLength);
+		}
+		return line;
+	}
+
+
+	/**
+	 * @return the reason why the current line was rejected by the last call to {@link Variant#tryParse(VCFLineParser, FilterPolicy)}
+	 * or null if the line was accepted
+	 */
+	public VCFRejectReason getRejectReason() {
+		return rejectReason;
+	}
+
+
+	/**
+	 * @param rejectReason the reason why the current line was rejected, null if the line was accepted
+	 */
+	void setRejectReason(VCFRejectReason rejectReason) {
+		this.rejectReason = rejectReason;
+	}
+
+
+	/**
+	 * @return the number of fields of the current line
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+
+	/**
+	 * @return the number of sample fields of the current line
+	 */
+	public int getSampleCount() {
+		return Math.max(0, fieldCount - FIRST_SAMPLE_FIELD_INDEX);
+	}
+
+
+	/**
+	 * @param fieldIndex index of a field
+	 * @return the trimmed field at the specified index as a String
+	 */
+	public String getField(int fieldIndex) {
+		checkFieldIndex(fieldIndex);
+		int start = fieldStarts[fieldIndex];
+		int stop = fieldStops[fieldIndex];
+		if ((stop - start == 1) && (buffer[start] < SINGLE_CHAR_STRINGS.length)) {
+			return SINGLE_CHAR_STRINGS[buffer[start]];
+		}
+		return new String(buffer, start, stop - start);
+	}
+
+
+	/**
+	 * @param sampleIndex index of a sample (0 for the first sample of the VCF)
+	 * @return the trimmed field of the specified sample as a String
+	 */
+	public String getSampleField(int sampleIndex) {
+		return getField(FIRST_SAMPLE_FIELD_INDEX + sampleIndex);
+	}
+
+
+	/**
+	 * @param fieldIndex index of a field
+	 * @throws ArrayIndexOutOfBoundsException if the index is not valid for the current line
+	 */
+	private void checkFieldIndex(int fieldIndex) {
+		if ((fieldIndex < 0) || (fieldIndex >= fieldCount)) {
+			throw new ArrayIndexOutOfBoundsException(fieldIndex);
+		}
+	}
+
+
+	/**
+	 * @return the chromosome of the current line. The same String instance is returned
+	 * as long as the chromosome doesn't change
+	 */
+	public String getChromosome() {
+		checkFieldIndex(0);
+		int start = fieldStarts[0];
+		int length = fieldStops[0] - start;
+		if ((chromosome == null) || !regionEquals(start, length, chromosome)) {
+			chromosome = new String(buffer, start, length);
+		}
+		return chromosome;
+	}
+
+
+	/**
+	 * @return the position of the current line
+	 * @throws NumberFormatException if the position field is not a valid integer
+	 */
+	public int getPosition() {
+		return parseInt(1);
+	}
+
+
+	/**
+	 * @param fieldIndex index of a field
+	 * @return the integer value of the field
+	 * @throws NumberFormatException if the field is not a valid integer
+	 */
+	public int parseInt(int fieldIndex) {
+		checkFieldIndex(fieldIndex);
+		return parseInt(fieldStarts[fieldIndex], fieldStops[fieldIndex]);
+	}
+
+
+	/**
+	 * @param fieldIndex index of a field
+	 * @param value a string
+	 * @return true if the specified field is equal to the specified string
+	 */
+	public boolean fieldEquals(int fieldIndex, String value) {
+		checkFieldIndex(fieldIndex);
+		int start = fieldStarts[fieldIndex];
+		int length = fieldStops[fieldIndex] - start;
+		return regionEquals(start, length, value);
+	}
+
+
+	/**
+	 * @param fieldIndex index of a field
+	 * @param parser another parser
+	 * @return true if the specified field is equal to the same field of the line of the other parser
+	 */
+	public boolean fieldEquals(int fieldIndex, VCFLineParser parser) {
+		checkFieldIndex(fieldIndex);
+		parser.checkFieldIndex(fieldIndex);
+		int start = fieldStarts[fieldIndex];
+		int length = fieldStops[fieldIndex] - start;
+		int otherStart = parser.fieldStarts[fieldIndex];
+		if (parser.fieldStops[fieldIndex] - otherStart != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer[start + i] != parser.buffer[otherStart + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Appends the trimmed field at the specified index to a builder without creating a String
+	 * @param fieldIndex index of a field
+	 * @param builder a {@link StringBuilder}
+	 * @return the builder
+	 */
+	public StringBuilder appendField(int fieldIndex, StringBuilder builder) {
+		checkFieldIndex(fieldIndex);
+		int start = fieldStarts[fieldIndex];
+		return builder.append(buffer, start, fieldStops[fieldIndex] - start);
+	}
+
+
+	/**
+	 * @param pattern a string
+	 * @return true if the current line contains the specified string
+	 */
+	public boolean lineContains(String pattern) {
+		int patternLength = pattern.length();
+		if (patternLength == 0) {
+			return true;
+		}
+		char firstChar = pattern.charAt(0);
+		int lastStart = lineLength - patternLength;
+		for (int i = 0; i <= lastStart; i++) {
+			if ((buffer[i] == firstChar) && regionEquals(i, patternLength, pattern)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * @param key the key of a subfield of the format field (eg: PQ)
+	 * @return the index of the subfield in the format field (subfields are separated by ":") or -1 if not found
+	 */
+	public int getFormatSubfieldIndex(String key) {
+		checkFieldIndex(8);
+		int start = fieldStarts[8];
+		int stop = fieldStops[8];
+		int subfieldIndex = 0;
+		int subfieldStart = start;
+		for (int i = start; i <= stop; i++) {
+			if ((i == stop) || (buffer[i] == ':')) {
+				int trimmedStart = subfieldStart;
+				int trimmedStop = i;
+				while ((trimmedStart < trimmedStop) && (buffer[trimmedStart] <= ' ')) {
+					trimmedStart++;
+				}
+				while ((trimmedStop > trimmedStart) && (buffer[trimmedStop - 1] <= ' ')) {
+					trimmedStop--;
+				}
+				if (regionEquals(trimmedStart, trimmedStop - trimmedStart, key)) {
+					return subfieldIndex;
+				}
+				subfieldIndex++;
+				subfieldStart = i + 1;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * @param sampleIndex index of a sample (0 for the first sample of the VCF)
+	 * @return the number of colon separated subfields of the sample field, not counting the trailing empty subfields
+	 */
+	public int getSampleSubfieldCount(int sampleIndex) {
+		int fieldIndex = FIRST_SAMPLE_FIELD_INDEX + sampleIndex;
+		checkFieldIndex(fieldIndex);
+		int start = fieldStarts[fieldIndex];
+		int stop = fieldStops[fieldIndex];
+		int subfieldCount = 0;
+		int lastNonEmptyCount = 0;
+		int subfieldStart = start;
+		for (int i = start; i <= stop; i++) {
+			if ((i == stop) || (buffer[i] == ':')) {
+				subfieldCount++;
+				if (i > subfieldStart) {
+					lastNonEmptyCount = subfieldCount;
+				}
+				subfieldStart = i + 1;
+			}
+		}
+		return lastNonEmptyCount;
+	}
+
+
+	/**
+	 * @param sampleIndex index of a sample (0 for the first sample of the VCF)
+	 * @param alleleIndex 0 for the first allele of the genotype, 1 for the second one
+	 * @return 0 for the reference allele, 1 for the alternative allele, {@link #MISSING_ALLELE} if the allele is not called,
+	 * {@link #INVALID_ALLELE} otherwise
+	 */
+	public byte getGenotypeAllele(int sampleIndex, int alleleIndex) {
+		int fieldIndex = FIRST_SAMPLE_FIELD_INDEX + sampleIndex;
+		checkFieldIndex(fieldIndex);
+		int start = fieldStarts[fieldIndex];
+		int gtStop = findSubfieldStop(start, fieldStops[fieldIndex]);
+		// the genotype is coded like follow 0/0, 0|1 (where 0 is the reference allele and 1 is the alternative allele)
+		int alleleOffset = start + (alleleIndex * 2);
+		if (alleleOffset >= gtStop) {
+			return INVALID_ALLELE;
+		}
+		switch (buffer[alleleOffset]) {
+		case '0':
+			return 0;
+		case '1':
+			return 1;
+		case '.':
+			return MISSING_ALLELE;
+		default:
+			return INVALID_ALLELE;
+		}
+	}
+
+
+	/**
+	 * @param sampleIndex index of a sample (0 for the first sample of the VCF)
+	 * @return true if the genotype separator of the specified sample is '|'
+	 */
+	public boolean hasPhasedSeparator(int sampleIndex) {
+		int fieldIndex = FIRST_SAMPLE_FIELD_INDEX + sampleIndex;
+		checkFieldIndex(fieldIndex);
+		int separatorOffset = fieldStarts[fieldIndex] + 1;
+		if (separatorOffset >= fieldStops[fieldIndex]) {
+			throw new StringIndexOutOfBoundsException(1);
+		}
+		return buffer[separatorOffset] == '|';
+	}
+
+
+	/**
+	 * @param sampleIndex index of a sample (0 for the first sample of the VCF)
+	 * @param genotype a genotype (eg: 0/1)
+	 * @return true if the genotype (GT) subfield of the specified sample is equal to the specified genotype
+	 */
+	public boolean genotypeEquals(int sampleIndex, String genotype) {
+		int fieldIndex = FIRST_SAMPLE_FIELD_INDEX + sampleIndex;
+		checkFieldIndex(fieldIndex);
+		int start = fieldStarts[fieldIndex];
+		int gtStop = findSubfieldStop(start, fieldStops[fieldIndex]);
+		return regionEquals(start, gtStop - start, genotype);
+	}
+
+
+	/**
+	 * @param sampleIndex index of a sample (0 for the first sample of the VCF)
+	 * @param subfieldIndex index of a colon separated subfield of the sample field
+	 * @return the double value of the specified subfield
+	 * @throws NumberFormatException if the subfield is not a valid number
+	 */
+	public double parseSampleSubfieldDouble(int sampleIndex, int subfieldIndex) {
+		int fieldIndex = FIRST_SAMPLE_FIELD_INDEX + sampleIndex;
+		checkFieldIndex(fieldIndex);
+		int start = findSubfieldStart(fieldStarts[fieldIndex], fieldStops[fieldIndex], subfieldIndex);
+		if (start == -1) {
+			throw new ArrayIndexOutOfBoundsException(subfieldIndex);
+		}
+		int stop = findSubfieldStop(start, fieldStops[fieldIndex]);
+		return parseDouble(start, stop);
+	}
+
+
+	/**
+	 * Computes the minimum PL score of a sample with a GT:AD:DP:GQ:PL format
+	 * (ie the max probability that the genotype is not the one returned by the genotyper)
+	 * @param sampleIndex index of a sample (0 for the first sample of the VCF)
+	 * @return the minimum PL score or -1 if the PL score can't be computed for the genotype of the sample
+	 * @throws NumberFormatException if the PL subfield is not valid
+	 */
+	public int getSampleMinPL(int sampleIndex) {
+		int fieldIndex = FIRST_SAMPLE_FIELD_INDEX + sampleIndex;
+		checkFieldIndex(fieldIndex);
+		int fieldStop = fieldStops[fieldIndex];
+		// the following happens when we have a ./. variant
+		if (getSampleSubfieldCount(sampleIndex) < 5) {
+			return -1;
+		}
+		int plStart = findSubfieldStart(fieldStarts[fieldIndex], fieldStop, 4);
+		int plStop = findSubfieldStop(plStart, fieldStop);
+		int refRefScore = 0;
+		int refAltScore = 0;
+		int altAltScore = 0;
+		int scoreStart = plStart;
+		int scoreIndex = 0;
+		for (int i = plStart; (i <= plStop) && (scoreIndex < 3); i++) {
+			if ((i == plStop) || (buffer[i] == ',')) {
+				int trimmedStart = scoreStart;
+				int trimmedStop = i;
+				while ((trimmedStart < trimmedStop) && (buffer[trimmedStart] <= ' ')) {
+					trimmedStart++;
+				}
+				while ((trimmedStop > trimmedStart) && (buffer[trimmedStop - 1] <= ' ')) {
+					trimmedStop--;
+				}
+				int score = parseInt(trimmedStart, trimmedStop);
+				switch (scoreIndex) {
+				case 0:
+					refRefScore = score;
+					break;
+				case 1:
+					refAltScore = score;
+					break;
+				case 2:
+					altAltScore = score;
+					break;
+				}
+				scoreIndex++;
+				scoreStart = i + 1;
+			}
+		}
+		if (scoreIndex < 3) {
+			return -1;
+		}
+		if (genotypeEquals(sampleIndex, "0/0") || genotypeEquals(sampleIndex, "0|0")) {
+			return Math.min(refAltScore, altAltScore);
+		}
+		if (genotypeEquals(sampleIndex, "0/1") || genotypeEquals(sampleIndex, "0|1") || genotypeEquals(sampleIndex, "1|0")) {
+			return Math.min(refRefScore, altAltScore);
+		}
+		if (genotypeEquals(sampleIndex, "1/1") || genotypeEquals(sampleIndex, "1|1")) {
+			return Math.min(refRefScore, refAltScore);
+		}
+		return -1;
+	}
+
+
+	/**
+	 * @param start start offset of a colon separated field
+	 * @param stop stop offset of the field
+	 * @param subfieldIndex index of a subfield
+	 * @return the start offset of the specified subfield or -1 if the field doesn't have enough subfields
+	 */
+	private int findSubfieldStart(int start, int stop, int subfieldIndex) {
+		int currentIndex = 0;
+		int i = start;
+		while (currentIndex < subfieldIndex) {
+			while ((i < stop) && (buffer[i] != ':')) {
+				i++;
+			}
+			if (i >= stop) {
+				return -1;
+			}
+			i++;
+			currentIndex++;
+		}
+		return i;
+	}
+
+
+	/**
+	 * @param start start offset of a subfield
+	 * @param stop stop offset of the field containing the subfield
+	 * @return the stop offset (exclusive) of the subfield
+	 */
+	private int findSubfieldStop(int start, int stop) {
+		int i = start;
+		while ((i < stop) && (buffer[i] != ':')) {
+			i++;
+		}
+		return i;
+	}
+
+
+	/**
+	 * @param start start offset of a region of the buffer
+	 * @param length length of the region
+	 * @param value a string
+	 * @return true if the region of the buffer is equal to the specified string
+	 */
+	private boolean regionEquals(int start, int length, String value) {
+		if (value.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer[start + i] != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Parses an integer in place. Behaves like {@link Integer#parseInt(String)}
+	 * @param start start offset of the integer in the buffer
+	 * @param stop stop offset of the integer in the buffer
+	 * @return the parsed integer
+	 * @throws NumberFormatException if the region doesn't contain a valid integer
+	 */
+	private int parseInt(int start, int stop) {
+		int length = stop - start;
+		// fast path for positive integers that can't overflow
+		if ((length > 0) && (length < 10)) {
+			int result = 0;
+			int i = start;
+			while ((i < stop) && (buffer[i] >= '0') && (buffer[i] <= '9')) {
+				result = (result * 10) + (buffer[i] - '0');
+				i++;
+			}
+			if (i == stop) {
+				return result;
+			}
+		}
+		// the slow path generates the same exception as Integer.parseInt
+		return Integer.parseInt(new String(buffer, start, length));
+	}
+
+
+	/**
+	 * Parses a double in place. Behaves like {@link Double#parseDouble(String)}
+	 * @param start start offset of the double in the buffer
+	 * @param stop stop offset of the double in the buffer
+	 * @return the parsed double
+	 * @throws NumberFormatException if the region doesn't contain a valid number
+	 */
+	private double parseDouble(int start, int stop) {
+		while ((start < stop) && (buffer[start] <= ' ')) {
+			start++;
+		}
+		while ((stop > start) && (buffer[stop - 1] <= ' ')) {
+			stop--;
+		}
+		// fast path for short decimal numbers that can be computed exactly
+		int i = start;
+		long integerValue = 0;
+		int decimalCount = 0;
+		int digitCount = 0;
+		boolean isDecimal = false;
+		while ((i < stop) && (digitCount < 15)) {
+			char c = buffer[i];
+			if ((c >= '0') && (c <= '9')) {
+				integerValue = (integerValue * 10) + (c - '0');
+				digitCount++;
+				if (isDecimal) {
+					decimalCount++;
+				}
+			} else if ((c == '.') && !isDecimal) {
+				isDecimal = true;
+			} else {
+				break;
+			}
+			i++;
+		}
+		if ((i == stop) && (digitCount > 0) && (decimalCount < POWERS_OF_TEN.length)) {
+			return integerValue / POWERS_OF_TEN[decimalCount];
+		}
+		// the slow path generates the same result and exception as Double.parseDouble
+		return Double.parseDouble(new String(buffer, start, stop - start));
+	}
+
+}
@@ -0,0 +1,95 @@
+package dataStructures;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+import utils.GenomicFileReader;
+
+
+/**
+ * {@link PhasedVectorSource} streaming the lines of a plain text or bgzip compressed vcf file.
+ * The lines are filtered like in {@link ColumnarPhasedVectorList#loadFromVCFFile(File, GenomicRegion)}:
+ * the lines rejected by the default {@link FilterPolicy} and the indels are skipped
+ * @author Julien Lajugie
+ */
+public class VCFPhasedVectorSource implements PhasedVectorSource {
+
+	private final BufferedReader 	reader;				// reader of the vcf file
+	private final VCFLineParser 	parser;				// parser reused for each line
+	private final FilterPolicy 		filterPolicy;		// filter policy applied to the lines
+	private String 					chromosome;			// chromosome of the current vector
+	private int 					position;			// position of the current vector
+	private short 					vector;				// current vector
+
+
+	/**
+	 * Creates an instance of {@link VCFPhasedVectorSource}
+	 * @param vcfFile a plain text or bgzip compressed vcf file
+	 * @param region region to read. The whole file is read if null
+	 * @throws IOException
+	 */
+	public VCFPhasedVectorSource(File vcfFile, GenomicRegion region) throws IOException {
+		reader = GenomicFileReader.open(vcfFile, region);
+		parser = new VCFLineParser();
+		filterPolicy = new FilterPolicy();
+	}
+
+
+	/**
+	 * @param file a plain text or bgzip compressed vcf file or a QGT file
+	 * @param region region to read. The whole file is read if null
+	 * @return a {@link PhasedVectorSource} reading the specified file
+	 * @throws IOException
+	 */
+	public static PhasedVectorSource open(File file, GenomicRegion region) throws IOException {
+		if (QGTFile.isQGTFile(file)) {
+			return new QGTPhasedVectorSource(file, region);
+		} else {
+			return new VCFPhasedVectorSource(file, region);
+		}
+	}
+
+
+	@Override
+	public boolean next() throws IOException {
+		String line = null;
+		while ((line = reader.readLine()) != null) {
+			// we don't care about the comment lines
+			if (line.trim().charAt(0) != '#') {
+				Variant variant = Variant.tryParse(parser.parse(line), filterPolicy);
+				if ((variant != null) && !variant.isIndel()) {
+					chromosome = variant.getChromosome();
+					position = variant.getPosition();
+					vector = PhasedVector.createVector(variant);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+
+	@Override
+	public String getChromosome() {
+		return chromosome;
+	}
+
+
+	@Override
+	public int getPosition() {
+		return position;
+	}
+
+
+	@Override
+	public short getVector() {
+		return vector;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,99 @@
+package dataStructures;
+
+/**
+ * This enumeration represents the different reasons why a line from a VCF file can be rejected
+ * when it is parsed into a {@link Variant}
+ * @author Julien Lajugie
+ */
+public enum VCFRejectReason {
+
+	/**
+	 * The line doesn't have enough fields
+	 */
+	INVALID_LINE ("Invalid line"),
+
+	/**
+	 * The genotype of one of the samples is neither 0 nor 1
+	 */
+	INVALID_GENOTYPE ("Invalid genotype"),
+
+	/**
+	 * The PL subfield of one of the samples can't be read
+	 */
+	INVALID_PL_FIELD ("Invalid PL field"),
+
+	/**
+	 * The info field doesn't contain the subfields needed by the GATK hard filtering
+	 */
+	INVALID_INFO_FIELD ("Invalid info field"),
+
+	/**
+	 * A numeric field can't be parsed
+	 */
+	INVALID_NUMBER ("Invalid number"),
+
+	/**
+	 * The genotype of one of the samples is not called
+	 */
+	PARTIALLY_CALLED ("Partially called"),
+
+	/**
+	 * Rejected by the filter field filtering
+	 */
+	FILTER_FIELD ("Filter field"),
+
+	/**
+	 * Rejected by the GATK hard filtering
+	 */
+	GATK_HARD_FILTERING ("GATK hard filtering"),
+
+	/**
+	 * Rejected by the individual quality score filtering
+	 */
+	INDIVIDUALS_SCORE ("Individual score sum"),
+
+	/**
+	 * Rejected by the PL filtering
+	 */
+	PL ("PL"),
+
+	/**
+	 * Rejected by the MIE filtering
+	 */
+	MIE ("MIE"),
+
+	/**
+	 * Rejected by the fully heterozygous filtering
+	 */
+	FULLY_HETEROZYGOUS ("Fully heterozygous"),
+
+	/**
+	 * Rejected by the 3/4 heterozygous filtering
+	 */
+	THREE_QUARTER_HETEROZYGOUS ("3/4 heterozygous");
+
+	private final String name;	// name of the reject reason
+
+
+	/**
+	 * Creates an instance of {@link VCFRejectReason}
+	 * @param name name of the reject reason
+	 */
+	private VCFRejectReason(String name) {
+		this.name = name;
+	}
+
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+
+	/**
+	 * @return the name of the reject reason
+	 */
+	public String getName() {
+		return name;
+	}
+}
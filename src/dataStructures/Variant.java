@@ -5,7 +5,7 @@ import exceptions.FilteredVCFLineException;
 import exceptions.InvalidVCFFieldException;
 import exceptions.InvalidVCFLineException;
 import exceptions.PartiallyCalledVariantException;
-import utils.PatternToInheritanceStates;
+import utils.GenotypeCode;
 
 /**
  * This class represents a variant from a VCF file
@@ -16,11 +16,11 @@ public class Variant {
 	/**
 	 * Filter using the GATK hard filtering recommendation from the best practice V3 if true
 	 */
-	private static final boolean USE_GATK_HARD_FILTERING = false;
+	static final boolean USE_GATK_HARD_FILTERING = false;
 	/**
 	 * Filter using the some of the individual quality scores if true
 	 */
-	private static final boolean USE_INDIVIDUALS_SCORE_FILTERING = false;
+	static final boolean USE_INDIVIDUALS_SCORE_FILTERING = false;
 	/**
 	 * Value of the PL filter. Set to null to disable
 	 */
@@ -28,23 +28,27 @@ public class Variant {
 	/**
 	 * Filter removing all the variant with the filter field different from "PASS"
 	 */
-	private static final VCFFilterField FILTER_FIELD_FILTERING = VCFFilterField.NONE;
+	static final VCFFilterField FILTER_FIELD_FILTERING = VCFFilterField.NONE;
 	/**
 	 * Filter excluding the fully heterozygous genotypes
 	 */
-	private static final boolean USE_FILTER_HETEROZYGOUS_FILTERING = false;
+	static final boolean USE_FILTER_HETEROZYGOUS_FILTERING = false;
 	/**
 	 * Filter excluding the 3/4 heterozygous genotypes
 	 */
-	private static final boolean USE_FILTER_3QUATER_HETEROZYGOUS_FILTERING = false;
+	static final boolean USE_FILTER_3QUATER_HETEROZYGOUS_FILTERING = false;
 	/** 
 	 * Only consider the genotypes with a score above this threshold as phased
 	 */
-	private static final double PHASING_QUALITY_FILTER_THRESHOLD = 0;
+	static final double PHASING_QUALITY_FILTER_THRESHOLD = 0;
 	/**
 	 * Filters out MIE variants if set to true
 	 */
-	private static final boolean USE_MIE_FILTERING = false;
+	static final boolean USE_MIE_FILTERING = false;
+	/**
+	 * Filter policy with the filters defined above, used when a variant is created from a VCF line
+	 */
+	private static final FilterPolicy DEFAULT_FILTER_POLICY = new FilterPolicy();
 
 	private final String 					chromosome;					// chromosome of the variant		
 	private final int 						position;					// position of the variant
@@ -58,8 +62,7 @@ public class Variant {
 	private boolean							isMotherPhased;				// true if the mother is phased
 	private boolean							isKid1Phased;				// true if kid 1
 	private boolean							isKid2Phased;				// true if kid 2
-	private final String					genotypePattern;			// genotype pattern of the variant for the familly quartet
-	private final QuartetInheritanceState[]	quartetInheritanceStates;	// inheritance state of the variant
+	private final int						genotypeCode;				// genotype of the familly quartet packed in a byte (see GenotypeCode)
 	private final int 						phasingQualityIndex;		// index of the phasing quality field
 
 
@@ -71,456 +74,286 @@ public class Variant {
 	 * @throws InvalidVCFFieldException 
 	 * @throws PartiallyCalledVariantException 
 	 */
-	@SuppressWarnings("unused")
 	public Variant(String VCFLine) throws InvalidVCFLineException, FilteredVCFLineException, InvalidVCFFieldException, PartiallyCalledVariantException {
-		String[] splitLine = VCFLine.split("\t"); // VCF fields are tab delimited
-		// filter using the filter field
-		filterFieldFiltering(splitLine[6].trim());
-
-		// filter using the GATK hard filtering recommendation from the best practice V3
-		if (USE_GATK_HARD_FILTERING) {
-			GATKFilter(splitLine[7].trim());
-		}
-		// we retrive the info about the chromosome, the position, the reference allele and the alternative allele
-		chromosome = splitLine[0].trim();
-		position = Integer.parseInt(splitLine[1].trim());
-		referenceAllele = splitLine[3].trim();
-		alternatievAllele = splitLine[4].trim();
-		// filter using the some of the individual quality scores
-		if (USE_INDIVIDUALS_SCORE_FILTERING) {
-			double score = stringToQualityScore(splitLine[9].trim());
-			score += stringToQualityScore(splitLine[10].trim());
-			score += stringToQualityScore(splitLine[11].trim());
-			score += stringToQualityScore(splitLine[12].trim());
-			if (score < 200d) {
-				throw new FilteredVCFLineException("Individual score sum", Double.toString(score));
-			}
-		}
-		// Filter using the min of the individual PL fields
-		if (INDIVIDUALS_PL_MIN_VALUE != null) {
-			int plScore = Math.min(genotypeFieldToPL(splitLine[9].trim()), genotypeFieldToPL(splitLine[10].trim()));
-			plScore = Math.min(plScore, genotypeFieldToPL(splitLine[11].trim()));
-			plScore = Math.min(plScore, genotypeFieldToPL(splitLine[12].trim()));
-			if (plScore < INDIVIDUALS_PL_MIN_VALUE) {
-				throw new FilteredVCFLineException("PL", Integer.toString(plScore));
-			}
-		}
-		if (VCFLine.contains("PhasingInconsistent")) {
-			phasingQualityIndex = -1;
-			isFatherPhased = false;
-			isMotherPhased = false;
-			isKid1Phased = false;
-			isKid2Phased = false;
-		} else {
-			phasingQualityIndex = getPhasingQualityFieldIndex(splitLine[8].trim());
-			isFatherPhased = isGenotypePhased(splitLine[9].trim());
-			isMotherPhased = isGenotypePhased(splitLine[10].trim());
-			isKid1Phased = isGenotypePhased(splitLine[11].trim());
-			isKid2Phased = isGenotypePhased(splitLine[12].trim());
-		}
-		// extract the allele informations
-		fatherAlleles = stringToAlleleTypes(splitLine[9].trim());
-		motherAlleles = stringToAlleleTypes(splitLine[10].trim());
-		kid1Alleles = stringToAlleleTypes(splitLine[11].trim());
-		kid2Alleles = stringToAlleleTypes(splitLine[12].trim());
-		// compute the genotype pattern
-		genotypePattern = computeGenotypePattern();		
-		// compute the inheritance states
-		quartetInheritanceStates = PatternToInheritanceStates.getInheritanceStates(genotypePattern);
-		if (USE_MIE_FILTERING && (quartetInheritanceStates[0] == QuartetInheritanceState.MIE)) {
-			throw new FilteredVCFLineException("MIE", "MIE");
-		}
-		// exclude the fully heterozygote vectors if the filter is set to true
-		if (USE_FILTER_HETEROZYGOUS_FILTERING && genotypePattern.equals("ab/ab;ab/ab")) {
-			throw new InvalidVCFLineException("Invalid VCF file: fully heterozygous variant", VCFLine); 
-		}
-		// exclude the 3/4 heterozygote vectors if the filter is set to true
-		if (USE_FILTER_3QUATER_HETEROZYGOUS_FILTERING && 
-				((genotypePattern.equals("ab+aa;ab/ab") || genotypePattern.equals("aa+ab;ab/ab") || genotypePattern.equals("ab/ab;aa/ab")))) {
-			throw new InvalidVCFLineException("Invalid VCF file: 3/4 heterozygous variant", VCFLine); 
-		}
-	}
-
-
-	/**
-	 * Creates an instance of Variant with arbitrary informations for anything but genotype and inheritance state
-	 * @param currentGenotype a genotype represented by a byte
-	 */
-	public Variant(int currentGenotype) {
-		this.chromosome = "chr1";
-		this.position = 1;
-		this.referenceAllele = "C";
-		this.alternatievAllele = "T";
-		this.fatherAlleles = byteToAlleleType(currentGenotype, QuartetMember.FATHER);
-		this.motherAlleles = byteToAlleleType(currentGenotype, QuartetMember.MOTHER);
-		this.kid1Alleles = byteToAlleleType(currentGenotype, QuartetMember.KID1);
-		this.kid2Alleles = byteToAlleleType(currentGenotype, QuartetMember.KID2);
-		this.genotypePattern = computeGenotypePattern();
-		this.quartetInheritanceStates = PatternToInheritanceStates.getInheritanceStates(genotypePattern);
-		this.phasingQualityIndex = 0;
-		//System.out.println(Integer.toBinaryString(currentGenotype) + "\t-->\t" + genotypePattern);
+		this(new VCFLineParser().parse(VCFLine));
 	}
 
 
 	/**
-	 * @param currentGenotype genotype represented as a byte with one bit per allele as follow:
-	 * (paternal allele1, paternal allele2, maternal allele1, maternal allele2, kid1 allele1, kid1 allele2, kid2 allele1, kid2 allele2)
-	 * @param member a {@link QuartetMember}
-	 * @return the 2 alleles of the specified family member
+	 * Creates an instance of {@link Variant} from the line currently parsed by a {@link VCFLineParser}.
+	 * Reusing the same parser for all the lines of a VCF file avoids creating garbage for each line
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @throws InvalidVCFLineException when the VCF line is not valid
+	 * @throws FilteredVCFLineException 
+	 * @throws InvalidVCFFieldException 
+	 * @throws PartiallyCalledVariantException 
 	 */
-	private AlleleType[] byteToAlleleType(int currentGenotype, QuartetMember member) {
-		byte offsetAllele1 = 0;
-		switch (member) {
-		case FATHER:
-			offsetAllele1 = 6;
-			break;
-		case MOTHER:
-			offsetAllele1 = 4;
-			break;
-		case KID1:
-			offsetAllele1 = 2;
-			break;
-		case KID2:
-			offsetAllele1 = 0;
-			break;
+	public Variant(VCFLineParser parser) throws InvalidVCFLineException, FilteredVCFLineException, InvalidVCFFieldException, PartiallyCalledVariantException {
+		this(checkLine(parser, DEFAULT_FILTER_POLICY), DEFAULT_FILTER_POLICY);
+		VCFRejectReason rejectReason = DEFAULT_FILTER_POLICY.checkVariant(this);
+		if (rejectReason != null) {
+			throwRejectException(rejectReason, parser, DEFAULT_FILTER_POLICY);
 		}
-		int offsetAllele2 = offsetAllele1 + 1;
-		AlleleType allele1, allele2;
-		if ((currentGenotype  & (1 << offsetAllele1)) == 0) {
-			allele1 = AlleleType.REFERENCE_ALLELE;
-		} else { 
-			allele1 = AlleleType.ALTERNATIVE_ALLELE;
-		}
-		if ((currentGenotype  & (1 << offsetAllele2)) == 0) {
-			allele2 = AlleleType.REFERENCE_ALLELE;
-		} else { 
-			allele2 = AlleleType.ALTERNATIVE_ALLELE;
-		}
-		AlleleType[] alleles = {allele1, allele2};
-		return alleles;
 	}
 
 
 	/**
-	 * @param genotypeFieldDesc the gentype field description from the VCF line (eg: GT:AD:DP:GQ:PL:PQ)
-	 * @return the index of the PQ subfield (fields are separeted by ":") or -1 if not found
+	 * Creates an instance of {@link Variant} from a VCF line that passed the {@link FilterPolicy#checkLine(VCFLineParser)} test
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @param filterPolicy {@link FilterPolicy} used to parse the line
 	 */
-	private int getPhasingQualityFieldIndex(String genotypeFieldDesc) {
-		String[] splitGenotypeFieldDesc = genotypeFieldDesc.split(":");
-		for (int i = 0; i < splitGenotypeFieldDesc.length; i++) {
-			if (splitGenotypeFieldDesc[i].trim().equals("PQ")) {
-				return i;
-			}
+	private Variant(VCFLineParser parser, FilterPolicy filterPolicy) {
+		// we retrive the info about the chromosome, the position, the reference allele and the alternative allele
+		chromosome = parser.getChromosome();
+		position = parser.getPosition();
+		referenceAllele = parser.getField(3);
+		alternatievAllele = parser.getField(4);
+		if (parser.lineContains("PhasingInconsistent")) {
+			phasingQualityIndex = -1;
+			isFatherPhased = false;
+			isMotherPhased = false;
+			isKid1Phased = false;
+			isKid2Phased = false;
+		} else {
+			double phasingQualityThreshold = filterPolicy.getPhasingQualityThreshold();
+			phasingQualityIndex = parser.getFormatSubfieldIndex("PQ");
+			isFatherPhased = isGenotypePhased(parser, 0, phasingQualityThreshold);
+			isMotherPhased = isGenotypePhased(parser, 1, phasingQualityThreshold);
+			isKid1Phased = isGenotypePhased(parser, 2, phasingQualityThreshold);
+			isKid2Phased = isGenotypePhased(parser, 3, phasingQualityThreshold);
 		}
-		return -1;
-	}
-
-
-	/**
-	 * @param genotypeField a genotype field from a VCF file
-	 * @return true if the specified genotype field is phased
-	 */
-	private boolean isGenotypePhased(String genotypeField) {
-		if (phasingQualityIndex != -1) {
-			String[] splitGenotypeField = genotypeField.split(":");
-			if (splitGenotypeField.length > phasingQualityIndex)  {
-				double phasingQuality = Double.parseDouble(splitGenotypeField[phasingQualityIndex].trim());
-				if (phasingQuality < PHASING_QUALITY_FILTER_THRESHOLD) {
-					return false;
-				}
+		// extract the allele informations
+		genotypeCode = sampleToGenotypeCode(parser);
+		fatherAlleles = codeToAlleleTypes(genotypeCode, QuartetMember.FATHER);
+		motherAlleles = codeToAlleleTypes(genotypeCode, QuartetMember.MOTHER);
+		kid1Alleles = codeToAlleleTypes(genotypeCode, QuartetMember.KID1);
+		kid2Alleles = codeToAlleleTypes(genotypeCode, QuartetMember.KID2);
+	}
+
+
+	/**
+	 * Parses a VCF line without throwing an exception when the line is rejected.
+	 * The reason why the line was rejected can be retrieved using {@link VCFLineParser#getRejectReason()}
+	 * and the filter policy counts the accepted and rejected lines
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @param filterPolicy {@link FilterPolicy} to apply
+	 * @return a new {@link Variant} or null if the line was rejected
+	 */
+	public static Variant tryParse(VCFLineParser parser, FilterPolicy filterPolicy) {
+		Variant variant = null;
+		VCFRejectReason rejectReason;
+		try {
+			rejectReason = filterPolicy.checkLine(parser);
+			if (rejectReason == null) {
+				variant = new Variant(parser, filterPolicy);
+				rejectReason = filterPolicy.checkVariant(variant);
 			}
+		} catch (NumberFormatException e) {
+			rejectReason = VCFRejectReason.INVALID_NUMBER;
 		}
-		return (genotypeField.charAt(1) == '|');
+		parser.setRejectReason(rejectReason);
+		filterPolicy.count(rejectReason);
+		return rejectReason == null ? variant : null;
 	}
 
 
 	/**
-	 * 
-	 * @param genotypeField format field following the GT:AD:DP:GQ:PL format
-	 * @return the minimum PL score (ie the max probability that the genotype is not the one returned by the genotyper)
-	 * @throws InvalidVCFLineException if there is more than 1 alternative
+	 * Parses a VCF line without throwing an exception when the line is rejected.
+	 * Use {@link #tryParse(VCFLineParser, FilterPolicy)} with a reusable parser to also retrieve the reject reason
+	 * @param VCFLine a line from a VCF file
+	 * @param filterPolicy {@link FilterPolicy} to apply
+	 * @return a new {@link Variant} or null if the line was rejected
 	 */
-	private int genotypeFieldToPL(String genotypeField) throws InvalidVCFFieldException {
-		String[] splitFormatField = genotypeField.split(":");
-		// the following happens when we have a ./. variant
-		if (splitFormatField.length < 5) {
-			throw new InvalidVCFFieldException("Invalid VCF field: the genotype field has less than 5 subfield.", "Genotype Field", genotypeField);
-		}
-		String genotype = splitFormatField[0].trim();
-		String[] plScores = splitFormatField[4].trim().split(",");
-		int refRefScore = Integer.parseInt(plScores[0].trim());
-		int refAltScore = Integer.parseInt(plScores[1].trim());
-		int altAltScore = Integer.parseInt(plScores[2].trim());
-		if ((genotype.equals("0/0")) || (genotype.equals("0|0"))) {
-			return Math.min(refAltScore, altAltScore);
-		}
-		if ((genotype.equals("0/1")) || (genotype.equals("0|1")) || (genotype.equals("1|0"))) {
-			return Math.min(refRefScore, altAltScore);
-		}
-		if ((genotype.equals("1/1")) || (genotype.equals("1|1"))) {
-			return Math.min(refRefScore, refAltScore);
-		}
-		throw new InvalidVCFFieldException("Invalid VCF field.", "Genotype Field", genotypeField);
+	public static Variant tryParse(String VCFLine, FilterPolicy filterPolicy) {
+		return tryParse(new VCFLineParser().parse(VCFLine), filterPolicy);
 	}
 
 
 	/**
-	 * Throws an exception if the specified string is different from "PASS"
-	 * @param filterField
+	 * Throws the exception associated to the first filter of the specified policy that rejects the line
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @param filterPolicy a {@link FilterPolicy}
+	 * @return the specified parser if the line passes the filters
+	 * @throws InvalidVCFLineException
 	 * @throws FilteredVCFLineException
+	 * @throws InvalidVCFFieldException
+	 * @throws PartiallyCalledVariantException
 	 */
-	private void filterFieldFiltering(String filterField) throws FilteredVCFLineException {
-		switch (FILTER_FIELD_FILTERING) {
-		case NINETY_NINE_POINT_NINE:
-			if (!filterField.equalsIgnoreCase("PASS") && 
-					!filterField.equalsIgnoreCase("TruthSensitivityTranche99.00to99.90") &&
-					!filterField.equalsIgnoreCase("VQSRTrancheSNP99.90to100.00") &&
-					!filterField.equalsIgnoreCase("VQSRTrancheINDEL99.90to100.00")) {
-				throw new FilteredVCFLineException("Filter Field", filterField);
-			}
-			break;
-		case PASS:
-			if (!filterField.equalsIgnoreCase("PASS")) {
-				throw new FilteredVCFLineException("Filter Field", filterField);
-			}
-			break;
-		case NONE:
-			// do nothing
-			break;
+	private static VCFLineParser checkLine(VCFLineParser parser, FilterPolicy filterPolicy) throws InvalidVCFLineException, FilteredVCFLineException, InvalidVCFFieldException, PartiallyCalledVariantException {
+		VCFRejectReason rejectReason = filterPolicy.checkLine(parser);
+		if (rejectReason != null) {
+			throwRejectException(rejectReason, parser, filterPolicy);
 		}
+		return parser;
 	}
 
 
 	/**
-	 * Hard filtering as recommended in the GATK best practice V3
-	 * @param infoField info field of the VCF line
+	 * Throws the exception corresponding to the specified reject reason
+	 * @param rejectReason reason why a line was rejected
+	 * @param parser a {@link VCFLineParser} that parsed the rejected line
+	 * @param filterPolicy the {@link FilterPolicy} that rejected the line
 	 * @throws InvalidVCFLineException
-	 */
-	private void GATKFilter(String infoField) throws InvalidVCFFieldException, FilteredVCFLineException {
-		// filter on the the QD field
-		int QDIndex = infoField.indexOf("QD=");
-		if (QDIndex == -1) {
-			throw new InvalidVCFFieldException("Invalid VCF field: QD subfield not found", "Info Field", infoField);
-		} else {
-			String QDStr = infoField.substring(QDIndex + 3);
-			int indexSemicolon = QDStr.indexOf(";");
-			if (indexSemicolon == -1) {
-				throw new InvalidVCFFieldException("Invalid VCF field: QD subfield not found", "Info Field", infoField);
-			} else {
-				QDStr = QDStr.substring(0, indexSemicolon);
-				double QD = Double.parseDouble(QDStr);
-				//System.out.println("QD=" + QD);
-				if (QD < 8.0) {
-					throw new FilteredVCFLineException("QD", Double.toString(QD));
+	 * @throws FilteredVCFLineException
+	 * @throws InvalidVCFFieldException
+	 * @throws PartiallyCalledVariantException
+	 */
+	private static void throwRejectException(VCFRejectReason rejectReason, VCFLineParser parser, FilterPolicy filterPolicy) throws InvalidVCFLineException, FilteredVCFLineException, InvalidVCFFieldException, PartiallyCalledVariantException {
+		switch (rejectReason) {
+		case INVALID_LINE:
+			throw new InvalidVCFLineException("Invalid VCF line: the line must contain 4 sample fields", parser.getLine());
+		case FILTER_FIELD:
+			throw new FilteredVCFLineException("Filter Field", parser.getField(6));
+		case GATK_HARD_FILTERING:
+			throw new FilteredVCFLineException("GATK hard filtering", parser.getField(7));
+		case INVALID_INFO_FIELD:
+			throw new InvalidVCFFieldException("Invalid VCF field: QD, HRun or FS subfield not found", "Info Field", parser.getField(7));
+		case INDIVIDUALS_SCORE:
+			throw new FilteredVCFLineException("Individual score sum", Double.toString(filterPolicy.getIndividualsScore(parser)));
+		case PL:
+			throw new FilteredVCFLineException("PL", Integer.toString(filterPolicy.getMinPL(parser)));
+		case INVALID_PL_FIELD:
+			for (int i = 0; i < 4; i++) {
+				if (parser.getSampleSubfieldCount(i) < 5) {
+					throw new InvalidVCFFieldException("Invalid VCF field: the genotype field has less than 5 subfield.", "Genotype Field", parser.getSampleField(i));
+				} else if (parser.getSampleMinPL(i) == -1) {
+					throw new InvalidVCFFieldException("Invalid VCF field.", "Genotype Field", parser.getSampleField(i));
 				}
 			}
-		}
-		// filter on the the HRun field
-		int HRunIndex = infoField.indexOf("HRun=");
-		if (HRunIndex == -1) {
-			throw new InvalidVCFFieldException("Invalid VCF field: HRun subfield not found", "Info Field", infoField);
-		} else {
-			String HRunStr = infoField.substring(HRunIndex + 5);
-			int indexSemicolon = HRunStr.indexOf(";");
-			if (indexSemicolon == -1) {
-				throw new InvalidVCFFieldException("Invalid HRun field: QD subfield not found", "Info Field", infoField);
-			} else {
-				HRunStr = HRunStr.substring(0, indexSemicolon);
-				double HRun = Double.parseDouble(HRunStr);
-				//System.out.println("HRun=" + HRun);
-				if (HRun > 5) {
-					throw new FilteredVCFLineException("HRun", Double.toString(HRun));
+			break;
+		case PARTIALLY_CALLED:
+		case INVALID_GENOTYPE:
+			for (int i = 0; i < 4; i++) {
+				byte allele = parser.getGenotypeAllele(i, 0);
+				if (allele == VCFLineParser.MISSING_ALLELE) {
+					throw new PartiallyCalledVariantException(parser.getSampleField(i));
+				} else if ((allele != 0) && (allele != 1)) {
+					throw new InvalidVCFFieldException("Invalid VCF field: the first allele value must be 0 or 1", "Genotype Field", parser.getSampleField(i));
+				}
+				allele = parser.getGenotypeAllele(i, 1);
+				if ((allele != 0) && (allele != 1)) {
+					throw new InvalidVCFFieldException("Invalid VCF field: the second allele value must be 0 or 1", "Genotype Field", parser.getSampleField(i));
 				}
-			}			
-		}
-		// filter on the the FS field
-		int FSIndex = infoField.indexOf("FS=");
-		if (FSIndex == -1) {
-			throw new InvalidVCFFieldException("Invalid VCF field: FS subfield not found", "Info Field", infoField);
-		} else {
-			String FSStr = infoField.substring(FSIndex + 3);
-			int indexSemicolon = FSStr.indexOf(";");
-			if (indexSemicolon == -1) {
-				throw new InvalidVCFFieldException("Invalid VCF field: FS subfield not found", "Info Field", infoField);
-			} else {
-				FSStr = FSStr.substring(0, indexSemicolon);
-				double FS = Double.parseDouble(FSStr);
-				//System.out.println("FS=" + FS);
-				if (FS > 200) {
-					throw new FilteredVCFLineException("FS", Double.toString(FS));
-				}			
 			}
+			break;
+		case MIE:
+			throw new FilteredVCFLineException("MIE", "MIE");
+		case FULLY_HETEROZYGOUS:
+			throw new InvalidVCFLineException("Invalid VCF file: fully heterozygous variant", parser.getLine());
+		case THREE_QUARTER_HETEROZYGOUS:
+			throw new InvalidVCFLineException("Invalid VCF file: 3/4 heterozygous variant", parser.getLine());
+		default:
+			break;
 		}
+		throw new InvalidVCFLineException("Invalid VCF line: " + rejectReason.getName(), parser.getLine());
 	}
 
 
 	/**
-	 * @param genotypeInfo genotype information field of a VCF line
-	 * @return the allele types of a sample
-	 * @throws InvalidVCFFieldException
-	 * @throws PartiallyCalledVariantException 
+	 * Creates an instance of Variant with arbitrary informations for anything but genotype and inheritance state
+	 * @param currentGenotype a genotype represented by a byte
 	 */
-	private AlleleType[] stringToAlleleTypes(String genotypeInfo) throws InvalidVCFFieldException, PartiallyCalledVariantException {
-		AlleleType[] resultAlleles = new AlleleType[2];
-		String[] splitGenotypeInfo = genotypeInfo.split(":"); // the genotype info field is colon-separated
-		String genotype = splitGenotypeInfo[0];	// the genotype is in the first field
-		// the genotype is coded like follow 0/0, 0/1 (where 0 is the reference allele and 1 is the alternative allele)
-		if (genotype.charAt(0) == '0') {
-			resultAlleles[0] = AlleleType.REFERENCE_ALLELE;
-		} else if (genotype.charAt(0) == '1') {
-			resultAlleles[0] = AlleleType.ALTERNATIVE_ALLELE;
-		} else if (genotype.charAt(0) == '.') {
-			throw new PartiallyCalledVariantException(genotypeInfo);
-		} else {
-			throw new InvalidVCFFieldException("Invalid VCF field: the first allele value must be 0 or 1", "Genotype Field", genotypeInfo);
-		}
-		if(genotype.charAt(2) == '0') {
-			resultAlleles[1] = AlleleType.REFERENCE_ALLELE;
-		} else if (genotype.charAt(2) == '1') {
-			resultAlleles[1] = AlleleType.ALTERNATIVE_ALLELE;
-		} else if (genotype.charAt(0) == '.') {
-			throw new PartiallyCalledVariantException(genotypeInfo);
-		} else {
-			throw new InvalidVCFFieldException("Invalid VCF field: the second allele value must be 0 or 1", "Genotype Field", genotypeInfo);
-		}
-		//System.out.print(genotype + "\t");
-		return resultAlleles;
+	public Variant(int currentGenotype) {
+		this.chromosome = "chr1";
+		this.position = 1;
+		this.referenceAllele = "C";
+		this.alternatievAllele = "T";
+		this.genotypeCode = currentGenotype & (GenotypeCode.CODE_COUNT - 1);
+		this.fatherAlleles = codeToAlleleTypes(genotypeCode, QuartetMember.FATHER);
+		this.motherAlleles = codeToAlleleTypes(genotypeCode, QuartetMember.MOTHER);
+		this.kid1Alleles = codeToAlleleTypes(genotypeCode, QuartetMember.KID1);
+		this.kid2Alleles = codeToAlleleTypes(genotypeCode, QuartetMember.KID2);
+		this.phasingQualityIndex = 0;
 	}
 
 
 	/**
-	 * @param genotypeInfo Genotype Info field of the VCF
-	 * @return the quality score from the field Genotype Info
+	 * Creates an instance of {@link Variant} from a phased vector (eg: read from a {@link QGTFile})
+	 * @param chromosome chromosome of the variant
+	 * @param position position of the variant
+	 * @param referenceAllele reference allele of the variant
+	 * @param alternativeAllele alternative allele of the variant
+	 * @param vector genotypes and phasing of the quartet (see {@link PhasedVector})
 	 */
-	private double stringToQualityScore(String genotypeInfo) {
-		String[] splitGenotypeInfo = genotypeInfo.split(":");
-		if (splitGenotypeInfo.length > 3) {
-			String scoreStr = splitGenotypeInfo[3];
-			try {
-				return Double.parseDouble(scoreStr);
-			} catch (NumberFormatException e) {
-				return 0;
-			}
-		} else {
-			return 0.0;
+	public Variant(String chromosome, int position, String referenceAllele, String alternativeAllele, short vector) {
+		this.chromosome = chromosome;
+		this.position = position;
+		this.referenceAllele = referenceAllele;
+		this.alternatievAllele = alternativeAllele;
+		this.phasingQualityIndex = -1;
+		int code = 0;
+		QuartetMember[] members = QuartetMember.values();
+		for (int i = 0; i < members.length; i++) {
+			// in a vector a set bit is a reference allele
+			String genotype = PhasedVector.getGenotype(vector, members[i]);
+			code = GenotypeCode.setAllele(code, i, 0, genotype.charAt(0) == '1');
+			code = GenotypeCode.setAllele(code, i, 1, genotype.charAt(2) == '1');
 		}
+		this.genotypeCode = code;
+		this.fatherAlleles = codeToAlleleTypes(genotypeCode, QuartetMember.FATHER);
+		this.motherAlleles = codeToAlleleTypes(genotypeCode, QuartetMember.MOTHER);
+		this.kid1Alleles = codeToAlleleTypes(genotypeCode, QuartetMember.KID1);
+		this.kid2Alleles = codeToAlleleTypes(genotypeCode, QuartetMember.KID2);
+		this.isFatherPhased = PhasedVector.isPhased(vector, QuartetMember.FATHER);
+		this.isMotherPhased = PhasedVector.isPhased(vector, QuartetMember.MOTHER);
+		this.isKid1Phased = PhasedVector.isPhased(vector, QuartetMember.KID1);
+		this.isKid2Phased = PhasedVector.isPhased(vector, QuartetMember.KID2);
 	}
 
 
 	/**
-	 * @return the genotype pattern of the quartet
+	 * @param genotypeCode genotype represented as a byte with one bit per allele as follow:
+	 * (paternal allele1, paternal allele2, maternal allele1, maternal allele2, kid1 allele1, kid1 allele2, kid2 allele1, kid2 allele2)
+	 * @param member a {@link QuartetMember}
+	 * @return the 2 alleles of the specified family member
 	 */
-	private String computeGenotypePattern() {
-		AlleleType mostFrequentAllele = getMostFrequentAllele();
-		String fatherPattern = getSamplePattern(fatherAlleles, mostFrequentAllele);
-		String motherPattern = getSamplePattern(motherAlleles, mostFrequentAllele);
-		String kid1Pattern = getSamplePattern(kid1Alleles, mostFrequentAllele);
-		String kid2Pattern = getSamplePattern(kid2Alleles, mostFrequentAllele);
-		String kidPattern = getKidPattern(kid1Pattern, kid2Pattern);
-		String parentPattern = getParentPattern(fatherPattern, motherPattern, kidPattern);
-		return parentPattern + ";" + kidPattern;
+	private AlleleType[] codeToAlleleTypes(int genotypeCode, QuartetMember member) {
+		AlleleType[] alleles = {GenotypeCode.getAllele(genotypeCode, member, 0), GenotypeCode.getAllele(genotypeCode, member, 1)};
+		return alleles;
 	}
 
 
 	/**
-	 * The most frequent allele in the parents is denoted by �a�; in case of equal frequency, �a�
-	 * denotes the most frequent allele in the children.
-	 * @return the type of the most frequent allele (reference or alternate)
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line
+	 * @param sampleIndex index of the sample in the VCF line
+	 * @param phasingQualityThreshold only consider the genotypes with a score above this threshold as phased
+	 * @return true if the genotype of the specified sample is phased
 	 */
-	private AlleleType getMostFrequentAllele() {
-		int refCount = 0; // counter for the reference allele
-		refCount = (fatherAlleles[0] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-		refCount = (fatherAlleles[1] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-		refCount = (motherAlleles[0] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-		refCount = (motherAlleles[1] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-		switch (refCount) {
-		case 0:
-		case 1:
-			return AlleleType.ALTERNATIVE_ALLELE;
-		case 2:
-			refCount = (kid1Alleles[0] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-			refCount = (kid1Alleles[1] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-			refCount = (kid2Alleles[0] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-			refCount = (kid2Alleles[1] == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
-			if (refCount < 4) {
-				return AlleleType.ALTERNATIVE_ALLELE;
-			} else {
-				return AlleleType.REFERENCE_ALLELE;
+	private boolean isGenotypePhased(VCFLineParser parser, int sampleIndex, double phasingQualityThreshold) {
+		if (phasingQualityIndex != -1) {
+			if (parser.getSampleSubfieldCount(sampleIndex) > phasingQualityIndex)  {
+				double phasingQuality = parser.parseSampleSubfieldDouble(sampleIndex, phasingQualityIndex);
+				if (phasingQuality < phasingQualityThreshold) {
+					return false;
+				}
 			}
-		case 3:
-		case 4:
-			return AlleleType.REFERENCE_ALLELE;
-		}
-		// should not happen
-		return null;
-	}
-
-
-	/**
-	 * @param alleleTypes the alleles type of an individual of the quartet 
-	 * @param mostFrequentAllele the most frequent allele of the quartet as specified in the getMostFrequentAllele() function
-	 * @return the genotype pattern for an individual of the quartet
-	 */
-	public String getSamplePattern (AlleleType[] alleleTypes, AlleleType mostFrequentAllele) {
-		int mostFrequentCount = 0; // counter for the number of most frequent allele
-		mostFrequentCount = (alleleTypes[0] == mostFrequentAllele) ? mostFrequentCount + 1 : mostFrequentCount;
-		mostFrequentCount = (alleleTypes[1] == mostFrequentAllele) ? mostFrequentCount + 1 : mostFrequentCount;
-		switch (mostFrequentCount) {
-		case 0:
-			return "bb";
-		case 1:
-			return "ab";
-		case 2:
-			return "aa";
 		}
-		// should not happen
-		return null;
+		return parser.hasPhasedSeparator(sampleIndex);
 	}
 
 
 	/**
-	 * @param kid1Pattern genotype pattern of the first kid
-	 * @param kid2Pattern genotype pattern of the second kid
-	 * @return the children's pattern
+	 * @param parser a {@link VCFLineParser} that parsed a VCF line with valid genotypes
+	 * @return the genotype code of the quartet (see {@link GenotypeCode})
 	 */
-	private String getKidPattern (String kid1Pattern, String kid2Pattern) {
-		if (kid1Pattern.equals("aa")) {
-			return kid1Pattern + "/" + kid2Pattern;
-		}
-		if (kid1Pattern.equals("bb")) {
-			return kid2Pattern + "/" + kid1Pattern;
-		}
-		if (kid2Pattern.equals("aa")) {
-			return kid2Pattern + "/" + kid1Pattern;
-		}
-		if (kid2Pattern.equals("bb")) {
-			return kid1Pattern + "/" + kid2Pattern;
+	private static int sampleToGenotypeCode(VCFLineParser parser) {
+		int code = 0;
+		// the genotype is coded like follow 0/0, 0/1 (where 0 is the reference allele and 1 is the alternative allele)
+		for (int i = 0; i < 4; i++) {
+			code = GenotypeCode.setAllele(code, i, 0, parser.getGenotypeAllele(i, 0) == 1);
+			code = GenotypeCode.setAllele(code, i, 1, parser.getGenotypeAllele(i, 1) == 1);
 		}
-		// last possible case
-		return "ab/ab";
+		return code;
 	}
 
 
 	/**
-	 * @param fatherPattern pattern of the father
-	 * @param motherPattern pattern of the mother
-	 * @param kidPattern pattern of the children
-	 * @return the parent's pattern
+	 * @param alleleTypes the alleles type of an individual of the quartet 
+	 * @param mostFrequentAllele the most frequent allele of the quartet
+	 * @return the genotype pattern for an individual of the quartet
 	 */
-	private String getParentPattern (String fatherPattern, String motherPattern, String kidPattern) {
-		if (fatherPattern.equals(motherPattern)) {
-			return fatherPattern + "/" + motherPattern;
-		}
-		if (fatherPattern.equals("bb")) {
-			return motherPattern + "/" + fatherPattern;
-		}
-		if (motherPattern.equals("bb")) {
-			return fatherPattern + "/" + motherPattern;
-		} 
-		if (kidPattern.equals("aa/bb") || kidPattern.equals("ab/bb") || kidPattern.equals("bb/bb")) {
-			return "aa/ab";
-		}
-		return fatherPattern + "+" + motherPattern;
+	public String getSamplePattern (AlleleType[] alleleTypes, AlleleType mostFrequentAllele) {
+		return GenotypeCode.getSamplePattern(alleleTypes, mostFrequentAllele);
 	}
 
 
@@ -599,7 +432,15 @@ public class Variant {
 	 * @return the genotype pattern of the variant for the family quartet
 	 */
 	public final String getGenotypePattern() {
-		return genotypePattern;
+		return GenotypeCode.getGenotypePattern(genotypeCode);
+	}
+
+
+	/**
+	 * @return the genotype of the family quartet packed in a byte (see {@link GenotypeCode})
+	 */
+	public final int getGenotypeCode() {
+		return genotypeCode;
 	}
 
 
@@ -607,7 +448,7 @@ public class Variant {
 	 * @return the inheritance states of the variant for the family quartet
 	 */
 	public final QuartetInheritanceState[] getInheritanceStates() {
-		return quartetInheritanceStates;
+		return GenotypeCode.getInheritanceStates(genotypeCode);
 	}
 
 
@@ -732,12 +573,12 @@ public class Variant {
 		variantString += "\t";
 		variantString += kid2Alleles[1];
 		variantString += "\t";
-		variantString += genotypePattern;
+		variantString += getGenotypePattern();
 		variantString += "\t";
-		variantString += quartetInheritanceStates[0];
+		variantString += getInheritanceStates()[0];
 		variantString += "\t";
-		if (quartetInheritanceStates.length > 1) {
-			variantString += quartetInheritanceStates[1];
+		if (getInheritanceStates().length > 1) {
+			variantString += getInheritanceStates()[1];
 		} else {
 			variantString += "-";
 		}
@@ -857,12 +698,7 @@ public class Variant {
 	 * @return true if the Variant is an MIE, false otherwise
 	 */
 	public boolean isMIE() {
-		for (QuartetInheritanceState currentState: quartetInheritanceStates) {
-			if (currentState.equals(QuartetInheritanceState.MIE)) {
-				return true;
-			}
-		}
-		return false;
+		return GenotypeCode.isMIE(genotypeCode);
 	}
 
 
@@ -870,12 +706,7 @@ public class Variant {
 	 * @return true if the Variant is not informative, false otherwise
 	 */
 	public boolean isNotInformative() {
-		for (QuartetInheritanceState currentState: quartetInheritanceStates) {
-			if (currentState.equals(QuartetInheritanceState.NOT_INFORMATIVE)) {
-				return true;
-			}
-		}
-		return false;
+		return GenotypeCode.isNotInformative(genotypeCode);
 	}
 
 
@@ -979,18 +810,6 @@ public class Variant {
 	 * @return true if the variant is a SCE for the specified {@link CrossTriosInheritanceState}
 	 */
 	public boolean isSCE(CrossTriosInheritanceState inheritanceState) {
-		boolean isSCE = true;
-		for (QuartetInheritanceState currentInheritanceState: getInheritanceStates()) {
-			if (currentInheritanceState == QuartetInheritanceState.MIE) {
-				return false;
-			}
-			if (currentInheritanceState == QuartetInheritanceState.NOT_INFORMATIVE) {
-				return false;
-			}
-			if (currentInheritanceState.isCompatibleWith(inheritanceState)) {
-				isSCE = false;
-			}
-		}
-		return isSCE;
+		return GenotypeCode.isSCE(genotypeCode, inheritanceState);
 	}
 }
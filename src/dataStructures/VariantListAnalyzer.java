@@ -1,295 +1,276 @@
 package dataStructures;
 
+import java.util.Arrays;
 import java.util.List;
 
+import utils.GenotypeCode;
+
 
 /**
  * This class computes the dominant state for each variant using either a moving average algorithm
- * or a binning algorithm
+ * or a binning algorithm.
+ * The analyzer only stores the positions and the genotype codes of the variants, the scores of the states
+ * are read from a table indexed by genotype code and the window scores are stored as sums in half units
  * @author Julien Lajugie
  */
 public class VariantListAnalyzer {
 
-	private static final int HALF_WINDOW_SIZE = 500000;			// half size of the window used for the moving average or for the bins
-	private static final boolean COMPUTE_MOVING_WINDOW = false;	// if true compute the inheritance state using a moving window (uses bins otherwise)
-	
-	private final List<Variant>		variantList;				// list of variants for a family quartet
-	private final double[] 			identicals;					// list of identical variants
-	private final double[] 			identicalAvgs;				// moving average of the identical variants
-	private final double[] 			maternalIdenticals;			// list of haploidentical maternal variants
-	private final double[] 			maternalIdenticalAvgs;		// moving average of the haploidentical maternal variants
-	private final double[] 			paternalIdenticals;			// list of haploidentical paternal variants
-	private final double[]			paternalIdenticalAvgs;		// moving average of the haploidentical paternal variants
-	private final double[] 			nonIdenticals;				// list of non identical variants
-	private final double[] 			nonIdenticalAvgs;			// moving average of the non identical variants
-	private final double[]			nonInfomatives;				// list non informative variants
-	private final double[]			nonInfomativeAvgs;			// moving average on non informative variants
-	private final double[]			nonMendelians;				// list of non mendelian variants
-	private final double[]			nonMendelianAvgs;			// moving average on mendelian variants
-	private final QuartetInheritanceState[]dominantInheritanceStates;	// dominant inheritance state of the variants
-
-
 	/**
-	 * Creates an instance of {@link VariantListAnalyzer}
-	 * @param variantList 
+	 * Default half size of the window used for the moving average or for the bins
 	 */
-	public VariantListAnalyzer(List<Variant> variantList) {
-		this.variantList = variantList;
-		this.identicals = computeStateScores(QuartetInheritanceState.IDENTICAL);
-		this.maternalIdenticals = computeStateScores(QuartetInheritanceState.MATERNAL);
-		this.paternalIdenticals = computeStateScores(QuartetInheritanceState.PATERNAL);
-		this.nonIdenticals = computeStateScores(QuartetInheritanceState.NON_IDENTICAL);
-		this.nonInfomatives = computeStateScores(QuartetInheritanceState.NOT_INFORMATIVE);
-		this.nonMendelians = computeStateScores(QuartetInheritanceState.MIE);
-
-		this.identicalAvgs = computeAvgStateScores(identicals);
-		this.maternalIdenticalAvgs = computeAvgStateScores(maternalIdenticals);
-		this.paternalIdenticalAvgs = computeAvgStateScores(paternalIdenticals);
-		this.nonIdenticalAvgs = computeAvgStateScores(nonIdenticals);
-		this.nonInfomativeAvgs = computeAvgStateScores(nonInfomatives);
-		this.nonMendelianAvgs = computeAvgStateScores(nonMendelians);
-
-		this.dominantInheritanceStates = computeDominantInheritanceStates();
-	}
-	
-	
+	public static final int DEFAULT_HALF_WINDOW_SIZE = 500000;
+
 	/**
-	 * Computes the scores of the specified state
-	 * @param quartetInheritanceState an inheritance state
-	 * @return an array containing a score for each variant for the specified inheritance state
+	 * If true the inheritance states are computed by default using a moving window (uses bins otherwise)
 	 */
-	private double[] computeStateScores(QuartetInheritanceState quartetInheritanceState) {
-		double[] resultState = new double[variantList.size()];
-		for (int i = 0; i < variantList.size(); i++) {
-			Variant currentVariant = variantList.get(i);
-			if (currentVariant.getInheritanceStates()[0] == quartetInheritanceState) {
-				double score = 1 / (double) currentVariant.getInheritanceStates().length;
-				resultState[i] = score;
-			} else if (currentVariant.getInheritanceStates().length > 1) {
-				if (currentVariant.getInheritanceStates()[1] == quartetInheritanceState) {
-					resultState[i] = 0.5;
+	public static final boolean DEFAULT_COMPUTE_MOVING_WINDOW = false;
+
+	static final QuartetInheritanceState[] AVERAGED_STATES = {
+		QuartetInheritanceState.IDENTICAL,
+		QuartetInheritanceState.MATERNAL,
+		QuartetInheritanceState.PATERNAL,
+		QuartetInheritanceState.NON_IDENTICAL,
+		QuartetInheritanceState.NOT_INFORMATIVE,
+		QuartetInheritanceState.MIE};	// states with a score, in the order of the score columns
+
+	private static final int[] 		STATE_INDEXES = new int[QuartetInheritanceState.values().length];			// index in AVERAGED_STATES of each state, -1 if the state has no score
+	static final byte[] 			SCORES = new byte[GenotypeCode.CODE_COUNT * AVERAGED_STATES.length];	// scores in half units of each state for each genotype code
+
+	// populate the tables
+	static {
+		for (int i = 0; i < STATE_INDEXES.length; i++) {
+			STATE_INDEXES[i] = -1;
+		}
+		for (int i = 0; i < AVERAGED_STATES.length; i++) {
+			STATE_INDEXES[AVERAGED_STATES[i].ordinal()] = i;
+		}
+		// the first state of a variant with n states has a score of 1/n, the second state has a score of 0.5
+		for (int code = 0; code < GenotypeCode.CODE_COUNT; code++) {
+			QuartetInheritanceState[] codeStates = GenotypeCode.getInheritanceStates(code);
+			int stateIndex = STATE_INDEXES[codeStates[0].ordinal()];
+			if (stateIndex != -1) {
+				SCORES[(code * AVERAGED_STATES.length) + stateIndex] = (byte) (2 / codeStates.length);
+			}
+			if (codeStates.length > 1) {
+				stateIndex = STATE_INDEXES[codeStates[1].ordinal()];
+				if (stateIndex != -1) {
+					SCORES[(code * AVERAGED_STATES.length) + stateIndex] = 1;
 				}
-			}			
+			}
 		}
-		return resultState;
+	}
+
+	private final int 				halfWindowSize;				// half size of the window used for the moving average or for the bins
+	private final boolean 			computeMovingWindow;		// if true compute the inheritance state using a moving window (uses bins otherwise)
+	private final int				size;						// number of variants
+	private final int[] 			positions;					// positions of the variants
+	private final byte[] 			genotypeCodes;				// genotype codes of the variants (see GenotypeCode)
+	private final int[] 			windowScores;				// sums in half units of the scores of the window of each variant, AVERAGED_STATES.length values per variant
+	private final int[] 			windowSizes;				// number of variants in the window of each variant
+	private final byte[] 			dominantStates;				// index in AVERAGED_STATES of the dominant inheritance state of each variant
+
+
+	/**
+	 * Creates an instance of {@link VariantListAnalyzer} using the default window size and averaging method
+	 * @param variantList 
+	 */
+	public VariantListAnalyzer(List<Variant> variantList) {
+		this(variantList, DEFAULT_HALF_WINDOW_SIZE, DEFAULT_COMPUTE_MOVING_WINDOW);
 	}
 
 
 	/**
-	 * Computes the average scores of the specified state.  The average can be computed on bins or on a moving window
-	 * @param stateScores array of double containing the scores on which the average algorithm needs to be applied
-	 * @return an array containing an averaged score for each variant
+	 * Creates an instance of {@link VariantListAnalyzer}.
+	 * The positions and the genotype codes of the variants are copied in primitive arrays, the list is not retained
+	 * @param variantList list of variants sorted by position
+	 * @param halfWindowSize half size of the window used for the moving average or for the bins
+	 * @param computeMovingWindow true to average the scores on a moving window, false to average them on bins
 	 */
-	private double[] computeAvgStateScores(double[] stateScores) {
-		if (COMPUTE_MOVING_WINDOW) {
-			return computeMovingWindowAvg(stateScores);
+	public VariantListAnalyzer(List<Variant> variantList, int halfWindowSize, boolean computeMovingWindow) {
+		this.halfWindowSize = halfWindowSize;
+		this.computeMovingWindow = computeMovingWindow;
+		size = variantList.size();
+		positions = new int[size];
+		genotypeCodes = new byte[size];
+		// index of the first variant of each chromosome followed by the number of variants
+		int[] chromosomeStarts = new int[16];
+		int chromosomeCount = 0;
+		String chromosome = null;
+		int i = 0;
+		for (Variant currentVariant: variantList) {
+			if (!currentVariant.getChromosome().equals(chromosome)) {
+				chromosome = currentVariant.getChromosome();
+				if (chromosomeCount == chromosomeStarts.length - 1) {
+					chromosomeStarts = Arrays.copyOf(chromosomeStarts, chromosomeStarts.length * 2);
+				}
+				chromosomeStarts[chromosomeCount++] = i;
+			}
+			positions[i] = currentVariant.getPosition();
+			genotypeCodes[i] = (byte) currentVariant.getGenotypeCode();
+			i++;
+		}
+		chromosomeStarts[chromosomeCount] = size;
+		windowScores = new int[size * AVERAGED_STATES.length];
+		windowSizes = new int[size];
+		dominantStates = new byte[size];
+		if (computeMovingWindow) {
+			computeMovingWindowScores(chromosomeStarts, chromosomeCount);
 		} else {
-			return computeAvgStatesBinned(stateScores);
+			computeBinnedScores();
 		}
 	}
 
 
 	/**
-	 * Computes a moving window average on the specified array of double
-	 * @param stateScores array of double
-	 * @return an array containing the averaged scores
+	 * Computes the window scores and the dominant state of each variant using a moving window.
+	 * The window of a variant contains the variants of the same chromosome at less than {@link #halfWindowSize} bp.
+	 * The sums of the window are updated when the window slides, each variant enters and leaves the window once
+	 * so all the states are averaged in one O(n) pass
+	 * @param chromosomeStarts index of the first variant of each chromosome followed by the number of variants
+	 * @param chromosomeCount number of chromosomes
 	 */
-	private double[] computeMovingWindowAvg(double[] stateScores) {
-		double[] resultAvg = new double[stateScores.length];
-		int startIndex = 0;
-		
-		for (int i = 0; i < stateScores.length; i++) {
-			Variant currentVariant = variantList.get(i);
-			while ((startIndex < variantList.size()) &&
-					(variantList.get(startIndex).getPosition() < currentVariant.getPosition() - HALF_WINDOW_SIZE)) {
-				startIndex++;
-			}
-			int j = startIndex;
-			double sum = 0;
-			int count = 0;
-			while ((j < variantList.size()) &&
-					(variantList.get(j).getPosition() <= currentVariant.getPosition() + HALF_WINDOW_SIZE)) {
-				sum += stateScores[j];
-				count++;
-				j++;
+	private void computeMovingWindowScores(int[] chromosomeStarts, int chromosomeCount) {
+		int stateCount = AVERAGED_STATES.length;
+		int[] sums = new int[stateCount];
+		for (int k = 0; k < chromosomeCount; k++) {
+			// the windows don't overlap two chromosomes
+			int chromosomeStart = chromosomeStarts[k];
+			int chromosomeStop = chromosomeStarts[k + 1];
+			Arrays.fill(sums, 0);
+			int windowStart = chromosomeStart;	// first variant of the window
+			int windowStop = chromosomeStart;	// first variant after the window
+			for (int i = chromosomeStart; i < chromosomeStop; i++) {
+				long position = positions[i];
+				while ((windowStop < chromosomeStop) && (positions[windowStop] <= position + halfWindowSize)) {
+					int scoreOffset = (genotypeCodes[windowStop] & 0xFF) * stateCount;
+					for (int j = 0; j < stateCount; j++) {
+						sums[j] += SCORES[scoreOffset + j];
+					}
+					windowStop++;
+				}
+				while (positions[windowStart] < position - halfWindowSize) {
+					int scoreOffset = (genotypeCodes[windowStart] & 0xFF) * stateCount;
+					for (int j = 0; j < stateCount; j++) {
+						sums[j] -= SCORES[scoreOffset + j];
+					}
+					windowStart++;
+				}
+				setWindowScores(i, sums, windowStop - windowStart);
 			}
-			resultAvg[i] = sum / (double) count;			
-		}		
-		return resultAvg;
+		}
 	}
 
 
 	/**
-	 * Computes a binned average on the specified array of double
-	 * @param stateScores array of double
-	 * @return an array containing the averaged scores
+	 * Computes the window scores and the dominant state of each variant using bins of 2 * {@link #halfWindowSize} bp
 	 */
-	private double[] computeAvgStatesBinned(double[] stateScores) {
-		double[] resultAvg = new double[stateScores.length];
-		int currentWindowStop = HALF_WINDOW_SIZE * 2;
+	private void computeBinnedScores() {
+		int stateCount = AVERAGED_STATES.length;
+		int[] sums = new int[stateCount];
+		int currentWindowStop = halfWindowSize * 2;
 		int indexWindowStart = 0; 
 		int currentIndex = 0;
-		while (currentIndex < variantList.size()) {
+		while (currentIndex < size) {
 			indexWindowStart = currentIndex;
-			double sum = 0;
-			int count = 0;
-			while ((currentIndex < variantList.size()) && 
-					(variantList.get(currentIndex).getPosition() < currentWindowStop)) {
-				sum += stateScores[currentIndex];
-				count++;
+			Arrays.fill(sums, 0);
+			while ((currentIndex < size) && (positions[currentIndex] < currentWindowStop)) {
+				int scoreOffset = (genotypeCodes[currentIndex] & 0xFF) * stateCount;
+				for (int j = 0; j < stateCount; j++) {
+					sums[j] += SCORES[scoreOffset + j];
+				}
 				currentIndex++;
 			}
-			double currentScore = sum / (double) count; 
 			for (int i = indexWindowStart; i < currentIndex; i++) {
-				resultAvg[i] = currentScore;
+				setWindowScores(i, sums, currentIndex - indexWindowStart);
 			}
-			currentWindowStop += HALF_WINDOW_SIZE * 2;
+			currentWindowStop += halfWindowSize * 2;
 		}
-		return resultAvg;
-	}
-	
-	
-	/**
-	 * @return an array with the dominant inheritance state of each variant.  
-	 */
-	private QuartetInheritanceState[] computeDominantInheritanceStates() {
-		QuartetInheritanceState[] dominantInheritanceStates = new QuartetInheritanceState[variantList.size()];
-		for (int i = 0; i < variantList.size(); i++) {
-			QuartetInheritanceState dominantState = QuartetInheritanceState.IDENTICAL;
-			double maxScore = identicalAvgs[i];
-			if (maternalIdenticalAvgs[i] > maxScore) {
-				maxScore = maternalIdenticalAvgs[i];
-				dominantState = QuartetInheritanceState.MATERNAL;
-			}
-			if (paternalIdenticalAvgs[i] > maxScore) {
-				maxScore = paternalIdenticalAvgs[i];
-				dominantState = QuartetInheritanceState.PATERNAL;
-			}
-			if (nonIdenticalAvgs[i] > maxScore) {
-				maxScore = nonIdenticalAvgs[i];
-				dominantState = QuartetInheritanceState.NON_IDENTICAL;
-			}
-			if (nonInfomativeAvgs[i] > maxScore) {
-				maxScore = nonInfomativeAvgs[i];
-				dominantState = QuartetInheritanceState.NOT_INFORMATIVE;
-			}
-			if (nonMendelianAvgs[i] > maxScore) {
-				dominantState = QuartetInheritanceState.MIE;
-			}
-			dominantInheritanceStates[i] = dominantState;			
-		}		
-		return dominantInheritanceStates;
-	}
-
-
-	/**
-	 * @return the variantList
-	 */
-	public final List<Variant> getVariantList() {
-		return variantList;
-	}
-
-
-	/**
-	 * @return the identicals
-	 */
-	public final double[] getIdenticals() {
-		return identicals;
-	}
-
-
-	/**
-	 * @return the identicalAvgs
-	 */
-	public final double[] getIdenticalAvgs() {
-		return identicalAvgs;
-	}
-
-
-	/**
-	 * @return the maternalIdenticals
-	 */
-	public final double[] getMaternalIdenticals() {
-		return maternalIdenticals;
-	}
-
-
-	/**
-	 * @return the maternalIdenticalAvgs
-	 */
-	public final double[] getMaternalIdenticalAvgs() {
-		return maternalIdenticalAvgs;
 	}
 
 
 	/**
-	 * @return the paternalIdenticals
+	 * Sets the window scores of a variant and computes its dominant state.
+	 * The first state with the highest sum is the dominant state
+	 * @param index index of a variant
+	 * @param sums sums in half units of the scores of the window of the variant
+	 * @param windowSize number of variants in the window
 	 */
-	public final double[] getPaternalIdenticals() {
-		return paternalIdenticals;
-	}
-
-
-	/**
-	 * @return the paternalIdenticalAvgs
-	 */
-	public final double[] getPaternalIdenticalAvgs() {
-		return paternalIdenticalAvgs;
+	private void setWindowScores(int index, int[] sums, int windowSize) {
+		int scoreOffset = index * sums.length;
+		int dominantState = 0;
+		for (int j = 0; j < sums.length; j++) {
+			windowScores[scoreOffset + j] = sums[j];
+			if (sums[j] > sums[dominantState]) {
+				dominantState = j;
+			}
+		}
+		windowSizes[index] = windowSize;
+		dominantStates[index] = (byte) dominantState;
 	}
 
 
 	/**
-	 * @return the nonIdenticals
+	 * @param state a {@link QuartetInheritanceState}
+	 * @return the index of the state in {@link #AVERAGED_STATES}
 	 */
-	public final double[] getNonIdenticals() {
-		return nonIdenticals;
+	static int getStateIndex(QuartetInheritanceState state) {
+		int stateIndex = STATE_INDEXES[state.ordinal()];
+		if (stateIndex == -1) {
+			throw new IllegalArgumentException("No score for the inheritance state " + state);
+		}
+		return stateIndex;
 	}
 
 
 	/**
-	 * @return the nonIdenticalAvgs
+	 * @return the number of variants
 	 */
-	public final double[] getNonIdenticalAvgs() {
-		return nonIdenticalAvgs;
+	public final int size() {
+		return size;
 	}
 
 
 	/**
-	 * @return the nonInfomatives
+	 * @param state an inheritance state (identical, maternal, paternal, non identical, not informative or MIE)
+	 * @param index index of a variant
+	 * @return the score of the specified state for the specified variant
 	 */
-	public final double[] getNonInfomatives() {
-		return nonInfomatives;
+	public final double getScore(QuartetInheritanceState state, int index) {
+		return SCORES[((genotypeCodes[index] & 0xFF) * AVERAGED_STATES.length) + getStateIndex(state)] * 0.5;
 	}
 
 
 	/**
-	 * @return the nonInfomativeAvgs
+	 * @param state an inheritance state (identical, maternal, paternal, non identical, not informative or MIE)
+	 * @param index index of a variant
+	 * @return the score of the specified state averaged on the window of the specified variant
 	 */
-	public final double[] getNonInfomativeAvgs() {
-		return nonInfomativeAvgs;
+	public final double getAverageScore(QuartetInheritanceState state, int index) {
+		return (windowScores[(index * AVERAGED_STATES.length) + getStateIndex(state)] * 0.5) / windowSizes[index];
 	}
 
 
 	/**
-	 * @return the nonMendelians
+	 * @param index index of a variant
+	 * @return the dominant inheritance state of the specified variant
 	 */
-	public final double[] getNonMendelians() {
-		return nonMendelians;
+	public final QuartetInheritanceState getDominantInheritanceState(int index) {
+		return AVERAGED_STATES[dominantStates[index]];
 	}
 
 
 	/**
-	 * @return the nonMendelianAvgs
+	 * @return the half size of the window used for the moving average or for the bins
 	 */
-	public final double[] getNonMendelianAvgs() {
-		return nonMendelianAvgs;
+	public final int getHalfWindowSize() {
+		return halfWindowSize;
 	}
 
 
 	/**
-	 * @return the dominantInheritanceStates
+	 * @return true if the scores are averaged on a moving window, false if they are averaged on bins
 	 */
-	public final QuartetInheritanceState[] getDominantInheritanceStates() {
-		return dominantInheritanceStates;
+	public final boolean isComputeMovingWindow() {
+		return computeMovingWindow;
 	}
 }
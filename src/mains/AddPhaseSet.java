@@ -1,8 +1,6 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
@@ -10,8 +8,12 @@ import dataStructures.InheritanceStateBlock;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.QuartetMember;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -24,26 +26,29 @@ public class AddPhaseSet {
 	
 	
 	/**
-	 * Usage: java AddPhaseSet -v <path to the VCF file> -b <path to the block file>
-	 * @param args -v <path to the VCF file> -b <path to the block file>
+	 * Usage: java AddPhaseSet -v <path to the VCF file> -b <path to the block file> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file> -b <path to the block file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java AddPhaseSet.java -v <path to the VCF file> -b <path to the block file>");
+			System.out.println("Usage: java AddPhaseSet.java -v <path to the VCF file> -b <path to the block file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
 				File VCFFile = null;
 				File blockFile = null;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-v")) {
 						VCFFile = new File(args[i + 1]);
 					} else if (args[i].equals("-b")) {
 						blockFile = new File(args[i + 1]);
-					}			
+					} else if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
+					}
 				}
-				addPhaseSet(VCFFile, blockFile);
+				addPhaseSet(VCFFile, blockFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -59,73 +64,94 @@ public class AddPhaseSet {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 4) {
-			return false;
-		}
-		if ((args[0].equals("-v") && args[2].equals("-b")) 
-				|| (args[0].equals("-b") && args[2].equals("-v"))) {
-			return true;
-		} else {
+		if ((args.length != 4) && (args.length != 6)) {
 			return false;
 		}
+		String[] mandatoryParameters = {"-v", "-b"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
+		}		
+		return true;
 	}
 
 
 	/**
-	 * Adds the phase set information to a vcf file
-	 * @param VCFFile VCF files with the variants of the family quartet
+	 * Creates the transforms adding the phase set information to the lines of a VCF file
 	 * @param blockFile block files in a bgr format
-	 * @throws IOException if the VCF file is not valid
+	 * @return a {@link VCFLineTransformFactory} creating the transforms of the lines
+	 * @throws IOException if a file cannot be read
 	 */
-	private static void addPhaseSet(File VCFFile, File blockFile) throws IOException {
-		InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
+	public static VCFLineTransformFactory createTransformFactory(File blockFile) throws IOException {
+		final InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
 		blockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			boolean formatStarted = false;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) == '#') {
-					if (line.startsWith("##FORMAT")) {
-						formatStarted = true;
-					} else if (formatStarted) {
-						System.out.println(PS_FORMAT_HEADER);
-						formatStarted= false;
+		return new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+					private boolean formatStarted = false;						// true while the format header lines are read
+
+					@Override
+					public String transformHeaderLine(String line) {
+						if (line.startsWith("##FORMAT")) {
+							formatStarted = true;
+						} else if (formatStarted) {
+							formatStarted = false;
+							return PS_FORMAT_HEADER + System.lineSeparator() + line;
+						}
+						return line;
 					}
-					System.out.println(line);
-				} else {
-					try {
-						Variant currentVariant = new Variant(line);
-						InheritanceStateBlock<CrossTriosInheritanceState> isBlock = blockList.getBlock(currentVariant);
-						if (isBlock != null) {
-							boolean isAtLeastOneMemberPhased = false;
-							for (QuartetMember member: QuartetMember.values()) {
-								if (currentVariant.isPhased(member)) {
-									isAtLeastOneMemberPhased = true;
+
+					@Override
+					public String transformVariantLine(String line) {
+						try {
+							Variant currentVariant = new Variant(parser.parse(line));
+							InheritanceStateBlock<CrossTriosInheritanceState> isBlock = blockList.getBlock(currentVariant);
+							if (isBlock != null) {
+								boolean isAtLeastOneMemberPhased = false;
+								for (QuartetMember member: QuartetMember.values()) {
+									if (currentVariant.isPhased(member)) {
+										isAtLeastOneMemberPhased = true;
+									}
+								}
+								if (isAtLeastOneMemberPhased) {
+									line = addPhaseSet(line, isBlock, currentVariant);
 								}
 							}
-							if (isAtLeastOneMemberPhased) {
-								line = addPhaseSet(line, isBlock, currentVariant);
-							}
+						} catch (VCFException e) {
+							// do nothing
 						}
-					} catch (VCFException e) {
-						// do nothing
-					} finally {
-						System.out.println(line);
+						return line;
 					}
-				}
-			}
-		} finally {
-			if (reader != null) {
-				reader.close();
+				};
 			}
-		}
+		};
 	}
 
 
+	/**
+	 * Adds the phase set information to a vcf file
+	 * @param VCFFile VCF files with the variants of the family quartet
+	 * @param blockFile block files in a bgr format
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
+	 * @throws IOException if the VCF file is not valid
+	 */
+	private static void addPhaseSet(File VCFFile, File blockFile, File outputFile) throws IOException {
+		// the lines are transformed in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(createTransformFactory(blockFile));
+		pipeline.run(VCFFile, outputFile);
+	}
+
+
+
 	/**
 	 * @param line vcf line 
 	 * @param isBlock block of the current variant
@@ -144,11 +170,11 @@ public class AddPhaseSet {
 				splitLine[currentMemberIndex] += ":" + phaseSet;
 			}
 		}	
-		String newLine = splitLine[0];
+		StringBuilder newLine = new StringBuilder(line.length() + 16).append(splitLine[0]);
 		for (int i = 1; i < splitLine.length; i++) {
-			newLine += "\t" + splitLine[i];
+			newLine.append('\t').append(splitLine[i]);
 		}
-		return newLine;
+		return newLine.toString();
 	}
 
 
@@ -0,0 +1,107 @@
+package mains;
+
+import java.io.File;
+import java.io.IOException;
+
+import dataStructures.InheritanceStateBlockListFactory;
+import dataStructures.InheritanceStateHMM;
+
+
+/**
+ * Calls the inheritance state blocks of a family quartet using a hidden Markov model (see {@link InheritanceStateHMM})
+ * and prints them as a quartet bgr file or as a cross trios bgr file.
+ * The bgr files can be used instead of the blocks computed from the output of ISCA
+ * @author Julien Lajugie
+ */
+public class CallInheritanceStateBlocks {
+
+	/**
+	 * Usage: java CallInheritanceStateBlocks -v <path to the VCF or QGT file> -r <recombination rate in cM/Mb (optional)> -e <genotype error rate (optional)> -t <block type: quartet or trios (optional)>
+	 * @param args -v <path to the VCF or QGT file> -r <recombination rate in cM/Mb (optional)> -e <genotype error rate (optional)> -t <block type: quartet or trios (optional)>
+	 */
+	public static void main(String[] args) {
+		// exit the program if the input parameters are not correct
+		if (!areParametersValid(args)) {
+			System.out.println("Usage: java CallInheritanceStateBlocks.java -v <path to the VCF or QGT file> -r <recombination rate in cM/Mb (optional)> -e <genotype error rate (optional)> -t <block type: quartet or trios (optional)>");
+			System.exit(-1);
+		} else {
+			File variantFile = null;
+			double recombinationRate = InheritanceStateHMM.DEFAULT_RECOMBINATION_RATE;
+			double errorRate = InheritanceStateHMM.DEFAULT_ERROR_RATE;
+			boolean isCrossTrios = false;
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("-v")) {
+					variantFile = new File(args[i + 1]);
+				} else if (args[i].equals("-r")) {
+					recombinationRate = Double.parseDouble(args[i + 1]);
+				} else if (args[i].equals("-e")) {
+					errorRate = Double.parseDouble(args[i + 1]);
+				} else if (args[i].equals("-t")) {
+					isCrossTrios = args[i + 1].equals("trios");
+				}
+			}
+			try {
+				callInheritanceStateBlocks(variantFile, new InheritanceStateHMM(recombinationRate, errorRate), isCrossTrios);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+
+	/**
+	 * @param args parameters from the main function
+	 * @return true if the parameters are valid
+	 */
+	private static boolean areParametersValid(String[] args) {
+		if ((args == null) || (args.length == 0) || (args.length > 8) || ((args.length % 2) != 0)) {
+			return false;
+		}
+		boolean isFileFound = false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-v")) {
+				isFileFound = true;
+			} else if (args[i].equals("-r")) {
+				try {
+					if (Double.parseDouble(args[i + 1]) <= 0) {
+						return false;
+					}
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			} else if (args[i].equals("-e")) {
+				try {
+					double errorRate = Double.parseDouble(args[i + 1]);
+					if ((errorRate <= 0) || (errorRate >= 1)) {
+						return false;
+					}
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			} else if (args[i].equals("-t")) {
+				if (!args[i + 1].equals("quartet") && !args[i + 1].equals("trios")) {
+					return false;
+				}
+			} else {
+				return false;
+			}
+		}
+		return isFileFound;
+	}
+
+
+	/**
+	 * Calls the inheritance state blocks and prints them in the standard output in a bgr format
+	 * @param variantFile VCF or QGT file with the variants of the family quartet
+	 * @param hmm {@link InheritanceStateHMM} calling the inheritance states
+	 * @param isCrossTrios true to print the cross trios states, false to print the quartet states
+	 * @throws IOException
+	 */
+	private static void callInheritanceStateBlocks(File variantFile, InheritanceStateHMM hmm, boolean isCrossTrios) throws IOException {
+		if (isCrossTrios) {
+			InheritanceStateBlockListFactory.createCrossTriosFromHMM(variantFile, hmm).printBlocksBgrFormat();
+		} else {
+			InheritanceStateBlockListFactory.createFromHMM(variantFile, hmm).printBlocksBgrFormat();
+		}
+	}
+}
@@ -1,14 +1,13 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.PhasedGenotypesSeries;
 import dataStructures.PhasedVector;
-import dataStructures.PhasedVectorList;
+import dataStructures.PhasedVectorMergeJoin;
 import dataStructures.QuartetMember;
+import dataStructures.VCFPhasedVectorSource;
 
 
 /**
@@ -94,38 +93,27 @@ public class Compare2TriosPhasedByTransmission {
 	 * @throws IOException
 	 */
 	private static void compare2TriosPhasedByTransmission(File vcfTrio1, File vcfTrio2, QuartetMember quartetMember) throws IOException {
-		// load trio 1		
-		PhasedVectorList trio1VectorList = new PhasedVectorList();
-		trio1VectorList.loadFromVCFFile(vcfTrio1);
-		// load trio 2
-		PhasedVectorList trio2VectorList = new PhasedVectorList();
-		trio2VectorList.loadFromVCFFile(vcfTrio2);		
-		BufferedReader reader = null;
+		// the two trios are read in lockstep
+		PhasedVectorMergeJoin mergeJoin = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfTrio1));
-			String line = null;
+			mergeJoin = new PhasedVectorMergeJoin(VCFPhasedVectorSource.open(vcfTrio1, null), VCFPhasedVectorSource.open(vcfTrio2, null));
 			PhasedGenotypesSeries phasedVectorSeries = new PhasedGenotypesSeries();
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) != '#') {
-					String[] splitLine = line.split("\t");
-					String chromosome = splitLine[0].trim();
-					int position = Integer.parseInt(splitLine[1].trim());
-					PhasedVector trio1PhasedVector = trio1VectorList.getPhasedVector(chromosome, position);
-					PhasedVector trio2PhasedVector = trio2VectorList.getPhasedVector(chromosome, position);
-					if ((trio1PhasedVector != null) && (trio2PhasedVector != null)) {
-						int result = phasedVectorSeries.add2GeneticGenotypes(trio1PhasedVector.getGenotype(quartetMember), trio2PhasedVector.getGenotype(quartetMember), chromosome, position);
-						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-							phasedVectorSeries.printResultPhasingBgr();
-							phasedVectorSeries.reset();
-						}
+			// loop until the end of both files
+			while (mergeJoin.next()) {
+				// only the positions present in both trios are compared
+				if (mergeJoin.isAligned()) {
+					String trio1Genotype = PhasedVector.getGenotype(mergeJoin.getVector(0), quartetMember);
+					String trio2Genotype = PhasedVector.getGenotype(mergeJoin.getVector(1), quartetMember);
+					int result = phasedVectorSeries.add2GeneticGenotypes(trio1Genotype, trio2Genotype, mergeJoin.getChromosome(), mergeJoin.getPosition());
+					if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+						phasedVectorSeries.printResultPhasingBgr();
+						phasedVectorSeries.reset();
 					}
 				}
 			}
 		} finally {
-			if (reader != null) {
-				reader.close();
+			if (mergeJoin != null) {
+				mergeJoin.close();
 			}
 		}
 	}
@@ -1,13 +1,13 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.PhasedGenotypesSeries;
 import dataStructures.PhasedVector;
-import dataStructures.PhasedVectorList;
+import dataStructures.PhasedVectorMergeJoin;
+import dataStructures.QuartetMember;
+import dataStructures.VCFPhasedVectorSource;
 
 
 /**
@@ -75,61 +75,51 @@ public class ComparePhysicalAndGeneticPhasing {
 	 * @throws IOException 
 	 */
 	private static void comparePhysicalAndGeneticPhasing(File geneticPhasingFile, File physicalPhasingFile) throws IOException {
-		// load genetic phasing file		
-		PhasedVectorList geneticVectorList = new PhasedVectorList();
-		geneticVectorList.loadFromVCFFile(geneticPhasingFile);
-
-		// load physical phasing file
-		PhasedVectorList physicalVectorList = new PhasedVectorList();
-		physicalVectorList.loadFromVCFFile(physicalPhasingFile);
-		BufferedReader reader = null;
+		// the genetic and the physical phasing files are read in lockstep
+		PhasedVectorMergeJoin mergeJoin = null;
 		try {
-			reader = new BufferedReader(new FileReader(geneticPhasingFile));
-			String line = null;
+			mergeJoin = new PhasedVectorMergeJoin(VCFPhasedVectorSource.open(geneticPhasingFile, null), VCFPhasedVectorSource.open(physicalPhasingFile, null));
 			int compatibleGenotypesCount = 0; // count of variants with a compatible read back and haplotyping phasing
 			int incompatibleGenotypesCount = 0; // count of variants with a incompatible read back and haplotyping phasing
 			PhasedGenotypesSeries paternalSeries = new PhasedGenotypesSeries();
 			PhasedGenotypesSeries maternalSeries = new PhasedGenotypesSeries();
 			PhasedGenotypesSeries kid1Series = new PhasedGenotypesSeries();
 			PhasedGenotypesSeries kid2Series = new PhasedGenotypesSeries();
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) != '#') {
-					String[] splitLine = line.split("\t");
-					String chromosome = splitLine[0].trim();
-					int position = Integer.parseInt(splitLine[1].trim());
-					PhasedVector geneticPhasedVector = geneticVectorList.getPhasedVector(chromosome, position);
-					PhasedVector physicalPhasedVector = physicalVectorList.getPhasedVector(chromosome, position);
+			// loop until the end of both files
+			while (mergeJoin.next()) {
+				// only the positions with a genetic and a physical vector are compared
+				if (mergeJoin.isAligned()) {
+					String chromosome = mergeJoin.getChromosome();
+					int position = mergeJoin.getPosition();
+					short geneticVector = mergeJoin.getVector(0);
+					short physicalVector = mergeJoin.getVector(1);
 					// father
-					if ((geneticPhasedVector != null) && (physicalPhasedVector != null)) {
-						int result = paternalSeries.addGeneticPhysicalGenotypes(geneticPhasedVector.getFatherGenotype(), physicalPhasedVector.getFatherGenotype(), chromosome, position);
-						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-							compatibleGenotypesCount += paternalSeries.getCompatibleGenotypes();
-							incompatibleGenotypesCount += paternalSeries.getIncompatibleGenotypes();
-							paternalSeries.reset();
-						}
-						// mother
-						result = maternalSeries.addGeneticPhysicalGenotypes(geneticPhasedVector.getMotherGenotype(), physicalPhasedVector.getMotherGenotype(), chromosome, position);
-						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-							compatibleGenotypesCount += maternalSeries.getCompatibleGenotypes();
-							incompatibleGenotypesCount += maternalSeries.getIncompatibleGenotypes();
-							maternalSeries.reset();
-						}
-						// kid 1
-						result = kid1Series.addGeneticPhysicalGenotypes(geneticPhasedVector.getKid1Genotype(), physicalPhasedVector.getKid1Genotype(), chromosome, position);
-						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-							compatibleGenotypesCount += kid1Series.getCompatibleGenotypes();
-							incompatibleGenotypesCount += kid1Series.getIncompatibleGenotypes();
-							kid1Series.reset();
-						}
-						// kid 2
-						result = kid2Series.addGeneticPhysicalGenotypes(geneticPhasedVector.getKid2Genotype(), physicalPhasedVector.getKid2Genotype(), chromosome, position);
-						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-							compatibleGenotypesCount += kid2Series.getCompatibleGenotypes();
-							incompatibleGenotypesCount += kid2Series.getIncompatibleGenotypes();							
-							kid2Series.reset();
-						}
+					int result = paternalSeries.addGeneticPhysicalGenotypes(PhasedVector.getGenotype(geneticVector, QuartetMember.FATHER), PhasedVector.getGenotype(physicalVector, QuartetMember.FATHER), chromosome, position);
+					if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+						compatibleGenotypesCount += paternalSeries.getCompatibleGenotypes();
+						incompatibleGenotypesCount += paternalSeries.getIncompatibleGenotypes();
+						paternalSeries.reset();
+					}
+					// mother
+					result = maternalSeries.addGeneticPhysicalGenotypes(PhasedVector.getGenotype(geneticVector, QuartetMember.MOTHER), PhasedVector.getGenotype(physicalVector, QuartetMember.MOTHER), chromosome, position);
+					if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+						compatibleGenotypesCount += maternalSeries.getCompatibleGenotypes();
+						incompatibleGenotypesCount += maternalSeries.getIncompatibleGenotypes();
+						maternalSeries.reset();
+					}
+					// kid 1
+					result = kid1Series.addGeneticPhysicalGenotypes(PhasedVector.getGenotype(geneticVector, QuartetMember.KID1), PhasedVector.getGenotype(physicalVector, QuartetMember.KID1), chromosome, position);
+					if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+						compatibleGenotypesCount += kid1Series.getCompatibleGenotypes();
+						incompatibleGenotypesCount += kid1Series.getIncompatibleGenotypes();
+						kid1Series.reset();
+					}
+					// kid 2
+					result = kid2Series.addGeneticPhysicalGenotypes(PhasedVector.getGenotype(geneticVector, QuartetMember.KID2), PhasedVector.getGenotype(physicalVector, QuartetMember.KID2), chromosome, position);
+					if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+						compatibleGenotypesCount += kid2Series.getCompatibleGenotypes();
+						incompatibleGenotypesCount += kid2Series.getIncompatibleGenotypes();
+						kid2Series.reset();
 					}
 				}
 			}
@@ -138,8 +128,8 @@ public class ComparePhysicalAndGeneticPhasing {
 					+ ", incompatible vector count: " + incompatibleGenotypesCount
 					+ ", ratio: " + ratioCompatible);
 		} finally {
-			if (reader != null) {
-				reader.close();
+			if (mergeJoin != null) {
+				mergeJoin.close();
 			}
 		}
 	}
@@ -2,11 +2,12 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 /**
@@ -44,8 +45,9 @@ public class Compute2_2Vs2_5HeterozygousStats {
 	private static void compute2_2Vs2_5HeterozygousStats(File vcfFile) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			long SNPHomo = 0;
 			long SNPHetero = 0;
 			long InsHomo = 0;
@@ -57,7 +59,7 @@ public class Compute2_2Vs2_5HeterozygousStats {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						if (currentVariant.isSNP()) {
 							if ((currentVariant.getGenotypePattern().startsWith("aa+ab")) ||
 									(currentVariant.getGenotypePattern().startsWith("ab+aa"))) {
@@ -0,0 +1,160 @@
+package mains;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import dataStructures.Pedigree;
+import dataStructures.PedigreeGenotypes;
+import dataStructures.VCFLineParser;
+import utils.GenomicFileReader;
+
+
+/**
+ * Computes the number of heterozygous, uncalled and mendelian inconsistent genotypes of each member of each family
+ * of a multi-sample VCF file in one pass over the file.
+ * The families are read from a PED file. Without PED file the VCF file contains one family with the 2 parents followed by their children
+ * @author Julien Lajugie
+ */
+public class ComputeCohortStats {
+
+	/**
+	 * Usage: java ComputeCohortStats.java -v <path to the VCF file> -p <path to the PED file (optional)>
+	 * @param args -v <path to the VCF file> -p <path to the PED file (optional)>
+	 */
+	public static void main(String[] args) {
+		// exit the program if the input parameters are not correct
+		if (!areParametersValid(args)) {
+			System.out.println("Usage: java ComputeCohortStats.java -v <path to the VCF file> -p <path to the PED file (optional)>");
+			System.exit(-1);
+		} else {
+			File VCFFile = null;
+			File pedFile = null;
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("-v")) {
+					VCFFile = new File(args[i + 1]);
+				}
+				if (args[i].equals("-p")) {
+					pedFile = new File(args[i + 1]);
+				}
+			}
+			try {
+				computeCohortStats(VCFFile, pedFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+
+	/**
+	 * @param args parameters from the main function
+	 * @return true if the parameters are valid
+	 */
+	private static boolean areParametersValid(String[] args) {
+		if (args == null) {
+			return false;
+		}
+		if ((args.length != 2) && (args.length != 4)) {
+			return false;
+		}
+		boolean isVCFFound = false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-v")) {
+				isVCFFound = true;
+			} else if (!args[i].equals("-p")) {
+				return false;
+			}
+		}
+		return isVCFFound;
+	}
+
+
+	/**
+	 * Computes the number of heterozygous, uncalled and mendelian inconsistent genotypes of each member of each family
+	 * @param VCFFile a multi-sample VCF file
+	 * @param pedFile PED file with the families of the VCF file. Null if the VCF file contains one family with the 2 parents followed by their children
+	 * @throws IOException
+	 */
+	private static void computeCohortStats(File VCFFile, File pedFile) throws IOException {
+		BufferedReader reader = null;
+		try {
+			reader = GenomicFileReader.open(VCFFile);
+			String line = null;
+			// the samples are read from the header line
+			List<String> sampleNames = null;
+			while ((sampleNames == null) && ((line = reader.readLine()) != null)) {
+				if (line.startsWith("#CHROM")) {
+					sampleNames = Pedigree.readSampleNames(line);
+				}
+			}
+			if (sampleNames == null) {
+				throw new IOException("No #CHROM header line in " + VCFFile.getName());
+			}
+			List<Pedigree> pedigrees;
+			if (pedFile == null) {
+				pedigrees = new ArrayList<>();
+				pedigrees.add(Pedigree.createNuclearFamily(VCFFile.getName(), sampleNames));
+			} else {
+				pedigrees = Pedigree.loadFromPedFile(pedFile, sampleNames);
+			}
+			// one reusable genotype record and one count per member for each family
+			PedigreeGenotypes[] genotypes = new PedigreeGenotypes[pedigrees.size()];
+			long[][] heterozygousCounts = new long[pedigrees.size()][];
+			long[][] uncalledCounts = new long[pedigrees.size()][];
+			long[][] MIECounts = new long[pedigrees.size()][];
+			for (int i = 0; i < pedigrees.size(); i++) {
+				int memberCount = pedigrees.get(i).getMemberCount();
+				genotypes[i] = new PedigreeGenotypes(pedigrees.get(i));
+				heterozygousCounts[i] = new long[memberCount];
+				uncalledCounts[i] = new long[memberCount];
+				MIECounts[i] = new long[memberCount];
+			}
+			int fieldCount = VCFLineParser.FIRST_SAMPLE_FIELD_INDEX + sampleNames.size();
+			VCFLineParser parser = new VCFLineParser();
+			long variantCount = 0;
+			// loop until eof, all the families are processed in the same pass
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty() && (line.charAt(0) != '#')) {
+					parser.parse(line);
+					if (parser.getFieldCount() != fieldCount) {
+						throw new IOException("Invalid number of samples: " + line);
+					}
+					variantCount++;
+					for (int i = 0; i < genotypes.length; i++) {
+						PedigreeGenotypes familyGenotypes = genotypes[i].parse(parser);
+						for (int j = 0; j < heterozygousCounts[i].length; j++) {
+							if (!familyGenotypes.isCalled(j)) {
+								uncalledCounts[i][j]++;
+							} else {
+								if (familyGenotypes.isHeterozygous(j)) {
+									heterozygousCounts[i][j]++;
+								}
+								if (familyGenotypes.isMendelianError(j)) {
+									MIECounts[i][j]++;
+								}
+							}
+						}
+					}
+				}
+			}
+			System.out.println("Variant count: " + variantCount);
+			System.out.println("Family\tSample\tFather\tMother\tHeterozygous\tUncalled\tMIE");
+			for (int i = 0; i < pedigrees.size(); i++) {
+				Pedigree pedigree = pedigrees.get(i);
+				for (int j = 0; j < pedigree.getMemberCount(); j++) {
+					String father = pedigree.getFatherIndex(j) == -1 ? "-" : pedigree.getMemberName(pedigree.getFatherIndex(j));
+					String mother = pedigree.getMotherIndex(j) == -1 ? "-" : pedigree.getMemberName(pedigree.getMotherIndex(j));
+					System.out.println(pedigree.getFamilyId() + "\t" + pedigree.getMemberName(j) + "\t" + father + "\t" + mother + "\t"
+							+ heterozygousCounts[i][j] + "\t" + uncalledCounts[i][j] + "\t" + MIECounts[i][j]);
+				}
+			}
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+		}
+	}
+}
@@ -2,7 +2,6 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
@@ -13,8 +12,10 @@ import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.SegmentalDuplicationList;
 import dataStructures.TrioInheritanceState;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 
@@ -93,8 +94,9 @@ public class ComputeErrorRateFromIdBlocks {
 		}
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
+			reader = GenomicFileReader.open(VCFFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			int variantCount = 0;
 			int errorCount = 0;
 			int MIEErrorCount = 0;
@@ -105,7 +107,7 @@ public class ComputeErrorRateFromIdBlocks {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						if (segDupList == null || !segDupList.isInSegmentalDuplication(currentVariant)) {
 							if (!currentVariant.isIndel()) {
 								InheritanceStateBlock<CrossTriosInheritanceState> currentBlock = blockList.getBlock(currentVariant);
@@ -2,7 +2,6 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.AlleleType;
@@ -10,8 +9,10 @@ import dataStructures.CrossTriosInheritanceState;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.SegmentalDuplicationList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 /**
@@ -90,8 +91,9 @@ public class ComputeErrorRateFromInvariantPositions {
 		}
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
+			reader = GenomicFileReader.open(VCFFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			int variantCount = 0;
 			int itemCount = 0;
 			int errorCount = 0;
@@ -102,7 +104,7 @@ public class ComputeErrorRateFromInvariantPositions {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						if (segDupList == null || !segDupList.isInSegmentalDuplication(currentVariant)) {
 							if (!currentVariant.isIndel()) {
 								variantCount++;
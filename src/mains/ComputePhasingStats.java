@@ -2,12 +2,13 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.QuartetMember;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 /**
@@ -46,8 +47,9 @@ public class ComputePhasingStats {
 	private static void computePhasingStats(File vcfFile) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			long fatherUnphased = 0;
 			long fatherPhased = 0;
 			long fatherHeteroPhased = 0;
@@ -66,7 +68,7 @@ public class ComputePhasingStats {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						if (currentVariant.isSNP()) {
 							if (currentVariant.isPhased(QuartetMember.FATHER)) {
 								fatherPhased++;
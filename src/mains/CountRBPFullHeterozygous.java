@@ -2,19 +2,21 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import dataStructures.PhasedGenotypesSeries;
 import dataStructures.PhasedVector;
-import dataStructures.PhasedVectorList;
+import dataStructures.PhasedVectorMergeJoin;
 import dataStructures.QuartetMember;
 import dataStructures.SegmentalDuplication;
 import dataStructures.SegmentalDuplicationList;
+import dataStructures.VCFLineParser;
+import dataStructures.VCFPhasedVectorSource;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 /**
@@ -84,18 +86,19 @@ public class CountRBPFullHeterozygous {
 	private static void countRBPFullHeterozygous(File geneticPhasingFile, File physicalPhasingFile) throws IOException {
 		BufferedReader reader = null;
 		String line = null;
+		VCFLineParser parser = new VCFLineParser();
 		int fullHeterozygousPhasedCount = 0;
 		int fullHeterozygousUnphasedCount = 0;
 		Map<QuartetMember, SegmentalDuplicationList> commonPhasedBlocks = createCommonPhasedBlocks(geneticPhasingFile, physicalPhasingFile);
 		Map<QuartetMember, SegmentalDuplicationList> RBPhasedBlocks = createRBPBlocks(physicalPhasingFile);
 		try {
-			reader = new BufferedReader(new FileReader(physicalPhasingFile));
+			reader = GenomicFileReader.open(physicalPhasingFile);
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
 						Variant variant;
-						variant = new Variant(line);
+						variant = new Variant(parser.parse(line));
 						if (variant.getGenotypePattern().equals("ab/ab;ab/ab")) {
 							boolean phasedMemberFound = false;
 							for (QuartetMember member: QuartetMember.values()) {
@@ -141,8 +144,9 @@ public class CountRBPFullHeterozygous {
 
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(physicalPhasingFile));
+			reader = GenomicFileReader.open(physicalPhasingFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 
 			// start positions
 			Map<QuartetMember, Integer> startPositions = new HashMap<>();
@@ -171,14 +175,14 @@ public class CountRBPFullHeterozygous {
 			isBlockFirstVariants.put(QuartetMember.MOTHER, true);
 			isBlockFirstVariants.put(QuartetMember.KID1, true);
 			isBlockFirstVariants.put(QuartetMember.KID2, true);
-
+
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					Variant currentVariant;
 					try {
-						currentVariant = new Variant(line);
+						currentVariant = new Variant(parser.parse(line));
 						for (QuartetMember member: QuartetMember.values()) {
 							// case where the variant is not phased or is on a new chromosome (meaning that the previous block ended)
 							if ((!currentVariant.isPhased(member)) || (!currentVariant.getChromosome().equals(chromosomes.get(member)))) {
@@ -219,14 +223,6 @@ public class CountRBPFullHeterozygous {
 	 * @throws IOException
 	 */
 	private static Map<QuartetMember, SegmentalDuplicationList> createCommonPhasedBlocks(File geneticPhasingFile, File physicalPhasingFile) throws IOException {
-		// load genetic phasing file		
-		PhasedVectorList geneticVectorList = new PhasedVectorList();
-		geneticVectorList.loadFromVCFFile(geneticPhasingFile);
-
-		// load physical phasing file
-		PhasedVectorList physicalVectorList = new PhasedVectorList();
-		physicalVectorList.loadFromVCFFile(physicalPhasingFile);
-
 		// create map with the phased series
 		Map<QuartetMember, PhasedGenotypesSeries> phasedSeries = new HashMap<>();
 		phasedSeries.put(QuartetMember.FATHER, new PhasedGenotypesSeries());
@@ -241,29 +237,26 @@ public class CountRBPFullHeterozygous {
 		phasedBlockLists.put(QuartetMember.KID1, new SegmentalDuplicationList());
 		phasedBlockLists.put(QuartetMember.KID2, new SegmentalDuplicationList());
 
-		BufferedReader reader = null;
+		// the genetic and the physical phasing files are read in lockstep
+		PhasedVectorMergeJoin mergeJoin = null;
 		try {
-			reader = new BufferedReader(new FileReader(physicalPhasingFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) != '#') {
-					String[] splitLine = line.split("\t");
-					String chromosome = splitLine[0].trim();
-					int position = Integer.parseInt(splitLine[1].trim());
-					PhasedVector geneticPhasedVector = geneticVectorList.getPhasedVector(chromosome, position);
-					PhasedVector physicalPhasedVector = physicalVectorList.getPhasedVector(chromosome, position);
-					if ((geneticPhasedVector != null) && (physicalPhasedVector != null)) {
-						for (QuartetMember member: QuartetMember.values()) {
-							int result = phasedSeries.get(member).addGeneticPhysicalGenotypes(geneticPhasedVector.getGenotype(member), physicalPhasedVector.getGenotype(member), chromosome, position);
-							if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-								SegmentalDuplication phasedBlock = phasedSeries.get(member).getBlock();
-								if (phasedBlock != null) {
-									phasedBlockLists.get(member).addDuplication(chromosome, phasedBlock);
-								}
-								phasedSeries.get(member).reset();
+			mergeJoin = new PhasedVectorMergeJoin(VCFPhasedVectorSource.open(geneticPhasingFile, null), VCFPhasedVectorSource.open(physicalPhasingFile, null));
+			// loop until the end of both files
+			while (mergeJoin.next()) {
+				// only the positions with a genetic and a physical vector are compared
+				if (mergeJoin.isAligned()) {
+					String chromosome = mergeJoin.getChromosome();
+					int position = mergeJoin.getPosition();
+					for (QuartetMember member: QuartetMember.values()) {
+						String geneticGenotype = PhasedVector.getGenotype(mergeJoin.getVector(0), member);
+						String physicalGenotype = PhasedVector.getGenotype(mergeJoin.getVector(1), member);
+						int result = phasedSeries.get(member).addGeneticPhysicalGenotypes(geneticGenotype, physicalGenotype, chromosome, position);
+						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+							SegmentalDuplication phasedBlock = phasedSeries.get(member).getBlock();
+							if (phasedBlock != null) {
+								phasedBlockLists.get(member).addDuplication(chromosome, phasedBlock);
 							}
+							phasedSeries.get(member).reset();
 						}
 					}
 				}
@@ -273,9 +266,9 @@ public class CountRBPFullHeterozygous {
 			}
 			return phasedBlockLists;
 		} finally {
-			if (reader != null) {
-				reader.close();
+			if (mergeJoin != null) {
+				mergeJoin.close();
 			}
-		}	
+		}
 	}
 }
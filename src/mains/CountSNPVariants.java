@@ -2,12 +2,13 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.QuartetMember;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 /**
@@ -46,8 +47,9 @@ public class CountSNPVariants {
 	private static void countSNPVariants(File vcfFile) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			long fatherSnpCount = 0;
 			long motherSnpCount = 0;
 			long kid1SnpCount = 0;
@@ -57,7 +59,7 @@ public class CountSNPVariants {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						// we don't process indels variants
 						if ((currentVariant.getReferenceAllele().length() == 1) && (currentVariant.getAlternativeAllele().length() == 1)) {
 							if (!currentVariant.isHomozygousReference(QuartetMember.FATHER)) {
@@ -1,8 +1,6 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.AlleleType;
@@ -13,8 +11,12 @@ import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.QuartetInheritanceState;
 import dataStructures.QuartetMember;
 import dataStructures.TrioInheritanceState;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -27,27 +29,31 @@ import exceptions.VCFException;
 public class ExtendDoubleTransmissionPhasing {
 
 	/**
-	 * Usage: java ExtendDoubleTransmissionPhasing.java -b <path to the block bgr file> -v <path to the transmission phased vcf file>
-	 * @param args -b <path to the block bgr file> -v <path to the transmission phased vcf file>
+	 * Usage: java ExtendDoubleTransmissionPhasing.java -b <path to the block bgr file> -v <path to the transmission phased vcf file> -o <path to the output file (optional)>
+	 * @param args -b <path to the block bgr file> -v <path to the transmission phased vcf file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java ExtendDoubleTransmissionPhasing.java -b <path to the block bgr file> -v <path to the transmission phased vcf file>");
+			System.out.println("Usage: java ExtendDoubleTransmissionPhasing.java -b <path to the block bgr file> -v <path to the transmission phased vcf file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			File blockFile = null;
 			File vcfFile = null;
-			for (int i = 0; i <= 2; i += 2) {
+			File outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
 				if (args[i].equals("-b")) {
 					blockFile = new File(args[i + 1]);
 				}
 				if (args[i].equals("-v")) {
 					vcfFile = new File(args[i + 1]);
 				}
+				if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
 			}
 			try {
-				extendDoubleTransmissionPhasing(blockFile, vcfFile);
+				extendDoubleTransmissionPhasing(blockFile, vcfFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -63,16 +69,20 @@ public class ExtendDoubleTransmissionPhasing {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 4) {
-			return false;
-		}
-		// case with no -b parameter
-		if (!args[0].equals("-b") && !args[2].equals("-b")) {
+		if ((args.length != 4) && (args.length != 6)) {
 			return false;
 		}
-		// case with no -v parameter
-		if (!args[0].equals("-v") && !args[2].equals("-v")) {
-			return false;
+		String[] mandatoryParameters = {"-b", "-v"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
 		}
 		return true;
 	}
@@ -80,62 +90,72 @@ public class ExtendDoubleTransmissionPhasing {
 
 
 	/**
-	 * Improves the result of the double transmission phasing by phasing the variants 
-	 * that are heterozygous in both parents as well as in one and only one of the kids.
-	 * These variant can't be phased in the context of a trio but can't be phased using the 
-	 * inheritance genotype block information
+	 * Creates the transforms phasing the "ab/ab;aa/ab" variants of a VCF file using the inheritance blocks
 	 * @param blockFile bedgraph with the blocks
-	 * @param vcfFile vcf file with the result of the two trios phasing using the transmission method
-	 * @throws IOException
+	 * @return a {@link VCFLineTransformFactory} creating the transforms of the lines
+	 * @throws IOException if a file cannot be read
 	 */
-	private static void extendDoubleTransmissionPhasing(File blockFile, File vcfFile) throws IOException {
+	public static VCFLineTransformFactory createTransformFactory(File blockFile) throws IOException {
 		// load the block file
-		InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
+		final InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
 		blockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
-		BufferedReader reader = null;
-		 //int phasableVariantCount = 0;
-		 //int phasableSCEVariantCount = 0;
-		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				String lineToPrint = line;
-				if (line.charAt(0) != '#') {
-					try {
-						Variant variant = new Variant(line);
-						// we work only with the variants heterozygote for both parents and one child (ie with a "ab/ab;aa/ab" genotype pattern)
-						if (variant.getGenotypePattern().equals("ab/ab;aa/ab")) {
-							InheritanceStateBlock<CrossTriosInheritanceState> block = blockList.getBlock(variant);
-							if (block != null) {
-								//phasableVariantCount++;
-								CrossTriosInheritanceState blockState = blockList.getBlock(variant).getBlockState();
-								if (!blockState.isCompatibleWith(QuartetInheritanceState.MATERNAL) && !blockState.isCompatibleWith(QuartetInheritanceState.PATERNAL)) {
-									//phasableSCEVariantCount++;
-								} else {
-									if (variant.isHomozygous(QuartetMember.KID1)) {								
-										phaseKid2(variant, blockState);
-									} else if (variant.isHomozygous(QuartetMember.KID2)){	
-										phaseTrioParentsKid1(variant, blockState);
+		return new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+
+					@Override
+					public String transformHeaderLine(String line) {
+						return line;
+					}
+
+					@Override
+					public String transformVariantLine(String line) {
+						String lineToPrint = line;
+						try {
+							Variant variant = new Variant(parser.parse(line));
+							// we work only with the variants heterozygote for both parents and one child (ie with a "ab/ab;aa/ab" genotype pattern)
+							if (variant.getGenotypePattern().equals("ab/ab;aa/ab")) {
+								InheritanceStateBlock<CrossTriosInheritanceState> block = blockList.getBlock(variant);
+								if (block != null) {
+									CrossTriosInheritanceState blockState = block.getBlockState();
+									// the SCE blocks are not compatible with a maternal or a paternal state and can't be phased
+									if (blockState.isCompatibleWith(QuartetInheritanceState.MATERNAL) || blockState.isCompatibleWith(QuartetInheritanceState.PATERNAL)) {
+										if (variant.isHomozygous(QuartetMember.KID1)) {
+											phaseKid2(variant, blockState);
+										} else if (variant.isHomozygous(QuartetMember.KID2)){
+											phaseTrioParentsKid1(variant, blockState);
+										}
+										lineToPrint = substituteVcfLine(line, variant);
 									}
-									lineToPrint = substituteVcfLine(line, variant);
 								}
 							}
+						} catch (VCFException exception) {
+							// do nothing
 						}
-					} catch (VCFException exception) {
-						// do nothing
+						return lineToPrint;
 					}
-				}
-				System.out.println(lineToPrint);
-			}
-			 //System.out.println("Number of variants with \"ab/ab;aa/ab\" genotype pattern: " + phasableVariantCount);
-			 //System.out.println("% of SCE within this subset: " + (phasableSCEVariantCount / (double) phasableVariantCount));
-		} finally {
-			if (reader != null) {
-				reader.close();
+				};
 			}
-		}
+		};
+	}
+
+
+	/**
+	 * Improves the result of the double transmission phasing by phasing the variants 
+	 * that are heterozygous in both parents as well as in one and only one of the kids.
+	 * These variant can't be phased in the context of a trio but can't be phased using the 
+	 * inheritance genotype block information
+	 * @param blockFile bedgraph with the blocks
+	 * @param vcfFile vcf file with the result of the two trios phasing using the transmission method
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
+	 * @throws IOException
+	 */
+	private static void extendDoubleTransmissionPhasing(File blockFile, File vcfFile, File outputFile) throws IOException {
+		// the lines are transformed in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(createTransformFactory(blockFile));
+		pipeline.run(vcfFile, outputFile);
 	}
 
 
@@ -220,14 +240,14 @@ public class ExtendDoubleTransmissionPhasing {
 		String kid1Genotype = phasedkid1Genotype + splitLine[11].trim().substring(3);
 		String kid2Genotype = phasedkid2Genotype + splitLine[12].trim().substring(3);
 		
-		String phasedVcfLine = "";
+		StringBuilder phasedVcfLine = new StringBuilder(line.length());
 		for (int i = 0; i < 9; i++) {
-			phasedVcfLine += splitLine[i] + "\t";
+			phasedVcfLine.append(splitLine[i]).append('\t');
 		}
-		phasedVcfLine += fatherGenotype + "\t";
-		phasedVcfLine += motherGenotype + "\t";
-		phasedVcfLine += kid1Genotype + "\t";
-		phasedVcfLine += kid2Genotype;
-		return phasedVcfLine;
+		phasedVcfLine.append(fatherGenotype).append('\t');
+		phasedVcfLine.append(motherGenotype).append('\t');
+		phasedVcfLine.append(kid1Genotype).append('\t');
+		phasedVcfLine.append(kid2Genotype);
+		return phasedVcfLine.toString();
 	}
 }
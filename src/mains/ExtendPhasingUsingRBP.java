@@ -4,11 +4,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
-import dataStructures.PhasedVector;
-import dataStructures.PhasedVectorList;
+import dataStructures.ColumnarPhasedVectorList;
+import dataStructures.GenomicRegion;
+import dataStructures.PhasedVectorColumn;
 import dataStructures.PhasedVectorsInsert;
 import dataStructures.QuartetMember;
+import utils.ChromosomeExecutor;
 
 /**
  * Tries to improve the result of a genetic phasing (eg: haplotyping, transmission phasing) 
@@ -24,29 +27,34 @@ public class ExtendPhasingUsingRBP {
 	//private final static String[] CHROMOSOMES = {"chr1"};
 	private final static QuartetMember[] MEMBERS = {QuartetMember.MOTHER};
 	//private final static QuartetMember[] MEMBERS = QuartetMember.values();
+	private final static String LINE_SEPARATOR = System.lineSeparator();	// line separator used by System.out
 	
 	/**
-	 * Usage: java ExtendPhasingUsingRBP.java -g <path the genetic phasing vcf file> -p <path to the physical phasing vcf file>
-	 * @param args -g <path the genetic phasing vcf file> -p <path to the physical phasing vcf file>
+	 * Usage: java ExtendPhasingUsingRBP.java -g <path the genetic phasing vcf file> -p <path to the physical phasing vcf file> -r <region chr:start-stop (optional)>
+	 * @param args -g <path the genetic phasing vcf file> -p <path to the physical phasing vcf file> -r <region chr:start-stop (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java ExtendPhasingUsingRBP.java -g <path the genetic phasing vcf file> -p <path to the physical phasing vcf file>");
+			System.out.println("Usage: java ExtendPhasingUsingRBP.java -g <path the genetic phasing vcf file> -p <path to the physical phasing vcf file> -r <region chr:start-stop (optional)>");
 			System.exit(-1);
 		} else {
 			File geneticPhasingFile = null;
 			File physicalPhasingFile = null;
-			for (int i = 0; i <= 2; i += 2) {
+			GenomicRegion region = null;
+			for (int i = 0; i < args.length; i += 2) {
 				if (args[i].equals("-g")) {
 					geneticPhasingFile = new File(args[i + 1]);
 				}
 				if (args[i].equals("-p")) {
 					physicalPhasingFile = new File(args[i + 1]);
 				}
+				if (args[i].equals("-r")) {
+					region = GenomicRegion.valueOf(args[i + 1]);
+				}
 			}
 			try {
-				extendPhasingUsingRBP(geneticPhasingFile, physicalPhasingFile);
+				extendPhasingUsingRBP(geneticPhasingFile, physicalPhasingFile, region);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -62,16 +70,23 @@ public class ExtendPhasingUsingRBP {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 4) {
+		if ((args.length != 4) && (args.length != 6)) {
 			return false;
 		}
-		// case with no -g parameter
-		if (!args[0].equals("-g") && !args[2].equals("-g")) {
+		if ((args.length == 6) && !args[0].equals("-r") && !args[2].equals("-r") && !args[4].equals("-r")) {
 			return false;
 		}
-		// case with no -p parameter
-		if (!args[0].equals("-p") && !args[2].equals("-p")) {
-			return false;
+		String[] mandatoryParameters = {"-g", "-p"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
 		}
 		return true;
 	}
@@ -82,81 +97,122 @@ public class ExtendPhasingUsingRBP {
 	 * using the result of a physical phasing (ie read back phasing). 
 	 * @param geneticPhasingFile partly phased vcf file generated using a genetic phasing method (haploscript or transmission)
 	 * @param physicalPhasingFile partly phased vcf file generated using a physical phasing method (read backed phasing)
+	 * @param region region to analyze. The whole files are analyzed if null
 	 * @throws IOException
 	 */
-	private static void extendPhasingUsingRBP(File geneticPhasingFile, File physicalPhasingFile) throws IOException {
-		// load genetic phasing vcf file		
-		PhasedVectorList geneticVectorList = new PhasedVectorList();
-		geneticVectorList.loadFromVCFFile(geneticPhasingFile);
-
-		// load physical phasing vcf file
-		PhasedVectorList physicalVectorList = new PhasedVectorList();
-		physicalVectorList.loadFromVCFFile(physicalPhasingFile);
+	private static void extendPhasingUsingRBP(File geneticPhasingFile, File physicalPhasingFile, GenomicRegion region) throws IOException {
+		// load the genetic and the physical phasing vcf files in parallel
+		List<Callable<ColumnarPhasedVectorList>> loadTasks = new ArrayList<>();
+		loadTasks.add(createLoadTask(geneticPhasingFile, region));
+		loadTasks.add(createLoadTask(physicalPhasingFile, region));
+		List<ColumnarPhasedVectorList> vectorLists = ChromosomeExecutor.invokeAll(loadTasks);
+		ColumnarPhasedVectorList geneticVectorList = vectorLists.get(0);
+		ColumnarPhasedVectorList physicalVectorList = vectorLists.get(1);
 
 		mergeVectors(geneticVectorList, physicalVectorList);
 	}
 
 
 	/**
-	 * Mergest the result of the genetic phasing and the physical phasing to try to get longer phasing 
+	 * @param vcfFile a vcf file
+	 * @param region region to load. The whole file is loaded if null
+	 * @return a task loading the specified vcf file in a {@link ColumnarPhasedVectorList}
+	 */
+	private static Callable<ColumnarPhasedVectorList> createLoadTask(final File vcfFile, final GenomicRegion region) {
+		return new Callable<ColumnarPhasedVectorList>() {
+			@Override
+			public ColumnarPhasedVectorList call() throws IOException {
+				ColumnarPhasedVectorList vectorList = new ColumnarPhasedVectorList();
+				vectorList.loadFromVCFFile(vcfFile, region);
+				return vectorList;
+			}
+		};
+	}
+
+
+	/**
+	 * Mergest the result of the genetic phasing and the physical phasing to try to get longer phasing.
+	 * The chromosomes are analyzed in parallel and the results are printed in the order of the CHROMOSOME constant
 	 * @param geneticVectorList
 	 * @param physicalVectorList
+	 * @throws IOException
 	 */
-	private static void mergeVectors(PhasedVectorList geneticVectorList, PhasedVectorList physicalVectorList) {
+	private static void mergeVectors(ColumnarPhasedVectorList geneticVectorList, ColumnarPhasedVectorList physicalVectorList) throws IOException {
+		// we analyze each chromosome defined in the CHROMOSOME constant
+		List<Callable<String>> chromosomeTasks = new ArrayList<>();
+		for (final String chromosome: CHROMOSOMES) {
+			final PhasedVectorColumn geneticVectors = geneticVectorList.getColumn(chromosome);
+			final PhasedVectorColumn physicalVectors = physicalVectorList.getColumn(chromosome);
+			chromosomeTasks.add(new Callable<String>() {
+				@Override
+				public String call() {
+					return mergeChromosomeVectors(chromosome, geneticVectors, physicalVectors);
+				}
+			});
+		}
+		for (String currentChromosomeResult: ChromosomeExecutor.invokeAll(chromosomeTasks)) {
+			System.out.print(currentChromosomeResult);
+		}
+	}
+
+
+	/**
+	 * Mergest the result of the genetic phasing and the physical phasing of a chromosome.
+	 * The inserts are inverted in the column of physical vectors of the chromosome
+	 * @param chromosome a chromosome
+	 * @param geneticVectors column of genetic phasing vectors of the chromosome
+	 * @param physicalVectors column of physical phasing vectors of the chromosome
+	 * @return the inserts of the chromosome (one insert per line)
+	 */
+	private static String mergeChromosomeVectors(String chromosome, PhasedVectorColumn geneticVectors, PhasedVectorColumn physicalVectors) {
+		StringBuilder result = new StringBuilder();
 		//int validInsertCount = 0;
 		//int phasedVariantCount = 0;
-		// we analyze each chromosome defined in the CHROMOSOME constant
-		for (String chromosome: CHROMOSOMES) {
-			List<PhasedVector> geneticVectors = geneticVectorList.getPhasedVectorList(chromosome);
-			List<PhasedVector> physicalVectors = physicalVectorList.getPhasedVectorList(chromosome);
-			// we analyze each member of the family
-			for (QuartetMember currentMember: MEMBERS) {
-				List<Integer> unphasedIndexes = new ArrayList<>();
-				// if the genetic vectors and the physical vectors don't have the same size there is a pb with the files (or the program...)
-				if ((geneticVectors != null) && (physicalVectors != null)) {
-					if (geneticVectors.size() != physicalVectors.size()) {
-						System.err.println("The genectic and physical lists don't have the same ammount of data");
-						System.err.println("genetic size=" + geneticVectors.size());
-						System.err.println("physical size=" + physicalVectors.size());					
-					} else {
-						// we create a list containing the index of all the genetic vectors not phased (that we can potentially phase)
-						for (int i = 0; i < geneticVectors.size(); i++) {
-							if (!geneticVectors.get(i).isPhased(currentMember)) {
-								unphasedIndexes.add(i);
-							}
+		// we analyze each member of the family
+		for (QuartetMember currentMember: MEMBERS) {
+			List<Integer> unphasedIndexes = new ArrayList<>();
+			// if the genetic vectors and the physical vectors don't have the same size there is a pb with the files (or the program...)
+			if ((geneticVectors != null) && (physicalVectors != null)) {
+				if (geneticVectors.size() != physicalVectors.size()) {
+					System.err.println("The genectic and physical lists don't have the same ammount of data");
+					System.err.println("genetic size=" + geneticVectors.size());
+					System.err.println("physical size=" + physicalVectors.size());					
+				} else {
+					// we create a list containing the index of all the genetic vectors not phased (that we can potentially phase)
+					for (int i = 0; i < geneticVectors.size(); i++) {
+						if (!geneticVectors.isPhased(i, currentMember)) {
+							unphasedIndexes.add(i);
 						}
-						int lastAnalyzedIndex = -1;
-						// we analyze all the unphased variants one by one
-						for (int currentUnphasedIndex: unphasedIndexes) {
-							// we make sure that the current unphase variant has not been analyzed (
-							if (currentUnphasedIndex > lastAnalyzedIndex) {
-								if (physicalVectors.get(currentUnphasedIndex).isPhased(currentMember)) {
-									int firstIndex = getFirstIndex(currentMember, currentUnphasedIndex, geneticVectors, physicalVectors);
-									int lastIndex = getLastIndex(currentMember, currentUnphasedIndex, geneticVectors, physicalVectors);
-									// if the first and last indexes are equals it means that we can't phase the genetic vector
-									if (firstIndex != lastIndex) {
-										List<PhasedVector> geneticVectorsToAnalyze = geneticVectors.subList(firstIndex, lastIndex);
-										List<PhasedVector> physicalVectorsToAnalyze = physicalVectors.subList(firstIndex, lastIndex);
-										PhasedVectorsInsert insert = new PhasedVectorsInsert(chromosome, currentUnphasedIndex, currentMember);
-										insert.generateInsert(geneticVectorsToAnalyze, physicalVectorsToAnalyze);
-										lastAnalyzedIndex = insert.getIndexLastPhasedVector();
-										if (insert.isValid() && (insert.getTotalGoodVectorCount() >= 1)) {
-											int start = geneticVectors.get(firstIndex).getPosition();
-											int stop =  geneticVectors.get(lastIndex).getPosition();
-											int score = insert.getTotalGoodVectorCount() - insert.getTotalBadVectorCount();
-											//validInsertCount++;
-											//int insertLength = insert.getIndexLastPhasedVector() - insert.getIndexFirstPhasedVector() + 1;
-											//phasedVariantCount += insertLength;
-											//System.out.println(insertLength);
-											if (insert.isGeneticVectorInvertionNeeded()) {
-												//int indexStart = Math.max(0, insert.getIndexFirstPhasedVector() - 1);
-												//int indexStop = Math.min(geneticVectors.size() - 1, insert.getIndexLastPhasedVector() + 1);
-												score = -score;
-												//System.out.println(" *** GOOD = " + insert.getTotalGoodVectorCount() + " *** BAD = " + insert.getTotalBadVectorCount() + " *** ");
-												//System.out.println("Vector (length=" + insertLength + ", member=" + currentMember + ") needs to be inverted: " + chromosome + ':' + start + '-' + stop);
-											}
-											System.out.println(chromosome + '\t' + start + '\t' + stop + '\t' + score);
+					}
+					int lastAnalyzedIndex = -1;
+					// we analyze all the unphased variants one by one
+					for (int currentUnphasedIndex: unphasedIndexes) {
+						// we make sure that the current unphase variant has not been analyzed (
+						if (currentUnphasedIndex > lastAnalyzedIndex) {
+							if (physicalVectors.isPhased(currentUnphasedIndex, currentMember)) {
+								int firstIndex = getFirstIndex(currentMember, currentUnphasedIndex, geneticVectors, physicalVectors);
+								int lastIndex = getLastIndex(currentMember, currentUnphasedIndex, geneticVectors, physicalVectors);
+								// if the first and last indexes are equals it means that we can't phase the genetic vector
+								if (firstIndex != lastIndex) {
+									PhasedVectorsInsert insert = new PhasedVectorsInsert(chromosome, currentUnphasedIndex, currentMember);
+									insert.generateInsert(geneticVectors, physicalVectors, firstIndex, lastIndex);
+									lastAnalyzedIndex = insert.getIndexLastPhasedVector();
+									if (insert.isValid() && (insert.getTotalGoodVectorCount() >= 1)) {
+										int start = geneticVectors.getPosition(firstIndex);
+										int stop =  geneticVectors.getPosition(lastIndex);
+										int score = insert.getTotalGoodVectorCount() - insert.getTotalBadVectorCount();
+										//validInsertCount++;
+										//int insertLength = insert.getIndexLastPhasedVector() - insert.getIndexFirstPhasedVector() + 1;
+										//phasedVariantCount += insertLength;
+										//System.out.println(insertLength);
+										if (insert.isGeneticVectorInvertionNeeded()) {
+											//int indexStart = Math.max(0, insert.getIndexFirstPhasedVector() - 1);
+											//int indexStop = Math.min(geneticVectors.size() - 1, insert.getIndexLastPhasedVector() + 1);
+											score = -score;
+											//System.out.println(" *** GOOD = " + insert.getTotalGoodVectorCount() + " *** BAD = " + insert.getTotalBadVectorCount() + " *** ");
+											//System.out.println("Vector (length=" + insertLength + ", member=" + currentMember + ") needs to be inverted: " + chromosome + ':' + start + '-' + stop);
 										}
+										result.append(chromosome + '\t' + start + '\t' + stop + '\t' + score).append(LINE_SEPARATOR);
 									}
 								}
 							}
@@ -166,21 +222,22 @@ public class ExtendPhasingUsingRBP {
 			}
 		}
 		//System.out.println("valid insert count:" + validInsertCount +", phased variant count:" + phasedVariantCount);
+		return result.toString();
 	}
 
 
 	/**
 	 * @param member member of the quartet
 	 * @param currentUnphasedIndex first unphased index
-	 * @param geneticVectors list of genetic phasing vectors
-	 * @param physicalVectors list of physical phasing vectors
+	 * @param geneticVectors column of genetic phasing vectors
+	 * @param physicalVectors column of physical phasing vectors
 	 * @return the index of the first mergeable vector of the genetic and physcal phasing
 	 */
-	private static int getFirstIndex(QuartetMember member, int currentUnphasedIndex, List<PhasedVector> geneticVectors, List<PhasedVector> physicalVectors) {
+	private static int getFirstIndex(QuartetMember member, int currentUnphasedIndex, PhasedVectorColumn geneticVectors, PhasedVectorColumn physicalVectors) {
 		boolean isPhased = true;
 		// we go back as long as both the genetic and the physical vectors are phased and we don't reach the beginning of the lists
 		while (isPhased && currentUnphasedIndex > 0) {
-			isPhased = (physicalVectors.get(currentUnphasedIndex - 1).isPhased(member) && geneticVectors.get(currentUnphasedIndex - 1).isPhased(member));
+			isPhased = (physicalVectors.isPhased(currentUnphasedIndex - 1, member) && geneticVectors.isPhased(currentUnphasedIndex - 1, member));
 			if (isPhased) {
 				currentUnphasedIndex--;
 			}
@@ -192,21 +249,21 @@ public class ExtendPhasingUsingRBP {
 	/**
 	 * @param member member of the quartet
 	 * @param currentUnphasedIndex first unphased index
-	 * @param geneticVectors list of genetic phasing vectors
-	 * @param physicalVectors list of physical phasing vectors
+	 * @param geneticVectors column of genetic phasing vectors
+	 * @param physicalVectors column of physical phasing vectors
 	 * @return the index of the first mergeable vector of the genetic and physcal phasing
 	 */	
-	private static int getLastIndex(QuartetMember member, int currentUnphasedIndex, List<PhasedVector> geneticVectors, List<PhasedVector> physicalVectors) {
+	private static int getLastIndex(QuartetMember member, int currentUnphasedIndex, PhasedVectorColumn geneticVectors, PhasedVectorColumn physicalVectors) {
 		boolean isPhased = true;
 		boolean stillUnphased = true;
 		while (isPhased && currentUnphasedIndex < physicalVectors.size() - 2) {			
 			// still unphased is true as long as the genetic vectors are not phased.
-			stillUnphased = stillUnphased && !geneticVectors.get(currentUnphasedIndex).isPhased(member);
+			stillUnphased = stillUnphased && !geneticVectors.isPhased(currentUnphasedIndex, member);
 			// isPhased is true if:
 			// we are still in the unphased region of the genetic vectors and the physical vectors are phased  
 			// we are back in a phased region and genetic and physical vectors are phased
-			isPhased = (stillUnphased && physicalVectors.get(currentUnphasedIndex + 1).isPhased(member)) || 
-					(!stillUnphased && physicalVectors.get(currentUnphasedIndex + 1).isPhased(member) && geneticVectors.get(currentUnphasedIndex + 1).isPhased(member));			
+			isPhased = (stillUnphased && physicalVectors.isPhased(currentUnphasedIndex + 1, member)) || 
+					(!stillUnphased && physicalVectors.isPhased(currentUnphasedIndex + 1, member) && geneticVectors.isPhased(currentUnphasedIndex + 1, member));			
 			if (isPhased) {
 				currentUnphasedIndex++;
 			}
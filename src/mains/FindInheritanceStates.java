@@ -1,14 +1,19 @@
 package mains;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
+import dataStructures.QGTChromosome;
+import dataStructures.QGTFile;
+import dataStructures.QuartetInheritanceState;
+import dataStructures.StreamingVariantAnalyzer;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import dataStructures.VariantListAnalyzer;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
+import utils.OutputSink;
 
 
 /**
@@ -18,21 +23,43 @@ import exceptions.VCFException;
  */
 public class FindInheritanceStates {
 
+	private static final QuartetInheritanceState[] SCORED_STATES = {
+		QuartetInheritanceState.IDENTICAL,
+		QuartetInheritanceState.MATERNAL,
+		QuartetInheritanceState.PATERNAL,
+		QuartetInheritanceState.NON_IDENTICAL,
+		QuartetInheritanceState.NOT_INFORMATIVE,
+		QuartetInheritanceState.MIE};	// states with a score, in the order of the output columns
+
 	// C:\Documents and Settings\Administrator\My Documents\GenPlay Library\Ritu_VCF\Ritu-corrected-ALL-LIBRARIES-SNP-chr1.raw.vcf
 
 	/**
-	 * Usage: java FindInheritanceStates.java -f <path to the file>
-	 * @param args -f <path to the file>
+	 * Usage: java FindInheritanceStates.java -f <path to the file> -w <half size of the averaging window in bp (optional)> -a <averaging method: bin or moving (optional)> -o <path to the output file (optional)>
+	 * @param args -f <path to the file> -w <half size of the averaging window in bp (optional)> -a <averaging method: bin or moving (optional)> -o <path to the output file (optional)>. The file can be a VCF file or a QGT file
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
-		if	((args.length != 2) ||
-				(!args[0].equals("-f"))) {
-			System.out.println("Usage: java FindInheritanceStates.java -f <path to the file>");
+		if (!areParametersValid(args)) {
+			System.out.println("Usage: java FindInheritanceStates.java -f <path to the file> -w <half size of the averaging window in bp (optional)> -a <averaging method: bin or moving (optional)> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
+			String VCFFilePath = null;
+			int halfWindowSize = VariantListAnalyzer.DEFAULT_HALF_WINDOW_SIZE;
+			boolean computeMovingWindow = VariantListAnalyzer.DEFAULT_COMPUTE_MOVING_WINDOW;
+			File outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("-f")) {
+					VCFFilePath = args[i + 1];
+				} else if (args[i].equals("-w")) {
+					halfWindowSize = Integer.parseInt(args[i + 1]);
+				} else if (args[i].equals("-a")) {
+					computeMovingWindow = args[i + 1].equals("moving");
+				} else if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
+			}
 			try {
-				findInheritancePatterns(args[1]);
+				findInheritancePatterns(VCFFilePath, halfWindowSize, computeMovingWindow, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -41,65 +68,136 @@ public class FindInheritanceStates {
 
 
 	/**
-	 * Finds the inheritance states of the family quartet
+	 * @param args parameters from the main function
+	 * @return true if the parameters are valid
+	 */
+	private static boolean areParametersValid(String[] args) {
+		if ((args == null) || (args.length == 0) || (args.length > 8) || ((args.length % 2) != 0)) {
+			return false;
+		}
+		boolean isFileFound = false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-f")) {
+				isFileFound = true;
+			} else if (args[i].equals("-w")) {
+				try {
+					if (Integer.parseInt(args[i + 1]) <= 0) {
+						return false;
+					}
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			} else if (args[i].equals("-a")) {
+				if (!args[i + 1].equals("bin") && !args[i + 1].equals("moving")) {
+					return false;
+				}
+			} else if (!args[i].equals("-o")) {
+				return false;
+			}
+		}
+		return isFileFound;
+	}
+
+
+	/**
+	 * Finds the inheritance states of the family quartet.
+	 * The variants are streamed through a {@link StreamingVariantAnalyzer} and printed as soon as their window is complete
 	 * @param VCFFilePath VCF files with the variants of the family quartet
+	 * @param halfWindowSize half size of the window used to average the state scores
+	 * @param computeMovingWindow true to average the state scores on a moving window, false to average them on bins
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException if the VCF file is not valid
 	 */
-	private static void findInheritancePatterns(String VCFFilePath) throws IOException {
+	private static void findInheritancePatterns(String VCFFilePath, int halfWindowSize, boolean computeMovingWindow, File outputFile) throws IOException {
 		BufferedReader reader = null;
+		OutputSink output = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFilePath));
-			String line = null;
-			List<Variant> variantList = new ArrayList<Variant>();			
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) != '#') {
-					try {
-						Variant currentVariant = new Variant(line);
-						// we don't process variants with more than one alternative allele
-						/*if (currentVariant.getAlternatievAllele().length() != 1) {
-							System.err.println("Variants with more than 1 alternative allele are not handled:");
-							System.err.println(line);
-						}*/
-						// we don't process variants that are not informative or a mandelien inheritance state
-						/*if ((currentVariant.getInheritanceStates()[0] != InheritanceState.NOT_INFORMATIVE) &&
-								(currentVariant.getInheritanceStates()[0] != InheritanceState.MIE)) {
-							variantList.add(currentVariant);
-						}*/
-						variantList.add(currentVariant);
-						//System.out.println(line);
-					} catch (VCFException e) {
-						// do nothing
-					}	
-				}
-			}
-			// analyze the variant list
-			VariantListAnalyzer analyzer = new VariantListAnalyzer(variantList);
-			// write in the standard output the result. Can be redirected in a file
+			StreamingVariantAnalyzer analyzer = new StreamingVariantAnalyzer(halfWindowSize, computeMovingWindow);
+			output = new OutputSink(outputFile);
 			// write the header
-			System.out.println(Variant.variantHeader() + "\tI\tM\tF\tNot-ID\tNot-Inf\tNotMend\tI Avg\tM Avg\tF Avg\tNot-ID Avg\tNot-Inf Avg\tNotMend Avg\tDominant");
-			// write the result data			
-			for (int i = 0; i < variantList.size(); i++) {
-				System.out.print(variantList.get(i) + "\t");
-				System.out.println(analyzer.getIdenticals()[i] + "\t" +
-						analyzer.getMaternalIdenticals()[i] + "\t" +
-						analyzer.getPaternalIdenticals()[i] + "\t" +
-						analyzer.getNonIdenticals()[i] + "\t" +
-						analyzer.getNonInfomatives()[i] + "\t" +
-						analyzer.getNonMendelians()[i] + "\t" +
-						analyzer.getIdenticalAvgs()[i] + "\t" +
-						analyzer.getMaternalIdenticalAvgs()[i] + "\t" +
-						analyzer.getPaternalIdenticalAvgs()[i] + "\t" +
-						analyzer.getNonIdenticalAvgs()[i] + "\t" +
-						analyzer.getNonInfomativeAvgs()[i] + "\t" +
-						analyzer.getNonMendelianAvgs()[i] + "\t" +
-						analyzer.getDominantInheritanceStates()[i]);
+			output.println(Variant.variantHeader() + "\tI\tM\tF\tNot-ID\tNot-Inf\tNotMend\tI Avg\tM Avg\tF Avg\tNot-ID Avg\tNot-Inf Avg\tNotMend Avg\tDominant");
+			if (QGTFile.isQGTFile(new File(VCFFilePath))) {
+				// the variants of a QGT file are already parsed and filtered
+				QGTFile inputFile = new QGTFile(new File(VCFFilePath));
+				for (String currentChromosome: inputFile.getChromosomes()) {
+					QGTChromosome chromosomeBlock = inputFile.getChromosome(currentChromosome);
+					for (int i = 0; i < chromosomeBlock.size(); i++) {
+						analyzer.add(chromosomeBlock.getVariant(i));
+						printCompleteVariants(analyzer, output);
+					}
+				}
+			} else {
+				reader = GenomicFileReader.open(new File(VCFFilePath));
+				analyzeVariants(reader, analyzer, output);
 			}
+			analyzer.flush();
+			printCompleteVariants(analyzer, output);
 		} finally {
 			if (reader != null) {
 				reader.close();
 			}
+			if (output != null) {
+				output.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Prints the variants of the analyzer with a complete window and their scores
+	 * @param analyzer a {@link StreamingVariantAnalyzer}
+	 * @param output {@link OutputSink} where the variants are printed
+	 * @throws IOException
+	 */
+	private static void printCompleteVariants(StreamingVariantAnalyzer analyzer, OutputSink output) throws IOException {
+		while (analyzer.hasNext()) {
+			StringBuilder line = output.startLine();
+			line.append(analyzer.next()).append('\t');
+			for (QuartetInheritanceState currentState: SCORED_STATES) {
+				line.append(analyzer.getScore(currentState)).append('\t');
+			}
+			for (QuartetInheritanceState currentState: SCORED_STATES) {
+				line.append(analyzer.getAverageScore(currentState)).append('\t');
+			}
+			line.append(analyzer.getDominantInheritanceState());
+			output.endLine();
+		}
+	}
+
+
+	/**
+	 * Adds the variants of a VCF file that pass the filters to the analyzer and prints the variants with a complete window
+	 * @param reader reader of a VCF file
+	 * @param analyzer a {@link StreamingVariantAnalyzer}
+	 * @param output {@link OutputSink} where the variants are printed
+	 * @throws IOException
+	 */
+	private static void analyzeVariants(BufferedReader reader, StreamingVariantAnalyzer analyzer, OutputSink output) throws IOException {
+		String line = null;
+		VCFLineParser parser = new VCFLineParser();
+		// loop until eof
+		while ((line = reader.readLine()) != null) {
+			// a line starting with a # is a comment line
+			if (line.charAt(0) != '#') {
+				try {
+					Variant currentVariant = new Variant(parser.parse(line));
+					// we don't process variants with more than one alternative allele
+					/*if (currentVariant.getAlternatievAllele().length() != 1) {
+						System.err.println("Variants with more than 1 alternative allele are not handled:");
+						System.err.println(line);
+					}*/
+					// we don't process variants that are not informative or a mandelien inheritance state
+					/*if ((currentVariant.getInheritanceStates()[0] != InheritanceState.NOT_INFORMATIVE) &&
+							(currentVariant.getInheritanceStates()[0] != InheritanceState.MIE)) {
+						variantList.add(currentVariant);
+					}*/
+					analyzer.add(currentVariant);
+					printCompleteVariants(analyzer, output);
+					//System.out.println(line);
+				} catch (VCFException e) {
+					// do nothing
+				}	
+			}
 		}
 	}
 }
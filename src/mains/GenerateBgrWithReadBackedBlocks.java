@@ -2,12 +2,13 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.QuartetMember;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 /**
@@ -80,8 +81,9 @@ public class GenerateBgrWithReadBackedBlocks {
 	private static void generateBgrWithReadBackedBlocks(File vcfFile, QuartetMember member) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			// loop until eof
 			int startPosition = 0;
 			int stopPosition = 0;
@@ -92,7 +94,7 @@ public class GenerateBgrWithReadBackedBlocks {
 				if (line.charAt(0) != '#') {
 					Variant currentVariant;
 					try {
-						currentVariant = new Variant(line);						
+						currentVariant = new Variant(parser.parse(line));						
 						// case where the variant is not phased or is on a new chromosome (meaning that the previous block ended)
 						if ((!currentVariant.isPhased(member)) || (!currentVariant.getChromosome().equals(chromosome))) {
 							// case where the previous block is not empty
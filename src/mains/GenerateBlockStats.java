@@ -2,16 +2,21 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
+import dataStructures.InheritanceStateBlock;
 import dataStructures.InheritanceStateBlockList;
+import dataStructures.FilterPolicy;
 import dataStructures.InheritanceStateBlockListFactory;
+import dataStructures.IntervalTrack;
+import dataStructures.IntervalTrackSet;
+import dataStructures.IntervalTrackSweep;
 import dataStructures.SegmentalDuplicationList;
+import dataStructures.VCFLineParser;
+import dataStructures.VCFRejectReason;
 import dataStructures.Variant;
-import exceptions.PartiallyCalledVariantException;
-import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 
@@ -84,11 +89,17 @@ public class GenerateBlockStats {
 	private static void generateBlockStats(File VCFFile, File blockFile, File segDupFile) throws IOException {
 		InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
 		blockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
-		SegmentalDuplicationList segDupList = null;
+		// the blocks and the segmental duplications are annotated in a single sweep over the VCF
+		IntervalTrackSet trackSet = new IntervalTrackSet();
+		IntervalTrack<InheritanceStateBlock<CrossTriosInheritanceState>> blockTrack = IntervalTrack.createFromInheritanceStateBlockList(blockList);
+		int blockTrackIndex = trackSet.addTrack(blockTrack);
+		int segDupTrackIndex = -1;
 		if (segDupFile != null) {
-			segDupList = new SegmentalDuplicationList();
+			SegmentalDuplicationList segDupList = new SegmentalDuplicationList();
 			segDupList.loadBedOrBgr(segDupFile);
+			segDupTrackIndex = trackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(segDupList));
 		}
+		IntervalTrackSweep sweep = trackSet.createSweep();
 		int variantCount = 0;
 		int partiallyCalledVariantCount = 0;
 		int snpCount = 0; 
@@ -99,39 +110,41 @@ public class GenerateBlockStats {
 		int indelSCE = 0;
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
+			reader = GenomicFileReader.open(VCFFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
+			FilterPolicy filterPolicy = new FilterPolicy();
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
-					try {
-						Variant currentVariant = new Variant(line);
-						if (segDupList == null || !segDupList.isInSegmentalDuplication(currentVariant)) {
+					Variant currentVariant = Variant.tryParse(parser.parse(line), filterPolicy);
+					if (currentVariant != null) {
+						sweep.sweep(currentVariant);
+						if ((segDupTrackIndex == -1) || (!sweep.isHit(segDupTrackIndex))) {
+							InheritanceStateBlock<CrossTriosInheritanceState> isBlock = sweep.getHit(blockTrack, blockTrackIndex);
 							variantCount++;
 							if (currentVariant.isIndel()) {
 								indelCount++;
 								if (currentVariant.isMIE()) {
 									indelMIE++;
-								} else if ((blockList.getBlock(currentVariant) != null) && (blockList.getBlock(currentVariant).isSCE(currentVariant))) {
+								} else if ((isBlock != null) && (isBlock.isSCE(currentVariant))) {
 									indelSCE++;
 								}
 							} else {
 								snpCount++;
 								if (currentVariant.isMIE()) {
 									snpMIE++;
-								} else if ((blockList.getBlock(currentVariant) != null) && (blockList.getBlock(currentVariant).isSCE(currentVariant))) {
+								} else if ((isBlock != null) && (isBlock.isSCE(currentVariant))) {
 									snpSCE++;
 								}
 							}
 						}
 						//System.out.println(line);
-					} catch (PartiallyCalledVariantException e) {
+					} else if (parser.getRejectReason() == VCFRejectReason.PARTIALLY_CALLED) {
 						// we still count partially called variants 
 						variantCount++;
 						partiallyCalledVariantCount++;
-					} catch (VCFException e) {
-						// do nothing
 					}
 				}
 			}
@@ -144,6 +157,8 @@ public class GenerateBlockStats {
 					indelMIE + "\t\t" +
 					snpSCE + "\t" +
 					indelSCE);
+			// report the lines rejected by the parser
+			System.err.println(filterPolicy.getRejectStatistics());
 		} finally {
 			if (reader != null) {
 				reader.close();
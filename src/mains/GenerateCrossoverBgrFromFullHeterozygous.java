@@ -2,7 +2,6 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
@@ -11,11 +10,13 @@ import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.QuartetMember;
 import dataStructures.TrioInheritanceState;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.FilteredVCFLineException;
 import exceptions.InvalidVCFFieldException;
 import exceptions.InvalidVCFLineException;
 import exceptions.PartiallyCalledVariantException;
+import utils.GenomicFileReader;
 
 
 
@@ -104,14 +105,15 @@ public class GenerateCrossoverBgrFromFullHeterozygous {
 		int founderAllele = (founderMember == QuartetMember.MOTHER ? 0 : 1); // the 0 is the index of the paternal allele, 1 maternal
 		BufferedReader reader = null;		
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant variant = new Variant(line);
+						Variant variant = new Variant(parser.parse(line));
 						if (variant.getGenotypePattern().equals("ab/ab;ab/ab")) {
 							int score;
 							if (founderMember == QuartetMember.FATHER) {
@@ -2,15 +2,16 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.QuartetMember;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.FilteredVCFLineException;
 import exceptions.InvalidVCFFieldException;
 import exceptions.InvalidVCFLineException;
 import exceptions.PartiallyCalledVariantException;
+import utils.GenomicFileReader;
 
 
 
@@ -85,15 +86,16 @@ public class GenerateCrossoverBgrFromMergedTriosVCF {
 	private static void generateCrossoverBgrFromMergedTriosVCF(File vcfFile, QuartetMember founderMember) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
 			int founderAllele = (founderMember == QuartetMember.MOTHER ? 0 : 1); // the 0 is the index of the paternal allele, 1 maternal	
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant variant = new Variant(line);
+						Variant variant = new Variant(parser.parse(line));
 						if (variant.isPhased(founderMember) && variant.isPhased(QuartetMember.KID1) && variant.isPhased(QuartetMember.KID2) && variant.isHeterozygous(founderMember)) {						
 							int score;
 							if (variant.getAlleles(QuartetMember.KID1)[founderAllele] == variant.getAlleles(QuartetMember.KID2)[founderAllele]) {
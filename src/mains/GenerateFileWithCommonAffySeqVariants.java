@@ -2,13 +2,14 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.AffymetrixSNP;
 import dataStructures.AffymetrixSNPList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 
 /**
@@ -85,15 +86,16 @@ public class GenerateFileWithCommonAffySeqVariants {
 		//int VCFSNPFoundCount = 0;
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			System.out.println("#chromosome\tposition\tdbSNP\tVCF_genotype\tAffy_genotype\tVCF_ref\tVCF_alt\tFilter\tmin_PL\tMIE\tSCE\tRDF");
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant variant = new Variant(line);
+						Variant variant = new Variant(parser.parse(line));
 						// we don't want to work with indels
 						if (!variant.isIndel()) {
 							String chromosome = variant.getChromosome();
@@ -1,16 +1,18 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.SegmentalDuplicationList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -21,19 +23,20 @@ public class GenerateFilteredVCF {
 
 
 	/**
-	 * Usage: java GenerateFilteredVCF -f <path to the file> -s <segmental duplication file (optional)> -b <block list (optional)>
-	 * @param args -f <path to the file> -s <segmental duplication file (optional)> -b <block list (optional)>
+	 * Usage: java GenerateFilteredVCF -f <path to the file> -s <segmental duplication file (optional)> -b <block list (optional)> -o <path to the output file (optional)>
+	 * @param args -f <path to the file> -s <segmental duplication file (optional)> -b <block list (optional)> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java GenerateFilteredVCF -f <path to the file> -s <segmental duplication file (optional)> -b <block list (optional)>");
+			System.out.println("Usage: java GenerateFilteredVCF -f <path to the file> -s <segmental duplication file (optional)> -b <block list (optional)> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
 				File VCFFile = null;
 				File segDupFile = null;
 				File blockFile = null;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-f")) {
 						VCFFile = new File(args[i + 1]);
@@ -41,9 +44,11 @@ public class GenerateFilteredVCF {
 						segDupFile = new File(args[i + 1]);
 					} else if (args[i].equals("-b")) {
 						blockFile = new File(args[i + 1]);
+					} else if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
 					}
 				}
-				generateFilteredVCF(VCFFile, segDupFile, blockFile);
+				generateFilteredVCF(VCFFile, segDupFile, blockFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -59,62 +64,89 @@ public class GenerateFilteredVCF {
 		if (args == null) {
 			return false;
 		}
-		if ((args.length != 2) && (args.length != 4) && (args.length != 6)) {
-			return false;
-		}
-		if (args[0].equals("-f") || args[2].equals("-f")) {
-			return true;
-		} else {
+		if ((args.length != 2) && (args.length != 4) && (args.length != 6) && (args.length != 8)) {
 			return false;
 		}
+		String[] mandatoryParameters = {"-f"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
+		}		
+		return true;
 	}
 
 
 	/**
-	 * Generates a filtered VCF file.  The filters must be defined in the Variant class.
-	 * @param VCFFile VCF files with the variants
+	 * Creates the transforms removing the indels, the MIE, the variants in segmental duplications and the SCE from a VCF file
 	 * @param segDupFile bed or bgr file containing the segmental duplication. Variants in these regions will be excluded.  Can be null
-	 * @param blockFile bgr containing the inheritance state blocks. SCE variants will be excluded.  Can be null 
-	 * @throws IOException if the VCF file is not valid
+	 * @param blockFile bgr containing the inheritance state blocks. SCE variants will be excluded.  Can be null
+	 * @return a {@link VCFLineTransformFactory} creating the transforms of the lines
+	 * @throws IOException if a file cannot be read
 	 */
-	private static void generateFilteredVCF(File VCFFile, File segDupFile, File blockFile) throws IOException {
-		SegmentalDuplicationList segDupList = null;
+	public static VCFLineTransformFactory createTransformFactory(File segDupFile, File blockFile) throws IOException {
+		SegmentalDuplicationList segDupFileList = null;
 		if (segDupFile != null) {
-			segDupList = new SegmentalDuplicationList();
-			segDupList.loadBedOrBgr(segDupFile);
+			segDupFileList = new SegmentalDuplicationList();
+			segDupFileList.loadBedOrBgr(segDupFile);
 		}
-		InheritanceStateBlockList<CrossTriosInheritanceState> isBlockList = null;
+		InheritanceStateBlockList<CrossTriosInheritanceState> blockFileList = null;
 		if (blockFile != null) {
-			isBlockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
+			blockFileList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
 		}
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) == '#') {
-					System.out.println(line);
-				} else {
-					try {
-						Variant currentVariant = new Variant(line);
-						if (!currentVariant.isIndel() && !currentVariant.isMIE()) {
-							if ((segDupList == null) || (!segDupList.isInSegmentalDuplication(currentVariant))) {
-								if ((isBlockList == null) || (isBlockList.getBlock(currentVariant) == null) || (!isBlockList.getBlock(currentVariant).isSCE(currentVariant))) {
-									System.out.println(line);
+		final SegmentalDuplicationList segDupList = segDupFileList;
+		final InheritanceStateBlockList<CrossTriosInheritanceState> isBlockList = blockFileList;
+		return new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+
+					@Override
+					public String transformHeaderLine(String line) {
+						return line;
+					}
+
+					@Override
+					public String transformVariantLine(String line) {
+						try {
+							Variant currentVariant = new Variant(parser.parse(line));
+							if (!currentVariant.isIndel() && !currentVariant.isMIE()) {
+								if ((segDupList == null) || (!segDupList.isInSegmentalDuplication(currentVariant))) {
+									if ((isBlockList == null) || (isBlockList.getBlock(currentVariant) == null) || (!isBlockList.getBlock(currentVariant).isSCE(currentVariant))) {
+										return line;
+									}
 								}
 							}
+						} catch (VCFException e) {
+							// do nothing
 						}
-					} catch (VCFException e) {
-						// do nothing
-					}					
-				}
-			}
-		} finally {
-			if (reader != null) {
-				reader.close();
+						// the filtered lines are not printed
+						return null;
+					}
+				};
 			}
-		}
+		};
+	}
+
+
+	/**
+	 * Generates a filtered VCF file.  The filters must be defined in the Variant class.
+	 * @param VCFFile VCF files with the variants
+	 * @param segDupFile bed or bgr file containing the segmental duplication. Variants in these regions will be excluded.  Can be null
+	 * @param blockFile bgr containing the inheritance state blocks. SCE variants will be excluded.  Can be null 
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
+	 * @throws IOException if the VCF file is not valid
+	 */
+	private static void generateFilteredVCF(File VCFFile, File segDupFile, File blockFile, File outputFile) throws IOException {
+		// the lines are filtered in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(createTransformFactory(segDupFile, blockFile));
+		pipeline.run(VCFFile, outputFile);
 	}
 }
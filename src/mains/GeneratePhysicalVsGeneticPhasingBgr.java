@@ -1,14 +1,13 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.PhasedGenotypesSeries;
 import dataStructures.PhasedVector;
-import dataStructures.PhasedVectorList;
+import dataStructures.PhasedVectorMergeJoin;
 import dataStructures.QuartetMember;
+import dataStructures.VCFPhasedVectorSource;
 
 
 /**
@@ -91,39 +90,27 @@ public class GeneratePhysicalVsGeneticPhasingBgr {
 	 * @throws IOException 
 	 */
 	private static void generatePhysicalVsGeneticPhasingBgr(File geneticPhasingFile, File physicalPhasingFile, QuartetMember member) throws IOException {
-		// load genetic phasing file		
-		PhasedVectorList geneticVectorList = new PhasedVectorList();
-		geneticVectorList.loadFromVCFFile(geneticPhasingFile);
-
-		// load physical phasing file
-		PhasedVectorList physicalVectorList = new PhasedVectorList();
-		physicalVectorList.loadFromVCFFile(physicalPhasingFile);
-		BufferedReader reader = null;
+		// the genetic and the physical phasing files are read in lockstep
+		PhasedVectorMergeJoin mergeJoin = null;
 		try {
-			reader = new BufferedReader(new FileReader(physicalPhasingFile));
-			String line = null;
+			mergeJoin = new PhasedVectorMergeJoin(VCFPhasedVectorSource.open(geneticPhasingFile, null), VCFPhasedVectorSource.open(physicalPhasingFile, null));
 			PhasedGenotypesSeries phasedSeries = new PhasedGenotypesSeries();
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) != '#') {
-					String[] splitLine = line.split("\t");
-					String chromosome = splitLine[0].trim();
-					int position = Integer.parseInt(splitLine[1].trim());
-					PhasedVector geneticPhasedVector = geneticVectorList.getPhasedVector(chromosome, position);
-					PhasedVector physicalPhasedVector = physicalVectorList.getPhasedVector(chromosome, position);
-					if ((geneticPhasedVector != null) && (physicalPhasedVector != null)) {
-						int result = phasedSeries.addGeneticPhysicalGenotypes(geneticPhasedVector.getGenotype(member), physicalPhasedVector.getGenotype(member), chromosome, position);
-						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-							phasedSeries.printResultPhasingBgr();
-							phasedSeries.reset();
-						}
+			// loop until the end of both files
+			while (mergeJoin.next()) {
+				// only the positions with a genetic and a physical vector are compared
+				if (mergeJoin.isAligned()) {
+					String geneticGenotype = PhasedVector.getGenotype(mergeJoin.getVector(0), member);
+					String physicalGenotype = PhasedVector.getGenotype(mergeJoin.getVector(1), member);
+					int result = phasedSeries.addGeneticPhysicalGenotypes(geneticGenotype, physicalGenotype, mergeJoin.getChromosome(), mergeJoin.getPosition());
+					if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+						phasedSeries.printResultPhasingBgr();
+						phasedSeries.reset();
 					}
 				}
 			}
 		} finally {
-			if (reader != null) {
-				reader.close();
+			if (mergeJoin != null) {
+				mergeJoin.close();
 			}
 		}
 	}
@@ -2,15 +2,16 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.SegmentalDuplicationList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 /**
  * Generates a bgr containing only the SCE variants
@@ -87,14 +88,15 @@ public class GenerateSCEBgr {
 		}
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
+			reader = GenomicFileReader.open(VCFFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						if (segDupList == null || !segDupList.isInSegmentalDuplication(currentVariant)) {
 							// we don't want indels
 							if (!currentVariant.isIndel()) {
@@ -1,15 +1,17 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 /**
  * Generates a VCF containing only the SCE variants   
@@ -19,19 +21,29 @@ public class GenerateSCEVCF {
 
 
 	/**
-	 * Usage: java GenerateSCEVCF -v <path to the VCF file> -b <path to the block file>
-	 * @param args -v <path to the VCF file> -b <path to the block file>
+	 * Usage: java GenerateSCEVCF -v <path to the VCF file> -b <path to the block file> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file> -b <path to the block file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java GenerateSCEVCF -v <path to the VCF file> -b <path to the block file>");
+			System.out.println("Usage: java GenerateSCEVCF -v <path to the VCF file> -b <path to the block file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
-				File VCFFile = new File(args[0].equals("-v") ? args[1] : args[3]); 
-				File blockFile = new File(args[0].equals("-b") ? args[1] : args[3]);
-				generateBlockStats(VCFFile, blockFile);
+				File VCFFile = null;
+				File blockFile = null;
+				File outputFile = null;
+				for (int i = 0; i < args.length; i += 2) {
+					if (args[i].equals("-v")) {
+						VCFFile = new File(args[i + 1]);
+					} else if (args[i].equals("-b")) {
+						blockFile = new File(args[i + 1]);
+					} else if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
+					}
+				}
+				generateBlockStats(VCFFile, blockFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -47,15 +59,22 @@ public class GenerateSCEVCF {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 4) {
+		if ((args.length != 4) && (args.length != 6)) {
 			return false;
 		}
-		if ((args[0].equals("-v") && args[2].equals("-b")) 
-				|| (args[0].equals("-b") && args[2].equals("-v"))) {
-			return true;
-		} else {
-			return false;
+		String[] mandatoryParameters = {"-v", "-b"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
 		}
+		return true;
 	}
 
 
@@ -63,36 +82,43 @@ public class GenerateSCEVCF {
 	 * Generates a VCF containing only the SCE variants
 	 * @param VCFFile VCF files with the variants of the family quartet
 	 * @param blockFile block files from the ISCA software (Roach et Al)
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException if the VCF file is not valid
 	 */
-	private static void generateBlockStats(File VCFFile, File blockFile) throws IOException {
-		InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
+	private static void generateBlockStats(File VCFFile, File blockFile, File outputFile) throws IOException {
+		final InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
 		blockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);	
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) != '#') {
-					try {
-						Variant currentVariant = new Variant(line);
-						// we don't process indels
-						if (!currentVariant.isIndel()) {
-							if ((blockList.getBlock(currentVariant) != null) && (currentVariant.isSCE(blockList.getBlock(currentVariant).getBlockState()))) {
-								System.out.println(line);
+		// the lines are filtered in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+
+					@Override
+					public String transformHeaderLine(String line) {
+						// the header is not printed
+						return null;
+					}
+
+					@Override
+					public String transformVariantLine(String line) {
+						try {
+							Variant currentVariant = new Variant(parser.parse(line));
+							// we don't process indels
+							if (!currentVariant.isIndel()) {
+								if ((blockList.getBlock(currentVariant) != null) && (currentVariant.isSCE(blockList.getBlock(currentVariant).getBlockState()))) {
+									return line;
+								}
 							}
+						} catch (VCFException e) {
+							// do nothing
 						}
-					} catch (VCFException e) {
-						// do nothing
+						return null;
 					}
-				}
-			}	
-		} finally {
-			if (reader != null) {
-				reader.close();
+				};
 			}
-		}
+		});
+		pipeline.run(VCFFile, outputFile);
 	}
 }
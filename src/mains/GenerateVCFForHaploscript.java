@@ -2,16 +2,18 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.QuartetInheritanceState;
 import dataStructures.InheritanceStateBlock;
 import dataStructures.InheritanceStateBlockList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.InvalidVCFLineException;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
+import utils.OutputSink;
 
 
 /**
@@ -22,17 +24,17 @@ public class GenerateVCFForHaploscript {
 
 
 	/**
-	 * Usage: java GenerateVCFForHaploscript -v <path to the VCF file> -b <path to the block file> -c <path to the compression block>
-	 * @param args -v <path to the VCF file> -b <path to the block file> -c <path to the compression block>
+	 * Usage: java GenerateVCFForHaploscript -v <path to the VCF file> -b <path to the block file> -c <path to the compression block> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file> -b <path to the block file> -c <path to the compression block> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java GenerateVCFForHaploscript -v <path to the VCF file> -b <path to the block file> -c <path to the compression block>");
+			System.out.println("Usage: java GenerateVCFForHaploscript -v <path to the VCF file> -b <path to the block file> -c <path to the compression block> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
-			File VCFFile = null, blockFile = null, compressionFile = null;
-			for (int i = 0; i <= 4; i += 2) {
+			File VCFFile = null, blockFile = null, compressionFile = null, outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
 				if (args[i].equals("-v")) {
 					VCFFile = new File(args[i + 1]);
 				}
@@ -42,9 +44,12 @@ public class GenerateVCFForHaploscript {
 				if (args[i].equals("-c")) {
 					compressionFile = new File(args[i + 1]);
 				}
+				if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
 			}
 			try {
-				generateVCFForHaploscript(VCFFile, blockFile, compressionFile);
+				generateVCFForHaploscript(VCFFile, blockFile, compressionFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -60,20 +65,20 @@ public class GenerateVCFForHaploscript {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 6) {
-			return false;
-		}
-		// case with no -v parameter
-		if (!args[0].equals("-v") && !args[2].equals("-v") && !args[4].equals("-v")) {
-			return false;
-		}
-		// case with no -b parameter
-		if (!args[0].equals("-b") && !args[2].equals("-b") && !args[4].equals("-b")) {
+		if ((args.length != 6) && (args.length != 8)) {
 			return false;
 		}
-		// case with no -c parameter
-		if (!args[0].equals("-c") && !args[2].equals("-c") && !args[4].equals("-c")) {
-			return false;
+		String[] mandatoryParameters = {"-v", "-b", "-c"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
 		}
 		return true;
 
@@ -85,9 +90,10 @@ public class GenerateVCFForHaploscript {
 	 * @param VCFFile input VCF file
 	 * @param blockFile ISCA file with the inheritance state blocks
 	 * @param compressionFile bgr file with the compression blocks 
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException
 	 */
-	private static void generateVCFForHaploscript(File VCFFile, File blockFile, File compressionFile) throws IOException {
+	private static void generateVCFForHaploscript(File VCFFile, File blockFile, File compressionFile, File outputFile) throws IOException {
 		// load the inheritance block list
 		InheritanceStateBlockList<QuartetInheritanceState> blockList;
 		blockList = InheritanceStateBlockListFactory.createFromISCAFile(blockFile);
@@ -95,9 +101,12 @@ public class GenerateVCFForHaploscript {
 		InheritanceStateBlockList<QuartetInheritanceState> compressionList;
 		compressionList = InheritanceStateBlockListFactory.createFromQuartetBgrFile(compressionFile);
 		BufferedReader reader = null;
+		OutputSink output = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
+			reader = GenomicFileReader.open(VCFFile);
+			output = new OutputSink(outputFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			String previousLine = null;
 			int previousVariantPosition = -1;
 			String previousChromo = "";
@@ -106,7 +115,7 @@ public class GenerateVCFForHaploscript {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						// we don't process variants with more than one alternative allele or indels
 						if ((currentVariant.getAlternativeAllele().length() != 1) || (currentVariant.getReferenceAllele().length() != 1)) {
 							throw new InvalidVCFLineException("Invalid VCF line: indel or variant with more than 1 alt allele.", line);
@@ -131,7 +140,7 @@ public class GenerateVCFForHaploscript {
 							previousLine = null;
 						} else {							
 							if (previousLine != null) {
-								System.out.println(previousLine);
+								output.println(previousLine);
 							}
 							previousChromo = currentVariant.getChromosome();
 							previousVariantPosition = currentVariant.getPosition();
@@ -147,6 +156,9 @@ public class GenerateVCFForHaploscript {
 			if (reader != null) {
 				reader.close();
 			}
+			if (output != null) {
+				output.close();
+			}
 		}
 	}
 }
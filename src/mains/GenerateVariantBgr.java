@@ -2,15 +2,16 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.QuartetInheritanceState;
 import dataStructures.InheritanceStateBlockList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.InvalidVCFLineException;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
 
 /**
  * Prints the variants in a bgr format.  Only print the variant have the same state as the 
@@ -76,14 +77,15 @@ public class GenerateVariantBgr {
 		blockList = InheritanceStateBlockListFactory.createFromISCAFile(blockFile);
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
+			reader = GenomicFileReader.open(VCFFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
 					try {
-						Variant currentVariant = new Variant(line);
+						Variant currentVariant = new Variant(parser.parse(line));
 						// we don't process variants with more than one alternative allele or indels
 						if ((currentVariant.getAlternativeAllele().length() != 1) || (currentVariant.getReferenceAllele().length() != 1)) {
 							throw new InvalidVCFLineException("Invalid VCF line: indel or variant with more than one alt allele.", line);
@@ -2,7 +2,6 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.InheritanceStateBlock;
@@ -11,8 +10,11 @@ import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.PhasedVector;
 import dataStructures.PhasedVectorList;
 import dataStructures.QuartetInheritanceState;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
+import utils.OutputSink;
 
 
 /**
@@ -27,17 +29,17 @@ public class Haplotyping2Vcf {
 
 
 	/**
-	 * Usage: java Haplotyping2Vcf -v <path to the VCF file> -b <path to the block file> -p <path to the phased vector file>
-	 * @param args -v <path to the VCF file> -b <path to the block file> -p <path to the phased vector file>
+	 * Usage: java Haplotyping2Vcf -v <path to the VCF file> -b <path to the block file> -p <path to the phased vector file> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file> -b <path to the block file> -p <path to the phased vector file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java Haplotyping2Vcf -v <path to the VCF file> -b <path to the block file> -p <path to the phased vector file>");
+			System.out.println("Usage: java Haplotyping2Vcf -v <path to the VCF file> -b <path to the block file> -p <path to the phased vector file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
-			File VCFFile = null, blockFile = null, phasedVectorFile = null;
-			for (int i = 0; i <= 4; i += 2) {
+			File VCFFile = null, blockFile = null, phasedVectorFile = null, outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
 				if (args[i].equals("-v")) {
 					VCFFile = new File(args[i + 1]);
 				}
@@ -47,9 +49,12 @@ public class Haplotyping2Vcf {
 				if (args[i].equals("-p")) {
 					phasedVectorFile = new File(args[i + 1]);
 				}
+				if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
 			}
 			try {
-				haplotyping2Vcf(VCFFile, blockFile, phasedVectorFile);
+				haplotyping2Vcf(VCFFile, blockFile, phasedVectorFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -65,20 +70,20 @@ public class Haplotyping2Vcf {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 6) {
-			return false;
-		}
-		// case with no -v parameter
-		if (!args[0].equals("-v") && !args[2].equals("-v") && !args[4].equals("-v")) {
-			return false;
-		}
-		// case with no -b parameter
-		if (!args[0].equals("-b") && !args[2].equals("-b") && !args[4].equals("-b")) {
+		if ((args.length != 6) && (args.length != 8)) {
 			return false;
 		}
-		// case with no -c parameter
-		if (!args[0].equals("-p") && !args[2].equals("-p") && !args[4].equals("-p")) {
-			return false;
+		String[] mandatoryParameters = {"-v", "-b", "-p"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
 		}
 		return true;
 
@@ -90,9 +95,10 @@ public class Haplotyping2Vcf {
 	 * @param VCFFile input VCF file
 	 * @param blockFile ISCA file with the inheritance state blocks
 	 * @param phasedVectorFile phased vector file from Haplotyping 
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException
 	 */
-	private static void haplotyping2Vcf(File VCFFile, File blockFile, File phasedVectorFile) throws IOException {
+	private static void haplotyping2Vcf(File VCFFile, File blockFile, File phasedVectorFile, File outputFile) throws IOException {
 		// load the inheritance block list
 		InheritanceStateBlockList<QuartetInheritanceState> blockList = InheritanceStateBlockListFactory.createFromISCAFile(blockFile);
 		// load the phased vector file
@@ -100,9 +106,12 @@ public class Haplotyping2Vcf {
 		vectorList.loadFromHaplotypingFile(phasedVectorFile);
 
 		BufferedReader reader = null;
+		OutputSink output = null;
 		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
+			reader = GenomicFileReader.open(VCFFile);
+			output = new OutputSink(outputFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			boolean formatHeaderSet = false;
 			InheritanceStateBlock<QuartetInheritanceState> previousBlock = null;
 			// loop until eof
@@ -111,11 +120,11 @@ public class Haplotyping2Vcf {
 				if (line.charAt(0) == '#') {
 					if ((line.contains("##FORMAT")) && !formatHeaderSet) {
 						// print the header for the 2 new fields
-						System.out.println(PHASED_SET_FORMAT_HEADER);
+						output.println(PHASED_SET_FORMAT_HEADER);
 						formatHeaderSet = true;
 						//System.out.println(BLOCK_INFO_FORMAT_HEADER);
 					}
-					System.out.println(line);
+					output.println(line);
 				} else {
 					try {
 						String newVcfLine = "";
@@ -127,7 +136,7 @@ public class Haplotyping2Vcf {
 						if ((previousBlock == null) || (!previousBlock.equals(block))) {
 							newVcfLine = substituteVcfLine(splitLine, null, (PhasedVector) null);
 						} else {
-							Variant variant = new Variant(line);
+							Variant variant = new Variant(parser.parse(line));
 							if (variant.getGenotypePattern().equals("aa/aa;aa/aa")) {
 								// fully homozygous vectors are not phased by haploscripting
 								newVcfLine = substituteVcfLine(splitLine, block, variant);
@@ -136,7 +145,7 @@ public class Haplotyping2Vcf {
 								newVcfLine = substituteVcfLine(splitLine, block, phasedVector);
 							}
 						}
-						System.out.println(newVcfLine);
+						output.println(newVcfLine);
 						previousBlock = block;
 					} catch (VCFException e) {
 						// do nothing
@@ -147,6 +156,9 @@ public class Haplotyping2Vcf {
 			if (reader != null) {
 				reader.close();
 			}
+			if (output != null) {
+				output.close();
+			}
 		}
 	}
 
@@ -179,16 +191,16 @@ public class Haplotyping2Vcf {
 				kid2Genotype += ":" + phaseSet;
 			}
 		}
-		String phasedVcfLine = "";
+		StringBuilder phasedVcfLine = new StringBuilder(256);
 		for (int i = 0; i < 8; i++) {
-			phasedVcfLine += splitLine[i] + "\t";
+			phasedVcfLine.append(splitLine[i]).append('\t');
 		}
-		phasedVcfLine += formatField + "\t";
-		phasedVcfLine += fatherGenotype + "\t";
-		phasedVcfLine += motherGenotype + "\t";
-		phasedVcfLine += kid1Genotype + "\t";
-		phasedVcfLine += kid2Genotype;
-		return phasedVcfLine;
+		phasedVcfLine.append(formatField).append('\t');
+		phasedVcfLine.append(fatherGenotype).append('\t');
+		phasedVcfLine.append(motherGenotype).append('\t');
+		phasedVcfLine.append(kid1Genotype).append('\t');
+		phasedVcfLine.append(kid2Genotype);
+		return phasedVcfLine.toString();
 	}
 
 
@@ -233,15 +245,15 @@ public class Haplotyping2Vcf {
 				kid2Genotype += ":" + phaseSet;
 			}
 		}
-		String phasedVcfLine = "";
+		StringBuilder phasedVcfLine = new StringBuilder(256);
 		for (int i = 0; i < 8; i++) {
-			phasedVcfLine += splitLine[i] + "\t";
+			phasedVcfLine.append(splitLine[i]).append('\t');
 		}
-		phasedVcfLine += formatField + "\t";
-		phasedVcfLine += fatherGenotype + "\t";
-		phasedVcfLine += motherGenotype + "\t";
-		phasedVcfLine += kid1Genotype + "\t";
-		phasedVcfLine += kid2Genotype;
-		return phasedVcfLine;
+		phasedVcfLine.append(formatField).append('\t');
+		phasedVcfLine.append(fatherGenotype).append('\t');
+		phasedVcfLine.append(motherGenotype).append('\t');
+		phasedVcfLine.append(kid1Genotype).append('\t');
+		phasedVcfLine.append(kid2Genotype);
+		return phasedVcfLine.toString();
 	}
 }
@@ -1,13 +1,15 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
+import dataStructures.FilterPolicy;
+import dataStructures.VCFLineParser;
+import dataStructures.VCFRejectReason;
 import dataStructures.Variant;
-import exceptions.FilteredVCFLineException;
-import exceptions.VCFException;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -21,23 +23,26 @@ public class MarkPLFilteredVariants {
 	private static final int	INFO_FIELD_INDEX = 7; // index of the info field in the vcf file
 
 	/**
-	 * Usage: java MarkPLFilteredVariants -v <path to the VCF file>
-	 * @param args -v <path to the VCF file>
+	 * Usage: java MarkPLFilteredVariants -v <path to the VCF file> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java MarkPLFilteredVariants.java -v <path to the VCF file>");
+			System.out.println("Usage: java MarkPLFilteredVariants.java -v <path to the VCF file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
 				File VCFFile = null;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-v")) {
 						VCFFile = new File(args[i + 1]);
+					} else if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
 					}
 				}
-				markPLFilteredVariants(VCFFile);
+				markPLFilteredVariants(VCFFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -53,13 +58,21 @@ public class MarkPLFilteredVariants {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 2) {
-			return false;
-		}
-		// case with no -v parameter
-		if (!args[0].equals("-v")) {
+		if ((args.length != 2) && (args.length != 4)) {
 			return false;
 		}
+		String[] mandatoryParameters = {"-v"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
+		}		
 		return true;
 	}
 
@@ -67,44 +80,43 @@ public class MarkPLFilteredVariants {
 	/**
 	 * Adds a PLF flags to the info field of the VCF file when on the VCF line rejected by the PL filter
 	 * @param VCFFile
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException
 	 */
-	private static void markPLFilteredVariants(File VCFFile) throws IOException {
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			boolean infoStarted = false;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) == '#') {
-					if (line.startsWith("##INFO")) {
-						infoStarted = true;
-					} else if (infoStarted) {
-						System.out.println(PLF_INFO_HEADER);
-						infoStarted= false;
+	private static void markPLFilteredVariants(File VCFFile, File outputFile) throws IOException {
+		final FilterPolicy filterPolicy = new FilterPolicy();
+		// the lines are marked in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+					private boolean infoStarted = false;						// true while the info header lines are read
+
+					@Override
+					public String transformHeaderLine(String line) {
+						if (line.startsWith("##INFO")) {
+							infoStarted = true;
+						} else if (infoStarted) {
+							infoStarted = false;
+							return PLF_INFO_HEADER + System.lineSeparator() + line;
+						}
+						return line;
 					}
-					System.out.println(line);
-				} else {
-					try {
-						new Variant(line);
-					} catch (FilteredVCFLineException e) {
+
+					@Override
+					public String transformVariantLine(String line) {
+						Variant.tryParse(parser.parse(line), filterPolicy);
 						// if the variant got rejected by the PL filter we mark it
-						if (e.getFilterName().equalsIgnoreCase("PL")) {
+						if (parser.getRejectReason() == VCFRejectReason.PL) {
 							line = markLineAs(line, "PLF");
 						}
-					} catch (VCFException e) {
-					} finally {
-						System.out.println(line);
+						return line;
 					}
-				}
+				};
 			}
-		} finally {
-			if (reader != null) {
-				reader.close();
-			}
-		}
+		});
+		pipeline.run(VCFFile, outputFile);
 	}
 
 
@@ -116,10 +128,10 @@ public class MarkPLFilteredVariants {
 	private static String markLineAs(String line, String flag) {
 		String[] splitLine = line.split("\t");
 		splitLine[INFO_FIELD_INDEX] += ";" + flag; 
-		String newLine = splitLine[0];
+		StringBuilder newLine = new StringBuilder(line.length() + 16).append(splitLine[0]);
 		for (int i = 1; i < splitLine.length; i++) {
-			newLine += "\t" + splitLine[i];
+			newLine.append('\t').append(splitLine[i]);
 		}
-		return newLine;
+		return newLine.toString();
 	}
 }
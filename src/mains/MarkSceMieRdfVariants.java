@@ -1,17 +1,22 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
 import dataStructures.InheritanceStateBlock;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
+import dataStructures.IntervalTrack;
+import dataStructures.IntervalTrackSet;
+import dataStructures.IntervalTrackSweep;
 import dataStructures.SegmentalDuplicationList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -29,19 +34,20 @@ public class MarkSceMieRdfVariants {
 	private static final int	INFO_FIELD_INDEX = 7; // index of the info field in the vcf file
 
 	/**
-	 * Usage: java MarkSceMieRdfVariants -v <path to the VCF file> -b <path to the block file>  -s <path to the segmental duplication file>
-	 * @param args -v <path to the VCF file> -b <path to the block file> -s <path to the segmental duplication file>
+	 * Usage: java MarkSceMieRdfVariants -v <path to the VCF file> -b <path to the block file>  -s <path to the segmental duplication file> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file> -b <path to the block file> -s <path to the segmental duplication file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java MarkSceMieRdfVariants.java -v <path to the VCF file> -b <path to the block file> -s <path to the segmental duplication file>");
+			System.out.println("Usage: java MarkSceMieRdfVariants.java -v <path to the VCF file> -b <path to the block file> -s <path to the segmental duplication file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
 				File VCFFile = null;
 				File blockFile = null;
 				File segDupFile = null;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-v")) {
 						VCFFile = new File(args[i + 1]);
@@ -49,9 +55,11 @@ public class MarkSceMieRdfVariants {
 						blockFile = new File(args[i + 1]);
 					} else if (args[i].equals("-s")) {
 						segDupFile = new File(args[i + 1]);
+					} else if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
 					}
 				}
-				markSCEMIESegDup(VCFFile, blockFile, segDupFile);
+				markSCEMIESegDup(VCFFile, blockFile, segDupFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -67,80 +75,102 @@ public class MarkSceMieRdfVariants {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 6) {
-			return false;
-		}
-		// case with no -b parameter
-		if (!args[0].equals("-b") && !args[2].equals("-b") && !args[4].equals("-b")) {
-			return false;
-		}
-		// case with no -v parameter
-		if (!args[0].equals("-v") && !args[2].equals("-v") && !args[4].equals("-v")) {
-			return false;
-		}
-		// case with no -s parameter 
-		if (!args[0].equals("-s") && !args[2].equals("-s") && !args[4].equals("-s")) {
+		if ((args.length != 6) && (args.length != 8)) {
 			return false;
 		}
+		String[] mandatoryParameters = {"-v", "-b", "-s"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
+		}		
 		return true;
 	}
 
 
 	/**
-	 * Adds a MIE or SCE flags to the info field of the VCF file for the SCE and MIEvariants
-	 * @param VCFFile VCF files with the variants of the family quartet
+	 * Creates the transforms adding the MIE, SCE and RDF flags to the info field of the lines of a VCF file
 	 * @param blockFile block files in a bgr format
 	 * @param segDupFile file with the segmental duplications
-	 * @throws IOException if the VCF file is not valid
+	 * @return a {@link VCFLineTransformFactory} creating the transforms of the lines
+	 * @throws IOException if a file cannot be read
 	 */
-	private static void markSCEMIESegDup(File VCFFile, File blockFile, File segDupFile) throws IOException {
+	public static VCFLineTransformFactory createTransformFactory(final File blockFile, final File segDupFile) throws IOException {
 		InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
 		blockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
 		SegmentalDuplicationList segDupList = new SegmentalDuplicationList();
 		segDupList.loadBedOrBgr(segDupFile);
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			boolean infoStarted = false;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) == '#') {
-					if (line.startsWith("##INFO")) {
-						infoStarted = true;
-					} else if (infoStarted) {
-						System.out.println(MIE_INFO_HEADER);
-						System.out.println(SCE_INFO_HEADER + blockFile.getPath() + INFO_HEADER_END);
-						System.out.println(RDF_INFO_HEADER + segDupFile.getPath() + INFO_HEADER_END);
-						infoStarted= false;
-					}
-					System.out.println(line);
-				} else {
-					try {
-						Variant currentVariant = new Variant(line);
-						InheritanceStateBlock<CrossTriosInheritanceState> isBlock = blockList.getBlock(currentVariant);
-						// a variant cannot be both MIE and SCE at the same time
-						if (currentVariant.isMIE()) {
-							line = markLineAs(line, "MIE");
-						} else if ((isBlock != null) && (currentVariant.isSCE(isBlock.getBlockState()))) {
-							line = markLineAs(line, "SCE");
+		// the blocks and the segmental duplications are annotated in a single sweep over the VCF
+		final IntervalTrackSet trackSet = new IntervalTrackSet();
+		final IntervalTrack<InheritanceStateBlock<CrossTriosInheritanceState>> blockTrack = IntervalTrack.createFromInheritanceStateBlockList(blockList);
+		final int blockTrackIndex = trackSet.addTrack(blockTrack);
+		final int segDupTrackIndex = trackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(segDupList));
+		return new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+					private final IntervalTrackSweep sweep = trackSet.createSweep();	// sweep of the thread using the transform
+					private boolean infoStarted = false;						// true while the info header lines are read
+
+					@Override
+					public String transformHeaderLine(String line) {
+						if (line.startsWith("##INFO")) {
+							infoStarted = true;
+						} else if (infoStarted) {
+							infoStarted = false;
+							return MIE_INFO_HEADER + System.lineSeparator()
+									+ SCE_INFO_HEADER + blockFile.getPath() + INFO_HEADER_END + System.lineSeparator()
+									+ RDF_INFO_HEADER + segDupFile.getPath() + INFO_HEADER_END + System.lineSeparator()
+									+ line;
 						}
-						if ((segDupList != null) && (segDupList.isInSegmentalDuplication(currentVariant))) {
-							line = markLineAs(line, "RDF");
+						return line;
+					}
+
+					@Override
+					public String transformVariantLine(String line) {
+						try {
+							Variant currentVariant = new Variant(parser.parse(line));
+							sweep.sweep(currentVariant);
+							InheritanceStateBlock<CrossTriosInheritanceState> isBlock = sweep.getHit(blockTrack, blockTrackIndex);
+							// a variant cannot be both MIE and SCE at the same time
+							if (currentVariant.isMIE()) {
+								line = markLineAs(line, "MIE");
+							} else if ((isBlock != null) && (currentVariant.isSCE(isBlock.getBlockState()))) {
+								line = markLineAs(line, "SCE");
+							}
+							if (sweep.isHit(segDupTrackIndex)) {
+								line = markLineAs(line, "RDF");
+							}
+						} catch (VCFException e) {
+							// do nothing
 						}
-					} catch (VCFException e) {
-						// do nothing
-					} finally {
-						System.out.println(line);
+						return line;
 					}
-				}
+				};
 			}
-		} finally {
-			if (reader != null) {
-				reader.close();
-			}
-		}
+		};
+	}
+
+
+	/**
+	 * Adds a MIE or SCE flags to the info field of the VCF file for the SCE and MIEvariants
+	 * @param VCFFile VCF files with the variants of the family quartet
+	 * @param blockFile block files in a bgr format
+	 * @param segDupFile file with the segmental duplications
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
+	 * @throws IOException if the VCF file is not valid
+	 */
+	private static void markSCEMIESegDup(final File VCFFile, final File blockFile, final File segDupFile, File outputFile) throws IOException {
+		// the lines are transformed in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(createTransformFactory(blockFile, segDupFile));
+		pipeline.run(VCFFile, outputFile);
 	}
 
 
@@ -152,10 +182,10 @@ public class MarkSceMieRdfVariants {
 	private static String markLineAs(String line, String flag) {
 		String[] splitLine = line.split("\t");
 		splitLine[INFO_FIELD_INDEX] += ";" + flag; 
-		String newLine = splitLine[0];
+		StringBuilder newLine = new StringBuilder(line.length() + 16).append(splitLine[0]);
 		for (int i = 1; i < splitLine.length; i++) {
-			newLine += "\t" + splitLine[i];
+			newLine.append('\t').append(splitLine[i]);
 		}
-		return newLine;
+		return newLine.toString();
 	}
 }
@@ -1,39 +1,44 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import dataStructures.VCFLineMergeJoin;
+import dataStructures.VCFLineParser;
+import utils.OutputSink;
 
 
 /**
- * Merges the phasing of 2 trios phased by transmission in a phased quartet file
+ * Merges the phasing of 2 trios phased by transmission in a phased quartet file.
+ * More than 2 trios can be merged to assemble larger families: the VCF files must contain the 2 parents
+ * followed by the children, trio #k being the trio made of the 2 parents and the k-th child
  * @author Julien Lajugie
  */
 public class Merge2Trios {
 
 	/**
-	 * Usage: java Merge2Trios.java -t1 <path to the 1st trio VCF> -t2 <path to the 2nd trio VCF>
-	 * @param args -t1 <path to the 1st trio VCF> -t2 <path to the 2nd trio VCF>
+	 * Usage: java Merge2Trios.java -t1 <path to the 1st trio VCF> -t2 <path to the 2nd trio VCF> -t3... <path to the next trio VCFs (optional)> -o <path to the output file (optional)>
+	 * @param args -t1 <path to the 1st trio VCF> -t2 <path to the 2nd trio VCF> -t3... <path to the next trio VCFs (optional)> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java Merge2Trios.java -t1 <path to the 1st trio VCF> -t2 <path to the 2nd trio VCF>");
+			System.out.println("Usage: java Merge2Trios.java -t1 <path to the 1st trio VCF> -t2 <path to the 2nd trio VCF> -t3... <path to the next trio VCFs (optional)> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
-			File trio1File = null;
-			File trio2File = null;
-			for (int i = 0; i <= 2; i += 2) {
-				if (args[i].equals("-t1")) {
-					trio1File = new File(args[i + 1]);
-				}
-				if (args[i].equals("-t2")) {
-					trio2File = new File(args[i + 1]);
+			File[] trioFiles = new File[getTrioCount(args)];
+			File outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				} else {
+					trioFiles[getTrioIndex(args[i]) - 1] = new File(args[i + 1]);
 				}
 			}
 			try {
-				merge2Trios(trio1File, trio2File);
+				mergeTrios(trioFiles, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -49,18 +54,59 @@ public class Merge2Trios {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 4) {
+		if ((args.length < 4) || ((args.length % 2) != 0)) {
 			return false;
 		}
-		// case with no -t1 parameter
-		if (!args[0].equals("-t1") && !args[2].equals("-t1")) {
-			return false;
+		int trioCount = getTrioCount(args);
+		boolean[] isTrioFound = new boolean[trioCount];
+		boolean isOutputFound = false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-o")) {
+				if (isOutputFound) {
+					return false;
+				}
+				isOutputFound = true;
+			} else {
+				// the trios must be numbered from 1 to the number of trios
+				int trioIndex = getTrioIndex(args[i]);
+				if ((trioIndex < 1) || (trioIndex > trioCount) || isTrioFound[trioIndex - 1]) {
+					return false;
+				}
+				isTrioFound[trioIndex - 1] = true;
+			}
 		}
-		// case with no -t2 parameter
-		if (!args[0].equals("-t2") && !args[2].equals("-t2")) {
-			return false;
+		return trioCount >= 2;
+	}
+
+
+	/**
+	 * @param args parameters from the main function
+	 * @return the number of trio parameters
+	 */
+	private static int getTrioCount(String[] args) {
+		int trioCount = 0;
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].equals("-o")) {
+				trioCount++;
+			}
+		}
+		return trioCount;
+	}
+
+
+	/**
+	 * @param parameter a parameter (eg: -t2)
+	 * @return the index of the trio of the parameter (eg: 2 for -t2). -1 if the parameter is not a trio parameter
+	 */
+	private static int getTrioIndex(String parameter) {
+		if (!parameter.startsWith("-t")) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(parameter.substring(2));
+		} catch (NumberFormatException e) {
+			return -1;
 		}
-		return true;
 	}
 
 
@@ -68,45 +114,160 @@ public class Merge2Trios {
 	 * Merges the phasing of 2 trios phased by transmission in a phased quartet file
 	 * @param trio1File 1st trio vcf file
 	 * @param trio2File 2nd trio vcf file
+	 * @param outputFile file where the merged vcf is printed. The merged vcf is printed in the standard output if null
 	 * @throws IOException
 	 */
-	private static void merge2Trios(File trio1File, File trio2File) throws IOException {
-		BufferedReader readerTrio1 = null;
-		BufferedReader readerTrio2 = null;
+	static void merge2Trios(File trio1File, File trio2File, File outputFile) throws IOException {
+		mergeTrios(new File[] {trio1File, trio2File}, outputFile);
+	}
+
+
+	/**
+	 * Merges the phasing of several trios phased by transmission in one pass over the files.
+	 * The files are joined on the chromosome, the position and the reference and alternative alleles.
+	 * The parents are taken from the 1st trio and each child from its trio. The columns of a trio missing
+	 * the variant are taken from the first trio having it. The header is the header of the 1st trio
+	 * @param trioFiles vcf files of the trios sorted by chromosome and position. The file of the trio #k contains the 2 parents followed by the children and has the k-th child phased
+	 * @param outputFile file where the merged vcf is printed. The merged vcf is printed in the standard output if null
+	 * @throws IOException if a file cannot be read or if the files cannot be merged
+	 */
+	static void mergeTrios(File[] trioFiles, File outputFile) throws IOException {
+		int trioCount = trioFiles.length;
+		// 2 parents and one child per trio
+		int fieldCount = VCFLineParser.FIRST_SAMPLE_FIELD_INDEX + 2 + trioCount;
+		VCFLineParser[] parsers = new VCFLineParser[trioCount];
+		for (int i = 0; i < trioCount; i++) {
+			parsers[i] = new VCFLineParser();
+		}
+		// index of the line of each trio merged in the current output line, -1 if none
+		int[] selectedLines = new int[trioCount];
+		// true for the lines of each trio at the current position that are already merged
+		boolean[][] isMerged = new boolean[trioCount][1];
+		long partialLineCount = 0;
+		VCFLineMergeJoin mergeJoin = null;
+		OutputSink output = null;
 		try {
-			readerTrio1 = new BufferedReader(new FileReader(trio1File));
-			readerTrio2 = new BufferedReader(new FileReader(trio2File));
-			String lineTrio1 = null;
-			String lineTrio2 = null;
-			// loop until eof
-			while (((lineTrio1 = readerTrio1.readLine()) != null) && ((lineTrio2 = readerTrio2.readLine()) != null)){
-				// a line starting with a # is a comment line
-				if (lineTrio1.charAt(0) == '#') {
-					System.out.println(lineTrio1);
-				} else {
-					String[] splitLineTrio1 = lineTrio1.split("\t");
-					String[] splitLineTrio2 = lineTrio2.split("\t");
-					if (!splitLineTrio1[0].equals(splitLineTrio2[0])) {
-						throw new IOException("Files cannot be merged");
+			mergeJoin = new VCFLineMergeJoin(trioFiles);
+			output = new OutputSink(outputFile);
+			for (String headerLine: mergeJoin.getHeaderLines(0)) {
+				output.println(headerLine);
+			}
+			while (mergeJoin.next()) {
+				for (int i = 0; i < trioCount; i++) {
+					int lineCount = mergeJoin.getLines(i).size();
+					if (isMerged[i].length < lineCount) {
+						isMerged[i] = new boolean[lineCount];
 					} else {
-						String outputLine = "";
-						int currentFied = 0;
-						while (currentFied < splitLineTrio1.length - 1) {
-							outputLine += splitLineTrio1[currentFied] + '\t';
-							currentFied++;							
+						Arrays.fill(isMerged[i], 0, lineCount, false);
+					}
+				}
+				for (int i = 0; i < trioCount; i++) {
+					List<String> trioLines = mergeJoin.getLines(i);
+					for (int j = 0; j < trioLines.size(); j++) {
+						if (!isMerged[i][j]) {
+							// the trios before the current one don't have any line left at this position
+							Arrays.fill(selectedLines, -1);
+							selectedLines[i] = j;
+							isMerged[i][j] = true;
+							parseLine(parsers[i], trioLines.get(j), fieldCount, trioFiles[i]);
+							boolean isPartial = false;
+							for (int k = i + 1; k < trioCount; k++) {
+								selectedLines[k] = findMatchingLine(parsers[i], parsers[k], mergeJoin.getLines(k), isMerged[k], fieldCount, trioFiles[k]);
+								if (selectedLines[k] == -1) {
+									isPartial = true;
+								} else {
+									isMerged[k][selectedLines[k]] = true;
+								}
+							}
+							if (isPartial || (i > 0)) {
+								partialLineCount++;
+							}
+							printMergedLine(output, parsers, selectedLines, i);
 						}
-						outputLine += splitLineTrio2[currentFied];
-						System.out.println(outputLine);
-					}					
+					}
 				}
 			}
+			if (partialLineCount > 0) {
+				System.err.println(partialLineCount + " variants missing in at least one trio were merged from the other trios");
+			}
 		} finally {
-			if (readerTrio1 != null) {
-				readerTrio1.close();
+			if (output != null) {
+				output.close();
+			}
+			if (mergeJoin != null) {
+				mergeJoin.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Parses a line of a trio file and checks its number of fields
+	 * @param parser parser of the trio
+	 * @param line a variant line of the trio file
+	 * @param fieldCount expected number of fields
+	 * @param trioFile trio file
+	 * @throws IOException if the line doesn't have the expected number of fields
+	 */
+	private static void parseLine(VCFLineParser parser, String line, int fieldCount, File trioFile) throws IOException {
+		parser.parse(line);
+		if (parser.getFieldCount() != fieldCount) {
+			throw new IOException("Files cannot be merged: " + trioFile.getName() + " must have " + (fieldCount - VCFLineParser.FIRST_SAMPLE_FIELD_INDEX) + " samples (" + line + ")");
+		}
+	}
+
+
+	/**
+	 * Finds the first line of a trio that is not merged yet and has the same reference and alternative alleles as a line of another trio.
+	 * The line found is left parsed in the parser of the trio
+	 * @param parser parser with the line to match
+	 * @param trioParser parser of the trio
+	 * @param trioLines lines of the trio at the position of the line to match
+	 * @param isMerged true for the lines of the trio that are already merged
+	 * @param fieldCount expected number of fields
+	 * @param trioFile trio file
+	 * @return the index of the matching line. -1 if there is none
+	 * @throws IOException if a line doesn't have the expected number of fields
+	 */
+	private static int findMatchingLine(VCFLineParser parser, VCFLineParser trioParser, List<String> trioLines, boolean[] isMerged, int fieldCount, File trioFile) throws IOException {
+		for (int i = 0; i < trioLines.size(); i++) {
+			if (!isMerged[i]) {
+				parseLine(trioParser, trioLines.get(i), fieldCount, trioFile);
+				// the 4th and 5th fields are the reference and the alternative alleles
+				if (trioParser.fieldEquals(3, parser) && trioParser.fieldEquals(4, parser)) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Prints a merged line
+	 * @param output output of the merged vcf
+	 * @param parsers parsers of the trios with the lines to merge
+	 * @param selectedLines index of the line of each trio to merge, -1 if the trio has no line to merge
+	 * @param firstTrio index of the first trio with a line to merge
+	 * @throws IOException
+	 */
+	private static void printMergedLine(OutputSink output, VCFLineParser[] parsers, int[] selectedLines, int firstTrio) throws IOException {
+		StringBuilder outputLine = output.startLine();
+		for (int i = 0; i < VCFLineParser.FIRST_SAMPLE_FIELD_INDEX; i++) {
+			parsers[firstTrio].appendField(i, outputLine).append('\t');
+		}
+		int sampleCount = parsers.length + 2;
+		for (int i = 0; i < sampleCount; i++) {
+			// the parents are phased in the 1st trio and each child is phased in its trio
+			int trio = (i < 2) ? 0 : i - 2;
+			if (selectedLines[trio] == -1) {
+				trio = firstTrio;
 			}
-			if (readerTrio2 != null) {
-				readerTrio2.close();
+			if (i > 0) {
+				outputLine.append('\t');
 			}
+			parsers[trio].appendField(VCFLineParser.FIRST_SAMPLE_FIELD_INDEX + i, outputLine);
 		}
+		output.endLine();
 	}
 }
@@ -1,8 +1,6 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.AlleleType;
@@ -12,8 +10,12 @@ import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.QuartetMember;
 import dataStructures.TrioInheritanceState;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -23,27 +25,31 @@ import exceptions.VCFException;
 public class PhaseByTransmission {
 
 	/**
-	 * Usage: java PhaseByTransmission.java -b <path to the block bgr file> -v <path to the transmission phased vcf file>
-	 * @param args -b <path to the block bgr file> -v <path to the transmission phased vcf file>
+	 * Usage: java PhaseByTransmission.java -b <path to the block bgr file> -v <path to the transmission phased vcf file> -o <path to the output file (optional)>
+	 * @param args -b <path to the block bgr file> -v <path to the transmission phased vcf file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java PhaseByTransmission.java -b <path to the block bgr file> -v <path to the transmission phased vcf file>");
+			System.out.println("Usage: java PhaseByTransmission.java -b <path to the block bgr file> -v <path to the transmission phased vcf file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			File blockFile = null;
 			File vcfFile = null;
-			for (int i = 0; i <= 2; i += 2) {
+			File outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
 				if (args[i].equals("-b")) {
 					blockFile = new File(args[i + 1]);
 				}
 				if (args[i].equals("-v")) {
 					vcfFile = new File(args[i + 1]);
 				}
+				if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
 			}
 			try {
-				extendDoubleTransmissionPhasing(blockFile, vcfFile);
+				extendDoubleTransmissionPhasing(blockFile, vcfFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -59,82 +65,102 @@ public class PhaseByTransmission {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 4) {
-			return false;
-		}
-		// case with no -b parameter
-		if (!args[0].equals("-b") && !args[2].equals("-b")) {
-			return false;
-		}
-		// case with no -v parameter
-		if (!args[0].equals("-v") && !args[2].equals("-v")) {
+		if ((args.length != 4) && (args.length != 6)) {
 			return false;
 		}
+		String[] mandatoryParameters = {"-b", "-v"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
+		}		
 		return true;
 	}
 
 
 
 	/**
-	 * Phases a quartet using a transmission algorithm
+	 * Creates the transforms phasing the variants of a VCF file by transmission
 	 * @param blockFile bedgraph with the blocks
-	 * @param vcfFile vcf file with the result of the two trios phasing using the transmission method
-	 * @throws IOException
+	 * @return a {@link VCFLineTransformFactory} creating the transforms of the lines
+	 * @throws IOException if a file cannot be read
 	 */
-	private static void extendDoubleTransmissionPhasing(File blockFile, File vcfFile) throws IOException {
+	public static VCFLineTransformFactory createTransformFactory(File blockFile) throws IOException {
 		// load the block file
-		InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
+		final InheritanceStateBlockList<CrossTriosInheritanceState> blockList;
 		blockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
-		BufferedReader reader = null;
 		//int phasableVariantCount = 0;
 		//int phasableSCEVariantCount = 0;
-		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				String lineToPrint = line;
-				if (line.charAt(0) != '#') {
-					try {
-						Variant variant = new Variant(line);
-						// full heterozygous vectors can't be phased
-						if (!variant.getGenotypePattern().equals("ab/ab;ab/ab")) {
-							// first we phase every homozygous variant
-							for (QuartetMember member: QuartetMember.values()) {
-								if (variant.isHomozygous(member)) {
-									variant.setPhase(member, true);
+		return new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+
+					@Override
+					public String transformHeaderLine(String line) {
+						return line;
+					}
+
+					@Override
+					public String transformVariantLine(String line) {
+						String lineToPrint = line;
+						try {
+							Variant variant = new Variant(parser.parse(line));
+							// full heterozygous vectors can't be phased
+							if (!variant.getGenotypePattern().equals("ab/ab;ab/ab")) {
+								// first we phase every homozygous variant
+								for (QuartetMember member: QuartetMember.values()) {
+									if (variant.isHomozygous(member)) {
+										variant.setPhase(member, true);
+									}
 								}
-							}
-							InheritanceStateBlock<CrossTriosInheritanceState> block = blockList.getBlock(variant);
-							// cannot phase if there is no block information
-							CrossTriosInheritanceState blockState = null;
-							if (block != null) {
-								blockState = block.getBlockState();
-							}
-							// cannot phase MIEs and SCEs
-							if (!variant.isMIE() && ((blockState == null) || !variant.isSCE(blockState))) {
-								if (variant.isHomozygous(QuartetMember.FATHER)) {
-									phaseFromHomozygousFather(variant);
-								} else if (variant.isHomozygous(QuartetMember.MOTHER)) {
-									phaseFromHomozygousMother(variant);
-								} else if (variant.isHomozygous(QuartetMember.KID1)) {
-									phaseFromHomozygousKid1(variant, blockState);
-								} else if (variant.isHomozygous(QuartetMember.KID2)) {
-									phaseFromHomozygousKid2(variant, blockState);
+								InheritanceStateBlock<CrossTriosInheritanceState> block = blockList.getBlock(variant);
+								// cannot phase if there is no block information
+								CrossTriosInheritanceState blockState = null;
+								if (block != null) {
+									blockState = block.getBlockState();
+								}
+								// cannot phase MIEs and SCEs
+								if (!variant.isMIE() && ((blockState == null) || !variant.isSCE(blockState))) {
+									if (variant.isHomozygous(QuartetMember.FATHER)) {
+										phaseFromHomozygousFather(variant);
+									} else if (variant.isHomozygous(QuartetMember.MOTHER)) {
+										phaseFromHomozygousMother(variant);
+									} else if (variant.isHomozygous(QuartetMember.KID1)) {
+										phaseFromHomozygousKid1(variant, blockState);
+									} else if (variant.isHomozygous(QuartetMember.KID2)) {
+										phaseFromHomozygousKid2(variant, blockState);
+									}
 								}
 							}
-						}
-						lineToPrint = substituteVcfLine(line, variant);
-					} catch (VCFException exception) {}
-				}
-				System.out.println(lineToPrint);
-			}
-		} finally {
-			if (reader != null) {
-				reader.close();
+							lineToPrint = substituteVcfLine(line, variant);
+						} catch (VCFException exception) {}
+						return lineToPrint;
+					}
+				};
 			}
-		}
+		};
+	}
+
+
+	/**
+	 * Phases a quartet using a transmission algorithm
+	 * @param blockFile bedgraph with the blocks
+	 * @param vcfFile vcf file with the result of the two trios phasing using the transmission method
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
+	 * @throws IOException
+	 */
+	private static void extendDoubleTransmissionPhasing(File blockFile, File vcfFile, File outputFile) throws IOException {
+		// the lines are phased in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(createTransformFactory(blockFile));
+		pipeline.run(vcfFile, outputFile);
 	}
 
 
@@ -272,17 +298,16 @@ public class PhaseByTransmission {
 	 */
 	private static String substituteVcfLine(String line, Variant variant) {
 		String[] splitLine = line.split("\t");
-		String phasedVcfLine = "";
+		StringBuilder phasedVcfLine = new StringBuilder(line.length() + 1);
 		int i;
 		for (i = 0; i < 9; i++) {
-			phasedVcfLine += splitLine[i] + "\t";
+			phasedVcfLine.append(splitLine[i]).append('\t');
 		}
 		for (QuartetMember member: QuartetMember.values()) {
-			String memberPhasing = variant.isPhased(member) == true ? "|" : "/";
-			String phasedMemberGenotype = variant.getAlleles(member)[0].getIntValue() + memberPhasing + variant.getAlleles(member)[1].getIntValue();
-			String memberGenotypeField = phasedMemberGenotype + splitLine[i++].trim().substring(3); 
-			phasedVcfLine += memberGenotypeField + "\t";
+			char memberPhasing = variant.isPhased(member) == true ? '|' : '/';
+			phasedVcfLine.append(variant.getAlleles(member)[0].getIntValue()).append(memberPhasing).append(variant.getAlleles(member)[1].getIntValue());
+			phasedVcfLine.append(splitLine[i++].trim().substring(3)).append('\t');
 		}
-		return phasedVcfLine;
+		return phasedVcfLine.toString();
 	}
 }
@@ -2,24 +2,30 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import dataStructures.BlockBoundaries;
 import dataStructures.CrossTriosInheritanceState;
 import dataStructures.CrossTriosInheritanceStateBlock;
+import dataStructures.FilterPolicy;
+import dataStructures.GenomicRegion;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.PhasedGenotypesSeries;
 import dataStructures.PhasedVector;
-import dataStructures.PhasedVectorList;
+import dataStructures.PhasingIndex;
+import dataStructures.PhasingIndexChromosome;
 import dataStructures.QuartetMember;
 import dataStructures.SegmentalDuplication;
-import dataStructures.SegmentalDuplicationList;
 import dataStructures.TrioInheritanceState;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
 import exceptions.VCFException;
+import utils.GenomicFileReader;
+import utils.OutputSink;
 
 
 /**
@@ -29,18 +35,21 @@ import exceptions.VCFException;
 public class PhaseFullHeterozygous {
 
 	/**
-	 * Usage: java PhaseFullHeterozygous.java -g <path to genetic phasing vcf file> -p <path to physical phasing vcf file> -b <path to the inheritance block file>
-	 * @param args -g <path to genetic phasing vcf file> -p <path to physical phasing vcf file> -b <path to the inheritance block file>
+	 * Usage: java PhaseFullHeterozygous.java -g <path to genetic phasing vcf file> -p <path to physical phasing vcf file> -b <path to the inheritance block file> -r <region chr:start-stop (optional)> -m <heap budget of the index in MB (optional)> -o <path to the output file (optional)>
+	 * @param args -g <path to genetic phasing vcf file> -p <path to physical phasing vcf file> -b <path to the inheritance block file> -r <region chr:start-stop (optional)> -m <heap budget of the index in MB (optional)> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) {
-			System.out.println("Usage: java PhaseFullHeterozygous.java -g <path to genetic phasing vcf file> -p <path to physical phasing vcf file> -b <path to the inheritance block file>");
+			System.out.println("Usage: java PhaseFullHeterozygous.java -g <path to genetic phasing vcf file> -p <path to physical phasing vcf file> -b <path to the inheritance block file> -r <region chr:start-stop (optional)> -m <heap budget of the index in MB (optional)> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			File geneticPhasingFile = null;
 			File physicalPhasingFile = null;
 			File inheritanceBlockFile = null;
+			GenomicRegion region = null;
+			long heapBudget = getDefaultHeapBudget();
+			File outputFile = null;
 			for (int i = 0; i < args.length; i += 2) {
 				if (args[i].equals("-g")) {
 					geneticPhasingFile = new File(args[i + 1]);
@@ -51,9 +60,18 @@ public class PhaseFullHeterozygous {
 				if (args[i].equals("-b")) {
 					inheritanceBlockFile = new File(args[i + 1]);
 				}				
+				if (args[i].equals("-r")) {
+					region = GenomicRegion.valueOf(args[i + 1]);
+				}
+				if (args[i].equals("-m")) {
+					heapBudget = Long.parseLong(args[i + 1]) * 1024 * 1024;
+				}
+				if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
 			}
 			try {
-				phaseFullHeterozygous(geneticPhasingFile, physicalPhasingFile, inheritanceBlockFile);
+				phaseFullHeterozygous(geneticPhasingFile, physicalPhasingFile, inheritanceBlockFile, region, heapBudget, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -69,102 +87,137 @@ public class PhaseFullHeterozygous {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 6) {
-			return false;
-		}
-		// case with no -g parameter
-		if (!args[0].equals("-g") && !args[2].equals("-g") && !args[4].equals("-g")) {
+		if ((args.length < 6) || (args.length > 12) || ((args.length % 2) != 0)) {
 			return false;
 		}
-		// case with no -p parameter
-		if (!args[0].equals("-p") && !args[2].equals("-p") && !args[4].equals("-p")) {
-			return false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-m")) {
+				try {
+					if (Long.parseLong(args[i + 1]) < 0) {
+						return false;
+					}
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			} else if (!args[i].equals("-g") && !args[i].equals("-p") && !args[i].equals("-b") && !args[i].equals("-r") && !args[i].equals("-o")) {
+				return false;
+			}
 		}
-		// case with no -b parameter
-		if (!args[0].equals("-b") && !args[2].equals("-b") && !args[4].equals("-b")) {
-			return false;
+		String[] mandatoryParameters = {"-g", "-p", "-b"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
 		}
 		return true;
 	}
 
 
 	/**
-	 * Phases the full heterozygous variants of the TP using the result of the RBP
+	 * @return the default number of bytes of variants kept in heap by the {@link PhasingIndex}: a quarter of the max heap size
+	 */
+	static long getDefaultHeapBudget() {
+		return Runtime.getRuntime().maxMemory() / 4;
+	}
+
+
+	/**
+	 * Phases the full heterozygous variants of the TP using the result of the RBP.
+	 * The physical and the genetic phasing files are indexed in a first pass (see {@link PhasingIndex})
+	 * and the genetic phasing file is phased in a second pass streaming over the file
 	 * @param geneticPhasingFile file containing the result of the genetic phasing
 	 * @param physicalPhasingFile file containing the result of the physical phasing
 	 * @param inheritanceBlockFile file containing the inheritance state blocks
+	 * @param region region to phase. The whole files are phased if null
+	 * @param heapBudget max number of bytes of variants kept in heap by the index before they are spilled to a temporary file
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException
 	 */
-	private static void phaseFullHeterozygous(File geneticPhasingFile, File physicalPhasingFile, File inheritanceBlockFile) throws IOException {
+	static void phaseFullHeterozygous(File geneticPhasingFile, File physicalPhasingFile, File inheritanceBlockFile, GenomicRegion region, long heapBudget, File outputFile) throws IOException {
 		BufferedReader reader = null;
+		OutputSink output = null;
 		String line = null;
-		Map<QuartetMember, SegmentalDuplicationList> commonPhasedBlocks = createCommonPhasedBlocks(geneticPhasingFile, physicalPhasingFile);
-		Map<QuartetMember, SegmentalDuplicationList> RBPhasedBlocks = createRBPBlocks(physicalPhasingFile);
-		PhasedVectorList RBPVectors = new PhasedVectorList();
-		RBPVectors.loadFromVCFFile(physicalPhasingFile);
-		PhasedVectorList TPVectors = new PhasedVectorList();
-		TPVectors.loadFromVCFFile(geneticPhasingFile);
-		InheritanceStateBlockList<CrossTriosInheritanceState> isBlockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(inheritanceBlockFile);		
-
+		VCFLineParser parser = new VCFLineParser();
+		PhasingIndex index = new PhasingIndex(heapBudget);
 		try {
-			reader = new BufferedReader(new FileReader(geneticPhasingFile));
+			indexPhysicalPhasing(index, physicalPhasingFile, region);
+			indexGeneticPhasing(index, geneticPhasingFile, region);
+			// the common blocks need to be computed before the vectors are phased
+			createCommonPhasedBlocks(index);
+			InheritanceStateBlockList<CrossTriosInheritanceState> isBlockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(inheritanceBlockFile);
+			reader = GenomicFileReader.open(geneticPhasingFile, region);
+			output = new OutputSink(outputFile);
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) == '#') {
-					System.out.println(line);
+					output.println(line);
 				} else {
 					try {
-						Variant variant = new Variant(line);
+						Variant variant = new Variant(parser.parse(line));
 						String chromosome = variant.getChromosome();
 						CrossTriosInheritanceStateBlock isBlock = (CrossTriosInheritanceStateBlock) isBlockList.getBlock(variant); 
 						// indels are not phased by the RBP software
 						if (!variant.isIndel() && !variant.isMIE() && ((isBlock == null) || (isBlock.getBlockState() == null) || !variant.isSCE(isBlock.getBlockState()))) {
 							if (variant.getGenotypePattern().equals("ab/ab;ab/ab")) {
 								boolean isVariantPhased = false;
-								PhasedVector variantVector = RBPVectors.getPhasedVector(chromosome, variant.getPosition());
-								if (variantVector != null) {
+								// the physical vectors are modified in place in the index
+								PhasingIndexChromosome indexChromosome = index.getChromosome(chromosome);
+								int variantIndex = (indexChromosome == null) ? -1 : indexChromosome.indexOf(variant.getPosition());
+								if (variantIndex != -1) {
 									// we unphase the RBP vector
 									for (QuartetMember member: QuartetMember.values()) {
-										variantVector.setPhasing(member, false);
+										indexChromosome.setPhasing(variantIndex, member, false);
 									}
 									// we try to phase it
 									for (QuartetMember member: QuartetMember.values()) {
 										if (!isVariantPhased) {
-											SegmentalDuplication RBPBlock = RBPhasedBlocks.get(member).getBlock(variant.getChromosome(), variant.getPosition());
-											if (RBPBlock != null) {
-												SegmentalDuplication commonBlock = commonPhasedBlocks.get(member).getBlockOverlapping(variant.getChromosome(), RBPBlock); 
-												if (commonBlock != null) {
-													int commonVariantPosition = commonBlock.getStartPosition();
-													String RBPGenotype = RBPVectors.getPhasedVector(chromosome, commonVariantPosition).getGenotype(member);
-													String TPGenotype = TPVectors.getPhasedVector(chromosome, commonVariantPosition).getGenotype(member);
+											BlockBoundaries RBPBlocks = index.getPhysicalBlocks(chromosome, member);
+											int RBPBlockIndex = (RBPBlocks == null) ? -1 : RBPBlocks.indexOfFirstOverlapping(variant.getPosition(), variant.getPosition());
+											if (RBPBlockIndex != -1) {
+												BlockBoundaries commonBlocks = index.getCommonBlocks(chromosome, member);
+												int commonBlockIndex = (commonBlocks == null) ? -1 : commonBlocks.indexOfFirstOverlapping(RBPBlocks.getStartPosition(RBPBlockIndex), RBPBlocks.getStopPosition(RBPBlockIndex));
+												if (commonBlockIndex != -1) {
+													int commonVariantIndex = indexChromosome.indexOf(commonBlocks.getStartPosition(commonBlockIndex));
+													String RBPGenotype = indexChromosome.getGenotype(commonVariantIndex, member);
+													String TPGenotype = indexChromosome.getGeneticGenotype(commonVariantIndex, member);
 													boolean needToBeInverted = !RBPGenotype.equals(TPGenotype);
 													if (needToBeInverted) {
-														variantVector.invert(member);
+														indexChromosome.invert(variantIndex, member);
 													}
-													variantVector.setPhasing(member, true);
+													indexChromosome.setPhasing(variantIndex, member, true);
 													if (isBlock != null) {
 														isVariantPhased = true;
-														phaseFamily(member, variantVector, isBlock.getBlockState());
+														phaseFamily(member, indexChromosome, variantIndex, isBlock.getBlockState());
 													}
 												}
 											}
 										}
 									}
-									line = phaseVCFLine(line, variantVector);
+									line = phaseVCFLine(line, indexChromosome, variantIndex);
 								}
 							}
 						}
 					} catch (VCFException e) {
 						// do nothing
 					} finally {
-						System.out.println(line);
+						output.println(line);
 					}
 				}
 			}
 		} finally {
+			if (output != null) {
+				output.close();
+			}
 			if (reader != null) {
 				reader.close();
 			}
+			index.close();
 		}
 	}
 
@@ -172,10 +225,11 @@ public class PhaseFullHeterozygous {
 	/**
 	 * Phases the rest of the familly using one phased member and the inheritance state information
 	 * @param phasedMember member that is phased
-	 * @param vectorToPhase the vector to phase
+	 * @param column variants of the chromosome with the vector to phase
+	 * @param index index of the vector to phase in the chromosome
 	 * @param inheritanceState the inheritance state of the vector
 	 */
-	private static void phaseFamily(QuartetMember phasedMember, PhasedVector vectorToPhase, CrossTriosInheritanceState inheritanceState) {
+	private static void phaseFamily(QuartetMember phasedMember, PhasingIndexChromosome column, int index, CrossTriosInheritanceState inheritanceState) {
 		TrioInheritanceState maternalState = inheritanceState.getMaternalTrioState();
 		if (maternalState == TrioInheritanceState.UNKNOWN) {
 			// a ab/ab;ab/ab variant not SCE can only be identical or non-identical which implies that the maternal and paternal states are identical
@@ -185,53 +239,53 @@ public class PhaseFullHeterozygous {
 		// we start by phasing the kid1
 		switch (phasedMember) {
 		case FATHER:
-			if (vectorToPhase.getGenotype(QuartetMember.FATHER).charAt(0) != vectorToPhase.getGenotype(QuartetMember.KID1).charAt(1)) {
-				vectorToPhase.invert(QuartetMember.KID1);
+			if (column.getGenotype(index, QuartetMember.FATHER).charAt(0) != column.getGenotype(index, QuartetMember.KID1).charAt(1)) {
+				column.invert(index, QuartetMember.KID1);
 			}
-			vectorToPhase.setPhasing(QuartetMember.KID1, true);
+			column.setPhasing(index, QuartetMember.KID1, true);
 			break;
 		case MOTHER:
-			if (vectorToPhase.getGenotype(QuartetMember.MOTHER).charAt(0) != vectorToPhase.getGenotype(QuartetMember.KID1).charAt(0)) {
-				vectorToPhase.invert(QuartetMember.KID1);
+			if (column.getGenotype(index, QuartetMember.MOTHER).charAt(0) != column.getGenotype(index, QuartetMember.KID1).charAt(0)) {
+				column.invert(index, QuartetMember.KID1);
 			}
-			vectorToPhase.setPhasing(QuartetMember.KID1, true);
+			column.setPhasing(index, QuartetMember.KID1, true);
 			break;
 		case KID1:
 			// nothing to do
 			break;
 		case KID2:
-			char kid1Allele1 = vectorToPhase.getGenotype(QuartetMember.KID1).charAt(0);
-			char kid2Allele1 = vectorToPhase.getGenotype(QuartetMember.KID2).charAt(0);
+			char kid1Allele1 = column.getGenotype(index, QuartetMember.KID1).charAt(0);
+			char kid2Allele1 = column.getGenotype(index, QuartetMember.KID2).charAt(0);
 			if (((maternalState == TrioInheritanceState.IDENTICAL) && (kid1Allele1 != kid2Allele1)) ||
 					((maternalState == TrioInheritanceState.NON_IDENTICAL) && (kid1Allele1 == kid2Allele1))) {
-				vectorToPhase.invert(QuartetMember.KID1);
+				column.invert(index, QuartetMember.KID1);
 			}
-			vectorToPhase.setPhasing(QuartetMember.KID1, true);
+			column.setPhasing(index, QuartetMember.KID1, true);
 			break;
 		}
 		// we now phase the remaining of the familly
-		if (!vectorToPhase.isPhased(QuartetMember.FATHER)) {
-			if (vectorToPhase.getGenotype(QuartetMember.FATHER).charAt(0) != vectorToPhase.getGenotype(QuartetMember.KID1).charAt(1)) {
-				vectorToPhase.invert(QuartetMember.FATHER);
+		if (!column.isPhased(index, QuartetMember.FATHER)) {
+			if (column.getGenotype(index, QuartetMember.FATHER).charAt(0) != column.getGenotype(index, QuartetMember.KID1).charAt(1)) {
+				column.invert(index, QuartetMember.FATHER);
 			}
-			vectorToPhase.setPhasing(QuartetMember.FATHER, true);
+			column.setPhasing(index, QuartetMember.FATHER, true);
 		}
-		if (!vectorToPhase.isPhased(QuartetMember.MOTHER)) {
-			if (vectorToPhase.getGenotype(QuartetMember.MOTHER).charAt(0) != vectorToPhase.getGenotype(QuartetMember.KID1).charAt(0)) {
-				vectorToPhase.invert(QuartetMember.MOTHER);
+		if (!column.isPhased(index, QuartetMember.MOTHER)) {
+			if (column.getGenotype(index, QuartetMember.MOTHER).charAt(0) != column.getGenotype(index, QuartetMember.KID1).charAt(0)) {
+				column.invert(index, QuartetMember.MOTHER);
 			}
-			vectorToPhase.setPhasing(QuartetMember.MOTHER, true);
+			column.setPhasing(index, QuartetMember.MOTHER, true);
 		}
-		if (!vectorToPhase.isPhased(QuartetMember.KID2)) {
-			char kid1Allele1 = vectorToPhase.getGenotype(QuartetMember.KID1).charAt(0);
-			char kid2Allele1 = vectorToPhase.getGenotype(QuartetMember.KID2).charAt(0);
+		if (!column.isPhased(index, QuartetMember.KID2)) {
+			char kid1Allele1 = column.getGenotype(index, QuartetMember.KID1).charAt(0);
+			char kid2Allele1 = column.getGenotype(index, QuartetMember.KID2).charAt(0);
 			if (((maternalState == TrioInheritanceState.IDENTICAL) && (kid1Allele1 != kid2Allele1)) ||
 					((maternalState == TrioInheritanceState.NON_IDENTICAL) && (kid1Allele1 == kid2Allele1))) {
-				vectorToPhase.invert(QuartetMember.KID2);
+				column.invert(index, QuartetMember.KID2);
 			}
-			vectorToPhase.setPhasing(QuartetMember.KID2, true);
+			column.setPhasing(index, QuartetMember.KID2, true);
 		}
-		if (!vectorToPhase.isPhased(QuartetMember.FATHER)) {
+		if (!column.isPhased(index, QuartetMember.FATHER)) {
 			System.out.println("oufdsoufsajgbfiasgfiasuhf");
 		}
 	}
@@ -239,14 +293,15 @@ public class PhaseFullHeterozygous {
 
 	/**
 	 * @param line unphased VCF line
-	 * @param phasedVector vector with phased genotypes
+	 * @param column variants of the chromosome with the vector with phased genotypes
+	 * @param index index of the vector in the chromosome
 	 * @return a vcf line where the unphased genotypes that can be phased using the vector are phased
 	 */
-	private static String phaseVCFLine(String line, PhasedVector phasedVector) {
+	private static String phaseVCFLine(String line, PhasingIndexChromosome column, int index) {
 		String[] splitLine = line.split("\t");
 		for (QuartetMember member: QuartetMember.values()) {
-			if (phasedVector.isPhased(member)) {
-				String phasedGenotype = phasedVector.getGenotype(member);
+			if (column.isPhased(index, member)) {
+				String phasedGenotype = column.getGenotype(index, member);
 				int memberInfoFieldIndex = getMemberInfoFieldIndex(member);
 				String infoFieldWithoutGenotype = splitLine[memberInfoFieldIndex].trim().substring(3);
 				splitLine[memberInfoFieldIndex] = phasedGenotype + infoFieldWithoutGenotype;
@@ -281,155 +336,131 @@ public class PhaseFullHeterozygous {
 
 
 	/**
+	 * Adds the physical phasing vectors and the physically phased blocks of each family member to the index
+	 * @param index a {@link PhasingIndex}
 	 * @param physicalPhasingFile vcf file phased using a physical algorithm
-	 * @return a map with the phased blocks starting and ending by an heterozygous variant for each family member
+	 * @param region region to read. The whole file is read if null
 	 * @throws IOException
 	 */
-	private static Map<QuartetMember, SegmentalDuplicationList> createRBPBlocks(File physicalPhasingFile) throws IOException {
-		// create map with genetic and RBP phased block lists
-		Map<QuartetMember, SegmentalDuplicationList> phasedBlockLists = new HashMap<>();
-		phasedBlockLists.put(QuartetMember.FATHER, new SegmentalDuplicationList());
-		phasedBlockLists.put(QuartetMember.MOTHER, new SegmentalDuplicationList());
-		phasedBlockLists.put(QuartetMember.KID1, new SegmentalDuplicationList());
-		phasedBlockLists.put(QuartetMember.KID2, new SegmentalDuplicationList());
-
+	private static void indexPhysicalPhasing(PhasingIndex index, File physicalPhasingFile, GenomicRegion region) throws IOException {
+		int memberCount = QuartetMember.values().length;
+		// start and stop positions of the current block of each member
+		int[] startPositions = new int[memberCount];
+		int[] stopPositions = new int[memberCount];
+		// chromosome of the current block of each member
+		String[] chromosomes = new String[memberCount];
+		// true if the next phased variant of the member is the first of the block
+		boolean[] isBlockFirstVariants = new boolean[memberCount];
+		Arrays.fill(isBlockFirstVariants, true);
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(physicalPhasingFile));
+			reader = GenomicFileReader.open(physicalPhasingFile, region);
 			String line = null;
-
-			// start positions
-			Map<QuartetMember, Integer> startPositions = new HashMap<>();
-			startPositions.put(QuartetMember.FATHER, 0);
-			startPositions.put(QuartetMember.MOTHER, 0);
-			startPositions.put(QuartetMember.KID1, 0);
-			startPositions.put(QuartetMember.KID2, 0);
-
-			// stop positions
-			Map<QuartetMember, Integer> stopPositions = new HashMap<>();
-			stopPositions.put(QuartetMember.FATHER, 0);
-			stopPositions.put(QuartetMember.MOTHER, 0);
-			stopPositions.put(QuartetMember.KID1, 0);
-			stopPositions.put(QuartetMember.KID2, 0);
-
-			// chromosomes
-			Map<QuartetMember, String> chromosomes = new HashMap<>();
-			chromosomes.put(QuartetMember.FATHER, null);
-			chromosomes.put(QuartetMember.MOTHER, null);
-			chromosomes.put(QuartetMember.KID1, null);
-			chromosomes.put(QuartetMember.KID2, null);
-
-			// true if the variant for the specified member is the first of the block
-			Map<QuartetMember, Boolean> isBlockFirstVariants = new HashMap<>();
-			isBlockFirstVariants.put(QuartetMember.FATHER, true);
-			isBlockFirstVariants.put(QuartetMember.MOTHER, true);
-			isBlockFirstVariants.put(QuartetMember.KID1, true);
-			isBlockFirstVariants.put(QuartetMember.KID2, true);
-
+			VCFLineParser parser = new VCFLineParser();
+			FilterPolicy filterPolicy = new FilterPolicy();
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
-					Variant currentVariant;
-					try {
-						currentVariant = new Variant(line);
+					Variant currentVariant = Variant.tryParse(parser.parse(line), filterPolicy);
+					if (currentVariant != null) {
+						if (!currentVariant.isIndel()) {
+							index.addPhysicalVector(currentVariant.getChromosome(), currentVariant.getPosition(), PhasedVector.createVector(currentVariant));
+						}
 						for (QuartetMember member: QuartetMember.values()) {
+							int i = member.ordinal();
 							// case where the variant is not phased or is on a new chromosome (meaning that the previous block ended)
-							if ((!currentVariant.isPhased(member)) || (!currentVariant.getChromosome().equals(chromosomes.get(member)))) {
+							if ((!currentVariant.isPhased(member)) || (!currentVariant.getChromosome().equals(chromosomes[i]))) {
 								// case where the previous block is not empty
-								if (!isBlockFirstVariants.get(member)) {
-									SegmentalDuplication dupToAdd = new SegmentalDuplication(startPositions.get(member), stopPositions.get(member));
-									phasedBlockLists.get(member).addDuplication(chromosomes.get(member), dupToAdd);
-									isBlockFirstVariants.put(member, true);
+								if (!isBlockFirstVariants[i]) {
+									index.addPhysicalBlock(chromosomes[i], member, startPositions[i], stopPositions[i]);
+									isBlockFirstVariants[i] = true;
 								}
-								chromosomes.put(member, currentVariant.getChromosome());
-								startPositions.put(member, currentVariant.getPosition());
+								chromosomes[i] = currentVariant.getChromosome();
+								startPositions[i] = currentVariant.getPosition();
 							}
 							// case where the variant is phased with the previsous one
 							if ((currentVariant.isPhased(member)) && (currentVariant.isHeterozygous(member))) {
-								isBlockFirstVariants.put(member, false);
-								stopPositions.put(member, currentVariant.getPosition());
-							} 
+								isBlockFirstVariants[i] = false;
+								stopPositions[i] = currentVariant.getPosition();
+							}
 						}
-					} catch (VCFException e) {
-						// do nothing
 					}
 				}
 			}
+			index.completeChromosome();
 		} finally {
 			if (reader != null) {
 				reader.close();
 			}
 		}
-		return phasedBlockLists;
 	}
 
 
 	/**
-	 * 
+	 * Adds the genetic phasing vectors at the positions of the physical phasing vectors to the index
+	 * @param index a {@link PhasingIndex} with the physical phasing vectors
 	 * @param geneticPhasingFile vcf file phased using a genetic algorithm
-	 * @param physicalPhasingFile vcf file phased using a physical algorithm
-	 * @return a map with the phased blocks (with only vector phased for both genetic and physical method) variant for each family member
+	 * @param region region to read. The whole file is read if null
 	 * @throws IOException
 	 */
-	private static Map<QuartetMember, SegmentalDuplicationList> createCommonPhasedBlocks(File geneticPhasingFile, File physicalPhasingFile) throws IOException {
-		// load genetic phasing file		
-		PhasedVectorList geneticVectorList = new PhasedVectorList();
-		geneticVectorList.loadFromVCFFile(geneticPhasingFile);
-
-		// load physical phasing file
-		PhasedVectorList physicalVectorList = new PhasedVectorList();
-		physicalVectorList.loadFromVCFFile(physicalPhasingFile);
-
-		// create map with the phased series
-		Map<QuartetMember, PhasedGenotypesSeries> phasedSeries = new HashMap<>();
-		phasedSeries.put(QuartetMember.FATHER, new PhasedGenotypesSeries());
-		phasedSeries.put(QuartetMember.MOTHER, new PhasedGenotypesSeries());
-		phasedSeries.put(QuartetMember.KID1, new PhasedGenotypesSeries());
-		phasedSeries.put(QuartetMember.KID2, new PhasedGenotypesSeries());
-
-		// create map with genetic and RBP phased block lists
-		Map<QuartetMember, SegmentalDuplicationList> phasedBlockLists = new HashMap<>();
-		phasedBlockLists.put(QuartetMember.FATHER, new SegmentalDuplicationList());
-		phasedBlockLists.put(QuartetMember.MOTHER, new SegmentalDuplicationList());
-		phasedBlockLists.put(QuartetMember.KID1, new SegmentalDuplicationList());
-		phasedBlockLists.put(QuartetMember.KID2, new SegmentalDuplicationList());
-
+	private static void indexGeneticPhasing(PhasingIndex index, File geneticPhasingFile, GenomicRegion region) throws IOException {
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(physicalPhasingFile));
+			reader = GenomicFileReader.open(geneticPhasingFile, region);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
+			FilterPolicy filterPolicy = new FilterPolicy();
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
 				// a line starting with a # is a comment line
 				if (line.charAt(0) != '#') {
-					String[] splitLine = line.split("\t");
-					String chromosome = splitLine[0].trim();
-					int position = Integer.parseInt(splitLine[1].trim());
-					PhasedVector geneticPhasedVector = geneticVectorList.getPhasedVector(chromosome, position);
-					PhasedVector physicalPhasedVector = physicalVectorList.getPhasedVector(chromosome, position);
-					if ((geneticPhasedVector != null) && (physicalPhasedVector != null)) {
-						for (QuartetMember member: QuartetMember.values()) {
-							int result = phasedSeries.get(member).addGeneticPhysicalGenotypes(geneticPhasedVector.getGenotype(member), physicalPhasedVector.getGenotype(member), chromosome, position);
-							if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
-								SegmentalDuplication phasedBlock = phasedSeries.get(member).getBlock();
-								if (phasedBlock != null) {
-									phasedBlockLists.get(member).addDuplication(chromosome, phasedBlock);
-								}
-								phasedSeries.get(member).reset();
-							}
-						}
+					Variant variant = Variant.tryParse(parser.parse(line), filterPolicy);
+					if ((variant != null) && !variant.isIndel()) {
+						index.setGeneticVector(variant.getChromosome(), variant.getPosition(), PhasedVector.createVector(variant));
 					}
 				}
 			}
-			for (QuartetMember member: QuartetMember.values()) {
-				phasedBlockLists.get(member).sort();
-			}
-			return phasedBlockLists;
 		} finally {
 			if (reader != null) {
 				reader.close();
 			}
 		}
 	}
+
+
+	/**
+	 * Adds the phased blocks (with only vector phased for both genetic and physical method) of each family member to the index.
+	 * The variants are scanned in the order of the physical phasing file
+	 * @param index a {@link PhasingIndex} with the physical and the genetic phasing vectors
+	 */
+	private static void createCommonPhasedBlocks(PhasingIndex index) {
+		// create map with the phased series
+		Map<QuartetMember, PhasedGenotypesSeries> phasedSeries = new HashMap<>();
+		phasedSeries.put(QuartetMember.FATHER, new PhasedGenotypesSeries());
+		phasedSeries.put(QuartetMember.MOTHER, new PhasedGenotypesSeries());
+		phasedSeries.put(QuartetMember.KID1, new PhasedGenotypesSeries());
+		phasedSeries.put(QuartetMember.KID2, new PhasedGenotypesSeries());
+
+		for (String chromosome: index.getChromosomes()) {
+			PhasingIndexChromosome indexChromosome = index.getChromosome(chromosome);
+			for (int i = 0; i < indexChromosome.size(); i++) {
+				// the vectors of the first variant at the position are used if several variants have the same position
+				int vectorIndex = indexChromosome.indexOf(indexChromosome.getPosition(i));
+				if (indexChromosome.getGeneticVector(vectorIndex) != PhasingIndex.NO_VECTOR) {
+					int position = indexChromosome.getPosition(i);
+					for (QuartetMember member: QuartetMember.values()) {
+						int result = phasedSeries.get(member).addGeneticPhysicalGenotypes(indexChromosome.getGeneticGenotype(vectorIndex, member), indexChromosome.getGenotype(vectorIndex, member), chromosome, position);
+						if (result == PhasedGenotypesSeries.SERIES_FINISHED) {
+							SegmentalDuplication phasedBlock = phasedSeries.get(member).getBlock();
+							if (phasedBlock != null) {
+								index.addCommonBlock(chromosome, member, phasedBlock.getStartPosition(), phasedBlock.getStopPosition());
+							}
+							phasedSeries.get(member).reset();
+						}
+					}
+				}
+			}
+		}
+	}
 }
@@ -2,7 +2,6 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
@@ -12,7 +11,10 @@ import dataStructures.InheritanceStateBlockListFactory;
 import dataStructures.SegmentalDuplication;
 import dataStructures.SegmentalDuplicationList;
 import dataStructures.TrioInheritanceState;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
+import utils.GenomicFileReader;
+import utils.OutputSink;
 
 /**
  * Uses the result from the beagle phasing to phase parental blocks and name the allele in the VCF file
@@ -24,13 +26,13 @@ public class PhaseWithBeagle {
 
 
 	/**
-	 * Usage: java PhaseWithBeagle -v <path to the VCF file> -b <path to the block file> -p <path to the beagle paternal block file> -m <path to the beagle maternal block file>
-	 * @param args -v <path to the VCF file> -b <path to the block file> -p <path to the beagle paternal block file> -m <path to the beagle maternal block file>
+	 * Usage: java PhaseWithBeagle -v <path to the VCF file> -b <path to the block file> -p <path to the beagle paternal block file> -m <path to the beagle maternal block file> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file> -b <path to the block file> -p <path to the beagle paternal block file> -m <path to the beagle maternal block file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) {
-			System.out.println("Usage: java PhaseWithBeagle -v <path to the VCF file> -b <path to the block file> -p <path to the beagle paternal block file> -m <path to the beagle maternal block file>");
+			System.out.println("Usage: java PhaseWithBeagle -v <path to the VCF file> -b <path to the block file> -p <path to the beagle paternal block file> -m <path to the beagle maternal block file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
@@ -38,6 +40,7 @@ public class PhaseWithBeagle {
 				File blockFile = null;
 				File paternalBlockFile = null;
 				File maternalBlockFile = null;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-v")) {
 						VCFFile = new File(args[i + 1]);
@@ -47,9 +50,11 @@ public class PhaseWithBeagle {
 						paternalBlockFile = new File(args[i + 1]);
 					} else if (args[i].equals("-m")) {
 						maternalBlockFile = new File(args[i + 1]);
+					} else if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
 					}
 				}
-				phaseWithBeagle(VCFFile, blockFile, paternalBlockFile, maternalBlockFile);
+				phaseWithBeagle(VCFFile, blockFile, paternalBlockFile, maternalBlockFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -65,24 +70,20 @@ public class PhaseWithBeagle {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 8) {
+		if ((args.length != 8) && (args.length != 10)) {
 			return false;
 		}
-		// case with no -v parameter
-		if (!args[0].equals("-v") && !args[2].equals("-v") && !args[4].equals("-v") && !args[6].equals("-v")) {
-			return false;
-		}
-		// case with no -b parameter
-		if (!args[0].equals("-b") && !args[2].equals("-b") && !args[4].equals("-b") && !args[6].equals("-b")) {
-			return false;
-		}
-		// case with no -p parameter
-		if (!args[0].equals("-p") && !args[2].equals("-p") && !args[4].equals("-p") && !args[6].equals("-p")) {
-			return false;
-		}
-		// case with no -m parameter
-		if (!args[0].equals("-m") && !args[2].equals("-m") && !args[4].equals("-m") && !args[6].equals("-m")) {
-			return false;
+		String[] mandatoryParameters = {"-v", "-b", "-p", "-m"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
 		}
 		return true;
 	}
@@ -94,8 +95,9 @@ public class PhaseWithBeagle {
 	 * @param blockFile
 	 * @param paternalBlockFile
 	 * @param maternalBlockFile
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 */
-	private static void phaseWithBeagle(File vcfFile, File blockFile, File paternalBlockFile, File maternalBlockFile) throws IOException {
+	private static void phaseWithBeagle(File vcfFile, File blockFile, File paternalBlockFile, File maternalBlockFile, File outputFile) throws IOException {
 		InheritanceStateBlockList<CrossTriosInheritanceState> ISBlockList;
 		ISBlockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
 
@@ -106,9 +108,12 @@ public class PhaseWithBeagle {
 		maternalBeagleBlocks.loadBedOrBgrWithScore(maternalBlockFile);
 
 		BufferedReader reader = null;
+		OutputSink output = null;
 		try {
-			reader = new BufferedReader(new FileReader(vcfFile));
+			reader = GenomicFileReader.open(vcfFile);
+			output = new OutputSink(outputFile);
 			String line = null;
+			VCFLineParser parser = new VCFLineParser();
 			String currentChromo = null;
 			String previousChromo = null;
 			SegmentalDuplication previousPaternalBeagleBlock = null;
@@ -124,14 +129,14 @@ public class PhaseWithBeagle {
 						if (line.startsWith("##FORMAT")) {
 							formatStarted = true;
 						} else if (formatStarted) {
-							System.out.println(AA_HEADER);
+							output.println(AA_HEADER);
 							formatStarted= false;
 						}
-						System.out.println(line);
+						output.println(line);
 					}
 				} else {
 					try {
-						Variant variant = new Variant(line);
+						Variant variant = new Variant(parser.parse(line));
 						InheritanceStateBlock<CrossTriosInheritanceState> ISBlock = ISBlockList.getBlock(variant);
 						if ((ISBlock != null) && !variant.isMIE() && !variant.isSCE(ISBlock.getBlockState())) {
 							currentChromo = variant.getChromosome();
@@ -173,7 +178,7 @@ public class PhaseWithBeagle {
 						//e.printStackTrace();
 						// do nothing
 					} finally {
-						System.out.println(line);
+						output.println(line);
 					}
 				}
 			}
@@ -181,6 +186,9 @@ public class PhaseWithBeagle {
 			if (reader != null) {
 				reader.close();
 			}
+			if (output != null) {
+				output.close();
+			}
 		}
 	}
 
@@ -1,14 +1,16 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import dataStructures.CrossTriosInheritanceState;
 import dataStructures.InheritanceStateBlockList;
 import dataStructures.InheritanceStateBlockListFactory;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -20,27 +22,31 @@ public class RepairContaminatedVariants {
 
 
 	/**
-	 * Usage: java RepairContaminatedVariants -v <path to the VCF file> -b <block file (optional)>
+	 * Usage: java RepairContaminatedVariants -v <path to the VCF file> -b <block file (optional)> -o <path to the output file (optional)>
 	 * @param args -v <path to the VCF file>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
-			System.out.println("Usage: java RepairContaminatedVariants.java -v <path to the VCF file> -b <block file (optional)>");
+			System.out.println("Usage: java RepairContaminatedVariants.java -v <path to the VCF file> -b <block file (optional)> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
 				File VCFFile = null;
 				File blockFile = null;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-v")) {
 						VCFFile = new File(args[i + 1]);
 					}
 					if (args[i].equals("-b")) {
 						blockFile = new File(args[i + 1]);
-					}	
+					}
+					if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
+					}
 				}
-				repairContaminatedVariants(VCFFile, blockFile);
+				repairContaminatedVariants(VCFFile, blockFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -56,14 +62,22 @@ public class RepairContaminatedVariants {
 		if (args == null) {
 			return false;
 		}
-		if ((args.length != 2) && (args.length != 4)) {
-			return false;
-		}
-		if (args[0].equals("-v")) {
-			return true;
-		} else {
+		if ((args.length != 2) && (args.length != 4) && (args.length != 6)) {
 			return false;
 		}
+		String[] mandatoryParameters = {"-v"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter); 
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
+		}		
+		return true;
 	}
 
 
@@ -72,60 +86,63 @@ public class RepairContaminatedVariants {
 	 * (causing false ab+aa;ab/ab that are in fact aa/bb;ab/ab)
 	 * @param VCFFile VCF files with the variants of the family quartet
 	 * @param blockFile file containing the inheritance state block. can be null
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException if the VCF file is not valid
 	 */
-	private static void repairContaminatedVariants(File VCFFile, File blockFile) throws IOException {
-		InheritanceStateBlockList<CrossTriosInheritanceState> blockList = null;
+	private static void repairContaminatedVariants(File VCFFile, File blockFile, File outputFile) throws IOException {
+		InheritanceStateBlockList<CrossTriosInheritanceState> blockFileList = null;
 		if (blockFile != null) {
-			blockList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
+			blockFileList = InheritanceStateBlockListFactory.createFromCrossTriosBgrFile(blockFile);
 		}
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) == '#') {
-					System.out.println(line);
-				} else {
-					String correctedLine = line;
-					try {
-						Variant currentVariant = new Variant(line);
-						// if the block file was specified we just want to correct the MIE
-						if ((blockList == null) || 
-								((blockList.getBlock(currentVariant) != null) 
-										&& (blockList.getBlock(currentVariant).isSCE(currentVariant)))) {
-							if ((currentVariant.getGenotypePattern().equals("ab+aa;ab/ab") 
-									|| currentVariant.getGenotypePattern().startsWith("ab/ab"))
-									&& !currentVariant.getGenotypePattern().endsWith("bb")) {
-								String fatherRepairedGenotype = currentVariant.getContaminationCorrectedGenotype(line);
-								if (fatherRepairedGenotype != null) {
-									correctedLine = getCorrectedVcfLine(line, fatherRepairedGenotype);
-									// if the correction created a MIE we discard it
-									Variant newVariant = new Variant(correctedLine);
-									if (newVariant.isMIE()) {
-										correctedLine = line;
-									}
-									// if the correction created a SCE we discard it
-									if ((blockList != null) && (blockList.getBlock(currentVariant) != null) && blockList.getBlock(currentVariant).isSCE(currentVariant)) {
-										correctedLine = line;
+		final InheritanceStateBlockList<CrossTriosInheritanceState> blockList = blockFileList;
+		// the lines are repaired in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();	// parser of the thread using the transform
+
+					@Override
+					public String transformHeaderLine(String line) {
+						return line;
+					}
+
+					@Override
+					public String transformVariantLine(String line) {
+						String correctedLine = line;
+						try {
+							Variant currentVariant = new Variant(parser.parse(line));
+							// if the block file was specified we just want to correct the MIE
+							if ((blockList == null) || 
+									((blockList.getBlock(currentVariant) != null) 
+											&& (blockList.getBlock(currentVariant).isSCE(currentVariant)))) {
+								if ((currentVariant.getGenotypePattern().equals("ab+aa;ab/ab") 
+										|| currentVariant.getGenotypePattern().startsWith("ab/ab"))
+										&& !currentVariant.getGenotypePattern().endsWith("bb")) {
+									String fatherRepairedGenotype = currentVariant.getContaminationCorrectedGenotype(line);
+									if (fatherRepairedGenotype != null) {
+										correctedLine = getCorrectedVcfLine(line, fatherRepairedGenotype);
+										// if the correction created a MIE we discard it
+										Variant newVariant = new Variant(correctedLine);
+										if (newVariant.isMIE()) {
+											correctedLine = line;
+										}
+										// if the correction created a SCE we discard it
+										if ((blockList != null) && (blockList.getBlock(currentVariant) != null) && blockList.getBlock(currentVariant).isSCE(currentVariant)) {
+											correctedLine = line;
+										}
 									}
 								}
 							}
+						} catch (Exception e) {
+							// do nothing
 						}
-					} catch (Exception e) {
-						// do nothing
-					} finally {
-						System.out.println(correctedLine);
+						return correctedLine;
 					}
-				}
-			}
-		} finally {
-			if (reader != null) {
-				reader.close();
+				};
 			}
-		}
+		});
+		pipeline.run(VCFFile, outputFile);
 	}
 
 
@@ -154,12 +171,12 @@ public class RepairContaminatedVariants {
 			paternalGenotype += ':' + paternalGenotypeInfoFields[i];
 		}
 		// recreate the vcfLine
-		String phasedVcfLine = "";
+		StringBuilder phasedVcfLine = new StringBuilder(line.length() + 16);
 		for (int i = 0; i < 9; i++) {
-			phasedVcfLine += splitLine[i] + "\t";
+			phasedVcfLine.append(splitLine[i]).append('\t');
 		}
-		phasedVcfLine += paternalGenotype + "\t";
-		phasedVcfLine += splitLine[10].trim() +'\t' + splitLine[11].trim() + '\t' + splitLine[12].trim();
-		return phasedVcfLine;
+		phasedVcfLine.append(paternalGenotype).append('\t');
+		phasedVcfLine.append(splitLine[10].trim()).append('\t').append(splitLine[11].trim()).append('\t').append(splitLine[12].trim());
+		return phasedVcfLine.toString();
 	}
 }
@@ -1,12 +1,16 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
+import dataStructures.IntervalTrack;
+import dataStructures.IntervalTrackSet;
+import dataStructures.IntervalTrackSweep;
 import dataStructures.QuartetMember;
 import dataStructures.SegmentalDuplicationList;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -23,9 +27,9 @@ public class RepairDeletions {
 
 	/**
 	 * Usage: java RepairDeletions.java -v <path to the VCF file> -dp <path to the paternal deleted blocks file> 
-	 * -dm <path to the maternal deleted blocks file> -dk1 <path to the kid1 deleted blocks file> -dk2 <path to the kid2 deleted blocks file> -n <number of deleted allele>
+	 * -dm <path to the maternal deleted blocks file> -dk1 <path to the kid1 deleted blocks file> -dk2 <path to the kid2 deleted blocks file> -n <number of deleted allele> -o <path to the output file (optional)>
 	 * @param args -v <path to the VCF file> -dp <path to the paternal deleted blocks file> 
-	 * -dm <path to the maternal deleted blocks file> -dk1 <path to the kid1 deleted blocks file> -dk2 <path to the kid2 deleted blocks file> -n <number of deleted allele>
+	 * -dm <path to the maternal deleted blocks file> -dk1 <path to the kid1 deleted blocks file> -dk2 <path to the kid2 deleted blocks file> -n <number of deleted allele> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
@@ -40,6 +44,7 @@ public class RepairDeletions {
 				File kid1DeletedBlockFile = null;
 				File kid2DeletedBlockFile = null;
 				int alleleDeletedCount = 0;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-v")) {
 						VCFFile = new File(args[i + 1]);
@@ -59,13 +64,16 @@ public class RepairDeletions {
 					if (args[i].equals("-n")) {
 						alleleDeletedCount = Integer.parseInt(args[i + 1]);
 					}
+					if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
+					}
 				}
 				if ((alleleDeletedCount != 1) && (alleleDeletedCount != 2)) {
 					System.out.println("Incorrect allele count");
 					showUsage();
 					System.exit(-1);
 				}
-				repairDeletions(VCFFile, paternalDeletedBlockFile, maternalDeletedBlockFile, kid1DeletedBlockFile, kid2DeletedBlockFile, alleleDeletedCount);
+				repairDeletions(VCFFile, paternalDeletedBlockFile, maternalDeletedBlockFile, kid1DeletedBlockFile, kid2DeletedBlockFile, alleleDeletedCount, outputFile);
 			} catch (Exception e) {
 				e.printStackTrace();
 				showUsage();
@@ -79,7 +87,7 @@ public class RepairDeletions {
 	 */
 	private static void showUsage() {
 		System.out.println("Usage: java RepairDeletions.java -v <path to the VCF file> -dp <path to the paternal deleted blocks file>" +
-				" -dm <path to the maternal deleted blocks file> -dk1 <path to the kid1 deleted blocks file> -dk2 <path to the kid2 deleted blocks file> -n <number of deleted allele>");
+				" -dm <path to the maternal deleted blocks file> -dk1 <path to the kid1 deleted blocks file> -dk2 <path to the kid2 deleted blocks file> -n <number of deleted allele> -o <path to the output file (optional)>");
 	}
 
 
@@ -91,7 +99,7 @@ public class RepairDeletions {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 12) {
+		if ((args.length != 12) && (args.length != 14)) {
 			return false;
 		}
 		String[] mandatoryParameters = {"-v", "-dp", "-dm", "-dk1", "-dk2", "-n"};
@@ -118,9 +126,10 @@ public class RepairDeletions {
 	 * @param kid1DeletedBlockFile file with the kid1 deletion blocks
 	 * @param kid2DeletedBlockFile file with the kid2 deletion blocks
 	 * @param alleleDeletedCount number of allele that got deleted
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException
 	 */
-	private static void repairDeletions(File VCFFile, File paternalDeletedBlockFile, File maternalDeletedBlockFile, File kid1DeletedBlockFile, File kid2DeletedBlockFile, int alleleDeletedCount) throws IOException {
+	private static void repairDeletions(File VCFFile, File paternalDeletedBlockFile, File maternalDeletedBlockFile, File kid1DeletedBlockFile, File kid2DeletedBlockFile, final int alleleDeletedCount, File outputFile) throws IOException {
 		SegmentalDuplicationList paternalHemiBlocks = new SegmentalDuplicationList();
 		paternalHemiBlocks.loadBedOrBgr(paternalDeletedBlockFile);
 		SegmentalDuplicationList maternalHemiBlocks = new SegmentalDuplicationList();
@@ -129,55 +138,63 @@ public class RepairDeletions {
 		kid1HemiBlocks.loadBedOrBgr(kid1DeletedBlockFile);
 		SegmentalDuplicationList kid2HemiBlocks = new SegmentalDuplicationList();
 		kid2HemiBlocks.loadBedOrBgr(kid2DeletedBlockFile);
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			boolean infoStarted = false;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) == '#') {
-					// add the hemizygous error filter flag to the vcf file in the case of hemizygous corrections
-					if (alleleDeletedCount == 1) {
-						if (line.startsWith("##INFO")) {
-							infoStarted = true;
-						} else if (infoStarted) {
-							System.out.println(HEF_INFO_HEADER);
-							infoStarted= false;
+		// the blocks of the 4 members are annotated in a single sweep over the VCF
+		final IntervalTrackSet hemiTrackSet = new IntervalTrackSet();
+		final int paternalTrack = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(paternalHemiBlocks));
+		final int maternalTrack = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(maternalHemiBlocks));
+		final int kid1Track = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(kid1HemiBlocks));
+		final int kid2Track = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(kid2HemiBlocks));
+		// the lines are repaired in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final IntervalTrackSweep hemiSweep = hemiTrackSet.createSweep();	// sweep of the thread using the transform
+					private boolean infoStarted = false;										// true while the info header lines are read
+
+					@Override
+					public String transformHeaderLine(String line) {
+						// add the hemizygous error filter flag to the vcf file in the case of hemizygous corrections
+						if (alleleDeletedCount == 1) {
+							if (line.startsWith("##INFO")) {
+								infoStarted = true;
+							} else if (infoStarted) {
+								infoStarted = false;
+								return HEF_INFO_HEADER + System.lineSeparator() + line;
+							}
 						}
+						return line;
 					}
-					System.out.println(line);
-				} else {
-					String[] splitLine = line.split("\t");
-					String correctedLine = line;
-					try {
-						String chromosome = splitLine[0].trim();
-						int position = Integer.parseInt(splitLine[1].trim());
-						if (paternalHemiBlocks.getBlock(chromosome, position) != null) {
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.FATHER, alleleDeletedCount);
-						}
-						if (maternalHemiBlocks.getBlock(chromosome, position) != null) {
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.MOTHER, alleleDeletedCount);
-						}
-						if (kid1HemiBlocks.getBlock(chromosome, position) != null) {
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID1, alleleDeletedCount);
-						}
-						if (kid2HemiBlocks.getBlock(chromosome, position) != null) {
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID2, alleleDeletedCount);
+
+					@Override
+					public String transformVariantLine(String line) {
+						String[] splitLine = line.split("\t");
+						String correctedLine = line;
+						try {
+							String chromosome = splitLine[0].trim();
+							int position = Integer.parseInt(splitLine[1].trim());
+							hemiSweep.sweep(chromosome, position);
+							if (hemiSweep.isHit(paternalTrack)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.FATHER, alleleDeletedCount);
+							}
+							if (hemiSweep.isHit(maternalTrack)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.MOTHER, alleleDeletedCount);
+							}
+							if (hemiSweep.isHit(kid1Track)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID1, alleleDeletedCount);
+							}
+							if (hemiSweep.isHit(kid2Track)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID2, alleleDeletedCount);
+							}
+						} catch (Exception e) {
+							// do nothing
 						}
-					} catch (Exception e) {
-						// do nothing
-					} finally {
-						System.out.println(correctedLine);
+						return correctedLine;
 					}
-				}
+				};
 			}
-		} finally {
-			if (reader != null) {
-				reader.close();
-			}
-		}
+		});
+		pipeline.run(VCFFile, outputFile);
 	}
 
 
@@ -193,7 +210,7 @@ public class RepairDeletions {
 		}
 		int indexGenotypeInfo = 0;
 		String[] splitLine = lineToCorrect.split("\t");
-		String correctedLine = splitLine[0];
+		StringBuilder correctedLine = new StringBuilder(lineToCorrect.length()).append(splitLine[0]);
 		switch (member) {
 		case FATHER:
 			indexGenotypeInfo = 9;
@@ -224,9 +241,9 @@ public class RepairDeletions {
 			}
 		}
 		for (int i = 1; i < splitLine.length; i++) {
-			correctedLine += '\t' + splitLine[i];
+			correctedLine.append('\t').append(splitLine[i]);
 		}
-		return correctedLine;
+		return correctedLine.toString();
 	}
 
 
@@ -241,10 +258,10 @@ public class RepairDeletions {
 			return line;
 		}
 		splitLine[INFO_FIELD_INDEX] += ";" + flag;
-		String newLine = splitLine[0];
+		StringBuilder newLine = new StringBuilder(line.length() + 16).append(splitLine[0]);
 		for (int i = 1; i < splitLine.length; i++) {
-			newLine += "\t" + splitLine[i];
+			newLine.append('\t').append(splitLine[i]);
 		}
-		return newLine;
+		return newLine.toString();
 	}
 }
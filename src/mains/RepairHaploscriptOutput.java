@@ -2,9 +2,10 @@ package mains;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
+import utils.GenomicFileReader;
+
 
 /**
  * Repairs the output phased vector file of the software Haploscript by completing the incomplete vectors 
@@ -62,7 +63,7 @@ public class RepairHaploscriptOutput {
 
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new FileReader(phasedVectorFile));
+			reader = GenomicFileReader.open(phasedVectorFile);
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -1,13 +1,18 @@
 package mains;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
+import dataStructures.IntervalTrack;
+import dataStructures.IntervalTrackSet;
+import dataStructures.IntervalTrackSweep;
 import dataStructures.QuartetMember;
 import dataStructures.SegmentalDuplicationList;
+import dataStructures.VCFLineParser;
 import dataStructures.Variant;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransform;
+import utils.VCFLineTransformFactory;
 
 
 /**
@@ -19,15 +24,15 @@ public class RepairHemizygous {
 
 	/**
 	 * Usage: java RepairHemizygous.java -v <path to the VCF file> -hp <path to the paternal hemizygous blocks file> 
-	 * -hm <path to the maternal hemizygous blocks file> -hk1 <path to the kid1 hemizygous blocks file> -hk2 <path to the kid2 hemizygous blocks file>
+	 * -hm <path to the maternal hemizygous blocks file> -hk1 <path to the kid1 hemizygous blocks file> -hk2 <path to the kid2 hemizygous blocks file> -o <path to the output file (optional)>
 	 * @param args -v <path to the VCF file> -hp <path to the paternal hemizygous blocks file> 
-	 * -hm <path to the maternal hemizygous blocks file> -hk1 <path to the kid1 hemizygous blocks file> -hk2 <path to the kid2 hemizygous blocks file>
+	 * -hm <path to the maternal hemizygous blocks file> -hk1 <path to the kid1 hemizygous blocks file> -hk2 <path to the kid2 hemizygous blocks file> -o <path to the output file (optional)>
 	 */
 	public static void main(String[] args) {
 		// exit the program if the input parameters are not correct
 		if (!areParametersValid(args)) { 
 			System.out.println("Usage: java RepairHemizygous.java -v <path to the VCF file> -hp <path to the paternal hemizygous blocks file> " +
-					"-hm <path to the maternal hemizygous blocks file> -hk1 <path to the kid1 hemizygous blocks file> -hk2 <path to the kid2 hemizygous blocks file>");
+					"-hm <path to the maternal hemizygous blocks file> -hk1 <path to the kid1 hemizygous blocks file> -hk2 <path to the kid2 hemizygous blocks file> -o <path to the output file (optional)>");
 			System.exit(-1);
 		} else {
 			try {
@@ -36,6 +41,7 @@ public class RepairHemizygous {
 				File maternalHemiBlockFile = null;
 				File kid1HemiBlockFile = null;
 				File kid2HemiBlockFile = null;
+				File outputFile = null;
 				for (int i = 0; i < args.length; i += 2) {
 					if (args[i].equals("-v")) {
 						VCFFile = new File(args[i + 1]);
@@ -52,8 +58,11 @@ public class RepairHemizygous {
 					if (args[i].equals("-hk2")) {
 						kid2HemiBlockFile = new File(args[i + 1]);
 					}
+					if (args[i].equals("-o")) {
+						outputFile = new File(args[i + 1]);
+					}
 				}
-				repairHemizygous(VCFFile, paternalHemiBlockFile, maternalHemiBlockFile, kid1HemiBlockFile, kid2HemiBlockFile);
+				repairHemizygous(VCFFile, paternalHemiBlockFile, maternalHemiBlockFile, kid1HemiBlockFile, kid2HemiBlockFile, outputFile);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -69,7 +78,7 @@ public class RepairHemizygous {
 		if (args == null) {
 			return false;
 		}
-		if (args.length != 10) {
+		if ((args.length != 10) && (args.length != 12)) {
 			return false;
 		}
 		String[] mandatoryParameters = {"-v", "-hp", "-hm", "-hk1", "-hk2"};
@@ -95,9 +104,10 @@ public class RepairHemizygous {
 	 * @param maternalHemiBlockFile file with the maternal homzygous deletions
 	 * @param kid1HemiBlockFile file with the kid1 homzygous deletions
 	 * @param kid2HemiBlockFile file with the kid2 homzygous deletions
+	 * @param outputFile file where the result is printed. The result is printed in the standard output if null
 	 * @throws IOException
 	 */
-	private static void repairHemizygous(File VCFFile, File paternalHemiBlockFile, File maternalHemiBlockFile, File kid1HemiBlockFile, File kid2HemiBlockFile) throws IOException {
+	private static void repairHemizygous(File VCFFile, File paternalHemiBlockFile, File maternalHemiBlockFile, File kid1HemiBlockFile, File kid2HemiBlockFile, File outputFile) throws IOException {
 		SegmentalDuplicationList paternalHemiBlocks = new SegmentalDuplicationList();
 		paternalHemiBlocks.loadBedOrBgr(paternalHemiBlockFile);
 		SegmentalDuplicationList maternalHemiBlocks = new SegmentalDuplicationList();
@@ -106,48 +116,57 @@ public class RepairHemizygous {
 		kid1HemiBlocks.loadBedOrBgr(kid1HemiBlockFile);
 		SegmentalDuplicationList kid2HemiBlocks = new SegmentalDuplicationList();
 		kid2HemiBlocks.loadBedOrBgr(kid2HemiBlockFile);
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new FileReader(VCFFile));
-			String line = null;
-			// loop until eof
-			while ((line = reader.readLine()) != null) {
-				// a line starting with a # is a comment line
-				if (line.charAt(0) == '#') {
-					System.out.println(line);
-				} else {
-					String correctedLine = line;
-					try {
-						Variant currentVariant = new Variant(line);
-						if (paternalHemiBlocks.getBlock(currentVariant.getChromosome(), currentVariant.getPosition()) != null) { 
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.FATHER);							
-						}
-						if (maternalHemiBlocks.getBlock(currentVariant.getChromosome(), currentVariant.getPosition()) != null) { 
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.MOTHER);							
-						}
-						if (kid1HemiBlocks.getBlock(currentVariant.getChromosome(), currentVariant.getPosition()) != null) { 
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID1);							
-						}
-						if (kid2HemiBlocks.getBlock(currentVariant.getChromosome(), currentVariant.getPosition()) != null) { 
-							correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID2);							
-						}
-						if (correctedLine == null) {
-							//currentVariant.printVariantBgrFormat();
-							// if we weren't able to repair the line we just print the line with no modification
-							correctedLine = line;
+		// the blocks of the 4 members are annotated in a single sweep over the VCF
+		final IntervalTrackSet hemiTrackSet = new IntervalTrackSet();
+		final int paternalTrack = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(paternalHemiBlocks));
+		final int maternalTrack = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(maternalHemiBlocks));
+		final int kid1Track = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(kid1HemiBlocks));
+		final int kid2Track = hemiTrackSet.addTrack(IntervalTrack.createFromSegmentalDuplicationList(kid2HemiBlocks));
+		// the lines are repaired in parallel and printed in the order of the vcf file
+		VCFLinePipeline pipeline = new VCFLinePipeline(new VCFLineTransformFactory() {
+			@Override
+			public VCFLineTransform createTransform() {
+				return new VCFLineTransform() {
+					private final VCFLineParser parser = new VCFLineParser();			// parser of the thread using the transform
+					private final IntervalTrackSweep hemiSweep = hemiTrackSet.createSweep();	// sweep of the thread using the transform
+
+					@Override
+					public String transformHeaderLine(String line) {
+						return line;
+					}
+
+					@Override
+					public String transformVariantLine(String line) {
+						String correctedLine = line;
+						try {
+							Variant currentVariant = new Variant(parser.parse(line));
+							hemiSweep.sweep(currentVariant);
+							if (hemiSweep.isHit(paternalTrack)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.FATHER);							
+							}
+							if (hemiSweep.isHit(maternalTrack)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.MOTHER);							
+							}
+							if (hemiSweep.isHit(kid1Track)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID1);							
+							}
+							if (hemiSweep.isHit(kid2Track)) {
+								correctedLine = getCorrectedLine(correctedLine, QuartetMember.KID2);							
+							}
+							if (correctedLine == null) {
+								//currentVariant.printVariantBgrFormat();
+								// if we weren't able to repair the line we just print the line with no modification
+								correctedLine = line;
+							}
+						} catch (Exception e) {
+							// do nothing
 						}
-					} catch (Exception e) {
-						// do nothing
-					} finally {
-						System.out.println(correctedLine);
+						return correctedLine;
 					}
-				}
+				};
 			}
-		} finally {
-			if (reader != null) {
-				reader.close();
-			}
-		}
+		});
+		pipeline.run(VCFFile, outputFile);
 	}
 
 
@@ -162,7 +181,7 @@ public class RepairHemizygous {
 		}
 		int indexGenotypeInfo = 0;
 		String[] splitLine = lineToCorrect.split("\t");
-		String correctedLine = splitLine[0];
+		StringBuilder correctedLine = new StringBuilder(lineToCorrect.length()).append(splitLine[0]);
 		switch (member) {
 		case FATHER:
 			indexGenotypeInfo = 9;
@@ -183,8 +202,8 @@ public class RepairHemizygous {
 			return null;
 		}
 		for (int i = 1; i < splitLine.length; i++) {
-			correctedLine += '\t' + splitLine[i];
+			correctedLine.append('\t').append(splitLine[i]);
 		}
-		return correctedLine;
+		return correctedLine.toString();
 	}
 }
@@ -0,0 +1,323 @@
+package mains;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dataStructures.GenomicRegion;
+import utils.ChainedVCFLineTransformFactory;
+import utils.GenomicFileReader;
+import utils.VCFLinePipeline;
+import utils.VCFLineTransformFactory;
+
+
+/**
+ * Runs a chain of tools on a VCF file in a single JVM.
+ * The stages of the chain are listed in a pipeline file, one stage per line, with the name of the tool followed by its options
+ * without the input and output files (eg: "AddPhaseSet -b blocks.bgr"). Empty lines and lines starting with a # are ignored.
+ * Consecutive stages rewriting the VCF line by line are chained and run in a single pass over the file so the intermediate VCF
+ * files are never printed nor parsed. The line stages are:
+ *  * GenerateFilteredVCF -s <segmental duplication file (optional)> -b <block list (optional)>
+ *  * PhaseByTransmission -b <path to the block bgr file>
+ *  * ExtendDoubleTransmissionPhasing -b <path to the block bgr file>
+ *  * AddPhaseSet -b <path to the block file>
+ *  * MarkSceMieRdfVariants -b <path to the block file> -s <path to the segmental duplication file>
+ * The stages needing the whole output of the previous stages are run in the same JVM on a temporary file:
+ *  * Merge2Trios -t1 <path to the 1st trio VCF (first stage only)> -t2 <path to the 2nd trio VCF>.
+ *    The output of the previous stages is the 1st trio when -t1 is not specified
+ *  * PhaseFullHeterozygous -p <path to physical phasing vcf file> -b <path to the inheritance block file> -r <region chr:start-stop (optional)> -m <heap budget of the index in MB (optional)>.
+ *    The output of the previous stages is the genetic phasing file
+ * Only the output of the last stage is printed
+ * @author Julien Lajugie
+ */
+public class RunPipeline {
+
+	/**
+	 * Usage: java RunPipeline.java -v <path to the VCF file (optional if the first stage is Merge2Trios)> -p <path to the pipeline file> -o <path to the output file (optional)>
+	 * @param args -v <path to the VCF file (optional if the first stage is Merge2Trios)> -p <path to the pipeline file> -o <path to the output file (optional)>
+	 */
+	public static void main(String[] args) {
+		// exit the program if the input parameters are not correct
+		if (!areParametersValid(args)) {
+			System.out.println("Usage: java RunPipeline.java -v <path to the VCF file (optional if the first stage is Merge2Trios)> -p <path to the pipeline file> -o <path to the output file (optional)>");
+			System.exit(-1);
+		} else {
+			File VCFFile = null;
+			File pipelineFile = null;
+			File outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("-v")) {
+					VCFFile = new File(args[i + 1]);
+				} else if (args[i].equals("-p")) {
+					pipelineFile = new File(args[i + 1]);
+				} else if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
+			}
+			try {
+				runPipeline(VCFFile, pipelineFile, outputFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+
+	/**
+	 * @param args parameters from the main function
+	 * @return true if the parameters are valid
+	 */
+	private static boolean areParametersValid(String[] args) {
+		if ((args == null) || (args.length == 0) || (args.length > 6) || ((args.length % 2) != 0)) {
+			return false;
+		}
+		boolean isPipelineFound = false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-p")) {
+				isPipelineFound = true;
+			} else if (!args[i].equals("-v") && !args[i].equals("-o")) {
+				return false;
+			}
+		}
+		return isPipelineFound;
+	}
+
+
+	/**
+	 * Runs the stages of a pipeline file
+	 * @param VCFFile VCF file processed by the first stage. Can be null if the first stage is Merge2Trios with a -t1 option
+	 * @param pipelineFile file listing the stages of the pipeline
+	 * @param outputFile file where the output of the last stage is printed. The output is printed in the standard output if null
+	 * @throws IOException if a file cannot be read or written or if the pipeline file is not valid
+	 */
+	private static void runPipeline(File VCFFile, File pipelineFile, File outputFile) throws IOException {
+		List<String[]> stages = loadStages(pipelineFile);
+		if (stages.isEmpty()) {
+			throw new IOException("The pipeline file " + pipelineFile.getPath() + " doesn't contain any stage");
+		}
+		// input of the next stage
+		File stageInput = VCFFile;
+		// temporary file with the output of the last stage run, deleted once read
+		File temporaryFile = null;
+		// temporary file written by the stage running, deleted if the stage fails
+		File temporaryOutputFile = null;
+		// line stages waiting to be run in one pass
+		List<VCFLineTransformFactory> lineStages = new ArrayList<>();
+		try {
+			for (int i = 0; i < stages.size(); i++) {
+				String stageName = stages.get(i)[0];
+				Map<String, String> options = parseStageOptions(stages.get(i));
+				boolean isFirstStage = (i == 0) && (VCFFile == null);
+				boolean isLastStage = i == (stages.size() - 1);
+				VCFLineTransformFactory transformFactory = createTransformFactory(stageName, options);
+				if (transformFactory != null) {
+					lineStages.add(transformFactory);
+				} else {
+					// the line stages before a stage reading a whole file are run in one pass into a temporary file
+					if (!lineStages.isEmpty()) {
+						temporaryOutputFile = File.createTempFile("pipeline", ".vcf");
+						runLineStages(lineStages, stageInput, temporaryOutputFile);
+						lineStages.clear();
+						deleteTemporaryFile(temporaryFile);
+						stageInput = temporaryOutputFile;
+						temporaryFile = temporaryOutputFile;
+						temporaryOutputFile = null;
+					}
+					temporaryOutputFile = isLastStage ? null : File.createTempFile("pipeline", ".vcf");
+					File stageOutput = isLastStage ? outputFile : temporaryOutputFile;
+					runFileStage(stageName, options, stageInput, isFirstStage, stageOutput);
+					deleteTemporaryFile(temporaryFile);
+					stageInput = stageOutput;
+					temporaryFile = temporaryOutputFile;
+					temporaryOutputFile = null;
+				}
+			}
+			if (!lineStages.isEmpty()) {
+				runLineStages(lineStages, stageInput, outputFile);
+			}
+		} finally {
+			deleteTemporaryFile(temporaryFile);
+			deleteTemporaryFile(temporaryOutputFile);
+		}
+	}
+
+
+	/**
+	 * @param pipelineFile file listing the stages of the pipeline
+	 * @return the stages of the pipeline file, each stage being the name of a tool followed by its options
+	 * @throws IOException if the file cannot be read
+	 */
+	private static List<String[]> loadStages(File pipelineFile) throws IOException {
+		List<String[]> stages = new ArrayList<>();
+		BufferedReader reader = null;
+		try {
+			reader = GenomicFileReader.open(pipelineFile);
+			String line = null;
+			// loop until eof
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				// empty lines and lines starting with a # are ignored
+				if (!line.isEmpty() && (line.charAt(0) != '#')) {
+					stages.add(line.split("\\s+"));
+				}
+			}
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+		}
+		return stages;
+	}
+
+
+	/**
+	 * @param stage name of a tool followed by its options
+	 * @return a map with the value of each option of the stage
+	 * @throws IOException if an option has no value or is specified twice
+	 */
+	private static Map<String, String> parseStageOptions(String[] stage) throws IOException {
+		if ((stage.length % 2) != 1) {
+			throw new IOException("Invalid options for the stage: " + Arrays.toString(stage));
+		}
+		Map<String, String> options = new HashMap<>();
+		for (int i = 1; i < stage.length; i += 2) {
+			if (options.put(stage[i], stage[i + 1]) != null) {
+				throw new IOException("Option " + stage[i] + " specified twice in the stage: " + Arrays.toString(stage));
+			}
+		}
+		return options;
+	}
+
+
+	/**
+	 * Checks that a stage has all its mandatory options and no unknown option
+	 * @param stageName name of the tool of the stage
+	 * @param options options of the stage
+	 * @param mandatoryOptions options that must be specified
+	 * @param optionalOptions options that can be specified
+	 * @throws IOException if the options are not valid
+	 */
+	private static void checkStageOptions(String stageName, Map<String, String> options, String[] mandatoryOptions, String[] optionalOptions) throws IOException {
+		for (String currentOption: mandatoryOptions) {
+			if (!options.containsKey(currentOption)) {
+				throw new IOException("Missing option " + currentOption + " for the stage " + stageName);
+			}
+		}
+		for (String currentOption: options.keySet()) {
+			if (!Arrays.asList(mandatoryOptions).contains(currentOption) && !Arrays.asList(optionalOptions).contains(currentOption)) {
+				throw new IOException("Invalid option " + currentOption + " for the stage " + stageName);
+			}
+		}
+	}
+
+
+	/**
+	 * @param options options of a stage
+	 * @param option an option
+	 * @return the file of the specified option or null if the option is not specified
+	 */
+	private static File getFileOption(Map<String, String> options, String option) {
+		return options.containsKey(option) ? new File(options.get(option)) : null;
+	}
+
+
+	/**
+	 * Creates the transforms of a line stage
+	 * @param stageName name of the tool of the stage
+	 * @param options options of the stage
+	 * @return the factory of the transforms of the stage or null if the stage needs to read a whole file
+	 * @throws IOException if the stage is not valid or if the files of the stage cannot be read
+	 */
+	private static VCFLineTransformFactory createTransformFactory(String stageName, Map<String, String> options) throws IOException {
+		if (stageName.equals("GenerateFilteredVCF")) {
+			checkStageOptions(stageName, options, new String[] {}, new String[] {"-s", "-b"});
+			return GenerateFilteredVCF.createTransformFactory(getFileOption(options, "-s"), getFileOption(options, "-b"));
+		} else if (stageName.equals("PhaseByTransmission")) {
+			checkStageOptions(stageName, options, new String[] {"-b"}, new String[] {});
+			return PhaseByTransmission.createTransformFactory(getFileOption(options, "-b"));
+		} else if (stageName.equals("ExtendDoubleTransmissionPhasing")) {
+			checkStageOptions(stageName, options, new String[] {"-b"}, new String[] {});
+			return ExtendDoubleTransmissionPhasing.createTransformFactory(getFileOption(options, "-b"));
+		} else if (stageName.equals("AddPhaseSet")) {
+			checkStageOptions(stageName, options, new String[] {"-b"}, new String[] {});
+			return AddPhaseSet.createTransformFactory(getFileOption(options, "-b"));
+		} else if (stageName.equals("MarkSceMieRdfVariants")) {
+			checkStageOptions(stageName, options, new String[] {"-b", "-s"}, new String[] {});
+			return MarkSceMieRdfVariants.createTransformFactory(getFileOption(options, "-b"), getFileOption(options, "-s"));
+		} else if (stageName.equals("Merge2Trios")) {
+			checkStageOptions(stageName, options, new String[] {"-t2"}, new String[] {"-t1"});
+			return null;
+		} else if (stageName.equals("PhaseFullHeterozygous")) {
+			checkStageOptions(stageName, options, new String[] {"-p", "-b"}, new String[] {"-r", "-m"});
+			return null;
+		} else {
+			throw new IOException("Unknown stage: " + stageName);
+		}
+	}
+
+
+	/**
+	 * Runs chained line stages in one pass
+	 * @param transformFactories factories of the transforms of the stages
+	 * @param inputFile VCF file read by the first stage
+	 * @param outputFile file where the output of the last stage is printed. The output is printed in the standard output if null
+	 * @throws IOException if a file cannot be read or written
+	 */
+	private static void runLineStages(List<VCFLineTransformFactory> transformFactories, File inputFile, File outputFile) throws IOException {
+		if (inputFile == null) {
+			throw new IOException("The first stage of the pipeline needs a VCF file (-v option)");
+		}
+		VCFLinePipeline pipeline = new VCFLinePipeline(new ChainedVCFLineTransformFactory(transformFactories));
+		pipeline.run(inputFile, outputFile);
+	}
+
+
+	/**
+	 * Runs a stage reading a whole file
+	 * @param stageName name of the tool of the stage
+	 * @param options options of the stage
+	 * @param inputFile output of the previous stages or VCF file of the pipeline. Can be null for the first stage
+	 * @param isFirstStage true if the stage is the first stage and if the pipeline has no VCF file
+	 * @param outputFile file where the output of the stage is printed. The output is printed in the standard output if null
+	 * @throws IOException if a file cannot be read or written or if the stage is not valid
+	 */
+	private static void runFileStage(String stageName, Map<String, String> options, File inputFile, boolean isFirstStage, File outputFile) throws IOException {
+		if (stageName.equals("Merge2Trios")) {
+			// the 1st trio is the output of the previous stages unless the stage is the source of the pipeline
+			File trio1File = inputFile;
+			if (options.containsKey("-t1")) {
+				if (!isFirstStage) {
+					throw new IOException("The -t1 option of Merge2Trios can only be used by the first stage of a pipeline without VCF file");
+				}
+				trio1File = getFileOption(options, "-t1");
+			}
+			if (trio1File == null) {
+				throw new IOException("The first stage of the pipeline needs a VCF file (-v option)");
+			}
+			Merge2Trios.merge2Trios(trio1File, getFileOption(options, "-t2"), outputFile);
+		} else if (stageName.equals("PhaseFullHeterozygous")) {
+			if (inputFile == null) {
+				throw new IOException("The first stage of the pipeline needs a VCF file (-v option)");
+			}
+			GenomicRegion region = options.containsKey("-r") ? GenomicRegion.valueOf(options.get("-r")) : null;
+			long heapBudget = options.containsKey("-m") ? Long.parseLong(options.get("-m")) * 1024 * 1024 : PhaseFullHeterozygous.getDefaultHeapBudget();
+			PhaseFullHeterozygous.phaseFullHeterozygous(inputFile, getFileOption(options, "-p"), getFileOption(options, "-b"), region, heapBudget, outputFile);
+		}
+	}
+
+
+	/**
+	 * Deletes a temporary file
+	 * @param temporaryFile a temporary file. Nothing is done if null
+	 */
+	private static void deleteTemporaryFile(File temporaryFile) {
+		if (temporaryFile != null) {
+			temporaryFile.delete();
+		}
+	}
+}
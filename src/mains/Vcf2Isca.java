@@ -1,10 +1,12 @@
 package mains;
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
+import utils.GenomicFileReader;
+
 /**
  * This class converts a VCF file to a haploscript input file 
  * @author Julien Lajugie <julien.lajugie@einstein.yu.edu>
@@ -75,7 +77,7 @@ public class Vcf2Isca {
 			System.out.println(TAG_BLANK);
 			System.out.println(TAG_HEADER);			
 			// open the input file
-			reader = new BufferedReader(new FileReader(VCFFilePath));
+			reader = GenomicFileReader.open(new File(VCFFilePath));
 			String line = null;
 			// loop until eof
 			while ((line = reader.readLine()) != null) {
@@ -0,0 +1,72 @@
+package mains;
+
+import java.io.File;
+import java.io.IOException;
+
+import dataStructures.FilterPolicy;
+import dataStructures.QGTFile;
+import dataStructures.QGTWriter;
+
+
+/**
+ * Converts a quartet VCF file into a QGT file (binary columnar quartet genotype file, see {@link QGTFile}).
+ * The QGT file can be used instead of the VCF file by the tools loading phased vectors or variants
+ * @author Julien Lajugie
+ */
+public class Vcf2Qgt {
+
+	/**
+	 * Usage: java Vcf2Qgt -v <path to the VCF file> -o <path to the output QGT file>
+	 * @param args -v <path to the VCF file> -o <path to the output QGT file>
+	 */
+	public static void main(String[] args) {
+		// exit the program if the input parameters are not correct
+		if (!areParametersValid(args)) {
+			System.out.println("Usage: java Vcf2Qgt.java -v <path to the VCF file> -o <path to the output QGT file>");
+			System.exit(-1);
+		} else {
+			File VCFFile = null;
+			File outputFile = null;
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("-v")) {
+					VCFFile = new File(args[i + 1]);
+				} else if (args[i].equals("-o")) {
+					outputFile = new File(args[i + 1]);
+				}
+			}
+			try {
+				FilterPolicy filterPolicy = QGTWriter.convert(VCFFile, outputFile);
+				System.err.println(filterPolicy.getRejectStatistics());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+
+	/**
+	 * @param args parameters from the main function
+	 * @return true if the parameters are valid
+	 */
+	private static boolean areParametersValid(String[] args) {
+		if (args == null) {
+			return false;
+		}
+		if (args.length != 4) {
+			return false;
+		}
+		String[] mandatoryParameters = {"-v", "-o"};
+		for (String currentMandatoryParameter: mandatoryParameters) {
+			boolean found = false;
+			int i = 0;
+			while ((i < args.length) && !found) {
+				found = args[i].equals(currentMandatoryParameter);
+				i += 2;
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,278 @@
+package utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+/**
+ * Input stream decompressing a BGZF file (blocked gzip format used by bgzip, tabix and samtools).
+ * A BGZF file is a series of gzip members of at most 64 KB. Each member is inflated in process with an {@link Inflater}.
+ * The position in the uncompressed data is a virtual offset: the offset of the compressed block in the file
+ * in the 48 upper bits and the offset in the uncompressed block in the 16 lower bits.
+ * The stream can seek to a virtual offset stored in a tabix index.
+ * An instance of this class is not thread safe
+ * @author Julien Lajugie
+ */
+public class BlockCompressedInputStream extends InputStream {
+
+	private static final int 	BLOCK_HEADER_LENGTH = 18;		// length of the header of a BGZF block (gzip header + BC extra subfield)
+	private static final int 	BLOCK_FOOTER_LENGTH = 8;		// length of the footer of a block (CRC32 + uncompressed size)
+	private static final int 	MAX_BLOCK_SIZE = 1 << 16;		// maximum size of a block, compressed or not
+	private static final int 	INITIAL_LINE_LENGTH = 1024;		// initial capacity of the line buffer
+
+	private final RandomAccessFile 	file;				// compressed file
+	private final Inflater 			inflater;			// inflater of the blocks
+	private final byte[] 			compressedBlock;	// current compressed block
+	private final byte[] 			block;				// current uncompressed block
+	private final Charset 			charset;			// charset of the lines returned by readLine
+	private byte[] 					lineBuffer;			// bytes of the line read by readLine
+	private int 					blockLength;		// length of the current uncompressed block
+	private int 					blockOffset;		// read position in the current uncompressed block
+	private long 					blockAddress;		// offset of the current block in the compressed file
+	private long 					nextBlockAddress;	// offset of the next block in the compressed file
+
+
+	/**
+	 * Creates an instance of {@link BlockCompressedInputStream} positioned at the beginning of the file
+	 * @param file a BGZF file
+	 * @throws IOException
+	 */
+	public BlockCompressedInputStream(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		inflater = new Inflater(true);
+		compressedBlock = new byte[MAX_BLOCK_SIZE];
+		block = new byte[MAX_BLOCK_SIZE];
+		charset = Charset.defaultCharset();
+		lineBuffer = new byte[INITIAL_LINE_LENGTH];
+		blockLength = 0;
+		blockOffset = 0;
+		blockAddress = 0;
+		nextBlockAddress = 0;
+	}
+
+
+	/**
+	 * @param file a file
+	 * @return true if the specified file starts with a BGZF block header
+	 * @throws IOException
+	 */
+	public static boolean isBlockCompressed(File file) throws IOException {
+		byte[] header = new byte[BLOCK_HEADER_LENGTH];
+		RandomAccessFile randomAccessFile = null;
+		try {
+			randomAccessFile = new RandomAccessFile(file, "r");
+			if (randomAccessFile.read(header) != BLOCK_HEADER_LENGTH) {
+				return false;
+			}
+			return isBlockHeader(header);
+		} finally {
+			if (randomAccessFile != null) {
+				randomAccessFile.close();
+			}
+		}
+	}
+
+
+	/**
+	 * @param header the first bytes of a gzip member
+	 * @return true if the header is a gzip header with a BGZF extra subfield
+	 */
+	private static boolean isBlockHeader(byte[] header) {
+		// gzip magic number, deflate method, extra field flag, BC subfield of length 2
+		return ((header[0] & 0xFF) == 31) && ((header[1] & 0xFF) == 139) && (header[2] == 8) && ((header[3] & 4) != 0)
+				&& (header[12] == 'B') && (header[13] == 'C') && (header[14] == 2) && (header[15] == 0);
+	}
+
+
+	/**
+	 * Reads and inflates the block at the specified offset of the compressed file
+	 * @param address offset of the block in the compressed file
+	 * @return false if the end of the file is reached
+	 * @throws IOException if the block is not a valid BGZF block
+	 */
+	private boolean readBlock(long address) throws IOException {
+		file.seek(address);
+		int headerLength = file.read(compressedBlock, 0, BLOCK_HEADER_LENGTH);
+		if (headerLength <= 0) {
+			return false;
+		}
+		if ((headerLength != BLOCK_HEADER_LENGTH) || !isBlockHeader(compressedBlock)) {
+			throw new IOException("Invalid BGZF block at offset " + address);
+		}
+		int extraLength = readUnsignedShort(compressedBlock, 10);
+		int compressedBlockSize = readUnsignedShort(compressedBlock, 16) + 1;
+		int remainingLength = compressedBlockSize - BLOCK_HEADER_LENGTH;
+		try {
+			file.readFully(compressedBlock, BLOCK_HEADER_LENGTH, remainingLength);
+		} catch (EOFException e) {
+			throw new IOException("Truncated BGZF block at offset " + address, e);
+		}
+		int dataOffset = 12 + extraLength;
+		int dataLength = compressedBlockSize - dataOffset - BLOCK_FOOTER_LENGTH;
+		int uncompressedSize = readInt(compressedBlock, compressedBlockSize - 4);
+		inflater.reset();
+		inflater.setInput(compressedBlock, dataOffset, dataLength);
+		try {
+			int inflatedLength = 0;
+			while ((inflatedLength < uncompressedSize) && !inflater.finished()) {
+				int length = inflater.inflate(block, inflatedLength, uncompressedSize - inflatedLength);
+				if ((length == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflatedLength += length;
+			}
+			if (inflatedLength != uncompressedSize) {
+				throw new IOException("Invalid BGZF block size at offset " + address);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Invalid BGZF block at offset " + address, e);
+		}
+		blockAddress = address;
+		nextBlockAddress = address + compressedBlockSize;
+		blockLength = uncompressedSize;
+		blockOffset = 0;
+		return true;
+	}
+
+
+	/**
+	 * Makes sure that the current block has data to read
+	 * @return false if the end of the file is reached
+	 * @throws IOException
+	 */
+	private boolean ensureData() throws IOException {
+		// the empty blocks (eg: EOF marker) are skipped
+		while (blockOffset == blockLength) {
+			if (!readBlock(nextBlockAddress)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	@Override
+	public int read() throws IOException {
+		if (!ensureData()) {
+			return -1;
+		}
+		return block[blockOffset++] & 0xFF;
+	}
+
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		if (!ensureData()) {
+			return -1;
+		}
+		int readLength = Math.min(length, blockLength - blockOffset);
+		System.arraycopy(block, blockOffset, buffer, offset, readLength);
+		blockOffset += readLength;
+		return readLength;
+	}
+
+
+	/**
+	 * Reads a line of text decoded with the default charset. The line separators are '\n' and "\r\n"
+	 * @return the next line without line separator or null if the end of the file is reached
+	 * @throws IOException
+	 */
+	public String readLine() throws IOException {
+		int lineLength = 0;
+		boolean isEndOfLine = false;
+		while (!isEndOfLine && ensureData()) {
+			int stop = blockOffset;
+			while ((stop < blockLength) && (block[stop] != '\n')) {
+				stop++;
+			}
+			int length = stop - blockOffset;
+			if (lineLength + length > lineBuffer.length) {
+				lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineLength + length, lineBuffer.length * 2));
+			}
+			System.arraycopy(block, blockOffset, lineBuffer, lineLength, length);
+			lineLength += length;
+			blockOffset = stop;
+			if (stop < blockLength) {
+				// skip the line feed
+				blockOffset++;
+				isEndOfLine = true;
+			}
+		}
+		if (!isEndOfLine && (lineLength == 0)) {
+			return null;
+		}
+		if ((lineLength > 0) && (lineBuffer[lineLength - 1] == '\r')) {
+			lineLength--;
+		}
+		return new String(lineBuffer, 0, lineLength, charset);
+	}
+
+
+	/**
+	 * Moves the stream to the specified virtual offset
+	 * @param virtualOffset a virtual offset (eg: from a tabix index)
+	 * @throws IOException
+	 */
+	public void seek(long virtualOffset) throws IOException {
+		long address = virtualOffset >>> 16;
+		int offset = (int) (virtualOffset & 0xFFFF);
+		if ((address != blockAddress) || (blockLength == 0)) {
+			if (!readBlock(address)) {
+				throw new IOException("Invalid virtual offset " + virtualOffset);
+			}
+		}
+		if (offset > blockLength) {
+			throw new IOException("Invalid virtual offset " + virtualOffset);
+		}
+		blockOffset = offset;
+	}
+
+
+	/**
+	 * @return the virtual offset of the next byte to read.
+	 * At the end of a block the offset of the beginning of the next block is returned
+	 */
+	public long getVirtualOffset() {
+		if (blockOffset == blockLength) {
+			return nextBlockAddress << 16;
+		}
+		return (blockAddress << 16) | blockOffset;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		file.close();
+	}
+
+
+	/**
+	 * @param bytes a byte array
+	 * @param offset an offset in the array
+	 * @return the little endian unsigned short at the specified offset
+	 */
+	private static int readUnsignedShort(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) | ((bytes[offset + 1] & 0xFF) << 8);
+	}
+
+
+	/**
+	 * @param bytes a byte array
+	 * @param offset an offset in the array
+	 * @return the little endian int at the specified offset
+	 */
+	private static int readInt(byte[] bytes, int offset) {
+		return readUnsignedShort(bytes, offset) | (readUnsignedShort(bytes, offset + 2) << 16);
+	}
+}
@@ -0,0 +1,79 @@
+package utils;
+
+
+/**
+ * Transform applying several transforms one after the other to the lines of a VCF file.
+ * Each transform receives the output of the previous one so a chain of line rewriting tools
+ * can be run in one pass over the file without printing and parsing the intermediate files
+ * @author Julien Lajugie
+ */
+public class ChainedVCFLineTransform implements VCFLineTransform {
+
+	private static final String 		LINE_SEPARATOR = System.lineSeparator();	// separator of the lines returned by the header transforms
+
+	private final VCFLineTransform[] 	transforms;		// transforms applied in order to the lines
+
+
+	/**
+	 * Creates an instance of {@link ChainedVCFLineTransform}
+	 * @param transforms transforms applied in order to the lines
+	 */
+	public ChainedVCFLineTransform(VCFLineTransform[] transforms) {
+		this.transforms = transforms;
+	}
+
+
+	@Override
+	public String transformHeaderLine(String line) {
+		String lines = line;
+		for (VCFLineTransform currentTransform: transforms) {
+			if (lines == null) {
+				return null;
+			}
+			lines = transformHeaderLines(currentTransform, lines);
+		}
+		return lines;
+	}
+
+
+	/**
+	 * A header transform can return several lines. Each of these lines is transformed by the next transform
+	 * @param transform a transform
+	 * @param lines one or several header lines separated by {@link System#lineSeparator()}
+	 * @return the transformed lines separated by {@link System#lineSeparator()}. Null if every line was dropped
+	 */
+	private static String transformHeaderLines(VCFLineTransform transform, String lines) {
+		if (lines.indexOf(LINE_SEPARATOR) == -1) {
+			return transform.transformHeaderLine(lines);
+		}
+		StringBuilder transformedLines = new StringBuilder();
+		int lineStart = 0;
+		while (lineStart < lines.length()) {
+			int lineStop = lines.indexOf(LINE_SEPARATOR, lineStart);
+			if (lineStop == -1) {
+				lineStop = lines.length();
+			}
+			String transformedLine = transform.transformHeaderLine(lines.substring(lineStart, lineStop));
+			if (transformedLine != null) {
+				if (transformedLines.length() > 0) {
+					transformedLines.append(LINE_SEPARATOR);
+				}
+				transformedLines.append(transformedLine);
+			}
+			lineStart = lineStop + LINE_SEPARATOR.length();
+		}
+		return transformedLines.length() > 0 ? transformedLines.toString() : null;
+	}
+
+
+	@Override
+	public String transformVariantLine(String line) {
+		for (VCFLineTransform currentTransform: transforms) {
+			if (line == null) {
+				return null;
+			}
+			line = currentTransform.transformVariantLine(line);
+		}
+		return line;
+	}
+}
@@ -0,0 +1,33 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Creates {@link ChainedVCFLineTransform} applying the transforms of several factories one after the other
+ * @author Julien Lajugie
+ */
+public class ChainedVCFLineTransformFactory implements VCFLineTransformFactory {
+
+	private final List<VCFLineTransformFactory> transformFactories;	// factories of the chained transforms
+
+
+	/**
+	 * Creates an instance of {@link ChainedVCFLineTransformFactory}
+	 * @param transformFactories factories of the transforms in the order they are applied
+	 */
+	public ChainedVCFLineTransformFactory(List<VCFLineTransformFactory> transformFactories) {
+		this.transformFactories = new ArrayList<>(transformFactories);
+	}
+
+
+	@Override
+	public VCFLineTransform createTransform() {
+		VCFLineTransform[] transforms = new VCFLineTransform[transformFactories.size()];
+		for (int i = 0; i < transforms.length; i++) {
+			transforms[i] = transformFactories.get(i).createTransform();
+		}
+		return new ChainedVCFLineTransform(transforms);
+	}
+}
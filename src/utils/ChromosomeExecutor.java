@@ -0,0 +1,112 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Runs independent tasks (typically one per chromosome) on a pool of threads
+ * and returns their results in the order the tasks were submitted.
+ * Tools printing the results in submission order produce the same output as a serial run.
+ * @author Julien Lajugie
+ * @param <T> type of the result of the tasks
+ */
+public class ChromosomeExecutor<T> {
+
+	private final ExecutorService 	executor;	// pool of threads running the tasks
+	private final List<Future<T>> 	futures;	// results of the tasks in submission order
+
+
+	/**
+	 * Creates an instance of {@link ChromosomeExecutor} using one thread per available processor
+	 */
+	public ChromosomeExecutor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Creates an instance of {@link ChromosomeExecutor}
+	 * @param threadCount number of threads running the tasks
+	 */
+	public ChromosomeExecutor(int threadCount) {
+		// daemon threads so the program can exit when an error stops the submission of the tasks
+		executor = Executors.newFixedThreadPool(Math.max(1, threadCount), new DaemonThreadFactory());
+		futures = new ArrayList<>();
+	}
+
+
+	/**
+	 * Submits a task. The task starts as soon as a thread is available
+	 * @param task task to run
+	 */
+	public void submit(Callable<T> task) {
+		futures.add(executor.submit(task));
+	}
+
+
+	/**
+	 * Waits for all the submitted tasks to complete and shuts down the threads.
+	 * If a task failed the remaining tasks are cancelled and the exception of the task is rethrown
+	 * @return the results of the tasks in submission order
+	 * @throws IOException if a task threw an IOException or if the thread was interrupted
+	 */
+	public List<T> getResults() throws IOException {
+		try {
+			List<T> results = new ArrayList<>(futures.size());
+			for (Future<T> currentFuture: futures) {
+				results.add(currentFuture.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the chromosome tasks");
+		} catch (ExecutionException e) {
+			throw rethrowCause(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+	/**
+	 * Rethrows the exception thrown by a task
+	 * @param e exception thrown by {@link Future#get()}
+	 * @return never returns, the return type allows callers to write "throw rethrowCause(e)"
+	 * @throws IOException if the task threw an IOException or a checked exception
+	 */
+	static IOException rethrowCause(ExecutionException e) throws IOException {
+		Throwable cause = e.getCause();
+		if (cause instanceof IOException) {
+			throw (IOException) cause;
+		} else if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		} else {
+			throw new IOException(cause);
+		}
+	}
+
+
+	/**
+	 * Runs the specified tasks in parallel
+	 * @param tasks tasks to run
+	 * @return the results of the tasks in the order of the specified list
+	 * @throws IOException if a task threw an IOException or if the thread was interrupted
+	 */
+	public static <U> List<U> invokeAll(List<? extends Callable<U>> tasks) throws IOException {
+		ChromosomeExecutor<U> executor = new ChromosomeExecutor<>(Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+		for (Callable<U> currentTask: tasks) {
+			executor.submit(currentTask);
+		}
+		return executor.getResults();
+	}
+}
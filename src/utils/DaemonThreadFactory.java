@@ -0,0 +1,23 @@
+package utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Thread factory creating daemon threads so a program can exit
+ * even if an error prevented the shutdown of its thread pools
+ * @author Julien Lajugie
+ */
+class DaemonThreadFactory implements ThreadFactory {
+
+	private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();	// factory creating the threads
+
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = defaultFactory.newThread(runnable);
+		thread.setDaemon(true);
+		return thread;
+	}
+}
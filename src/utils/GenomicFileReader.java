@@ -0,0 +1,87 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.zip.GZIPInputStream;
+
+import dataStructures.GenomicRegion;
+
+
+/**
+ * Opens the VCF, BED and BGR files read by the tools.
+ * The files can be plain text, gzip or BGZF (bgzip) compressed. A compressed file is decompressed in process.
+ * When a region is specified only the header and the lines overlapping the region are returned,
+ * using the tabix or CSI index of the file if there is one
+ * @author Julien Lajugie
+ */
+public class GenomicFileReader {
+
+	private static final int GZIP_MAGIC = 0x8b1f;	// first two bytes of a gzip file (little endian)
+
+
+	/**
+	 * Opens a plain text or compressed file
+	 * @param file a file
+	 * @return a {@link BufferedReader} returning the lines of the file
+	 * @throws IOException
+	 */
+	public static BufferedReader open(File file) throws IOException {
+		if (BlockCompressedInputStream.isBlockCompressed(file)) {
+			return new BufferedReader(new InputStreamReader(new BlockCompressedInputStream(file)));
+		}
+		if (isGzipped(file)) {
+			return new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file), 1 << 16)));
+		}
+		return new BufferedReader(new FileReader(file));
+	}
+
+
+	/**
+	 * Opens a plain text or compressed file and returns the header lines followed by the lines overlapping the specified region
+	 * @param file a VCF, BED or BGR file
+	 * @param region a region. All the lines are returned if null
+	 * @return a {@link BufferedReader} returning the header and the lines of the region
+	 * @throws IOException
+	 */
+	public static BufferedReader open(File file, GenomicRegion region) throws IOException {
+		if (region == null) {
+			return open(file);
+		}
+		return new BufferedReader(new RegionLineReader(file, region));
+	}
+
+
+	/**
+	 * @param file a file
+	 * @return true if the file is gzip or BGZF compressed
+	 * @throws IOException
+	 */
+	public static boolean isCompressed(File file) throws IOException {
+		return isGzipped(file);
+	}
+
+
+	/**
+	 * @param file a file
+	 * @return true if the file starts with the gzip magic number
+	 * @throws IOException
+	 */
+	private static boolean isGzipped(File file) throws IOException {
+		InputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			int byte1 = inputStream.read();
+			int byte2 = inputStream.read();
+			return (byte1 != -1) && (byte2 != -1) && ((byte1 | (byte2 << 8)) == GZIP_MAGIC);
+		} finally {
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+}
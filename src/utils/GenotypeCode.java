@@ -0,0 +1,356 @@
+package utils;
+
+import dataStructures.AlleleType;
+import dataStructures.CrossTriosInheritanceState;
+import dataStructures.QuartetInheritanceState;
+import dataStructures.QuartetMember;
+import dataStructures.TrioInheritanceState;
+
+
+/**
+ * This class packs the biallelic genotypes of a family quartet in an 8-bit code with one bit per allele as follow:
+ * (paternal allele1, paternal allele2, maternal allele1, maternal allele2, kid1 allele1, kid1 allele2, kid2 allele1, kid2 allele2)
+ * where the paternal allele1 is the bit 6, the paternal allele2 the bit 7 and so on down to the kid2 allele1 (bit 0)
+ * and the kid2 allele2 (bit 1). A bit set to 1 is an alternative allele.
+ * The genotype pattern, the inheritance states, the MIE and not informative flags and the SCE status
+ * of the 256 possible codes are precomputed in tables indexed by the code
+ * @author Julien Lajugie
+ */
+public class GenotypeCode {
+
+	/**
+	 * Number of different genotype codes
+	 */
+	public static final int CODE_COUNT = 256;
+
+	private static final int 							TRIO_STATE_COUNT = TrioInheritanceState.values().length;	// number of trio inheritance states
+	private static final String[] 						PATTERNS = new String[CODE_COUNT];							// genotype pattern of each code
+	private static final QuartetInheritanceState[][] 	INHERITANCE_STATES = new QuartetInheritanceState[CODE_COUNT][];	// inheritance states of each code
+	private static final boolean[] 						IS_MIE = new boolean[CODE_COUNT];							// true if the code is a MIE
+	private static final boolean[] 						IS_NOT_INFORMATIVE = new boolean[CODE_COUNT];				// true if the code is not informative
+	private static final boolean[][] 					IS_SCE = new boolean[TRIO_STATE_COUNT * TRIO_STATE_COUNT][CODE_COUNT]; // SCE status per cross trios state and code
+
+	// populate the tables
+	static {
+		TrioInheritanceState[] trioStates = TrioInheritanceState.values();
+		for (int code = 0; code < CODE_COUNT; code++) {
+			PATTERNS[code] = computeGenotypePattern(code).intern();
+			INHERITANCE_STATES[code] = PatternToInheritanceStates.getInheritanceStates(PATTERNS[code]);
+			for (QuartetInheritanceState currentState: INHERITANCE_STATES[code]) {
+				if (currentState == QuartetInheritanceState.MIE) {
+					IS_MIE[code] = true;
+				} else if (currentState == QuartetInheritanceState.NOT_INFORMATIVE) {
+					IS_NOT_INFORMATIVE[code] = true;
+				}
+			}
+			for (TrioInheritanceState paternalState: trioStates) {
+				for (TrioInheritanceState maternalState: trioStates) {
+					CrossTriosInheritanceState blockState = new CrossTriosInheritanceState(paternalState, maternalState);
+					IS_SCE[getCrossTriosStateIndex(blockState)][code] = computeIsSCE(code, blockState);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * @param member a {@link QuartetMember}
+	 * @param alleleIndex 0 for the first allele, 1 for the second allele
+	 * @return the index of the bit coding the specified allele of the specified member
+	 */
+	public static int getAlleleBit(QuartetMember member, int alleleIndex) {
+		return getAlleleBit(member.ordinal(), alleleIndex);
+	}
+
+
+	/**
+	 * @param memberIndex index of the member in the quartet (0: father, 1: mother, 2: kid1, 3: kid2),
+	 * which is also the index of the member's sample in a quartet VCF file
+	 * @param alleleIndex 0 for the first allele, 1 for the second allele
+	 * @return the index of the bit coding the specified allele of the specified member
+	 */
+	public static int getAlleleBit(int memberIndex, int alleleIndex) {
+		return 6 - (2 * memberIndex) + alleleIndex;
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @param memberIndex index of the member in the quartet (0: father, 1: mother, 2: kid1, 3: kid2)
+	 * @param alleleIndex 0 for the first allele, 1 for the second allele
+	 * @param isAlternative true to set an alternative allele, false to set a reference allele
+	 * @return the specified code with the specified allele set
+	 */
+	public static int setAllele(int code, int memberIndex, int alleleIndex, boolean isAlternative) {
+		int mask = 1 << getAlleleBit(memberIndex, alleleIndex);
+		if (isAlternative) {
+			return code | mask;
+		} else {
+			return code & ~mask;
+		}
+	}
+
+
+	/**
+	 * @param fatherAlleles alleles of the father
+	 * @param motherAlleles alleles of the mother
+	 * @param kid1Alleles alleles of the 1st kid
+	 * @param kid2Alleles alleles of the 2nd kid
+	 * @return the genotype code of the specified alleles
+	 */
+	public static int encode(AlleleType[] fatherAlleles, AlleleType[] motherAlleles, AlleleType[] kid1Alleles, AlleleType[] kid2Alleles) {
+		int code = 0;
+		code = setAllele(code, 0, 0, fatherAlleles[0] == AlleleType.ALTERNATIVE_ALLELE);
+		code = setAllele(code, 0, 1, fatherAlleles[1] == AlleleType.ALTERNATIVE_ALLELE);
+		code = setAllele(code, 1, 0, motherAlleles[0] == AlleleType.ALTERNATIVE_ALLELE);
+		code = setAllele(code, 1, 1, motherAlleles[1] == AlleleType.ALTERNATIVE_ALLELE);
+		code = setAllele(code, 2, 0, kid1Alleles[0] == AlleleType.ALTERNATIVE_ALLELE);
+		code = setAllele(code, 2, 1, kid1Alleles[1] == AlleleType.ALTERNATIVE_ALLELE);
+		code = setAllele(code, 3, 0, kid2Alleles[0] == AlleleType.ALTERNATIVE_ALLELE);
+		code = setAllele(code, 3, 1, kid2Alleles[1] == AlleleType.ALTERNATIVE_ALLELE);
+		return code;
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @param member a {@link QuartetMember}
+	 * @param alleleIndex 0 for the first allele, 1 for the second allele
+	 * @return the type of the specified allele of the specified member
+	 */
+	public static AlleleType getAllele(int code, QuartetMember member, int alleleIndex) {
+		return getAllele(code, member.ordinal(), alleleIndex);
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @param memberIndex index of the member in the quartet (0: father, 1: mother, 2: kid1, 3: kid2)
+	 * @param alleleIndex 0 for the first allele, 1 for the second allele
+	 * @return the type of the specified allele of the specified member
+	 */
+	private static AlleleType getAllele(int code, int memberIndex, int alleleIndex) {
+		if ((code & (1 << getAlleleBit(memberIndex, alleleIndex))) == 0) {
+			return AlleleType.REFERENCE_ALLELE;
+		} else {
+			return AlleleType.ALTERNATIVE_ALLELE;
+		}
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @return the genotype pattern of the quartet (eg: ab+aa;aa/ab)
+	 */
+	public static String getGenotypePattern(int code) {
+		return PATTERNS[code];
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @return the inheritance states of the quartet
+	 */
+	public static QuartetInheritanceState[] getInheritanceStates(int code) {
+		return INHERITANCE_STATES[code];
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @return true if the genotype is a MIE
+	 */
+	public static boolean isMIE(int code) {
+		return IS_MIE[code];
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @return true if the genotype is not informative
+	 */
+	public static boolean isNotInformative(int code) {
+		return IS_NOT_INFORMATIVE[code];
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @param blockState a {@link CrossTriosInheritanceState}
+	 * @return true if the genotype is a SCE for the specified {@link CrossTriosInheritanceState}
+	 */
+	public static boolean isSCE(int code, CrossTriosInheritanceState blockState) {
+		if ((blockState.getPaternalTrioState() == null) || (blockState.getMaternalTrioState() == null)) {
+			return computeIsSCE(code, blockState);
+		}
+		return IS_SCE[getCrossTriosStateIndex(blockState)][code];
+	}
+
+
+	/**
+	 * @param blockState a {@link CrossTriosInheritanceState} with non null trio states
+	 * @return the index of the specified state in the SCE table
+	 */
+	private static int getCrossTriosStateIndex(CrossTriosInheritanceState blockState) {
+		return (blockState.getPaternalTrioState().ordinal() * TRIO_STATE_COUNT) + blockState.getMaternalTrioState().ordinal();
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @param blockState a {@link CrossTriosInheritanceState}
+	 * @return true if the genotype is a SCE for the specified {@link CrossTriosInheritanceState}
+	 */
+	private static boolean computeIsSCE(int code, CrossTriosInheritanceState blockState) {
+		boolean isSCE = true;
+		for (QuartetInheritanceState currentInheritanceState: INHERITANCE_STATES[code]) {
+			if (currentInheritanceState == QuartetInheritanceState.MIE) {
+				return false;
+			}
+			if (currentInheritanceState == QuartetInheritanceState.NOT_INFORMATIVE) {
+				return false;
+			}
+			if (currentInheritanceState.isCompatibleWith(blockState)) {
+				isSCE = false;
+			}
+		}
+		return isSCE;
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @return the genotype pattern of the quartet
+	 */
+	private static String computeGenotypePattern(int code) {
+		AlleleType mostFrequentAllele = getMostFrequentAllele(code);
+		String fatherPattern = getSamplePattern(code, 0, mostFrequentAllele);
+		String motherPattern = getSamplePattern(code, 1, mostFrequentAllele);
+		String kid1Pattern = getSamplePattern(code, 2, mostFrequentAllele);
+		String kid2Pattern = getSamplePattern(code, 3, mostFrequentAllele);
+		String kidPattern = getKidPattern(kid1Pattern, kid2Pattern);
+		String parentPattern = getParentPattern(fatherPattern, motherPattern, kidPattern);
+		return parentPattern + ";" + kidPattern;
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @param memberIndex index of the member in the quartet (0: father, 1: mother, 2: kid1, 3: kid2)
+	 * @return the number of reference alleles of the specified member
+	 */
+	private static int getReferenceCount(int code, int memberIndex) {
+		int refCount = 0;
+		refCount = (getAllele(code, memberIndex, 0) == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
+		refCount = (getAllele(code, memberIndex, 1) == AlleleType.REFERENCE_ALLELE) ? refCount + 1 : refCount;
+		return refCount;
+	}
+
+
+	/**
+	 * The most frequent allele in the parents is denoted by "a"; in case of equal frequency, "a"
+	 * denotes the most frequent allele in the children.
+	 * @param code a genotype code
+	 * @return the type of the most frequent allele (reference or alternate)
+	 */
+	private static AlleleType getMostFrequentAllele(int code) {
+		int refCount = getReferenceCount(code, 0) + getReferenceCount(code, 1);
+		switch (refCount) {
+		case 0:
+		case 1:
+			return AlleleType.ALTERNATIVE_ALLELE;
+		case 2:
+			refCount += getReferenceCount(code, 2) + getReferenceCount(code, 3);
+			if (refCount < 4) {
+				return AlleleType.ALTERNATIVE_ALLELE;
+			} else {
+				return AlleleType.REFERENCE_ALLELE;
+			}
+		case 3:
+		case 4:
+			return AlleleType.REFERENCE_ALLELE;
+		}
+		// should not happen
+		return null;
+	}
+
+
+	/**
+	 * @param code a genotype code
+	 * @param memberIndex index of the member in the quartet (0: father, 1: mother, 2: kid1, 3: kid2)
+	 * @param mostFrequentAllele the most frequent allele of the quartet
+	 * @return the genotype pattern for an individual of the quartet
+	 */
+	private static String getSamplePattern(int code, int memberIndex, AlleleType mostFrequentAllele) {
+		AlleleType[] alleleTypes = {getAllele(code, memberIndex, 0), getAllele(code, memberIndex, 1)};
+		return getSamplePattern(alleleTypes, mostFrequentAllele);
+	}
+
+
+	/**
+	 * @param alleleTypes the alleles type of an individual of the quartet
+	 * @param mostFrequentAllele the most frequent allele of the quartet
+	 * @return the genotype pattern for an individual of the quartet
+	 */
+	public static String getSamplePattern(AlleleType[] alleleTypes, AlleleType mostFrequentAllele) {
+		int mostFrequentCount = 0; // counter for the number of most frequent allele
+		mostFrequentCount = (alleleTypes[0] == mostFrequentAllele) ? mostFrequentCount + 1 : mostFrequentCount;
+		mostFrequentCount = (alleleTypes[1] == mostFrequentAllele) ? mostFrequentCount + 1 : mostFrequentCount;
+		switch (mostFrequentCount) {
+		case 0:
+			return "bb";
+		case 1:
+			return "ab";
+		case 2:
+			return "aa";
+		}
+		// should not happen
+		return null;
+	}
+
+
+	/**
+	 * @param kid1Pattern genotype pattern of the first kid
+	 * @param kid2Pattern genotype pattern of the second kid
+	 * @return the children's pattern
+	 */
+	private static String getKidPattern(String kid1Pattern, String kid2Pattern) {
+		if (kid1Pattern.equals("aa")) {
+			return kid1Pattern + "/" + kid2Pattern;
+		}
+		if (kid1Pattern.equals("bb")) {
+			return kid2Pattern + "/" + kid1Pattern;
+		}
+		if (kid2Pattern.equals("aa")) {
+			return kid2Pattern + "/" + kid1Pattern;
+		}
+		if (kid2Pattern.equals("bb")) {
+			return kid1Pattern + "/" + kid2Pattern;
+		}
+		// last possible case
+		return "ab/ab";
+	}
+
+
+	/**
+	 * @param fatherPattern pattern of the father
+	 * @param motherPattern pattern of the mother
+	 * @param kidPattern pattern of the children
+	 * @return the parent's pattern
+	 */
+	private static String getParentPattern(String fatherPattern, String motherPattern, String kidPattern) {
+		if (fatherPattern.equals(motherPattern)) {
+			return fatherPattern + "/" + motherPattern;
+		}
+		if (fatherPattern.equals("bb")) {
+			return motherPattern + "/" + fatherPattern;
+		}
+		if (motherPattern.equals("bb")) {
+			return fatherPattern + "/" + motherPattern;
+		}
+		if (kidPattern.equals("aa/bb") || kidPattern.equals("ab/bb") || kidPattern.equals("bb/bb")) {
+			return "aa/ab";
+		}
+		return fatherPattern + "+" + motherPattern;
+	}
+}
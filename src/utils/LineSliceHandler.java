@@ -0,0 +1,23 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Receives the lines read by a {@link MappedLineReader} as slices of a byte buffer instead of Strings.
+ * An instance receives the lines of one range of the file, in file order, from a single thread
+ * @author Julien Lajugie
+ */
+public interface LineSliceHandler {
+
+	/**
+	 * Handles a line. The line separator is not part of the slice.
+	 * The content of the buffer is only valid during the call
+	 * @param buffer buffer containing the line
+	 * @param offset offset of the first byte of the line in the buffer
+	 * @param length number of bytes of the line
+	 * @throws IOException
+	 */
+	public void handleLine(ByteBuffer buffer, int offset, int length) throws IOException;
+}
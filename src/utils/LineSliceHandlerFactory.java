@@ -0,0 +1,16 @@
+package utils;
+
+
+/**
+ * Creates the {@link LineSliceHandler} of each range of a file read by a {@link MappedLineReader}
+ * @author Julien Lajugie
+ * @param <T> type of the handlers
+ */
+public interface LineSliceHandlerFactory<T extends LineSliceHandler> {
+
+	/**
+	 * Creates a new handler. Each range of the file is handled by its own handler
+	 * @return a new handler
+	 */
+	public T createHandler();
+}
@@ -0,0 +1,201 @@
+package utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+
+/**
+ * Reads the lines of a text file (eg: a VCF file) through memory mapped windows of the file.
+ * The bytes are scanned for line separators without being decoded and the lines are handed out
+ * to a {@link LineSliceHandler} as slices (offset / length) of the mapped buffer.
+ * A large file can be split in newline-aligned ranges read in parallel, one handler per range.
+ * The lines are separated by '\n', a '\r' preceding a '\n' is removed from the line
+ * @author Julien Lajugie
+ */
+public class MappedLineReader {
+
+	private static final long 	MAPPING_SIZE = 1L << 28;		// size of the mapped windows (256 MB), a line cannot be longer
+	private static final long 	MIN_RANGE_SIZE = 1L << 24;		// minimum size of a range read by a thread (16 MB)
+	private static final int 	SEARCH_BUFFER_SIZE = 1 << 16;	// size of the buffer used to align the ranges on line separators
+
+	private final File file;	// file to read
+
+
+	/**
+	 * Creates an instance of {@link MappedLineReader}
+	 * @param file file to read
+	 */
+	public MappedLineReader(File file) {
+		this.file = file;
+	}
+
+
+	/**
+	 * Reads all the lines of the file in the current thread
+	 * @param handler handler receiving the lines in file order
+	 * @throws IOException
+	 */
+	public void read(LineSliceHandler handler) throws IOException {
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			FileChannel channel = inputStream.getChannel();
+			readRange(channel, 0, channel.size(), handler);
+		} finally {
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Splits the file in newline-aligned ranges and reads the ranges in parallel using one thread per available processor
+	 * @param handlerFactory creates the handler of each range
+	 * @return the handlers of the ranges in file order
+	 * @throws IOException
+	 */
+	public <T extends LineSliceHandler> List<T> readParallel(LineSliceHandlerFactory<T> handlerFactory) throws IOException {
+		return readParallel(handlerFactory, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Splits the file in newline-aligned ranges and reads the ranges in parallel.
+	 * Small files are read in a single range
+	 * @param handlerFactory creates the handler of each range
+	 * @param threadCount number of threads reading the file
+	 * @return the handlers of the ranges in file order. Concatenating the lines received by the handlers gives the lines of the file
+	 * @throws IOException
+	 */
+	public <T extends LineSliceHandler> List<T> readParallel(LineSliceHandlerFactory<T> handlerFactory, int threadCount) throws IOException {
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			final FileChannel channel = inputStream.getChannel();
+			long fileSize = channel.size();
+			int rangeCount = (int) Math.max(1, Math.min(threadCount, fileSize / MIN_RANGE_SIZE));
+			if (rangeCount == 1) {
+				// no need to start a thread
+				T handler = handlerFactory.createHandler();
+				readRange(channel, 0, fileSize, handler);
+				return Collections.singletonList(handler);
+			}
+			long[] rangeStarts = splitRanges(channel, rangeCount);
+			List<Callable<T>> tasks = new ArrayList<>(rangeCount);
+			for (int i = 0; i < rangeCount; i++) {
+				final long rangeStart = rangeStarts[i];
+				final long rangeStop = rangeStarts[i + 1];
+				final T handler = handlerFactory.createHandler();
+				tasks.add(new Callable<T>() {
+					@Override
+					public T call() throws IOException {
+						readRange(channel, rangeStart, rangeStop, handler);
+						return handler;
+					}
+				});
+			}
+			return ChromosomeExecutor.invokeAll(tasks);
+		} finally {
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Splits a file in ranges of about the same size starting at the beginning of a line
+	 * @param channel channel of the file
+	 * @param rangeCount number of ranges
+	 * @return an array with the start offset of each range followed by the size of the file
+	 * @throws IOException
+	 */
+	private static long[] splitRanges(FileChannel channel, int rangeCount) throws IOException {
+		long fileSize = channel.size();
+		long[] rangeStarts = new long[rangeCount + 1];
+		ByteBuffer searchBuffer = ByteBuffer.allocate(SEARCH_BUFFER_SIZE);
+		for (int i = 1; i < rangeCount; i++) {
+			// the range starts after the first line separator following the approximate split position
+			long position = Math.max(rangeStarts[i - 1], (fileSize / rangeCount) * i);
+			long rangeStart = fileSize;
+			while ((rangeStart == fileSize) && (position < fileSize)) {
+				searchBuffer.clear();
+				int readCount = channel.read(searchBuffer, position);
+				if (readCount <= 0) {
+					break;
+				}
+				for (int j = 0; (j < readCount) && (rangeStart == fileSize); j++) {
+					if (searchBuffer.get(j) == '\n') {
+						rangeStart = position + j + 1;
+					}
+				}
+				position += readCount;
+			}
+			rangeStarts[i] = rangeStart;
+		}
+		rangeStarts[rangeCount] = fileSize;
+		return rangeStarts;
+	}
+
+
+	/**
+	 * Reads the lines of a range of a file. The range is mapped in windows of {@link #MAPPING_SIZE} bytes
+	 * starting at the beginning of a line
+	 * @param channel channel of the file
+	 * @param start start offset of the range, must be the start of a line
+	 * @param stop stop offset of the range (exclusive)
+	 * @param handler handler receiving the lines
+	 * @throws IOException if the file cannot be read or if a line is longer than a window
+	 */
+	private void readRange(FileChannel channel, long start, long stop, LineSliceHandler handler) throws IOException {
+		long windowStart = start;
+		while (windowStart < stop) {
+			int windowSize = (int) Math.min(MAPPING_SIZE, stop - windowStart);
+			boolean isLastWindow = (windowStart + windowSize) == stop;
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+			int lineStart = 0;
+			for (int i = 0; i < windowSize; i++) {
+				if (window.get(i) == '\n') {
+					handleLine(window, lineStart, i, handler);
+					lineStart = i + 1;
+				}
+			}
+			if (lineStart < windowSize) {
+				if (isLastWindow) {
+					// last line of the file without line separator
+					handleLine(window, lineStart, windowSize, handler);
+					lineStart = windowSize;
+				} else if (lineStart == 0) {
+					throw new IOException("Line longer than " + MAPPING_SIZE + " bytes at offset " + windowStart + " of " + file.getPath());
+				}
+			}
+			// the next window starts with the line truncated by the end of this window
+			windowStart += lineStart;
+		}
+	}
+
+
+	/**
+	 * Sends a line to the handler after removing the carriage return preceding the line feed
+	 * @param window mapped window containing the line
+	 * @param lineStart start offset of the line in the window
+	 * @param lineStop stop offset of the line in the window (exclusive)
+	 * @param handler handler receiving the line
+	 * @throws IOException
+	 */
+	private static void handleLine(ByteBuffer window, int lineStart, int lineStop, LineSliceHandler handler) throws IOException {
+		if ((lineStop > lineStart) && (window.get(lineStop - 1) == '\r')) {
+			lineStop--;
+		}
+		handler.handleLine(window, lineStart, lineStop - lineStart);
+	}
+}
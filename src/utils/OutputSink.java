@@ -0,0 +1,225 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+
+/**
+ * Buffered output of the tools printing large files (eg: VCF files).
+ * The text is encoded in a large reusable byte buffer written through an NIO channel when it is full.
+ * Unlike {@link System#out} the sink is not synchronized and is not flushed after each line.
+ * The ASCII characters are copied directly in the buffer when the charset is ASCII compatible,
+ * the other characters go through a {@link CharsetEncoder}.
+ * An instance of this class is not thread safe
+ * @author Julien Lajugie
+ */
+public class OutputSink implements Closeable {
+
+	private static final int 	BUFFER_SIZE = 1 << 20;						// size of the byte buffer
+	private static final String LINE_SEPARATOR = System.lineSeparator();	// line separator (same as System.out)
+
+	private final WritableByteChannel 	channel;			// channel where the bytes are written
+	private final boolean 				isStandardOutput;	// true if the channel writes in the standard output
+	private final ByteBuffer 			byteBuffer;			// buffer with the bytes not written yet
+	private final CharsetEncoder 		encoder;			// encoder for the non ASCII characters
+	private final boolean 				isASCIICompatible;	// true if the ASCII characters are encoded on one byte with the same value
+	private final StringBuilder 		lineBuilder;		// reusable builder to assemble a line
+
+
+	/**
+	 * Creates an instance of {@link OutputSink} writing in the standard output
+	 */
+	public OutputSink() {
+		this(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), true);
+	}
+
+
+	/**
+	 * Creates an instance of {@link OutputSink} writing in the specified file
+	 * @param outputFile output file. The sink writes in the standard output if null
+	 * @throws IOException if the output file cannot be created
+	 */
+	public OutputSink(File outputFile) throws IOException {
+		this(outputFile == null ? Channels.newChannel(new FileOutputStream(FileDescriptor.out)) : new FileOutputStream(outputFile).getChannel(), outputFile == null);
+	}
+
+
+	/**
+	 * Creates an instance of {@link OutputSink}
+	 * @param channel channel where the bytes are written
+	 * @param isStandardOutput true if the channel writes in the standard output
+	 */
+	private OutputSink(WritableByteChannel channel, boolean isStandardOutput) {
+		this.channel = channel;
+		this.isStandardOutput = isStandardOutput;
+		if (isStandardOutput) {
+			// what was already printed in System.out must be written before the content of the sink
+			System.out.flush();
+		}
+		byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+		Charset charset = Charset.defaultCharset();
+		encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		isASCIICompatible = isASCIICompatible(charset);
+		lineBuilder = new StringBuilder();
+	}
+
+
+	/**
+	 * @param charset a charset
+	 * @return true if the specified charset encodes the ASCII characters on one byte with the value of the character
+	 */
+	private static boolean isASCIICompatible(Charset charset) {
+		char[] asciiChars = new char[128];
+		byte[] asciiBytes = new byte[128];
+		for (int i = 0; i < asciiChars.length; i++) {
+			asciiChars[i] = (char) i;
+			asciiBytes[i] = (byte) i;
+		}
+		return Arrays.equals(new String(asciiChars).getBytes(charset), asciiBytes);
+	}
+
+
+	/**
+	 * Prints the specified text
+	 * @param text some text
+	 * @throws IOException
+	 */
+	public void print(CharSequence text) throws IOException {
+		int length = text.length();
+		int i = 0;
+		if (isASCIICompatible) {
+			byte[] bytes = byteBuffer.array();
+			boolean isASCII = true;
+			while (isASCII && (i < length)) {
+				if (!byteBuffer.hasRemaining()) {
+					flushBuffer();
+				}
+				// copy the characters in the backing array until the buffer is full or we find a non ASCII character
+				int position = byteBuffer.position();
+				int stop = Math.min(length, i + byteBuffer.remaining());
+				while (i < stop) {
+					char c = text.charAt(i);
+					if (c >= 0x80) {
+						isASCII = false;
+						break;
+					}
+					bytes[position++] = (byte) c;
+					i++;
+				}
+				byteBuffer.position(position);
+			}
+		}
+		if (i < length) {
+			encode(CharBuffer.wrap(text, i, length));
+		}
+	}
+
+
+	/**
+	 * Prints the specified text followed by a line separator
+	 * @param text some text
+	 * @throws IOException
+	 */
+	public void println(CharSequence text) throws IOException {
+		print(text);
+		print(LINE_SEPARATOR);
+	}
+
+
+	/**
+	 * Prints a line separator
+	 * @throws IOException
+	 */
+	public void println() throws IOException {
+		print(LINE_SEPARATOR);
+	}
+
+
+	/**
+	 * Clears the reusable line builder of the sink and returns it.
+	 * The line is printed by {@link #endLine()}
+	 * @return an empty {@link StringBuilder} to assemble a line
+	 */
+	public StringBuilder startLine() {
+		lineBuilder.setLength(0);
+		return lineBuilder;
+	}
+
+
+	/**
+	 * Prints the line assembled in the builder returned by {@link #startLine()} followed by a line separator
+	 * @throws IOException
+	 */
+	public void endLine() throws IOException {
+		println(lineBuilder);
+	}
+
+
+	/**
+	 * Encodes the specified characters in the buffer using the encoder of the charset
+	 * @param chars characters to encode
+	 * @throws IOException
+	 */
+	private void encode(CharBuffer chars) throws IOException {
+		encoder.reset();
+		CoderResult result;
+		while ((result = encoder.encode(chars, byteBuffer, true)).isOverflow()) {
+			flushBuffer();
+		}
+		if (result.isError()) {
+			result.throwException();
+		}
+		while (encoder.flush(byteBuffer).isOverflow()) {
+			flushBuffer();
+		}
+	}
+
+
+	/**
+	 * Writes the content of the byte buffer in the channel
+	 * @throws IOException
+	 */
+	private void flushBuffer() throws IOException {
+		byteBuffer.flip();
+		while (byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+		byteBuffer.clear();
+	}
+
+
+	/**
+	 * Writes the buffered text in the output
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		flushBuffer();
+	}
+
+
+	/**
+	 * Writes the buffered text and closes the output file.
+	 * The standard output is flushed but not closed
+	 */
+	@Override
+	public void close() throws IOException {
+		flushBuffer();
+		if (!isStandardOutput) {
+			channel.close();
+		}
+	}
+}
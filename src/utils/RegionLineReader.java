@@ -0,0 +1,198 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+
+import dataStructures.GenomicRegion;
+
+
+/**
+ * Reader returning the header lines and the lines overlapping a {@link GenomicRegion} of a tab delimited file
+ * (eg: VCF, BED or BGR). The lines are separated by '\n'.
+ * When the file is BGZF compressed and has a tabix or CSI index, the reader seeks directly to the chunks of the region.
+ * Otherwise the whole file is read and filtered
+ * @author Julien Lajugie
+ */
+public class RegionLineReader extends Reader {
+
+	private final GenomicRegion 				region;				// region to read
+	private final BlockCompressedInputStream 	compressedInput;	// compressed input when the file is indexed, null otherwise
+	private final BufferedReader 				sequentialInput;	// input when the file is not indexed, null otherwise
+	private final long[] 						chunks;				// begin / end virtual offsets of the chunks of the region
+	private final int 							sequenceColumn;		// column of the chromosome (0-based)
+	private final int 							beginColumn;		// column of the start position (0-based)
+	private final int 							endColumn;			// column of the stop position (0-based), -1 if none
+	private final boolean 						isVCF;				// true if the stop position is computed from the reference allele
+	private final boolean 						isZeroBased;		// true if the start positions are zero-based
+	private final char 							metaChar;			// first character of the header lines
+	private int 								chunkIndex;			// index of the begin offset of the current chunk
+	private boolean 							isInChunk;			// true if the compressed input is positioned in the current chunk
+	private boolean 							isHeader;			// true while the header lines are read
+	private String 								currentLine;		// line being returned by the reader, null if none
+	private int 								currentLineOffset;	// number of characters of the current line already returned
+
+
+	/**
+	 * Creates an instance of {@link RegionLineReader}
+	 * @param file a VCF, BED or BGR file, plain text or compressed
+	 * @param region region to read
+	 * @throws IOException
+	 */
+	public RegionLineReader(File file, GenomicRegion region) throws IOException {
+		this.region = region;
+		File indexFile = TabixIndex.findIndexFile(file);
+		if ((indexFile != null) && BlockCompressedInputStream.isBlockCompressed(file)) {
+			TabixIndex index = TabixIndex.load(indexFile);
+			sequenceColumn = index.getSequenceColumn() - 1;
+			beginColumn = index.getBeginColumn() - 1;
+			endColumn = index.getEndColumn() - 1;
+			isVCF = index.getFormat() == TabixIndex.FORMAT_VCF;
+			isZeroBased = index.isZeroBased();
+			metaChar = index.getMetaChar();
+			chunks = index.getChunks(region.getChromosome(), region.getStart() - 1L, region.getStop());
+			compressedInput = new BlockCompressedInputStream(file);
+			sequentialInput = null;
+		} else {
+			// without index the format is guessed from the file name
+			isVCF = file.getName().toLowerCase().contains(".vcf");
+			sequenceColumn = 0;
+			beginColumn = 1;
+			endColumn = isVCF ? -1 : 2;
+			isZeroBased = !isVCF;
+			metaChar = '#';
+			chunks = null;
+			compressedInput = null;
+			sequentialInput = GenomicFileReader.open(file);
+		}
+		chunkIndex = 0;
+		isInChunk = false;
+		isHeader = true;
+		currentLine = null;
+		currentLineOffset = 0;
+	}
+
+
+	/**
+	 * @return the next header line or line overlapping the region. Null if there is none
+	 * @throws IOException
+	 */
+	private String readNextLine() throws IOException {
+		if (compressedInput == null) {
+			String line;
+			while ((line = sequentialInput.readLine()) != null) {
+				if (line.isEmpty() || (line.charAt(0) == metaChar) || (compareToRegion(line) == 0)) {
+					return line;
+				}
+			}
+			return null;
+		}
+		if (isHeader) {
+			// the header lines are at the beginning of the file
+			String line = compressedInput.readLine();
+			if ((line != null) && !line.isEmpty() && (line.charAt(0) == metaChar)) {
+				return line;
+			}
+			isHeader = false;
+		}
+		while (chunkIndex < chunks.length) {
+			if (!isInChunk) {
+				compressedInput.seek(chunks[chunkIndex]);
+				isInChunk = true;
+			}
+			if (compressedInput.getVirtualOffset() < chunks[chunkIndex + 1]) {
+				String line = compressedInput.readLine();
+				if (line == null) {
+					chunkIndex = chunks.length;
+				} else {
+					int comparison = compareToRegion(line);
+					if (comparison == 0) {
+						return line;
+					} else if (comparison > 0) {
+						// the lines are sorted so the following lines are also after the region
+						chunkIndex = chunks.length;
+					}
+				}
+			} else {
+				chunkIndex += 2;
+				isInChunk = false;
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * @param line a line of the file
+	 * @return 0 if the line overlaps the region, a positive value if the line starts after the region,
+	 * a negative value if the line is before the region, on another chromosome or not valid
+	 */
+	private int compareToRegion(String line) {
+		String[] splitLine = line.split("\t");
+		int maxColumn = Math.max(sequenceColumn, Math.max(beginColumn, isVCF ? 3 : endColumn));
+		if (splitLine.length <= maxColumn) {
+			return -1;
+		}
+		if (!splitLine[sequenceColumn].trim().equals(region.getChromosome())) {
+			return -1;
+		}
+		try {
+			// 1-based inclusive coordinates
+			int start = Integer.parseInt(splitLine[beginColumn].trim()) + (isZeroBased ? 1 : 0);
+			int stop;
+			if (isVCF) {
+				stop = start + Math.max(1, splitLine[3].trim().length()) - 1;
+			} else if (endColumn >= 0) {
+				stop = Integer.parseInt(splitLine[endColumn].trim());
+			} else {
+				stop = start;
+			}
+			if (start > region.getStop()) {
+				return 1;
+			} else if (stop < region.getStart()) {
+				return -1;
+			} else {
+				return 0;
+			}
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+
+	@Override
+	public int read(char[] buffer, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		if (currentLine == null) {
+			currentLine = readNextLine();
+			currentLineOffset = 0;
+			if (currentLine == null) {
+				return -1;
+			}
+		}
+		int copyLength = Math.min(length, currentLine.length() - currentLineOffset);
+		currentLine.getChars(currentLineOffset, currentLineOffset + copyLength, buffer, offset);
+		currentLineOffset += copyLength;
+		if (copyLength < length) {
+			// the whole line has been returned, we add the line separator
+			buffer[offset + copyLength] = '\n';
+			currentLine = null;
+			return copyLength + 1;
+		}
+		return copyLength;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		if (compressedInput != null) {
+			compressedInput.close();
+		}
+		if (sequentialInput != null) {
+			sequentialInput.close();
+		}
+	}
+}
@@ -0,0 +1,330 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Index of a BGZF compressed tab delimited file (eg: VCF, BED or BGR) in the tabix (.tbi) or CSI (.csi) format.
+ * The index maps the bins of the binning scheme of each chromosome to the chunks (pairs of virtual offsets)
+ * of the compressed file containing the lines overlapping the bin
+ * @author Julien Lajugie
+ */
+public class TabixIndex {
+
+	/**
+	 * Generic tab delimited format (eg: BED, BGR)
+	 */
+	public static final int FORMAT_GENERIC = 0;
+
+	/**
+	 * VCF format: the end of a line is computed using the length of the reference allele
+	 */
+	public static final int FORMAT_VCF = 2;
+
+	private static final int 	UCSC_FLAG = 0x10000;		// flag of the zero-based half-open coordinates
+	private static final int 	TABIX_MIN_SHIFT = 14;		// size of the smallest bins of a .tbi index (16 KB)
+	private static final int 	TABIX_DEPTH = 5;			// number of levels of the binning scheme of a .tbi index
+	private static final Charset ASCII = Charset.forName("US-ASCII"); // charset of the chromosome names
+
+	private final int 						format;				// format of the indexed file
+	private final boolean 					isZeroBased;		// true if the coordinates are zero-based half-open (UCSC)
+	private final int 						sequenceColumn;		// column of the chromosome (1-based)
+	private final int 						beginColumn;		// column of the start position (1-based)
+	private final int 						endColumn;			// column of the stop position (1-based), 0 if none
+	private final char 						metaChar;			// first character of the header lines
+	private final int 						minShift;			// size of the smallest bins (log2)
+	private final int 						depth;				// number of levels of the binning scheme
+	private final Map<String, Integer> 		sequenceIndexes;	// index of each chromosome in the index
+	private final List<Map<Integer, long[]>> binIndexes;		// chunks of each bin (begin / end pairs) of each chromosome
+	private final List<Map<Integer, Long>> 	binMinOffsets;		// smallest virtual offset of each bin of each chromosome (CSI)
+	private final List<long[]> 				linearIndexes;		// smallest virtual offset of each 16 KB window of each chromosome (tabix)
+
+
+	/**
+	 * Creates an instance of {@link TabixIndex} from a decompressed index
+	 * @param index content of the index file
+	 * @param isCSI true if the index is in the CSI format, false for the tabix format
+	 * @throws IOException if the index is not valid
+	 */
+	private TabixIndex(ByteBuffer index, boolean isCSI) throws IOException {
+		index.order(ByteOrder.LITTLE_ENDIAN);
+		index.position(4);
+		ByteBuffer header = index;
+		int referenceCount;
+		if (isCSI) {
+			minShift = index.getInt();
+			depth = index.getInt();
+			int auxiliaryLength = index.getInt();
+			if (auxiliaryLength < 28) {
+				throw new IOException("CSI index without tabix header");
+			}
+			header = index.slice().order(ByteOrder.LITTLE_ENDIAN);
+			index.position(index.position() + auxiliaryLength);
+			referenceCount = index.getInt();
+		} else {
+			minShift = TABIX_MIN_SHIFT;
+			depth = TABIX_DEPTH;
+			referenceCount = index.getInt();
+		}
+		int formatField = header.getInt();
+		format = formatField & 0xFFFF;
+		isZeroBased = (formatField & UCSC_FLAG) != 0;
+		sequenceColumn = header.getInt();
+		beginColumn = header.getInt();
+		endColumn = header.getInt();
+		metaChar = (char) header.getInt();
+		header.getInt(); // number of lines to skip
+		int namesLength = header.getInt();
+		byte[] names = new byte[namesLength];
+		header.get(names);
+		sequenceIndexes = new HashMap<>();
+		int nameStart = 0;
+		for (int i = 0; i < namesLength; i++) {
+			if (names[i] == 0) {
+				sequenceIndexes.put(new String(names, nameStart, i - nameStart, ASCII), sequenceIndexes.size());
+				nameStart = i + 1;
+			}
+		}
+		binIndexes = new ArrayList<>(referenceCount);
+		binMinOffsets = new ArrayList<>(referenceCount);
+		linearIndexes = new ArrayList<>(referenceCount);
+		for (int i = 0; i < referenceCount; i++) {
+			int binCount = index.getInt();
+			Map<Integer, long[]> bins = new HashMap<>(binCount * 2);
+			Map<Integer, Long> minOffsets = new HashMap<>(isCSI ? binCount * 2 : 1);
+			for (int j = 0; j < binCount; j++) {
+				int bin = index.getInt();
+				if (isCSI) {
+					minOffsets.put(bin, index.getLong());
+				}
+				int chunkCount = index.getInt();
+				long[] chunks = new long[chunkCount * 2];
+				for (int k = 0; k < chunks.length; k++) {
+					chunks[k] = index.getLong();
+				}
+				bins.put(bin, chunks);
+			}
+			binIndexes.add(bins);
+			binMinOffsets.add(minOffsets);
+			if (isCSI) {
+				linearIndexes.add(new long[0]);
+			} else {
+				long[] linearIndex = new long[index.getInt()];
+				for (int j = 0; j < linearIndex.length; j++) {
+					linearIndex[j] = index.getLong();
+				}
+				linearIndexes.add(linearIndex);
+			}
+		}
+	}
+
+
+	/**
+	 * @param dataFile a BGZF compressed file
+	 * @return the index of the specified file (file.tbi or file.csi) or null if there is none
+	 */
+	public static File findIndexFile(File dataFile) {
+		File tabixFile = new File(dataFile.getPath() + ".tbi");
+		if (tabixFile.isFile()) {
+			return tabixFile;
+		}
+		File csiFile = new File(dataFile.getPath() + ".csi");
+		if (csiFile.isFile()) {
+			return csiFile;
+		}
+		return null;
+	}
+
+
+	/**
+	 * Loads a tabix (.tbi) or CSI (.csi) index
+	 * @param indexFile an index file
+	 * @return a {@link TabixIndex}
+	 * @throws IOException if the index is not valid
+	 */
+	public static TabixIndex load(File indexFile) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		InputStream inputStream = null;
+		try {
+			inputStream = new BlockCompressedInputStream(indexFile);
+			byte[] buffer = new byte[1 << 16];
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				content.write(buffer, 0, length);
+			}
+		} finally {
+			if (inputStream != null) {
+				inputStream.close();
+			}
+		}
+		ByteBuffer index = ByteBuffer.wrap(content.toByteArray());
+		if (index.remaining() < 4) {
+			throw new IOException("Invalid index file: " + indexFile.getPath());
+		}
+		byte[] magic = new byte[4];
+		index.get(magic);
+		try {
+			if (Arrays.equals(magic, new byte[] {'T', 'B', 'I', 1})) {
+				return new TabixIndex(index, false);
+			} else if (Arrays.equals(magic, new byte[] {'C', 'S', 'I', 1})) {
+				return new TabixIndex(index, true);
+			}
+		} catch (RuntimeException e) {
+			// buffer underflow
+			throw new IOException("Invalid index file: " + indexFile.getPath(), e);
+		}
+		throw new IOException("Invalid index file: " + indexFile.getPath());
+	}
+
+
+	/**
+	 * Computes the chunks of the compressed file that can contain lines overlapping the specified interval
+	 * @param chromosome a chromosome
+	 * @param start start of the interval (zero-based, inclusive)
+	 * @param stop stop of the interval (zero-based, exclusive)
+	 * @return the sorted and merged chunks (begin / end virtual offset pairs). An empty array if the chromosome is not indexed
+	 */
+	public long[] getChunks(String chromosome, long start, long stop) {
+		Integer sequenceIndex = sequenceIndexes.get(chromosome);
+		if ((sequenceIndex == null) || (stop <= start)) {
+			return new long[0];
+		}
+		Map<Integer, long[]> bins = binIndexes.get(sequenceIndex);
+		long minOffset = getMinOffset(sequenceIndex, start);
+		List<long[]> chunks = new ArrayList<>();
+		long maxPosition = 1L << (minShift + (depth * 3));
+		stop = Math.min(stop, maxPosition) - 1;
+		int levelFirstBin = 0;
+		for (int level = 0, shift = minShift + (depth * 3); level <= depth; level++, shift -= 3) {
+			int firstBin = levelFirstBin + (int) (start >> shift);
+			int lastBin = levelFirstBin + (int) (stop >> shift);
+			for (int bin = firstBin; bin <= lastBin; bin++) {
+				long[] binChunks = bins.get(bin);
+				if (binChunks != null) {
+					for (int i = 0; i < binChunks.length; i += 2) {
+						if (binChunks[i + 1] > minOffset) {
+							chunks.add(new long[] {binChunks[i], binChunks[i + 1]});
+						}
+					}
+				}
+			}
+			levelFirstBin += 1 << (level * 3);
+		}
+		return mergeChunks(chunks, minOffset);
+	}
+
+
+	/**
+	 * @param sequenceIndex index of a chromosome
+	 * @param start a position (zero-based)
+	 * @return a virtual offset before which no line overlaps the specified position
+	 */
+	private long getMinOffset(int sequenceIndex, long start) {
+		long[] linearIndex = linearIndexes.get(sequenceIndex);
+		if (linearIndex.length > 0) {
+			int window = (int) Math.min(start >> minShift, linearIndex.length - 1);
+			return linearIndex[window];
+		}
+		// CSI: offset of the smallest existing bin containing the position
+		Map<Integer, Long> minOffsets = binMinOffsets.get(sequenceIndex);
+		int levelFirstBin = ((1 << (depth * 3)) - 1) / 7;
+		for (int level = depth, shift = minShift; level >= 0; level--, shift += 3) {
+			Long minOffset = minOffsets.get(levelFirstBin + (int) (start >> shift));
+			if (minOffset != null) {
+				return minOffset;
+			}
+			if (level > 0) {
+				levelFirstBin -= 1 << ((level - 1) * 3);
+			}
+		}
+		return 0;
+	}
+
+
+	/**
+	 * @param chunks a list of chunks
+	 * @param minOffset virtual offset before which the chunks don't need to be read
+	 * @return the chunks sorted by begin offset with the overlapping chunks merged, in a begin / end pair array
+	 */
+	private static long[] mergeChunks(List<long[]> chunks, long minOffset) {
+		long[][] sortedChunks = chunks.toArray(new long[chunks.size()][]);
+		Arrays.sort(sortedChunks, new Comparator<long[]>() {
+			@Override
+			public int compare(long[] chunk1, long[] chunk2) {
+				return Long.compare(chunk1[0], chunk2[0]);
+			}
+		});
+		long[] mergedChunks = new long[sortedChunks.length * 2];
+		int mergedLength = 0;
+		for (long[] currentChunk: sortedChunks) {
+			long begin = Math.max(currentChunk[0], minOffset);
+			if ((mergedLength > 0) && (begin <= mergedChunks[mergedLength - 1])) {
+				mergedChunks[mergedLength - 1] = Math.max(mergedChunks[mergedLength - 1], currentChunk[1]);
+			} else {
+				mergedChunks[mergedLength++] = begin;
+				mergedChunks[mergedLength++] = currentChunk[1];
+			}
+		}
+		return Arrays.copyOf(mergedChunks, mergedLength);
+	}
+
+
+	/**
+	 * @return the format of the indexed file ({@link #FORMAT_GENERIC} or {@link #FORMAT_VCF})
+	 */
+	public int getFormat() {
+		return format;
+	}
+
+
+	/**
+	 * @return true if the coordinates of the indexed file are zero-based half-open (eg: BED), false if they are 1-based
+	 */
+	public boolean isZeroBased() {
+		return isZeroBased;
+	}
+
+
+	/**
+	 * @return the column of the chromosome (1-based)
+	 */
+	public int getSequenceColumn() {
+		return sequenceColumn;
+	}
+
+
+	/**
+	 * @return the column of the start position (1-based)
+	 */
+	public int getBeginColumn() {
+		return beginColumn;
+	}
+
+
+	/**
+	 * @return the column of the stop position (1-based), 0 if the lines only have a start position
+	 */
+	public int getEndColumn() {
+		return endColumn;
+	}
+
+
+	/**
+	 * @return the first character of the header lines
+	 */
+	public char getMetaChar() {
+		return metaChar;
+	}
+}
@@ -0,0 +1,210 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import dataStructures.GenomicRegion;
+
+
+/**
+ * Rewrites the lines of a VCF file using a pool of threads.
+ * The thread reading the file groups the variant lines in batches that are transformed by worker threads.
+ * A writer thread prints the transformed batches in the order of the input file
+ * so the output is the same as the one of a single threaded loop.
+ * The header lines are transformed sequentially by the reading thread
+ * @author Julien Lajugie
+ */
+public class VCFLinePipeline {
+
+	private static final int 				BATCH_SIZE = 4096;							// number of lines per batch
+	private static final int 				BATCHES_PER_THREAD = 4;						// number of batches that can be pending for each worker thread
+	private static final String 			LINE_SEPARATOR = System.lineSeparator();	// line separator used by the output stream
+	private static final Future<String> 	END_OF_FILE = new FutureTask<>(new Callable<String>() {
+		@Override
+		public String call() {
+			return null;
+		}
+	});																					// marks the end of the batches in the writer queue
+
+	private final VCFLineTransformFactory 	transformFactory;							// creates the transforms of the threads
+	private final int 						threadCount;								// number of worker threads
+	private final ThreadLocal<VCFLineTransform> workerTransforms;						// transform of each worker thread
+
+
+	/**
+	 * Creates an instance of {@link VCFLinePipeline} with one worker thread per available processor
+	 * @param transformFactory creates the transforms applied to the lines
+	 */
+	public VCFLinePipeline(VCFLineTransformFactory transformFactory) {
+		this(transformFactory, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Creates an instance of {@link VCFLinePipeline}
+	 * @param transformFactory creates the transforms applied to the lines
+	 * @param threadCount number of worker threads
+	 */
+	public VCFLinePipeline(final VCFLineTransformFactory transformFactory, int threadCount) {
+		this.transformFactory = transformFactory;
+		this.threadCount = Math.max(1, threadCount);
+		workerTransforms = new ThreadLocal<VCFLineTransform>() {
+			@Override
+			protected VCFLineTransform initialValue() {
+				return transformFactory.createTransform();
+			}
+		};
+	}
+
+
+	/**
+	 * Transforms the lines of the specified VCF file and prints the result in the standard output
+	 * @param vcfFile a VCF file
+	 * @throws IOException if the file cannot be read or if a transform threw an exception
+	 */
+	public void run(File vcfFile) throws IOException {
+		run(vcfFile, null);
+	}
+
+
+	/**
+	 * Transforms the lines of the specified VCF file and prints the result in the specified file
+	 * @param vcfFile a VCF file
+	 * @param outputFile file where the transformed lines are printed. The lines are printed in the standard output if null
+	 * @throws IOException if a file cannot be read or written or if a transform threw an exception
+	 */
+	public void run(File vcfFile, File outputFile) throws IOException {
+		run(vcfFile, null, outputFile);
+	}
+
+
+	/**
+	 * Transforms the header and the lines of a region of the specified VCF file and prints the result in the specified file
+	 * @param vcfFile a plain text or compressed VCF file
+	 * @param region region to transform. All the lines are transformed if null
+	 * @param outputFile file where the transformed lines are printed. The lines are printed in the standard output if null
+	 * @throws IOException if a file cannot be read or written or if a transform threw an exception
+	 */
+	public void run(File vcfFile, GenomicRegion region, File outputFile) throws IOException {
+		OutputSink output = new OutputSink(outputFile);
+		ExecutorService workers = Executors.newFixedThreadPool(threadCount, new DaemonThreadFactory());
+		BlockingQueue<Future<String>> pendingBatches = new ArrayBlockingQueue<>(threadCount * BATCHES_PER_THREAD);
+		VCFLineWriter writer = new VCFLineWriter(pendingBatches, output);
+		Thread writerThread = new DaemonThreadFactory().newThread(writer);
+		writerThread.start();
+		BufferedReader reader = null;
+		try {
+			reader = GenomicFileReader.open(vcfFile, region);
+			VCFLineTransform headerTransform = transformFactory.createTransform();
+			StringBuilder headerLines = new StringBuilder();
+			List<String> batch = new ArrayList<>(BATCH_SIZE);
+			String line = null;
+			// loop until eof or until a batch fails
+			while ((writer.getException() == null) && ((line = reader.readLine()) != null)) {
+				// a line starting with a # is a comment line
+				if (line.charAt(0) == '#') {
+					if (!batch.isEmpty()) {
+						pendingBatches.put(workers.submit(createBatchTask(batch)));
+						batch = new ArrayList<>(BATCH_SIZE);
+					}
+					String transformedLine = headerTransform.transformHeaderLine(line);
+					if (transformedLine != null) {
+						headerLines.append(transformedLine).append(LINE_SEPARATOR);
+					}
+				} else {
+					if (headerLines.length() > 0) {
+						pendingBatches.put(workers.submit(createTextTask(headerLines.toString())));
+						headerLines.setLength(0);
+					}
+					batch.add(line);
+					if (batch.size() == BATCH_SIZE) {
+						pendingBatches.put(workers.submit(createBatchTask(batch)));
+						batch = new ArrayList<>(BATCH_SIZE);
+					}
+				}
+			}
+			if (headerLines.length() > 0) {
+				pendingBatches.put(workers.submit(createTextTask(headerLines.toString())));
+			}
+			if (!batch.isEmpty()) {
+				pendingBatches.put(workers.submit(createBatchTask(batch)));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading " + vcfFile.getPath());
+		} finally {
+			// the lines read before an error are still printed
+			try {
+				pendingBatches.put(END_OF_FILE);
+				writerThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				workers.shutdownNow();
+				if (reader != null) {
+					reader.close();
+				}
+				output.close();
+			}
+		}
+		if (writer.getException() != null) {
+			throw ChromosomeExecutor.rethrowCause(writer.getException());
+		}
+	}
+
+
+	/**
+	 * @param batch a batch of variant lines
+	 * @return a task transforming the specified lines with the transform of the worker thread
+	 */
+	private Callable<String> createBatchTask(final List<String> batch) {
+		return new Callable<String>() {
+			@Override
+			public String call() {
+				VCFLineTransform transform = workerTransforms.get();
+				StringBuilder transformedBatch = new StringBuilder(batch.size() * 128);
+				for (String currentLine: batch) {
+					String transformedLine = transform.transformVariantLine(currentLine);
+					if (transformedLine != null) {
+						transformedBatch.append(transformedLine).append(LINE_SEPARATOR);
+					}
+				}
+				return transformedBatch.toString();
+			}
+		};
+	}
+
+
+	/**
+	 * @param text some text
+	 * @return a task returning the specified text
+	 */
+	private static Callable<String> createTextTask(final String text) {
+		return new Callable<String>() {
+			@Override
+			public String call() {
+				return text;
+			}
+		};
+	}
+
+
+	/**
+	 * @param batch a future from the writer queue
+	 * @return true if the specified future marks the end of the batches
+	 */
+	static boolean isEndOfFile(Future<String> batch) {
+		return batch == END_OF_FILE;
+	}
+}
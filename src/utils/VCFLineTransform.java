@@ -0,0 +1,27 @@
+package utils;
+
+
+/**
+ * Transformation applied to the lines of a VCF file by a {@link VCFLinePipeline}.
+ * An instance is only used by one thread so it can keep a parser or a sweep between two lines
+ * @author Julien Lajugie
+ */
+public interface VCFLineTransform {
+
+	/**
+	 * Transforms a header line (ie: a line starting with a #).
+	 * The header lines are transformed in file order by the thread reading the file
+	 * @param line a header line
+	 * @return the lines to print (several lines can be separated by {@link System#lineSeparator()}). Null to drop the line
+	 */
+	public String transformHeaderLine(String line);
+
+
+	/**
+	 * Transforms a variant line. The variant lines are transformed concurrently by the worker threads
+	 * but the results are printed in the order of the input file
+	 * @param line a variant line
+	 * @return the line to print. Null to drop the line
+	 */
+	public String transformVariantLine(String line);
+}
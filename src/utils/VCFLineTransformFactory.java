@@ -0,0 +1,15 @@
+package utils;
+
+
+/**
+ * Creates the {@link VCFLineTransform} used by the threads of a {@link VCFLinePipeline}
+ * @author Julien Lajugie
+ */
+public interface VCFLineTransformFactory {
+
+	/**
+	 * Creates a new transform. Each thread of the pipeline creates its own transform
+	 * @return a new {@link VCFLineTransform}
+	 */
+	public VCFLineTransform createTransform();
+}
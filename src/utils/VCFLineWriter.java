@@ -0,0 +1,63 @@
+package utils;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+
+/**
+ * Prints the batches transformed by the worker threads of a {@link VCFLinePipeline} in the order of the input file.
+ * After the first failed batch the remaining batches are cancelled but the writer keeps emptying the queue
+ * until the end of the file so the reading thread is never blocked
+ * @author Julien Lajugie
+ */
+class VCFLineWriter implements Runnable {
+
+	private final BlockingQueue<Future<String>> pendingBatches;	// batches in the order of the input file
+	private final OutputSink 					output;			// sink where the batches are printed
+	private volatile ExecutionException 		exception;		// exception of the first failed batch, null if none
+
+
+	/**
+	 * Creates an instance of {@link VCFLineWriter}
+	 * @param pendingBatches batches in the order of the input file
+	 * @param output sink where the batches are printed
+	 */
+	VCFLineWriter(BlockingQueue<Future<String>> pendingBatches, OutputSink output) {
+		this.pendingBatches = pendingBatches;
+		this.output = output;
+		exception = null;
+	}
+
+
+	@Override
+	public void run() {
+		try {
+			Future<String> currentBatch;
+			while (!VCFLinePipeline.isEndOfFile(currentBatch = pendingBatches.take())) {
+				if (exception != null) {
+					currentBatch.cancel(true);
+				} else {
+					try {
+						output.print(currentBatch.get());
+					} catch (ExecutionException e) {
+						exception = e;
+					} catch (IOException e) {
+						exception = new ExecutionException(e);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			exception = new ExecutionException(e);
+		}
+	}
+
+
+	/**
+	 * @return the exception of the first batch that failed. Null if no batch failed
+	 */
+	ExecutionException getException() {
+		return exception;
+	}
+}